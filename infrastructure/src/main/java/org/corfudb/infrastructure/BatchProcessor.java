@@ -1,16 +1,24 @@
 package org.corfudb.infrastructure;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
 
 import javax.annotation.Nonnull;
 
@@ -18,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.corfudb.infrastructure.BatchWriterOperation.Type;
 import org.corfudb.infrastructure.log.StreamLog;
+import org.corfudb.infrastructure.log.StreamLogFiles;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
@@ -27,51 +36,104 @@ import org.corfudb.protocols.wireprotocol.TrimRequest;
 import org.corfudb.protocols.wireprotocol.WriteRequest;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
+import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.MetricsUtils;
 
 /**
  * This class manages access for operations that need ordering while executing against
  * the backing storage.
+ *
+ * <p>Operations are processed in groups (group commit): all the operations queued
+ * while the previous group was being written are drained into the next group, the
+ * writes of a group are coalesced into a single disk write per segment and the whole
+ * group is synced with a single fsync before the operations are completed. The size of
+ * a group adapts to the queue depth and to the time it takes to commit a group.
+ *
+ * <p>Writes can be spread over multiple independent lanes, each one with its own queue
+ * and thread. Writes are hashed to a lane by segment, so all the writes of a segment are
+ * ordered by a single lane. Seals are processed by every lane, and all the other
+ * operations (trims, resets, queries and range writes that cross a segment boundary)
+ * are barriers: they only execute once every lane has processed the operations queued
+ * before them.
  */
 @Slf4j
 public class BatchProcessor implements AutoCloseable {
 
-    final private int BATCH_SIZE = 50;
+    static final String GROUP_SIZE_METRIC = CorfuComponent.INFRA_STREAM_OPS + "group-commit.size";
+    static final String GROUP_FSYNC_METRIC = CorfuComponent.INFRA_STREAM_OPS + "group-commit.fsync";
+    static final String GROUP_QUEUE_WAIT_METRIC = CorfuComponent.INFRA_STREAM_OPS + "group-commit.queue-wait";
+
+    /**
+     * Bounds and initial value of the adaptive group size.
+     */
+    static final int MIN_GROUP_SIZE = 8;
+    static final int MAX_GROUP_SIZE = 2048;
+    static final int INITIAL_GROUP_SIZE = 50;
+
+    /**
+     * The time a group is allowed to take to be written and synced, beyond which the
+     * group size shrinks.
+     */
+    static final Duration DEFAULT_GROUP_LATENCY_TARGET = Duration.ofMillis(5);
+
+    /**
+     * How often a lane waiting at a barrier checks that the other lanes are still running.
+     */
+    static final Duration BARRIER_CHECK_INTERVAL = Duration.ofMillis(100);
 
     final private boolean sync;
 
     final private StreamLog streamLog;
 
-    final private BlockingQueue<BatchWriterOperation> operationsQueue;
-
-    private ExecutorService processorService = Executors
-            .newSingleThreadExecutor(new ThreadFactoryBuilder()
-                    .setDaemon(false)
-                    .setNameFormat("LogUnit-BatchProcessor-%d")
-                    .build());
+    final private long groupLatencyTargetNanos;
 
     /**
-     * The sealEpoch is the epoch up to which all operations have been sealed. Any
-     * BatchWriterOperation arriving after the sealEpoch with an epoch less than the sealEpoch
-     * is completed exceptionally with a WrongEpochException.
-     * This is persisted in the ServerContext by the LogUnitServer to withstand restarts.
+     * The write lanes, lane 0 also executes the barrier operations.
      */
-    private long sealEpoch;
+    final private Lane[] lanes;
+
+    private final Histogram groupSizeHistogram = ServerContext.getMetrics().histogram(GROUP_SIZE_METRIC);
+    private final Timer fsyncTimer = ServerContext.getMetrics().timer(GROUP_FSYNC_METRIC);
+    private final Timer queueWaitTimer = ServerContext.getMetrics().timer(GROUP_QUEUE_WAIT_METRIC);
 
     /**
-     * Returns a new BatchProcessor for a stream log.
+     * Returns a new BatchProcessor for a stream log, with a single write lane.
      *
-     * @param streamLog      stream log for writes (can be in memory or file)
-     * @param sealEpoch All operations stamped with epoch less than the epochWaterMark are
-     *                       discarded.
      * @param streamLog the backing log (can be in memory or file)
-     * @param sync    If true, the batch writer will sync writes to secondary storage
+     * @param sealEpoch All operations stamped with an epoch less than the seal epoch are
+     *                  discarded.
+     * @param sync      If true, the batch writer will sync writes to secondary storage
      */
     public BatchProcessor(StreamLog streamLog, long sealEpoch, boolean sync) {
-        this.sealEpoch = sealEpoch;
+        this(streamLog, sealEpoch, sync, 1, DEFAULT_GROUP_LATENCY_TARGET);
+    }
+
+    /**
+     * Returns a new BatchProcessor for a stream log.
+     *
+     * @param streamLog          the backing log (can be in memory or file)
+     * @param sealEpoch          All operations stamped with epoch less than the epochWaterMark are
+     *                           discarded.
+     * @param sync               If true, the batch writer will sync writes to secondary storage
+     * @param numLanes           the number of independent write lanes
+     * @param groupLatencyTarget the time a group commit should take, used to adapt the group size
+     */
+    public BatchProcessor(StreamLog streamLog, long sealEpoch, boolean sync, int numLanes,
+                          @Nonnull Duration groupLatencyTarget) {
+        Preconditions.checkArgument(numLanes > 0, "numLanes must be positive: %s", numLanes);
         this.sync = sync;
         this.streamLog = streamLog;
-        operationsQueue = new LinkedBlockingQueue<>();
-        processorService.submit(this::processor);
+        this.groupLatencyTargetNanos = groupLatencyTarget.toNanos();
+
+        if (!sync) {
+            log.warn("batchWriteProcessor: writes configured to not sync with secondary storage");
+        }
+
+        lanes = new Lane[numLanes];
+        for (int id = 0; id < numLanes; id++) {
+            lanes[id] = new Lane(id, sealEpoch);
+            lanes[id].start();
+        }
     }
 
     /**
@@ -81,136 +143,429 @@ public class BatchProcessor implements AutoCloseable {
      * @return returns a future result for the request, if it expects one
      */
     public <T> CompletableFuture <T> addTask(@Nonnull Type type, @Nonnull CorfuPayloadMsg msg) {
-        BatchWriterOperation<T> operation = new BatchWriterOperation<>(type, msg);
-        operationsQueue.add(operation);
-        return operation.getFutureResult();
+        if (lanes.length == 1) {
+            BatchWriterOperation<T> operation = new BatchWriterOperation<>(type, msg);
+            lanes[0].operationsQueue.add(operation);
+            return operation.getFutureResult();
+        }
+
+        int lane = getLane(type, msg);
+        if (lane >= 0) {
+            BatchWriterOperation<T> operation = new BatchWriterOperation<>(type, msg);
+            lanes[lane].operationsQueue.add(operation);
+            return operation.getFutureResult();
+        } else if (type == Type.SEAL) {
+            return broadcastSeal(msg);
+        } else {
+            BarrierOperation<T> barrier = new BarrierOperation<>(type, msg, lanes.length);
+            broadcast(laneId -> barrier);
+            return barrier.getFutureResult();
+        }
+    }
+
+    /**
+     * Returns the lane that processes an operation, or -1 if it has to be processed by
+     * all the lanes.
+     */
+    private int getLane(Type type, CorfuPayloadMsg msg) {
+        switch (type) {
+            case WRITE:
+                WriteRequest write = (WriteRequest) msg.getPayload();
+                return getLaneForAddress(write.getGlobalAddress());
+            case RANGE_WRITE:
+                List<LogData> entries = ((RangeWriteMsg) msg.getPayload()).getEntries();
+                if (entries.isEmpty()) {
+                    // Processed as with a single lane
+                    return 0;
+                }
+                long firstSegment = entries.get(0).getGlobalAddress() / StreamLogFiles.RECORDS_PER_LOG_FILE;
+                long lastSegment = entries.get(entries.size() - 1).getGlobalAddress()
+                        / StreamLogFiles.RECORDS_PER_LOG_FILE;
+                return firstSegment == lastSegment ? getLaneForAddress(entries.get(0).getGlobalAddress()) : -1;
+            default:
+                return -1;
+        }
     }
 
-    private void processor() {
+    private int getLaneForAddress(long address) {
+        return (int) ((address / StreamLogFiles.RECORDS_PER_LOG_FILE) % lanes.length);
+    }
 
-        if (!sync) {
-            log.warn("batchWriteProcessor: writes configured to not sync with secondary storage");
+    /**
+     * Seal every lane, the seal completes once all the lanes have flushed the
+     * operations queued before it.
+     */
+    private <T> CompletableFuture<T> broadcastSeal(CorfuPayloadMsg msg) {
+        List<BatchWriterOperation<T>> seals = new ArrayList<>(lanes.length);
+        broadcast(laneId -> {
+            BatchWriterOperation<T> seal = new BatchWriterOperation<>(Type.SEAL, msg);
+            seals.add(seal);
+            return seal;
+        });
+
+        CompletableFuture[] futures = seals.stream()
+                .map(BatchWriterOperation::getFutureResult)
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).thenApply(v -> null);
+    }
+
+    /**
+     * Queue an operation on every lane. Broadcasts are serialized, so that all the
+     * lanes observe the broadcast operations in the same order.
+     */
+    private synchronized void broadcast(IntFunction<BatchWriterOperation> operations) {
+        for (Lane lane : lanes) {
+            lane.operationsQueue.add(operations.apply(lane.id));
         }
+    }
 
-        try {
-            BatchWriterOperation lastOp = null;
-            int processed = 0;
-            List<BatchWriterOperation> res = new LinkedList<>();
+    /**
+     * An operation that is queued on every lane, and executed by lane 0 once all
+     * the lanes have reached it.
+     */
+    private static class BarrierOperation<T> extends BatchWriterOperation<T> {
+        private final CountDownLatch arrived;
+        private final CountDownLatch executed = new CountDownLatch(1);
+
+        BarrierOperation(Type type, CorfuPayloadMsg msg, int numLanes) {
+            super(type, msg);
+            this.arrived = new CountDownLatch(numLanes);
+        }
+    }
 
-            while (true) {
-                BatchWriterOperation currOp;
+    /**
+     * A single write lane, which processes its operations in order on its own thread.
+     */
+    private class Lane {
+        final int id;
 
-                if (lastOp == null) {
-                    currOp = operationsQueue.take();
-                } else {
-                    currOp = operationsQueue.poll();
-
-                    if (currOp == null || processed == BATCH_SIZE
-                            || currOp == BatchWriterOperation.SHUTDOWN) {
-                        streamLog.sync(sync);
-                        log.trace("Completed {} operations", processed);
-
-                        for (BatchWriterOperation operation : res) {
-                            if (!operation.getFutureResult().isCompletedExceptionally()
-                            && !operation.getFutureResult().isCancelled()) {
-                                // At this point we need to complete the requests
-                                // that completed successfully (i.e. haven't failed)
-                                operation.getFutureResult().complete(operation.getResultValue());
-                            }
+        final BlockingQueue<BatchWriterOperation> operationsQueue = new LinkedBlockingQueue<>();
+
+        /**
+         * The sealEpoch is the epoch up to which all operations have been sealed. Any
+         * BatchWriterOperation arriving after the sealEpoch with an epoch less than the sealEpoch
+         * is completed exceptionally with a WrongEpochException.
+         * This is persisted in the ServerContext by the LogUnitServer to withstand restarts.
+         */
+        private long sealEpoch;
+
+        /**
+         * The maximum number of operations in the next group. Only accessed by the lane thread.
+         */
+        private int groupSize = INITIAL_GROUP_SIZE;
+
+        private ExecutorService processorService;
+
+        /**
+         * Set once the lane stopped processing operations, after a shutdown or a failure.
+         */
+        private volatile boolean stopped = false;
+
+        Lane(int id, long sealEpoch) {
+            this.id = id;
+            this.sealEpoch = sealEpoch;
+        }
+
+        void start() {
+            stopped = false;
+            processorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(false)
+                    .setNameFormat("LogUnit-BatchProcessor-" + id + "-%d")
+                    .build());
+            processorService.submit(this::processor);
+        }
+
+        void stop() throws InterruptedException {
+            operationsQueue.add(BatchWriterOperation.SHUTDOWN);
+            processorService.shutdown();
+            processorService.awaitTermination(ServerContext.SHUTDOWN_TIMER.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void processor() {
+            try {
+                List<BatchWriterOperation> group = new ArrayList<>();
+
+                while (true) {
+                    // Block for the first operation of a group, then drain the operations that
+                    // queued up in the meantime. A shutdown or a barrier always terminates the
+                    // group, so that the operations queued after them are left in the queue.
+                    BatchWriterOperation currOp = operationsQueue.take();
+                    BarrierOperation barrier = null;
+                    while (currOp != null) {
+                        if (currOp instanceof BarrierOperation) {
+                            barrier = (BarrierOperation) currOp;
+                            break;
+                        }
+                        group.add(currOp);
+                        if (currOp == BatchWriterOperation.SHUTDOWN || group.size() >= groupSize) {
+                            break;
                         }
-                        res.clear();
-                        processed = 0;
+                        currOp = operationsQueue.poll();
+                    }
+
+                    boolean shutdown = !group.isEmpty() && processGroup(group);
+                    group.clear();
+
+                    if (shutdown) {
+                        log.warn("Shutting down the write processor {}", id);
+                        streamLog.sync(true);
+                        break;
+                    }
+
+                    if (barrier != null) {
+                        passBarrier(barrier);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Caught exception in the write processor {}", id, e);
+            } finally {
+                stopped = true;
+            }
+        }
+
+        /**
+         * Wait until all the lanes reach a barrier, lane 0 executes the barrier operation
+         * while the other lanes wait for it to complete. The barrier fails if a lane
+         * stops before reaching it, and the other lanes move past it.
+         */
+        private void passBarrier(BarrierOperation barrier) throws IOException, InterruptedException {
+            barrier.arrived.countDown();
+            if (id == 0) {
+                try {
+                    if (awaitLanes(barrier, barrier.arrived)) {
+                        processGroup(Collections.singletonList(barrier));
+                    }
+                } finally {
+                    barrier.executed.countDown();
+                }
+            } else {
+                awaitLanes(barrier, barrier.executed);
+            }
+        }
+
+        /**
+         * Wait for a barrier latch while all the lanes are running.
+         *
+         * @return true if the latch was released, false if a lane stopped and the
+         *         barrier was failed
+         */
+        private boolean awaitLanes(BarrierOperation barrier, CountDownLatch latch)
+                throws InterruptedException {
+            while (!latch.await(BARRIER_CHECK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS)) {
+                for (Lane lane : lanes) {
+                    if (lane.stopped) {
+                        log.error("passBarrier: lane {} stopped, failing {}", lane.id, barrier.getType());
+                        barrier.getFutureResult().completeExceptionally(
+                                new IllegalStateException("BatchProcessor lane " + lane.id + " is stopped"));
+                        return false;
                     }
                 }
+            }
+            return true;
+        }
+
+        /**
+         * Process a group of operations and commit them with a single sync.
+         *
+         * @param group the operations to process, in arrival order
+         * @return true if the group contained a shutdown operation
+         * @throws IOException if the stream log can't be synced
+         */
+        private boolean processGroup(List<BatchWriterOperation> group) throws IOException {
+            final long groupStart = System.nanoTime();
+            final boolean metricsEnabled = MetricsUtils.isMetricsCollectionEnabled();
+            boolean shutdown = false;
+
+            // Consecutive single writes are coalesced and appended together
+            List<BatchWriterOperation> pendingWrites = new ArrayList<>();
 
-                if (currOp == null) {
-                    lastOp = null;
-                } else if (currOp == BatchWriterOperation.SHUTDOWN) {
-                    log.warn("Shutting down the write processor");
-                    streamLog.sync(true);
+            for (BatchWriterOperation currOp : group) {
+                if (currOp == BatchWriterOperation.SHUTDOWN) {
+                    shutdown = true;
                     break;
-                } else if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
+                }
+
+                if (metricsEnabled) {
+                    queueWaitTimer.update(groupStart - currOp.getEnqueueTime(), TimeUnit.NANOSECONDS);
+                }
+
+                if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
                     log.info("batchWriteProcessor: updating from {} to {}", sealEpoch, currOp.getMsg().getEpoch());
                     sealEpoch = currOp.getMsg().getEpoch();
-                    res.add(currOp);
-                    processed++;
-                    lastOp = currOp;
                 } else if (currOp.getMsg().getEpoch() != sealEpoch) {
                     log.warn("batchWriteProcessor: wrong epoch on {} msg, seal epoch is {}, and msg epoch is {}",
                             currOp.getType(), sealEpoch, currOp.getMsg().getEpoch());
                     currOp.getFutureResult().completeExceptionally(new WrongEpochException(sealEpoch));
-                    res.add(currOp);
-                    processed++;
-                    lastOp = currOp;
+                } else if (isGroupableWrite(currOp)) {
+                    pendingWrites.add(currOp);
                 } else {
-                    try {
-                        switch (currOp.getType()) {
-                            case PREFIX_TRIM:
-                                TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
-                                streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
-                                break;
-                            case WRITE:
-                                WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
-                                streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
-                                break;
-                            case RANGE_WRITE:
-                                RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
-                                streamLog.append(writeRange.getEntries());
-                                break;
-                            case RESET:
-                                streamLog.reset();
-                                break;
-                            case TAILS_QUERY:
-                                TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
-                                TailsResponse tails;
+                    // Every other operation has to observe the writes that were queued before it
+                    appendWrites(pendingWrites);
+                    process(currOp);
+                }
+            }
 
-                                switch (tailsRequest.getReqType()) {
-                                    case TailsRequest.LOG_TAIL:
-                                        tails = new TailsResponse(streamLog.getLogTail());
-                                        break;
+            appendWrites(pendingWrites);
 
-                                    case TailsRequest.STREAMS_TAILS:
-                                        tails = streamLog.getTails(tailsRequest.getStreams());
-                                        break;
+            try (Timer.Context context = MetricsUtils.getConditionalContext(metricsEnabled, fsyncTimer)) {
+                streamLog.sync(sync);
+            }
 
-                                    default:
-                                        tails = streamLog.getAllTails();
-                                        break;
-                                }
+            int processed = 0;
+            for (BatchWriterOperation operation : group) {
+                if (operation == BatchWriterOperation.SHUTDOWN) {
+                    break;
+                }
+                processed++;
+                if (!operation.getFutureResult().isCompletedExceptionally()
+                        && !operation.getFutureResult().isCancelled()) {
+                    // At this point we need to complete the requests
+                    // that completed successfully (i.e. haven't failed)
+                    operation.getFutureResult().complete(operation.getResultValue());
+                }
+            }
 
-                                currOp.setResultValue(tails);
+            log.trace("Completed {} operations", processed);
+            if (metricsEnabled) {
+                groupSizeHistogram.update(processed);
+            }
+            adaptGroupSize(processed, System.nanoTime() - groupStart);
+            return shutdown;
+        }
+
+        /**
+         * Grow the group size while the queue keeps more operations than a group can hold,
+         * and shrink it when committing a group exceeds the latency target.
+         *
+         * @param processed      the number of operations in the last group
+         * @param groupLatency   the time it took to process and sync the last group in nanoseconds
+         */
+        private void adaptGroupSize(int processed, long groupLatency) {
+            if (groupLatency > groupLatencyTargetNanos && groupSize > MIN_GROUP_SIZE) {
+                groupSize = Math.max(MIN_GROUP_SIZE, groupSize / 2);
+                log.trace("adaptGroupSize: group latency {}ns, shrinking group size to {}",
+                        groupLatency, groupSize);
+            } else if (processed >= groupSize && operationsQueue.size() > groupSize
+                    && groupSize < MAX_GROUP_SIZE) {
+                groupSize = Math.min(MAX_GROUP_SIZE, groupSize * 2);
+                log.trace("adaptGroupSize: queue depth {}, growing group size to {}",
+                        operationsQueue.size(), groupSize);
+            }
+        }
+
+        /**
+         * Append the pending single writes as one group and fail the writes that can't be appended.
+         *
+         * @param pendingWrites pending write operations, cleared on return
+         */
+        private void appendWrites(List<BatchWriterOperation> pendingWrites) {
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+
+            List<LogData> entries = new ArrayList<>(pendingWrites.size());
+            for (BatchWriterOperation operation : pendingWrites) {
+                WriteRequest write = (WriteRequest) operation.getMsg().getPayload();
+                entries.add((LogData) write.getData());
+            }
+
+            try {
+                List<RuntimeException> failures = streamLog.appendGroup(entries);
+                for (int idx = 0; idx < pendingWrites.size(); idx++) {
+                    if (failures.get(idx) != null) {
+                        log.debug("batchWriteProcessor: write to {} failed", entries.get(idx).getGlobalAddress(),
+                                failures.get(idx));
+                        pendingWrites.get(idx).getFutureResult().completeExceptionally(failures.get(idx));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Stream log error. Group of {} writes [queue size={}]. StreamLog: [trim mark: {}, tails: {}].",
+                        pendingWrites.size(), operationsQueue.size(), streamLog.getTrimMark(),
+                        streamLog.getAllTails(), e
+                );
+                pendingWrites.forEach(operation -> operation.getFutureResult().completeExceptionally(e));
+            }
+
+            pendingWrites.clear();
+        }
+
+        /**
+         * Execute a single operation against the stream log.
+         *
+         * @param currOp the operation to execute
+         */
+        private void process(BatchWriterOperation currOp) {
+            try {
+                switch (currOp.getType()) {
+                    case PREFIX_TRIM:
+                        TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
+                        streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
+                        break;
+                    case WRITE:
+                        WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
+                        streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
+                        break;
+                    case RANGE_WRITE:
+                        RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
+                        streamLog.append(writeRange.getEntries());
+                        break;
+                    case RESET:
+                        streamLog.reset();
+                        break;
+                    case TAILS_QUERY:
+                        TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
+                        TailsResponse tails;
+
+                        switch (tailsRequest.getReqType()) {
+                            case TailsRequest.LOG_TAIL:
+                                tails = new TailsResponse(streamLog.getLogTail());
                                 break;
-                            case LOG_ADDRESS_SPACE_QUERY:
-                                // Retrieve the address space for every stream in the log.
-                                currOp.setResultValue(streamLog.getStreamsAddressSpace());
+
+                            case TailsRequest.STREAMS_TAILS:
+                                tails = streamLog.getTails(tailsRequest.getStreams());
                                 break;
+
                             default:
-                                log.warn("Unknown BatchWriterOperation {}", currOp);
+                                tails = streamLog.getAllTails();
+                                break;
                         }
-                    } catch (Exception e) {
-                        log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}, tails: {}].",
-                                operationsQueue.size(), streamLog.getTrimMark(), streamLog.getAllTails(), e
-                        );
-                        currOp.getFutureResult().completeExceptionally(e);
-                    }
-                    res.add(currOp);
 
-                    processed++;
-                    lastOp = currOp;
+                        currOp.setResultValue(tails);
+                        break;
+                    case LOG_ADDRESS_SPACE_QUERY:
+                        // Retrieve the address space for every stream in the log.
+                        currOp.setResultValue(streamLog.getStreamsAddressSpace());
+                        break;
+                    default:
+                        log.warn("Unknown BatchWriterOperation {}", currOp);
                 }
+            } catch (Exception e) {
+                log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}, tails: {}].",
+                        operationsQueue.size(), streamLog.getTrimMark(), streamLog.getAllTails(), e
+                );
+                currOp.getFutureResult().completeExceptionally(e);
             }
-        } catch (Exception e) {
-            log.error("Caught exception in the write processor ", e);
         }
     }
 
+    /**
+     * Single writes are coalesced unless they carry a rank, since ranked writes might
+     * replace existing entries.
+     */
+    private static boolean isGroupableWrite(BatchWriterOperation operation) {
+        if (operation.getType() != Type.WRITE) {
+            return false;
+        }
+        WriteRequest write = (WriteRequest) operation.getMsg().getPayload();
+        return write.getData().getRank() == null;
+    }
+
     @Override
     public void close() {
-        operationsQueue.add(BatchWriterOperation.SHUTDOWN);
-        processorService.shutdown();
         try {
-            processorService.awaitTermination(ServerContext.SHUTDOWN_TIMER.toMillis(),
-                    TimeUnit.MILLISECONDS);
+            for (Lane lane : lanes) {
+                lane.stop();
+            }
         } catch (InterruptedException e) {
             throw new UnrecoverableCorfuInterruptedError("BatchProcessor close interrupted.", e);
         }
@@ -220,18 +575,16 @@ public class BatchProcessor implements AutoCloseable {
     // through the logunit to know when all pending requests have been completed.
     @VisibleForTesting
     void startProcessor() {
-        processorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
-                .setDaemon(false)
-                .setNameFormat("LogUnit-BatchProcessor-%d")
-                .build());
-        processorService.submit(this::processor);
+        for (Lane lane : lanes) {
+            lane.start();
+        }
     }
 
     @VisibleForTesting
     void stopProcessor() throws Exception {
-        operationsQueue.add(BatchWriterOperation.SHUTDOWN);
-        processorService.shutdown();
-        processorService.awaitTermination(ServerContext.SHUTDOWN_TIMER.toMillis(), TimeUnit.MILLISECONDS);
+        for (Lane lane : lanes) {
+            lane.stop();
+        }
     }
 
-}
\ No newline at end of file
+}
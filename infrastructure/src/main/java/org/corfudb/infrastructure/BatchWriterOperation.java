@@ -30,6 +30,7 @@ public class BatchWriterOperation<T> {
     private final CorfuPayloadMsg msg;
     private T resultValue;
     private final CompletableFuture<T> futureResult = new CompletableFuture<>();
+    private final long enqueueTime = System.nanoTime();
 
     public static BatchWriterOperation<Void> SHUTDOWN = new BatchWriterOperation<>(Type.SHUTDOWN, null);
 }
\ No newline at end of file
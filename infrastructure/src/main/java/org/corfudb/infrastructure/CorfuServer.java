@@ -57,9 +57,9 @@ public class CorfuServer {
                     + "[--logunit-threads=<logunit_threads>] [--management-server-threads=<management_server_threads>]"
                     + "[-e [-u <keystore> -f <keystore_password_file>] [-r <truststore> -w <truststore_password_file>] "
                     + "[-b] [-g -o <username_file> -j <password_file>] "
-                    + "[-k <seqcache>] [-T <threads>] [-B <size>] [-i <channel-implementation>] "
+                    + "[-k <seqcache>] [--sequencer-threads=<threads>] [-T <threads>] [-B <size>] [-i <channel-implementation>] "
                     + "[-H <seconds>] [-I <cluster-id>] [-x <ciphers>] [-z <tls-protocols>]] "
-                    + "[-P <prefix>] [-R <retention>] [--agent] <port>\n"
+                    + "[-P <prefix>] [-R <retention>] [--mmap-reads] [--logunit-write-lanes=<lanes>] [--log-recovery-threads=<threads>] [--cache-offheap-size=<bytes>] [--in-process-transport] [--agent] <port>\n"
                     + "\n"
                     + "Options:\n"
                     + " -l <path>, --log-path=<path>                                             "
@@ -108,6 +108,9 @@ public class CorfuServer {
                     + "                                                                          "
                     + " -k <seqcache>, --sequencer-cache-size=<seqcache>                         "
                     + "               The size of the sequencer's cache. [default: 250000].\n    "
+                    + " --sequencer-threads=<threads>                                            "
+                    + "              Number of threads that serve the sequencer token requests, "
+                    + "0 uses the number of available processors. [default: 0]\n"
                     + " -B <size> --batch-size=<size>                                            "
                     + "              The read/write batch size used for data transfer operations [default: 100].\n"
                     + " -R <retention>, --metadata-retention=<retention>                         "
@@ -167,6 +170,20 @@ public class CorfuServer {
                     + " --logunit-threads=<logunit_threads>                  "
                     + "              Number of threads dedicated for the logunit server.\n"
                     + "                                                                          "
+                    + " --mmap-reads                                                             "
+                    + "              Serve reads of full log segments from memory-mapped files.\n"
+                    + " --logunit-write-lanes=<lanes>                                            "
+                    + "              Number of log unit write lanes, writes are spread over the lanes by "
+                    + "segment. [default: 1]\n"
+                    + " --log-recovery-threads=<threads>                                         "
+                    + "              Number of threads that scan and verify the log segments on startup, "
+                    + "0 uses the number of available processors. [default: 0]\n"
+                    + " --cache-offheap-size=<bytes>                                             "
+                    + "              Size of the off-heap tier of the log unit cache, which holds the "
+                    + "entries evicted from the in-memory cache, 0 disables it. [default: 0]\n"
+                    + " --in-process-transport                                                   "
+                    + "              Serve the runtimes of this process over an in-JVM channel, "
+                    + "which hands them messages without encoding them.\n"
                     + " --agent      Run with byteman agent to enable runtime code injection.\n  "
                     + " -h, --help                                                               "
                     + "              Show this screen\n"
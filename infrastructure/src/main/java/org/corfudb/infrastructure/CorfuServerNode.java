@@ -10,6 +10,7 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.local.LocalServerChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.ssl.SslContext;
@@ -25,12 +26,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.corfudb.comm.ChannelImplementation;
+import org.corfudb.comm.InProcessEndpoints;
 import org.corfudb.protocols.wireprotocol.NettyCorfuMessageDecoder;
 import org.corfudb.protocols.wireprotocol.NettyCorfuMessageEncoder;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
@@ -61,6 +65,9 @@ public class CorfuServerNode implements AutoCloseable {
 
     private ChannelFuture bindFuture;
 
+    // The in-JVM channel the runtimes of this process reach the server on
+    private Channel localChannel;
+
     /**
      * Corfu Server initialization.
      *
@@ -104,8 +111,18 @@ public class CorfuServerNode implements AutoCloseable {
                 router,
                 (String) serverContext.getServerConfig().get("--address"),
                 Integer.parseInt((String) serverContext.getServerConfig().get("<port>")));
+        bindFuture.syncUninterruptibly();
+
+        // Test servers already run on in-JVM channels
+        if (Boolean.TRUE.equals(serverContext.getServerConfig().get("--in-process-transport"))
+                && serverContext.getChannelImplementation() != ChannelImplementation.LOCAL) {
+            localChannel = bindLocalServer(serverContext.getBossGroup(),
+                    serverContext.getWorkerGroup(),
+                    serverContext,
+                    router);
+        }
 
-        return bindFuture.syncUninterruptibly();
+        return bindFuture;
     }
 
     /**
@@ -128,6 +145,10 @@ public class CorfuServerNode implements AutoCloseable {
         }
 
         log.info("close: Shutting down Corfu server and cleaning resources");
+        if (localChannel != null) {
+            InProcessEndpoints.unregister(serverContext.getLocalEndpoint());
+            localChannel.close().syncUninterruptibly();
+        }
         serverContext.close();
         bindFuture.channel().close().syncUninterruptibly();
 
@@ -236,6 +257,52 @@ public class CorfuServerNode implements AutoCloseable {
         }
     }
 
+    /**
+     * Bind the Corfu server to the in-JVM address of its endpoint, and register the
+     * endpoint in {@link InProcessEndpoints}, so that the runtimes of this process
+     * hand their messages to the {@code router} without encoding them or going
+     * through TCP. The channels neither frame, encode nor secure messages.
+     *
+     * @param bossGroup   The "boss" {@link EventLoopGroup} which services incoming
+     *                    connections.
+     * @param workerGroup The "worker" {@link EventLoopGroup} which services incoming
+     *                    requests.
+     * @param context     A {@link ServerContext} which will be used to configure
+     *                    the server.
+     * @param router      A {@link NettyServerRouter} which will process incoming
+     *                    messages.
+     * @return The bound {@link LocalServerChannel}, or null if the address could not be bound.
+     */
+    @Nullable
+    public Channel bindLocalServer(@Nonnull EventLoopGroup bossGroup,
+                                   @Nonnull EventLoopGroup workerGroup,
+                                   @Nonnull ServerContext context,
+                                   @Nonnull NettyServerRouter router) {
+        final String endpoint = context.getLocalEndpoint();
+        ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(bossGroup, workerGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer() {
+                    @Override
+                    protected void initChannel(@Nonnull Channel ch) throws Exception {
+                        ch.pipeline().addLast(getServerHandshakeHandler(context));
+                        ch.pipeline().addLast(router);
+                    }
+                });
+
+        ChannelFuture future = bootstrap.bind(InProcessEndpoints.getLocalAddress(endpoint))
+                .awaitUninterruptibly();
+        if (!future.isSuccess()) {
+            // The runtimes of this process fall back to TCP
+            log.warn("bindLocalServer: Failed to bind the in-JVM address of {}", endpoint,
+                    future.cause());
+            return null;
+        }
+        InProcessEndpoints.register(endpoint);
+        log.info("Corfu Server listening on in-JVM address of {}", endpoint);
+        return future.channel();
+    }
+
     /**
      * Configure server bootstrap per-channel options, such as TCP options, etc.
      *
@@ -250,6 +317,13 @@ public class CorfuServerNode implements AutoCloseable {
     }
 
 
+    private static ServerHandshakeHandler getServerHandshakeHandler(@Nonnull ServerContext context) {
+        return new ServerHandshakeHandler(context.getNodeId(),
+                Version.getVersionString() + "("
+                        + GitRepositoryState.getRepositoryState().commitIdAbbrev + ")",
+                context.getServerConfig(String.class, "--HandshakeTimeout"));
+    }
+
     /**
      * Obtain a {@link ChannelInitializer} which initializes the channel pipeline
      * for a new {@link ServerChannel}.
@@ -341,10 +415,7 @@ public class CorfuServerNode implements AutoCloseable {
                 // Transform the framed message into a Corfu message.
                 ch.pipeline().addLast(new NettyCorfuMessageDecoder());
                 ch.pipeline().addLast(new NettyCorfuMessageEncoder());
-                ch.pipeline().addLast(new ServerHandshakeHandler(context.getNodeId(),
-                        Version.getVersionString() + "("
-                                + GitRepositoryState.getRepositoryState().commitIdAbbrev + ")",
-                        context.getServerConfig(String.class, "--HandshakeTimeout")));
+                ch.pipeline().addLast(getServerHandshakeHandler(context));
                 // Route the message to the server class.
                 ch.pipeline().addLast(router);
             }
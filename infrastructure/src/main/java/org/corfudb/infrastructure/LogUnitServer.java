@@ -1,5 +1,7 @@
 package org.corfudb.infrastructure;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.CacheWriter;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalCause;
@@ -8,6 +10,7 @@ import io.netty.channel.ChannelHandlerContext;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.log.BulkReadResult;
 import org.corfudb.infrastructure.log.InMemoryStreamLog;
 import org.corfudb.infrastructure.log.StreamLog;
 import org.corfudb.infrastructure.log.StreamLogCompaction;
@@ -35,10 +38,16 @@ import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.exceptions.ValueAdoptedException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
+import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.OffHeapDataCache;
 import org.corfudb.util.Utils;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionException;
@@ -89,6 +98,13 @@ public class LogUnitServer extends AbstractServer {
      * storage.
      */
     private final LoadingCache<Long, ILogData> dataCache;
+
+    /**
+     * The off-heap tier of the data cache, it holds the serialized form of the entries
+     * evicted from the data cache. Null if the off-heap tier is disabled.
+     */
+    @Nullable
+    private final OffHeapDataCache offHeapCache;
     private final StreamLog streamLog;
     private final StreamLogCompaction logCleaner;
     private final BatchProcessor batchWriter;
@@ -128,13 +144,49 @@ public class LogUnitServer extends AbstractServer {
             streamLog = new StreamLogFiles(serverContext, config.isNoVerify());
         }
 
-        batchWriter = new BatchProcessor(streamLog, serverContext.getServerEpoch(), !config.isNoSync());
+        batchWriter = new BatchProcessor(streamLog, serverContext.getServerEpoch(), !config.isNoSync(),
+                serverContext.getLogUnitWriteLanes(), BatchProcessor.DEFAULT_GROUP_LATENCY_TARGET);
 
-        dataCache = Caffeine.newBuilder()
+        Caffeine<Long, ILogData> cacheBuilder = Caffeine.newBuilder()
                 .<Long, ILogData>weigher((k, v) -> ((LogData) v).getData() == null ? 1 : ((LogData) v).getData().length)
                 .maximumWeight(config.getMaxCacheSize())
-                .removalListener(this::handleEviction)
-                .build(this::handleRetrieval);
+                .removalListener(this::handleEviction);
+
+        if (config.getMaxOffHeapCacheSize() > 0) {
+            offHeapCache = new OffHeapDataCache(config.getMaxOffHeapCacheSize(),
+                    CorfuComponent.INFRA_STREAM_OPS + "offheap-cache.", ServerContext.getMetrics());
+            // The writer moves an evicted entry to the off-heap tier atomically with its
+            // eviction, which still runs on the maintenance executor of the cache, so that
+            // it can't be moved there after the entry has been replaced or invalidated
+            cacheBuilder.writer(new CacheWriter<Long, ILogData>() {
+                @Override
+                public void write(@Nonnull Long address, @Nonnull ILogData entry) {
+                    // Written entries are persisted by the stream log
+                }
+
+                @Override
+                public void delete(@Nonnull Long address, @Nullable ILogData entry,
+                                   @Nonnull RemovalCause cause) {
+                    if (cause == RemovalCause.SIZE && entry != null) {
+                        offHeapCache.put(address, entry);
+                    }
+                }
+            });
+        } else {
+            offHeapCache = null;
+        }
+
+        dataCache = cacheBuilder.build(new CacheLoader<Long, ILogData>() {
+            @Override
+            public ILogData load(@Nonnull Long address) {
+                return handleRetrieval(address);
+            }
+
+            @Override
+            public Map<Long, ILogData> loadAll(@Nonnull Iterable<? extends Long> addresses) {
+                return handleBulkRetrieval(addresses);
+            }
+        });
 
         logCleaner = new StreamLogCompaction(streamLog, 10, 45, TimeUnit.MINUTES, ServerContext.SHUTDOWN_TIMER);
     }
@@ -215,7 +267,7 @@ public class LogUnitServer extends AbstractServer {
 
         batchWriter.addTask(WRITE, msg)
                 .thenRunAsync(() -> {
-                    dataCache.put(msg.getPayload().getGlobalAddress(), logData);
+                    updateCache(msg.getPayload().getGlobalAddress(), logData);
                     r.sendResponse(ctx, msg, CorfuMsgType.WRITE_OK.msg());
                 }, executor).exceptionally(ex -> {
                     handleException(ex, ctx, msg, r);
@@ -256,7 +308,7 @@ public class LogUnitServer extends AbstractServer {
 
         batchWriter.addTask(WRITE, writeReq)
                 .thenRunAsync(() -> {
-                    dataCache.put(address.getSequence(), writeReq.getPayload().getData());
+                    updateCache(address.getSequence(), writeReq.getPayload().getData());
                     r.sendResponse(ctx, msg, CorfuMsgType.WRITE_OK.msg());
                 }, executor).exceptionally(ex -> {
                     handleException(ex, ctx, msg, r);
@@ -307,8 +359,11 @@ public class LogUnitServer extends AbstractServer {
 
         ReadResponse rr = new ReadResponse();
         try {
+            // Misses are loaded in bulk, so that they are read from disk sequentially.
+            // The addresses that are not returned are unwritten.
+            Map<Long, ILogData> entries = dataCache.getAll(msg.getPayload().getAddresses());
             for (Long l : msg.getPayload().getAddresses()) {
-                ILogData e = dataCache.get(l);
+                ILogData e = entries.get(l);
                 if (e == null) {
                     rr.put(l, LogData.getEmpty(l));
                 } else {
@@ -317,6 +372,9 @@ public class LogUnitServer extends AbstractServer {
             }
             r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
         } catch (DataCorruptionException e) {
+            // The read response can't carry a per address error
+            log.error("multiRead: failing read of {} addresses",
+                    msg.getPayload().getAddresses().size(), e);
             r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
         }
     }
@@ -331,7 +389,7 @@ public class LogUnitServer extends AbstractServer {
     @ServerHandler(type = CorfuMsgType.FLUSH_CACHE)
     private void handleFlushCacheRequest(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
         log.debug("handleFlushCacheRequest: received a cache flush request {}", msg);
-        dataCache.invalidateAll();
+        invalidateCache();
         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
     }
 
@@ -384,7 +442,7 @@ public class LogUnitServer extends AbstractServer {
             serverContext.setLogUnitEpochWaterMark(msg.getPayload());
             batchWriter.addTask(RESET, msg)
                     .thenRun(() -> {
-                        dataCache.invalidateAll();
+                        invalidateCache();
                         log.info("LogUnit Server Reset.");
                         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
                     }).exceptionally(ex -> {
@@ -408,15 +466,76 @@ public class LogUnitServer extends AbstractServer {
      * unwritten (null).
      */
     private ILogData handleRetrieval(long address) {
+        if (offHeapCache != null) {
+            ILogData cached = offHeapCache.get(address);
+            if (cached != null) {
+                log.trace("Retrieved[{} : {}] from off-heap cache", address, cached);
+                return cached;
+            }
+        }
+
         LogData entry = streamLog.read(address);
         log.trace("Retrieved[{} : {}]", address, entry);
         return entry;
     }
 
+    /**
+     * Retrieve the LogUnitEntries of several addresses from disk, reading the entries
+     * that are not in the off-heap cache with a single batched read.
+     *
+     * @param addresses The addresses to retrieve the entries from.
+     * @return The log unit entries to retrieve into the cache, unwritten addresses are omitted.
+     * @throws DataCorruptionException If the entry of any of the addresses is corrupted.
+     */
+    private Map<Long, ILogData> handleBulkRetrieval(Iterable<? extends Long> addresses) {
+        Map<Long, ILogData> entries = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long address : addresses) {
+            ILogData cached = offHeapCache == null ? null : offHeapCache.get(address);
+            if (cached != null) {
+                entries.put(address, cached);
+            } else {
+                misses.add(address);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            BulkReadResult result = streamLog.readAll(misses);
+            if (!result.getCorruptedAddresses().isEmpty()) {
+                throw new DataCorruptionException("Corrupted addresses " + result.getCorruptedAddresses());
+            }
+            entries.putAll(result.getEntries());
+        }
+        log.trace("Retrieved[{} entries]", entries.size());
+        return entries;
+    }
+
     private void handleEviction(long address, ILogData entry, RemovalCause cause) {
         log.trace("Eviction[{}]: {}", address, cause);
     }
 
+    /**
+     * Adds a written entry to the data cache, replacing any entry of the off-heap tier.
+     * The off-heap entry is invalidated once the data cache holds the new entry, since
+     * the eviction of a previous entry may still move it to the off-heap tier until then.
+     */
+    private void updateCache(long address, ILogData entry) {
+        dataCache.put(address, entry);
+        if (offHeapCache != null) {
+            offHeapCache.invalidate(address);
+        }
+    }
+
+    /**
+     * Invalidates all the entries of the data cache and of its off-heap tier.
+     */
+    private void invalidateCache() {
+        dataCache.invalidateAll();
+        if (offHeapCache != null) {
+            offHeapCache.invalidateAll();
+        }
+    }
+
     /**
      * Shutdown the server.
      */
@@ -425,6 +544,9 @@ public class LogUnitServer extends AbstractServer {
         super.shutdown();
         logCleaner.shutdown();
         batchWriter.close();
+        if (offHeapCache != null) {
+            offHeapCache.close();
+        }
     }
 
     @VisibleForTesting
@@ -432,6 +554,12 @@ public class LogUnitServer extends AbstractServer {
         return dataCache;
     }
 
+    @VisibleForTesting
+    @Nullable
+    OffHeapDataCache getOffHeapCache() {
+        return offHeapCache;
+    }
+
     @VisibleForTesting
     long getMaxCacheSize() {
         return config.getMaxCacheSize();
@@ -464,6 +592,7 @@ public class LogUnitServer extends AbstractServer {
     public static class LogUnitServerConfig {
         private final double cacheSizeHeapRatio;
         private final long maxCacheSize;
+        private final long maxOffHeapCacheSize;
         private final boolean memoryMode;
         private final boolean noVerify;
         private final boolean noSync;
@@ -476,10 +605,12 @@ public class LogUnitServer extends AbstractServer {
          */
         public static LogUnitServerConfig parse(Map<String, Object> opts) {
             double cacheSizeHeapRatio = Double.parseDouble((String) opts.get("--cache-heap-ratio"));
+            Object offHeapCacheSize = opts.get("--cache-offheap-size");
 
             return LogUnitServerConfig.builder()
                     .cacheSizeHeapRatio(cacheSizeHeapRatio)
                     .maxCacheSize((long) (Runtime.getRuntime().maxMemory() * cacheSizeHeapRatio))
+                    .maxOffHeapCacheSize(offHeapCacheSize == null ? 0 : Long.parseLong(offHeapCacheSize.toString()))
                     .memoryMode(Boolean.valueOf(opts.get("--memory").toString()))
                     .noVerify((Boolean) opts.get("--no-verify"))
                     .noSync((Boolean) opts.get("--no-sync"))
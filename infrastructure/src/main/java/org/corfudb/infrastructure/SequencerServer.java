@@ -2,6 +2,8 @@ package org.corfudb.infrastructure;
 
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
 import io.netty.channel.ChannelHandlerContext;
 import lombok.Builder;
 import lombok.Builder.Default;
@@ -14,7 +16,6 @@ import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
-import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
@@ -36,12 +37,18 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This server implements the sequencer functionality of Corfu.
@@ -79,6 +86,14 @@ import java.util.concurrent.Executors;
  * commits, the sequencer updates the tails of all the streams and the cache
  * of conflict parameters.
  *
+ * <p>Token requests are served by several threads. Addresses are reserved from an
+ * atomic counter, while the tails and address maps of a stream are only updated under
+ * the lock of the stripe that the stream maps to. A transaction holds the stripes of
+ * its conflict-set and write-set from the conflict check until its addresses have been
+ * published, so that the conflict check and the allocation remain atomic with respect
+ * to any other request on the same streams. Bootstrap and trim requests exclude all
+ * the token requests.
+ *
  * <p>Created by mwei on 12/8/15.
  */
 @Slf4j
@@ -89,12 +104,23 @@ public class SequencerServer extends AbstractServer {
      */
     private final ServerContext serverContext;
 
+    /**
+     * Number of stripes that the streams are mapped to.
+     */
+    private static final int STREAM_LOCK_STRIPES = 1024;
+
     /**
      * - {@link SequencerServer::globalLogTail}:
-     * global log first available position (initially, 0).
+     * global log first available position (initially, 0). The streams of all the
+     * addresses below the global log tail have been updated.
      */
-    @Getter
-    private long globalLogTail = Address.getMinAddress();
+    private final AtomicLong globalLogTail = new AtomicLong(Address.getMinAddress());
+
+    /**
+     * The first address that has not been reserved yet. The addresses between the
+     * global log tail and this address are being allocated.
+     */
+    private final AtomicLong nextAddress = new AtomicLong(Address.getMinAddress());
 
     private long trimMark = Address.NON_ADDRESS;
 
@@ -102,13 +128,23 @@ public class SequencerServer extends AbstractServer {
      * - {@link SequencerServer::streamTailToGlobalTailMap}:
      * per streams map to last issued global-log position. used for backpointers.
      */
-    private Map<UUID, Long> streamTailToGlobalTailMap = new HashMap<>();
+    private final Map<UUID, Long> streamTailToGlobalTailMap = new ConcurrentHashMap<>();
 
     /**
      * Per streams map and their corresponding address space (an address space is defined by the stream's addresses
      *  and its latest trim mark)
      */
-    private Map<UUID, StreamAddressSpace> streamsAddressMap = new HashMap<>();
+    private final Map<UUID, StreamAddressSpace> streamsAddressMap = new ConcurrentHashMap<>();
+
+    /**
+     * Token requests hold the read lock, bootstrap and trim requests hold the write lock.
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    /**
+     * Guards the tail, the address map and the conflict keys of the streams.
+     */
+    private final Striped<Lock> streamLocks = Striped.lock(STREAM_LOCK_STRIPES);
 
     /**
      * A map to cache the name of timers to avoid creating timer names on each call.
@@ -148,18 +184,24 @@ public class SequencerServer extends AbstractServer {
         this.serverContext = serverContext;
         Config config = Config.parse(serverContext.getServerConfig());
 
-        // Sequencer server is single threaded by current design
-        this.executor = Executors.newSingleThreadExecutor(
+        this.executor = Executors.newFixedThreadPool(config.getThreads(),
                 new ServerThreadFactory("sequencer-", new ServerThreadFactory.ExceptionHandler()));
 
-
-        globalLogTail = config.getInitialToken();
+        globalLogTail.set(config.getInitialToken());
+        nextAddress.set(config.getInitialToken());
 
         this.cache = new SequencerServerCache(config.getCacheSize());
 
         setUpTimerNameCache();
     }
 
+    /**
+     * Returns the first available position of the global log.
+     */
+    public long getGlobalLogTail() {
+        return globalLogTail.get();
+    }
+
     @Override
     public boolean isServerReadyToHandleMsg(CorfuMsg msg) {
         if (getState() != ServerState.READY){
@@ -209,6 +251,40 @@ public class SequencerServer extends AbstractServer {
         return epoch >= epochRangeLowerBound && epoch <= sequencerEpoch;
     }
 
+    /**
+     * Locks the stripes of a set of streams. The stripes are locked in a consistent
+     * order, so that requests on overlapping sets of streams can't deadlock.
+     *
+     * @param streams the streams to lock
+     * @return the locks that were acquired
+     */
+    private List<Lock> lockStreams(Iterable<UUID> streams) {
+        List<Lock> locks = Lists.newArrayList(streamLocks.bulkGet(streams));
+        locks.forEach(Lock::lock);
+        return locks;
+    }
+
+    private void unlockStreams(List<Lock> locks) {
+        Lists.reverse(locks).forEach(Lock::unlock);
+    }
+
+    /**
+     * Publishes a range of reserved addresses by advancing the global log tail to the end of the
+     * range, once all the addresses reserved before the range have been published. The ranges
+     * are published in order, so the global log tail never covers an address whose streams
+     * haven't been updated yet.
+     *
+     * @param start the first address of the range
+     * @param end   the first address after the range
+     */
+    private void publish(long start, long end) {
+        while (globalLogTail.get() != start) {
+            // The allocation of the previous range is in progress on another thread
+            Thread.yield();
+        }
+        globalLogTail.set(end);
+    }
+
     /**
      * If the request submits a timestamp (a global offset) that is less than one of the
      * global offsets of a streams specified in the request, then abort; otherwise commit.
@@ -240,13 +316,13 @@ public class SequencerServer extends AbstractServer {
             return new TxResolutionResponse(TokenType.TX_ABORT_SEQ_TRIM);
         }
 
-        for (Map.Entry<UUID, Set<byte[]>> conflictStream : txInfo.getConflictSet().entrySet()) {
+        for (Map.Entry<UUID, long[]> conflictStream : txInfo.getConflictSet().entrySet()) {
 
             // if conflict-parameters are present, check for conflict based on conflict-parameter
             // updates
-            Set<byte[]> conflictParamSet = conflictStream.getValue();
+            long[] conflictParamSet = conflictStream.getValue();
             //check for conflict based on streams updates
-            if (conflictParamSet == null || conflictParamSet.isEmpty()) {
+            if (conflictParamSet == null || conflictParamSet.length == 0) {
                 UUID streamId = conflictStream.getKey();
                 Long sequence = streamTailToGlobalTailMap.get(streamId);
                 if (sequence != null && sequence > txSnapshotTimestamp.getSequence()) {
@@ -257,18 +333,20 @@ public class SequencerServer extends AbstractServer {
             }
 
             // for each key pair, check for conflict; if not present, check against the wildcard
-            for (byte[] conflictParam : conflictParamSet) {
+            for (long conflictParam : conflictParamSet) {
 
-                Long keyAddress = cache.getIfPresent(new ConflictTxStream(conflictStream.getKey(), conflictParam));
+                long keyAddress = cache.get(conflictStream.getKey(), conflictParam);
 
-                log.trace("Commit-ck[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
+                log.trace("Commit-ck[{}] conflict-key[{}](ts={})", txInfo,
+                        Long.toHexString(conflictParam), keyAddress);
 
-                if (keyAddress != null && keyAddress > txSnapshotTimestamp.getSequence()) {
-                    log.debug("ABORT[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
+                if (Address.isAddress(keyAddress) && keyAddress > txSnapshotTimestamp.getSequence()) {
+                    log.debug("ABORT[{}] conflict-key[{}](ts={})", txInfo,
+                            Long.toHexString(conflictParam), keyAddress);
                     return new TxResolutionResponse(
                             TokenType.TX_ABORT_CONFLICT,
                             keyAddress,
-                            conflictParam,
+                            Utils.longToBigEndianByteArray(conflictParam),
                             conflictStream.getKey()
                     );
                 }
@@ -318,7 +396,7 @@ public class SequencerServer extends AbstractServer {
         Token token;
         if (req.getStreams().isEmpty()) {
             // Global tail query
-            token = new Token(sequencerEpoch, globalLogTail - 1);
+            token = new Token(sequencerEpoch, globalLogTail.get() - 1);
             streamTails = Collections.emptyList();
         } else if (req.getStreams().size() == 1) {
             // single stream query
@@ -326,11 +404,17 @@ public class SequencerServer extends AbstractServer {
             streamTails = Collections.emptyList();
         } else {
             // multiple stream query, the token is populated with the global tail and the tail queries are stored in
-            // streamTails
-            token = new Token(sequencerEpoch, globalLogTail - 1);
-            streamTails = new ArrayList<>(streams.size());
-            for (UUID stream : streams) {
-                streamTails.add(streamTailToGlobalTailMap.getOrDefault(stream, Address.NON_EXIST));
+            // streamTails. The stripes of the streams are held so that the tails are consistent with each other
+            // and with the global tail.
+            List<Lock> locks = lockStreams(streams);
+            try {
+                streamTails = new ArrayList<>(streams.size());
+                for (UUID stream : streams) {
+                    streamTails.add(streamTailToGlobalTailMap.getOrDefault(stream, Address.NON_EXIST));
+                }
+                token = new Token(sequencerEpoch, globalLogTail.get() - 1);
+            } finally {
+                unlockStreams(locks);
             }
         }
 
@@ -343,15 +427,20 @@ public class SequencerServer extends AbstractServer {
     @ServerHandler(type = CorfuMsgType.SEQUENCER_TRIM_REQ)
     public void trimCache(CorfuPayloadMsg<Long> msg, ChannelHandlerContext ctx, IServerRouter r) {
         log.info("trimCache: Starting cache eviction");
-        if (trimMark < msg.getPayload()) {
-            // Advance the trim mark, if the new trim request has a higher trim mark.
-            trimMark = msg.getPayload();
-            cache.invalidateUpTo(trimMark);
-
-            // Remove trimmed addresses from each address map and set new trim mark
-            for(StreamAddressSpace streamAddressSpace : streamsAddressMap.values()) {
-                streamAddressSpace.trim(trimMark);
+        stateLock.writeLock().lock();
+        try {
+            if (trimMark < msg.getPayload()) {
+                // Advance the trim mark, if the new trim request has a higher trim mark.
+                trimMark = msg.getPayload();
+                cache.invalidateUpTo(trimMark);
+
+                // Remove trimmed addresses from each address map and set new trim mark
+                for (StreamAddressSpace streamAddressSpace : streamsAddressMap.values()) {
+                    streamAddressSpace.trim(trimMark);
+                }
             }
+        } finally {
+            stateLock.writeLock().unlock();
         }
 
         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
@@ -364,6 +453,16 @@ public class SequencerServer extends AbstractServer {
     public void resetServer(CorfuPayloadMsg<SequencerRecoveryMsg> msg,
                                          ChannelHandlerContext ctx, IServerRouter r) {
         log.info("Reset sequencer server.");
+        stateLock.writeLock().lock();
+        try {
+            bootstrap(msg, ctx, r);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    private void bootstrap(CorfuPayloadMsg<SequencerRecoveryMsg> msg,
+                           ChannelHandlerContext ctx, IServerRouter r) {
         long initialToken = msg.getPayload().getGlobalTail();
         final Map<UUID, StreamAddressSpace> addressSpaceMap = msg.getPayload().getStreamsAddressMap();
         final long bootstrapMsgEpoch = msg.getPayload().getSequencerEpoch();
@@ -408,11 +507,12 @@ public class SequencerServer extends AbstractServer {
         if (!bootstrapWithoutTailsUpdate) {
             // Evict all entries from the cache. This eviction triggers the callback modifying the maxConflictWildcard.
             cache.invalidateAll();
-            globalLogTail = initialToken;
+            globalLogTail.set(initialToken);
+            nextAddress.set(initialToken);
             cache.updateMaxConflictAddress(initialToken - 1);
 
             // Clear the existing map as it could have been populated by an earlier reset.
-            streamTailToGlobalTailMap = new HashMap<>();
+            streamTailToGlobalTailMap.clear();
 
             // Set tail for every stream
             for(Map.Entry<UUID, StreamAddressSpace> streamAddressSpace : addressSpaceMap.entrySet()) {
@@ -422,7 +522,7 @@ public class SequencerServer extends AbstractServer {
             }
 
             // Reset streams address map
-            this.streamsAddressMap = new HashMap<>();
+            this.streamsAddressMap.clear();
             this.streamsAddressMap.putAll(addressSpaceMap);
         }
 
@@ -463,6 +563,7 @@ public class SequencerServer extends AbstractServer {
         final Timer timer = getTimer(req.getReqType());
 
         // dispatch request handler according to request type while collecting the timer metrics
+        stateLock.readLock().lock();
         try (Timer.Context context = MetricsUtils.getConditionalContext(timer)) {
             switch (req.getReqType()) {
                 case TokenRequest.TK_QUERY:
@@ -481,6 +582,8 @@ public class SequencerServer extends AbstractServer {
                     handleAllocation(msg, ctx, r);
                     return;
             }
+        } finally {
+            stateLock.readLock().unlock();
         }
     }
 
@@ -509,8 +612,9 @@ public class SequencerServer extends AbstractServer {
 
         // The global tail points to an open slot, not the last written slot,
         // so return the new token with current global tail and then update it.
-        Token token = new Token(sequencerEpoch, globalLogTail);
-        globalLogTail += req.getNumTokens();
+        final long start = nextAddress.getAndAdd(req.getNumTokens());
+        publish(start, start + req.getNumTokens());
+        Token token = new Token(sequencerEpoch, start);
         r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
                 new TokenResponse(token, Collections.emptyMap())));
     }
@@ -530,32 +634,43 @@ public class SequencerServer extends AbstractServer {
      */
     private void handleTxToken(CorfuPayloadMsg<TokenRequest> msg, ChannelHandlerContext ctx, IServerRouter r) {
         final TokenRequest req = msg.getPayload();
-
-        // in the TK_TX request type, the sequencer is utilized for transaction conflict-resolution.
-        // Token allocation is conditioned on commit.
-        // First, we check if the transaction can commit.
-        TxResolutionResponse txResolutionResponse = txnCanCommit(req.getTxnResolution());
-        if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
-            // If the txn aborts, then DO NOT hand out a token.
-            Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
-            r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
-                    txResolutionResponse.getTokenType(),
-                    txResolutionResponse.getConflictingKey(),
-                    txResolutionResponse.getConflictingStream(),
-                    newToken, Collections.emptyMap(), Collections.emptyList())));
-            return;
+        final TxResolutionInfo txInfo = req.getTxnResolution();
+
+        // The conflict check and the allocation must be atomic with respect to any
+        // other request that updates the streams or the conflict keys of the transaction.
+        Set<UUID> streams = new HashSet<>(req.getStreams());
+        streams.addAll(txInfo.getConflictSet().keySet());
+        streams.addAll(txInfo.getWriteConflictParams().keySet());
+
+        final TokenResponse response;
+        List<Lock> locks = lockStreams(streams);
+        try {
+            // in the TK_TX request type, the sequencer is utilized for transaction conflict-resolution.
+            // Token allocation is conditioned on commit.
+            // First, we check if the transaction can commit.
+            TxResolutionResponse txResolutionResponse = txnCanCommit(txInfo);
+            if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
+                // If the txn aborts, then DO NOT hand out a token.
+                Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
+                response = new TokenResponse(
+                        txResolutionResponse.getTokenType(),
+                        txResolutionResponse.getConflictingKey(),
+                        txResolutionResponse.getConflictingStream(),
+                        newToken, Collections.emptyMap(), Collections.emptyList());
+            } else {
+                // if we get here, this means the transaction can commit.
+                // allocate() does the actual allocation of log position(s)
+                response = allocate(req);
+            }
+        } finally {
+            unlockStreams(locks);
         }
 
-        // if we get here, this means the transaction can commit.
-        // handleAllocation() does the actual allocation of log position(s)
-        // and returns the response
-        handleAllocation(msg, ctx, r);
+        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(response));
     }
 
     /**
-     * this method does the actual allocation of log addresses,
-     * it also maintains stream-tails, returns a map of stream-tails for backpointers,
-     * and maintains a conflict-parameters map.
+     * this method serves token-requests for logging across one or more streams.
      *
      * @param msg corfu message containing allocation
      * @param ctx netty ChannelHandlerContext
@@ -565,15 +680,55 @@ public class SequencerServer extends AbstractServer {
                                   ChannelHandlerContext ctx, IServerRouter r) {
         final TokenRequest req = msg.getPayload();
 
-        // extend the tail of the global log by the requested # of tokens
-        // currentTail is the first available position in the global log
-        long newTail = globalLogTail + req.getNumTokens();
+        final TokenResponse response;
+        List<Lock> locks = lockStreams(req.getStreams());
+        try {
+            response = allocate(req);
+        } finally {
+            unlockStreams(locks);
+        }
+
+        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(response));
+    }
+
+    /**
+     * this method does the actual allocation of log addresses,
+     * it also maintains stream-tails, returns a map of stream-tails for backpointers,
+     * and maintains a conflict-parameters map.
+     *
+     * <p>The caller must hold the stripes of the streams and of the conflict keys of the request.
+     *
+     * @param req token request
+     * @return the token response with the allocated token and the streams backpointers
+     */
+    private TokenResponse allocate(TokenRequest req) {
+        // reserve the requested # of tokens, globalTail is the first reserved position
+        // in the global log and newTail is the first position after the reserved ones
+        final long globalTail = nextAddress.getAndAdd(req.getNumTokens());
+        final long newTail = globalTail + req.getNumTokens();
 
         // for each stream:
         //   1. obtain the last back-pointer for this stream, if exists; -1L otherwise.
         //   2. record the new global tail as back-pointer for this stream.
         //   3. Add the allocated addresses to each stream's address map.
         ImmutableMap.Builder<UUID, Long> backPointerMap = ImmutableMap.builder();
+        try {
+            updateStreams(req, globalTail, newTail, backPointerMap);
+        } finally {
+            // the reserved addresses are published even if the update failed, otherwise
+            // the allocations that follow could never be published
+            publish(globalTail, newTail);
+        }
+
+        log.trace("token {} backpointers {}", globalTail, backPointerMap.build());
+
+        // return the token response with the global tail and the streams backpointers
+        Token token = new Token(sequencerEpoch, globalTail);
+        return new TokenResponse(token, backPointerMap.build());
+    }
+
+    private void updateStreams(TokenRequest req, long globalTail, long newTail,
+                               ImmutableMap.Builder<UUID, Long> backPointerMap) {
         for (UUID id : req.getStreams()) {
 
             // step 1. and 2. (comment above)
@@ -593,7 +748,7 @@ public class SequencerServer extends AbstractServer {
                     addressMap = new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap());
                 }
 
-                for (long i = globalLogTail; i < newTail; i++) {
+                for (long i = globalTail; i < newTail; i++) {
                     addressMap.addAddress(i);
                 }
                 return addressMap;
@@ -607,18 +762,11 @@ public class SequencerServer extends AbstractServer {
                     .forEach((key, value) -> {
                         // insert an entry with the new timestamp using the
                         // hash code based on the param and the stream id.
-                        value.forEach(conflictParam ->
-                                cache.put(new ConflictTxStream(key, conflictParam), newTail - 1));
+                        for (long conflictParam : value) {
+                            cache.put(key, conflictParam, newTail - 1);
+                        }
                     });
         }
-
-        log.trace("token {} backpointers {}", globalLogTail, backPointerMap.build());
-
-        // return the token response with the global tail and the streams backpointers
-        Token token = new Token(sequencerEpoch, globalLogTail);
-        globalLogTail = newTail;
-        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
-                new TokenResponse(token, backPointerMap.build())));
     }
 
     /**
@@ -635,22 +783,29 @@ public class SequencerServer extends AbstractServer {
                                              ChannelHandlerContext ctx, IServerRouter r) {
         StreamsAddressRequest req = msg.getPayload();
         Map<UUID, StreamAddressSpace> streamsAddressMap;
+        final long tail;
 
-        switch (req.getReqType()) {
-            case StreamsAddressRequest.STREAMS:
-                streamsAddressMap = getStreamsAddresses(req.getStreamsRanges());
-                break;
+        stateLock.readLock().lock();
+        try {
+            switch (req.getReqType()) {
+                case StreamsAddressRequest.STREAMS:
+                    streamsAddressMap = getStreamsAddresses(req.getStreamsRanges());
+                    break;
 
-            default:
-                // Retrieve address space for all streams
-                streamsAddressMap = new HashMap<>(this.streamsAddressMap);
-                break;
+                default:
+                    // Retrieve address space for all streams
+                    streamsAddressMap = getAllStreamsAddresses();
+                    break;
+            }
+            tail = getGlobalLogTail();
+        } finally {
+            stateLock.readLock().unlock();
         }
 
         log.trace("handleStreamsAddressRequest: return address space for streams [{}]",
                 streamsAddressMap.keySet());
         r.sendResponse(ctx, msg, CorfuMsgType.STREAMS_ADDRESS_RESPONSE.payloadMsg(
-                new StreamsAddressResponse(getGlobalLogTail(), streamsAddressMap)));
+                new StreamsAddressResponse(tail, streamsAddressMap)));
     }
 
     /**
@@ -665,20 +820,51 @@ public class SequencerServer extends AbstractServer {
 
         for (StreamAddressRange streamAddressRange : addressRanges) {
             UUID streamId = streamAddressRange.getStreamID();
-            // Get all addresses in the requested range
-            if (streamsAddressMap.containsKey(streamId)) {
-                addressMap = streamsAddressMap.get(streamId).getAddressesInRange(streamAddressRange);
-                requestedAddressSpaces.put(streamId,
-                        new StreamAddressSpace(streamsAddressMap.get(streamId).getTrimMark(), addressMap));
-            } else {
-                log.warn("handleStreamsAddressRequest: address space map is not present for stream {}. " +
-                        "Verify this is a valid stream.", streamId);
+            Lock lock = streamLocks.get(streamId);
+            lock.lock();
+            try {
+                // Get all addresses in the requested range
+                StreamAddressSpace addressSpace = streamsAddressMap.get(streamId);
+                if (addressSpace != null) {
+                    addressMap = addressSpace.getAddressesInRange(streamAddressRange);
+                    requestedAddressSpaces.put(streamId,
+                            new StreamAddressSpace(addressSpace.getTrimMark(), addressMap));
+                } else {
+                    log.warn("handleStreamsAddressRequest: address space map is not present for stream {}. " +
+                            "Verify this is a valid stream.", streamId);
+                }
+            } finally {
+                lock.unlock();
             }
         }
 
         return requestedAddressSpaces;
     }
 
+    /**
+     * Return a copy of the address space of every stream.
+     *
+     * @return map of stream to address space.
+     */
+    private Map<UUID, StreamAddressSpace> getAllStreamsAddresses() {
+        Map<UUID, StreamAddressSpace> addressSpaces = new HashMap<>();
+
+        for (UUID streamId : streamsAddressMap.keySet()) {
+            Lock lock = streamLocks.get(streamId);
+            lock.lock();
+            try {
+                StreamAddressSpace addressSpace = streamsAddressMap.get(streamId);
+                Roaring64NavigableMap addressMap = new Roaring64NavigableMap();
+                addressMap.or(addressSpace.getAddressMap());
+                addressSpaces.put(streamId, new StreamAddressSpace(addressSpace.getTrimMark(), addressMap));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return addressSpaces;
+    }
+
     @Override
     public void shutdown() {
         super.shutdown();
@@ -695,18 +881,26 @@ public class SequencerServer extends AbstractServer {
         private final long initialToken;
         @Default
         private final long cacheSize = DEFAULT_CACHE_SIZE;
+        @Default
+        private final int threads = Runtime.getRuntime().availableProcessors();
 
         public static Config parse(Map<String, Object> opts) {
             long cacheSize = Utils.parseLong(opts.getOrDefault("--sequencer-cache-size", DEFAULT_CACHE_SIZE));
             long initialToken = Utils.parseLong(opts.get("--initial-token"));
+            int threads = (int) Utils.parseLong(opts.get("--sequencer-threads"));
 
             if (Address.nonAddress(initialToken)) {
                 initialToken = Address.getMinAddress();
             }
 
+            if (threads <= 0) {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+
             return Config.builder()
                     .initialToken(initialToken)
                     .cacheSize(cacheSize)
+                    .threads(threads)
                     .build();
         }
     }
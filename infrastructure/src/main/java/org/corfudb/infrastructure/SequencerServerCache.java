@@ -1,48 +1,95 @@
 package org.corfudb.infrastructure;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.CacheWriter;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.RemovalCause;
-import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.view.Address;
-import org.corfudb.util.Utils;
 
-import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Sequencer server cache.
  * Contains transaction conflict-resolution data structures.
  * <p>
- * The SequencerServer use its own thread/s. To guarantee correct tx conflict-resolution,
- * the {@link SequencerServerCache#conflictCache} must be updated
- * along with {@link SequencerServerCache#maxConflictWildcard} at the same time (atomically) to prevent race condition
+ * A conflict key is stored as a fixed-width key, made of the stream id and a 64-bit hash of the
+ * conflict parameter, along with the global address of its latest update. The keys and the addresses
+ * are held in primitive arrays that form an open-addressing table, so looking up or updating a key
+ * doesn't allocate. Two conflict parameters of a stream that share a hash share their latest update,
+ * which can only cause a false abort.
+ * <p>
+ * To guarantee correct tx conflict-resolution, an entry must be removed from the table
+ * along with the update of {@link SequencerServerCache#maxConflictWildcard} (atomically) to prevent race condition
  * when the conflict stream is already evicted from the cache but `maxConflictWildcard` is not updated yet,
  * which can cause situation when sequencer let the transaction go but the tx has to be cancelled.
  * <p>
- * SequencerServerCache achieves consistency by using single threaded cache. It's done by following code:
- * `.executor(Runnable::run)`
+ * Once the cache is full, the entries with the lowest addresses are evicted, so that `maxConflictWildcard`
+ * only advances as much as needed. The updates are not applied in address order, since the sequencer
+ * stripes can assign addresses concurrently, so they are recorded in a min-heap ordered by address, which
+ * also lets the entries below a trim mark be invalidated without walking the whole table.
+ * <p>
+ * Updates are serialized by a lock. Lookups are optimistic and don't take the lock, unless the table was
+ * updated while they were probing it. The wildcard is updated before an entry is removed, so a lookup that
+ * no longer finds a conflict key observes the updated `maxConflictWildcard`.
  */
 @Slf4j
+@ThreadSafe
 public class SequencerServerCache {
+
+    /**
+     * The address of the free slots of the table.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
     /**
-     * TX conflict-resolution information:
-     * <p>
-     * a cache of recent conflict keys and their latest global-log position.
+     * Number of longs of a key: the stream id and the hash of the conflict parameter.
      */
-    private final Cache<ConflictTxStream, Long> conflictCache;
+    private static final int KEY_WIDTH = 3;
+
+    /**
+     * Number of longs of an update record: the key and the address.
+     */
+    private static final int RECORD_WIDTH = KEY_WIDTH + 1;
+
+    private static final long PARAM_HASH_SEED = 0x9E3779B97F4A7C15L;
+
+    private final int maxSize;
+
+    private final int mask;
+
+    /**
+     * The keys of the table, {@link SequencerServerCache#KEY_WIDTH} longs per slot.
+     */
+    private final long[] keys;
+
+    /**
+     * The address of the latest update of the key of each slot, or EMPTY for a free slot.
+     */
+    private final long[] addresses;
+
+    private volatile int size = 0;
+
+    /**
+     * A min-heap of update records ordered by address. The latest update of every entry is in
+     * the heap, the records of the earlier updates are skipped once they reach the top.
+     */
+    private final long[] updates;
+
+    private final int maxUpdates;
+
+    private int numUpdates = 0;
+
+    private final StampedLock lock = new StampedLock();
 
     /**
      * A "wildcard" representing the maximal update timestamp of
      * all the conflict keys which were evicted from the cache
      */
-    @Getter
-    private long maxConflictWildcard = Address.NOT_FOUND;
+    private final AtomicLong maxConflictWildcard = new AtomicLong(Address.NOT_FOUND);
 
     /**
      * maxConflictNewSequencer represents the max update timestamp of all the conflict keys
@@ -51,72 +98,38 @@ public class SequencerServerCache {
      * actual threshold would abort due to NEW_SEQUENCER cause.
      */
     @Getter
-    private long maxConflictNewSequencer = Address.NOT_FOUND;
-
-    @VisibleForTesting
-    public SequencerServerCache(long cacheSize, CacheWriter<ConflictTxStream, Long> writer) {
-        this.conflictCache = Caffeine.newBuilder()
-                .maximumSize(cacheSize)
-                .writer(writer)
-                //Performing periodic maintenance using current thread (synchronously)
-                .executor(Runnable::run)
-                .recordStats()
-                .build();
-    }
+    private volatile long maxConflictNewSequencer = Address.NOT_FOUND;
 
     /**
      * The cache limited by size.
-     * For a synchronous cache we are using a same-thread executor (Runnable::run)
-     * https://github.com/ben-manes/caffeine/issues/90
+     * The table has at least twice as many slots as the cache size, and the heap can hold
+     * twice as many updates as the cache size. When the heap is full, it is rebuilt from the
+     * latest update of every entry, which drops the records of the earlier updates.
      *
      * @param cacheSize cache size
      */
     public SequencerServerCache(long cacheSize) {
-        this.conflictCache = Caffeine.newBuilder()
-                .maximumSize(cacheSize)
-                //Performing periodic maintenance using current thread (synchronously)
-                .executor(Runnable::run)
-                .writer(getDefaultCacheWriter())
-                .recordStats()
-                .build();
-    }
-
-    private CacheWriter<ConflictTxStream, Long> getDefaultCacheWriter() {
-        return new CacheWriter<ConflictTxStream, Long>() {
-            /**
-             * Don't do any additional actions during the write operation. Let caffeine write the record into the cache
-             * @param key a key
-             * @param value a value
-             */
-            @Override
-            public void write(@Nonnull ConflictTxStream key, @Nonnull Long value) {
-                //ignore
-            }
+        Preconditions.checkArgument(cacheSize > 0 && cacheSize <= Integer.MAX_VALUE / (2 * RECORD_WIDTH),
+                "Invalid cache size %s", cacheSize);
+        this.maxSize = (int) cacheSize;
 
-            /**
-             * Eviction policy https://github.com/ben-manes/caffeine/wiki/Writer
-             * @param key  conflict stream
-             * @param globalAddress global address
-             * @param cause a removal cause
-             */
-            @Override
-            public void delete(@Nonnull ConflictTxStream key, Long globalAddress, @Nonnull RemovalCause cause) {
-                if (cause == RemovalCause.REPLACED) {
-                    String errMsg = String.format("Override error. Conflict key: %s, address: %s", key, globalAddress);
-                    throw new IllegalStateException(errMsg);
-                }
+        final int capacity = Integer.highestOneBit(Math.max(2, maxSize * 2 - 1)) << 1;
+        this.mask = capacity - 1;
+        this.keys = new long[capacity * KEY_WIDTH];
+        this.addresses = new long[capacity];
+        Arrays.fill(addresses, EMPTY);
 
-                log.trace(
-                        "Updating maxConflictWildcard. Old = '{}', new ='{}' conflictParam = '{}'. Cause = '{}'",
-                        maxConflictWildcard, globalAddress, key, cause
-                );
+        this.maxUpdates = maxSize * 2;
+        this.updates = new long[maxUpdates * RECORD_WIDTH];
+    }
 
-                if (globalAddress == null) {
-                    globalAddress = Address.NOT_FOUND;
-                }
-                maxConflictWildcard = Math.max(globalAddress, maxConflictWildcard);
-            }
-        };
+    /**
+     * Returns the maximal update timestamp of all the conflict keys which were evicted from the cache.
+     *
+     * @return max conflict wildcard
+     */
+    public long getMaxConflictWildcard() {
+        return maxConflictWildcard.get();
     }
 
     /**
@@ -127,7 +140,57 @@ public class SequencerServerCache {
      * @return global address
      */
     public Long getIfPresent(ConflictTxStream conflictKey) {
-        return conflictCache.getIfPresent(conflictKey);
+        long address = getOrEmpty(conflictKey.streamId, conflictKey.paramHash);
+        return address == EMPTY ? null : address;
+    }
+
+    /**
+     * Returns the global address of the latest update of a conflict parameter,
+     * without allocating a key.
+     *
+     * @param streamId      stream id
+     * @param conflictParam conflict parameter
+     * @return global address, or {@link Address#NON_ADDRESS} if the conflict parameter isn't cached
+     */
+    public long get(UUID streamId, byte[] conflictParam) {
+        return get(streamId, hashConflictParam(conflictParam));
+    }
+
+    /**
+     * Returns the global address of the latest update of a conflict parameter, given the
+     * 64-bit hash of the parameter computed by the client.
+     *
+     * @param streamId  stream id
+     * @param paramHash hash of the conflict parameter
+     * @return global address, or {@link Address#NON_ADDRESS} if the conflict parameter isn't cached
+     */
+    public long get(UUID streamId, long paramHash) {
+        long address = getOrEmpty(streamId, paramHash);
+        return address == EMPTY ? Address.NON_ADDRESS : address;
+    }
+
+    private long getOrEmpty(UUID streamId, long paramHash) {
+        final long msb = streamId.getMostSignificantBits();
+        final long lsb = streamId.getLeastSignificantBits();
+
+        long stamp = lock.tryOptimisticRead();
+        long address = lookup(msb, lsb, paramHash);
+        if (lock.validate(stamp)) {
+            return address;
+        }
+
+        // The table was updated while probing it
+        stamp = lock.readLock();
+        try {
+            return lookup(msb, lsb, paramHash);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long lookup(long msb, long lsb, long paramHash) {
+        int slot = find(msb, lsb, paramHash);
+        return slot < 0 ? EMPTY : addresses[slot];
     }
 
     /**
@@ -138,18 +201,19 @@ public class SequencerServerCache {
     public void invalidateUpTo(long trimMark) {
         log.debug("Invalidate sequencer cache. Trim mark: {}", trimMark);
 
-        AtomicLong entries = new AtomicLong();
-
-        conflictCache.asMap().forEach((key, txVersion) -> {
-            if (txVersion == null || txVersion >= trimMark) {
-                return;
+        long entries = 0;
+        long stamp = lock.writeLock();
+        try {
+            while (numUpdates > 0 && updates[KEY_WIDTH] < trimMark) {
+                if (removeLowestUpdate()) {
+                    entries++;
+                }
             }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
 
-            conflictCache.invalidate(key);
-            entries.incrementAndGet();
-        });
-
-        log.info("Invalidated entries: {}", entries.get());
+        log.info("Invalidated entries: {}", entries);
     }
 
     /**
@@ -158,7 +222,7 @@ public class SequencerServerCache {
      * @return cache size
      */
     public long size() {
-        return conflictCache.estimatedSize();
+        return size;
     }
 
     /**
@@ -168,7 +232,58 @@ public class SequencerServerCache {
      * @param newTail        global tail
      */
     public void put(ConflictTxStream conflictStream, long newTail) {
-        conflictCache.put(conflictStream, newTail);
+        put(conflictStream.streamId, conflictStream.paramHash, newTail);
+    }
+
+    /**
+     * Put a value in the cache, without allocating a key.
+     *
+     * @param streamId      stream id
+     * @param conflictParam conflict parameter
+     * @param newTail       global tail
+     */
+    public void put(UUID streamId, byte[] conflictParam, long newTail) {
+        put(streamId, hashConflictParam(conflictParam), newTail);
+    }
+
+    /**
+     * Put a value in the cache, given the 64-bit hash of the conflict parameter
+     * computed by the client.
+     *
+     * @param streamId  stream id
+     * @param paramHash hash of the conflict parameter
+     * @param newTail   global tail
+     */
+    public void put(UUID streamId, long paramHash, long newTail) {
+        final long msb = streamId.getMostSignificantBits();
+        final long lsb = streamId.getLeastSignificantBits();
+
+        long stamp = lock.writeLock();
+        try {
+            if (numUpdates == maxUpdates) {
+                rebuildUpdates();
+            }
+
+            int slot = find(msb, lsb, paramHash);
+            if (slot < 0) {
+                slot = home(msb, lsb, paramHash);
+                while (addresses[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                setKey(slot, msb, lsb, paramHash);
+                size++;
+            }
+            addresses[slot] = newTail;
+
+            setUpdate(numUpdates, msb, lsb, paramHash, newTail);
+            siftUp(numUpdates++);
+
+            while (size > maxSize) {
+                removeLowestUpdate();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -176,7 +291,20 @@ public class SequencerServerCache {
      */
     public void invalidateAll() {
         log.info("Invalidate sequencer server cache");
-        conflictCache.invalidateAll();
+
+        long stamp = lock.writeLock();
+        try {
+            for (int slot = 0; slot <= mask; slot++) {
+                if (addresses[slot] != EMPTY) {
+                    maxConflictWildcard.accumulateAndGet(addresses[slot], Math::max);
+                    addresses[slot] = EMPTY;
+                }
+            }
+            size = 0;
+            numUpdates = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -186,26 +314,210 @@ public class SequencerServerCache {
      */
     public void updateMaxConflictAddress(long newMaxConflictWildcard) {
         log.info("updateMaxConflictAddress, new address: {}", newMaxConflictWildcard);
-        maxConflictWildcard = newMaxConflictWildcard;
+        maxConflictWildcard.set(newMaxConflictWildcard);
         maxConflictNewSequencer = newMaxConflictWildcard;
     }
 
+    /**
+     * Removes the update record with the lowest address from the heap, and evicts its entry
+     * if the record is the latest update of that entry.
+     *
+     * @return true if an entry was evicted
+     */
+    private boolean removeLowestUpdate() {
+        final long msb = updates[0];
+        final long lsb = updates[1];
+        final long paramHash = updates[2];
+        final long address = updates[KEY_WIDTH];
+
+        numUpdates--;
+        if (numUpdates > 0) {
+            System.arraycopy(updates, numUpdates * RECORD_WIDTH, updates, 0, RECORD_WIDTH);
+            siftDown(0);
+        }
+
+        int slot = find(msb, lsb, paramHash);
+        if (slot < 0 || addresses[slot] != address) {
+            // The entry was updated again since
+            return false;
+        }
+
+        log.trace("Updating maxConflictWildcard. Old = '{}', new ='{}'", maxConflictWildcard, address);
+        maxConflictWildcard.accumulateAndGet(address, Math::max);
+        remove(slot);
+        return true;
+    }
+
+    /**
+     * Rebuilds the heap from the entries of the table, so that it only holds the latest
+     * update of every entry.
+     */
+    private void rebuildUpdates() {
+        numUpdates = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (addresses[slot] != EMPTY) {
+                final int key = slot * KEY_WIDTH;
+                setUpdate(numUpdates++, keys[key], keys[key + 1], keys[key + 2], addresses[slot]);
+            }
+        }
+        for (int i = numUpdates / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void setUpdate(int i, long msb, long lsb, long paramHash, long address) {
+        final int record = i * RECORD_WIDTH;
+        updates[record] = msb;
+        updates[record + 1] = lsb;
+        updates[record + 2] = paramHash;
+        updates[record + KEY_WIDTH] = address;
+    }
+
+    private long updateAddress(int i) {
+        return updates[i * RECORD_WIDTH + KEY_WIDTH];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (updateAddress(parent) <= updateAddress(i)) {
+                return;
+            }
+            swapUpdates(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int lowest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < numUpdates && updateAddress(left) < updateAddress(lowest)) {
+                lowest = left;
+            }
+            if (right < numUpdates && updateAddress(right) < updateAddress(lowest)) {
+                lowest = right;
+            }
+            if (lowest == i) {
+                return;
+            }
+            swapUpdates(i, lowest);
+            i = lowest;
+        }
+    }
+
+    private void swapUpdates(int i, int j) {
+        final int first = i * RECORD_WIDTH;
+        final int second = j * RECORD_WIDTH;
+        for (int k = 0; k < RECORD_WIDTH; k++) {
+            long tmp = updates[first + k];
+            updates[first + k] = updates[second + k];
+            updates[second + k] = tmp;
+        }
+    }
+
+    /**
+     * Returns the slot of a key, or -1 if the key isn't in the table. The probing is bounded, as
+     * optimistic lookups may observe the table while it is being updated.
+     */
+    private int find(long msb, long lsb, long paramHash) {
+        int slot = home(msb, lsb, paramHash);
+        for (int probes = 0; probes <= mask && addresses[slot] != EMPTY; probes++) {
+            final int key = slot * KEY_WIDTH;
+            if (keys[key] == msb && keys[key + 1] == lsb && keys[key + 2] == paramHash) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry of a slot, shifting back the entries that follow it in the probe
+     * sequence so that no tombstones are needed.
+     */
+    private void remove(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (addresses[next] != EMPTY) {
+            final int key = next * KEY_WIDTH;
+            final int home = home(keys[key], keys[key + 1], keys[key + 2]);
+            // The entry can fill the hole if the hole is between its home slot and its slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                setKey(hole, keys[key], keys[key + 1], keys[key + 2]);
+                addresses[hole] = addresses[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        addresses[hole] = EMPTY;
+        size--;
+    }
+
+    private void setKey(int slot, long msb, long lsb, long paramHash) {
+        final int key = slot * KEY_WIDTH;
+        keys[key] = msb;
+        keys[key + 1] = lsb;
+        keys[key + 2] = paramHash;
+    }
+
+    private int home(long msb, long lsb, long paramHash) {
+        return (int) mix((mix(msb ^ PARAM_HASH_SEED) + lsb) ^ paramHash) & mask;
+    }
+
+    /**
+     * Returns a 64-bit hash of a conflict parameter.
+     *
+     * @param conflictParam conflict parameter
+     * @return hash of the conflict parameter
+     */
+    static long hashConflictParam(byte[] conflictParam) {
+        long hash = PARAM_HASH_SEED ^ conflictParam.length;
+        int i = 0;
+        for (; i + Long.BYTES <= conflictParam.length; i += Long.BYTES) {
+            long block = 0;
+            for (int j = 0; j < Long.BYTES; j++) {
+                block = (block << Byte.SIZE) | (conflictParam[i + j] & 0xFF);
+            }
+            hash = Long.rotateLeft(hash ^ mix(block), 27) * PARAM_HASH_SEED;
+        }
+
+        long tail = 0;
+        for (; i < conflictParam.length; i++) {
+            tail = (tail << Byte.SIZE) | (conflictParam[i] & 0xFF);
+        }
+        return mix(hash ^ mix(tail));
+    }
+
+    /**
+     * The finalizer of MurmurHash3.
+     */
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
     /**
      * Contains the conflict hash code for a stream ID and conflict param.
      */
     @EqualsAndHashCode
     public static class ConflictTxStream {
         private final UUID streamId;
-        private final String conflictParam;
+        private final long paramHash;
 
         public ConflictTxStream(UUID streamId, byte[] conflictParam) {
             this.streamId = streamId;
-            this.conflictParam = Utils.bytesToHex(conflictParam);
+            this.paramHash = hashConflictParam(conflictParam);
         }
 
         @Override
         public String toString() {
-            return streamId.toString() + conflictParam;
+            return streamId.toString() + Long.toHexString(paramHash);
         }
     }
 }
@@ -182,6 +182,11 @@ public class ServerContext implements AutoCloseable {
         return threadCount == null ? Runtime.getRuntime().availableProcessors() * 2 : threadCount;
     }
 
+    int getLogUnitWriteLanes() {
+        Object writeLanes = getServerConfig().get("--logunit-write-lanes");
+        return writeLanes == null ? 1 : Integer.parseInt(writeLanes.toString());
+    }
+
     int getManagementServerThreadCount() {
         Integer threadCount = getServerConfig(Integer.class, "--management-server-threads");
         return threadCount == null ? 4 : threadCount;
@@ -259,6 +264,7 @@ public class ServerContext implements AutoCloseable {
                 .usernameFile((String) serverConfig.get("--sasl-plain-text-username-file"))
                 .passwordFile((String) serverConfig.get("--sasl-plain-text-password-file"))
                 .bulkReadSize(Integer.parseInt((String) serverConfig.get("--batch-size")))
+                .inProcessTransportEnabled(true)
                 .build();
     }
 
@@ -0,0 +1,30 @@
+package org.corfudb.infrastructure.log;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.corfudb.protocols.wireprotocol.LogData;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result of reading several addresses from a stream log. The addresses that
+ * have an entry are mapped to it, the addresses whose entry is corrupted are
+ * reported separately, and the unwritten addresses are in neither.
+ */
+@Getter
+@ToString
+public class BulkReadResult {
+
+    /**
+     * The entries that could be read, by address.
+     */
+    private final Map<Long, LogData> entries = new HashMap<>();
+
+    /**
+     * The addresses whose entry exists but could not be read.
+     */
+    private final Set<Long> corruptedAddresses = new HashSet<>();
+}
@@ -94,6 +94,26 @@ public class LogMetadata {
         }
     }
 
+    /**
+     * Merges the metadata of a range of the log that follows the ranges already
+     * merged into this metadata, which is equivalent to updating this metadata with
+     * every entry of that range in order.
+     *
+     * @param other the metadata of the next range of the log
+     */
+    public void merge(LogMetadata other) {
+        updateGlobalTail(other.getGlobalTail());
+
+        other.getStreamTails().forEach((streamId, tail) -> streamTails.merge(streamId, tail, Math::max));
+
+        other.getStreamsAddressSpaceMap().forEach((streamId, addressSpace) -> {
+            // As with update, the trim mark is given by the first range that holds the stream
+            streamsAddressSpaceMap.putIfAbsent(streamId,
+                    new StreamAddressSpace(addressSpace.getTrimMark(), new Roaring64NavigableMap()));
+            streamsAddressSpaceMap.get(streamId).getAddressMap().or(addressSpace.getAddressMap());
+        });
+    }
+
     public void updateGlobalTail(long newTail) {
         globalTail = Math.max(globalTail, newTail);
     }
@@ -6,13 +6,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The global log is partition into segments, each segment contains a range of consecutive
@@ -34,11 +32,61 @@ class SegmentHandle {
     @NonNull
     String fileName;
 
-    private final Map<Long, AddressMetaData> knownAddresses = new ConcurrentHashMap<>();
-    private final Set<Long> trimmedAddresses = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    private final Set<Long> pendingTrims = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /**
+     * Location of the records of the segment, along with its trimmed addresses.
+     */
+    private final SegmentIndex index;
+
     private volatile int refCount = 0;
 
+    /**
+     * The log metadata of the records of the segment, maintained by the writes until the
+     * segment is full and its index file is written, null if unknown. Guarded by the
+     * segment write lock.
+     */
+    private LogMetadata metadata = null;
+
+    /**
+     * Read-only mapping of the segment file, only created for full segments. Records
+     * appended after the mapping was created (i.e. ranked overwrites) fall outside of
+     * it and have to be read through the read channel.
+     */
+    private volatile MappedByteBuffer mappedBuffer = null;
+
+    SegmentHandle(long segment, @NonNull FileChannel writeChannel, @NonNull FileChannel readChannel,
+                  @NonNull String fileName) {
+        this.segment = segment;
+        this.writeChannel = writeChannel;
+        this.readChannel = readChannel;
+        this.fileName = fileName;
+        this.index = new SegmentIndex(segment * StreamLogFiles.RECORDS_PER_LOG_FILE,
+                StreamLogFiles.RECORDS_PER_LOG_FILE);
+    }
+
+    /**
+     * Returns a read-only mapping of the segment file, creating it on first use.
+     *
+     * @return the mapped segment file, or null if the file is too large to be mapped
+     * @throws IOException IO exception
+     */
+    public MappedByteBuffer map() throws IOException {
+        MappedByteBuffer buffer = mappedBuffer;
+        if (buffer != null) {
+            return buffer;
+        }
+
+        synchronized (this) {
+            if (mappedBuffer == null) {
+                long size = readChannel.size();
+                if (size > Integer.MAX_VALUE) {
+                    log.debug("map: segment {} is too large to be mapped, size {}", segment, size);
+                    return null;
+                }
+                mappedBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return mappedBuffer;
+        }
+    }
 
     public synchronized void retain() {
         refCount++;
@@ -52,6 +100,10 @@ class SegmentHandle {
     }
 
     public void close() {
+        // The mapping isn't forcibly unmapped because concurrent readers might still
+        // hold a view of it, it is released once it becomes unreachable.
+        mappedBuffer = null;
+
         Set<FileChannel> channels = new HashSet<>(
                 Arrays.asList(writeChannel, readChannel)
         );
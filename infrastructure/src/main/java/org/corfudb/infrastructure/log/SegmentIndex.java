@@ -0,0 +1,215 @@
+package org.corfudb.infrastructure.log;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.annotation.Nullable;
+
+/**
+ * A dense index of the records of a segment. The location of every record is kept in
+ * primitive arrays indexed by the address offset within the segment, instead of a map
+ * of boxed addresses to {@link AddressMetaData} objects.
+ *
+ * <p>Lookups are allocation-free optimistic reads, updates are serialized by a
+ * {@link StampedLock}. The arrays are only allocated when the first record is added,
+ * so segments that are opened only to be read don't pay for them.
+ */
+class SegmentIndex {
+
+    private static final long NO_RECORD = -1L;
+
+    private final long firstAddress;
+
+    private final int capacity;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Offsets of the records in the segment file, NO_RECORD for unknown addresses
+    private long[] offsets;
+    private int[] lengths;
+    private int[] checksums;
+    private boolean[] holes;
+    private int size;
+
+    /**
+     * Returns an empty index for a segment.
+     *
+     * @param firstAddress the first address of the segment
+     * @param capacity     the number of addresses in the segment
+     */
+    SegmentIndex(long firstAddress, int capacity) {
+        this.firstAddress = firstAddress;
+        this.capacity = capacity;
+    }
+
+    private int slot(long address) {
+        long slot = address - firstAddress;
+        if (slot < 0 || slot >= capacity) {
+            return -1;
+        }
+        return (int) slot;
+    }
+
+    /**
+     * Returns true if there is a record for an address.
+     */
+    boolean contains(long address) {
+        int slot = slot(address);
+        if (slot < 0) {
+            return false;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        long[] currOffsets = offsets;
+        boolean found = currOffsets != null && currOffsets[slot] != NO_RECORD;
+        if (lock.validate(stamp)) {
+            return found;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return offsets != null && offsets[slot] != NO_RECORD;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the location of the record of an address.
+     *
+     * @param address the address to lookup
+     * @return the record metadata or null if there is no record for the address
+     */
+    @Nullable
+    AddressMetaData get(long address) {
+        int slot = slot(address);
+        if (slot < 0) {
+            return null;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        AddressMetaData metaData = getUnsafe(slot);
+        if (lock.validate(stamp)) {
+            return metaData;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return getUnsafe(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Nullable
+    private AddressMetaData getUnsafe(int slot) {
+        long[] currOffsets = offsets;
+        int[] currLengths = lengths;
+        int[] currChecksums = checksums;
+        if (currOffsets == null || currLengths == null || currChecksums == null
+                || currOffsets[slot] == NO_RECORD) {
+            return null;
+        }
+        return new AddressMetaData(currChecksums[slot], currLengths[slot], currOffsets[slot]);
+    }
+
+    /**
+     * Returns true if the record of an address is a hole.
+     */
+    boolean isHole(long address) {
+        int slot = slot(address);
+        if (slot < 0) {
+            return false;
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return holes != null && offsets[slot] != NO_RECORD && holes[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds or replaces the record of an address, which isn't a hole.
+     *
+     * @param address  the address of the record
+     * @param metaData the location of the record
+     */
+    void put(long address, AddressMetaData metaData) {
+        put(address, metaData.checksum, metaData.length, metaData.offset, false);
+    }
+
+    /**
+     * Adds or replaces the record of an address.
+     *
+     * @param address  the address of the record
+     * @param checksum checksum of the record payload
+     * @param length   length of the record
+     * @param offset   offset of the record in the segment file
+     * @param hole     true if the record is a hole
+     */
+    void put(long address, int checksum, int length, long offset, boolean hole) {
+        int slot = slot(address);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Address " + address + " doesn't belong to segment "
+                    + firstAddress / capacity);
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (offsets == null) {
+                offsets = new long[capacity];
+                Arrays.fill(offsets, NO_RECORD);
+                lengths = new int[capacity];
+                checksums = new int[capacity];
+                holes = new boolean[capacity];
+            }
+            if (offsets[slot] == NO_RECORD) {
+                size++;
+            }
+            offsets[slot] = offset;
+            lengths[slot] = length;
+            checksums[slot] = checksum;
+            holes[slot] = hole;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of addresses with a record.
+     */
+    int size() {
+        long stamp = lock.tryOptimisticRead();
+        int currSize = size;
+        if (lock.validate(stamp)) {
+            return currSize;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the addresses with a record, in ascending order.
+     */
+    long[] getAddresses() {
+        long stamp = lock.readLock();
+        try {
+            long[] addresses = new long[size];
+            for (int slot = 0, idx = 0; offsets != null && slot < capacity; slot++) {
+                if (offsets[slot] != NO_RECORD) {
+                    addresses[idx++] = firstAddress + slot;
+                }
+            }
+            return addresses;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
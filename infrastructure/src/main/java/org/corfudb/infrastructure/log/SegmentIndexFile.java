@@ -0,0 +1,287 @@
+package org.corfudb.infrastructure.log;
+
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * The index file of a full segment. It holds the location of every record of the segment
+ * and a snapshot of the {@link LogMetadata} of those records, so that opening the segment
+ * doesn't require scanning and parsing every record of the segment file.
+ *
+ * <p>Index files are kept next to their segment file, and named after it (e.g. 3.idx for
+ * 3.log), so that they are deleted along with it.
+ *
+ * <p>The file is written once a segment is full and is only valid for the segment file
+ * it was written for: it records the size of the segment file and a checksum of its head
+ * and tail, so that any later append (i.e. a ranked overwrite) or a segment file re-created
+ * with the same size invalidates it. The file ends with a checksum of its content, a
+ * missing, stale or corrupted index file is ignored and the segment file is scanned instead.
+ *
+ * <p>Format: magic, version, segment, segment file size, segment file checksum, number of
+ * records, the records (address, offset, length, checksum, hole), the log metadata and the
+ * checksum.
+ */
+@Slf4j
+class SegmentIndexFile {
+
+    private static final int MAGIC = 0x53494458;
+
+    private static final int VERSION = 3;
+
+    static final String EXTENSION = ".idx";
+
+    private static final String TMP_EXTENSION = ".tmp";
+
+    private static final int CHECKSUM_SIZE = Integer.BYTES;
+
+    /**
+     * The number of bytes of the head and of the tail of a segment file covered by the
+     * segment file checksum.
+     */
+    private static final int SEGMENT_SAMPLE_SIZE = 4096;
+
+    private SegmentIndexFile() {
+        //prevent creating instances
+    }
+
+    /**
+     * Returns the path of the index file of a segment file.
+     *
+     * @param segmentFileName the path of the segment file
+     * @return the path of the index file
+     */
+    static Path getPath(String segmentFileName) {
+        String baseName = segmentFileName.endsWith(".log")
+                ? segmentFileName.substring(0, segmentFileName.length() - ".log".length())
+                : segmentFileName;
+        return Paths.get(baseName + EXTENSION);
+    }
+
+    /**
+     * Writes the index file of a segment, the file is replaced atomically.
+     *
+     * @param segment     the segment handle
+     * @param segmentSize the size of the segment file covered by the index
+     * @param metadata    the log metadata of the records of the segment
+     * @throws IOException IO exception
+     */
+    static void write(SegmentHandle segment, long segmentSize, LogMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(segment.getSegment());
+        out.writeLong(segmentSize);
+        out.writeInt(getSegmentChecksum(segment.getReadChannel(), segmentSize));
+
+        SegmentIndex index = segment.getIndex();
+        long[] addresses = index.getAddresses();
+        out.writeInt(addresses.length);
+        for (long address : addresses) {
+            AddressMetaData metaData = index.get(address);
+            out.writeLong(address);
+            out.writeLong(metaData.offset);
+            out.writeInt(metaData.length);
+            out.writeInt(metaData.checksum);
+            out.writeBoolean(index.isHole(address));
+        }
+
+        writeMetadata(out, metadata);
+        out.flush();
+
+        byte[] content = bytes.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocate(content.length + CHECKSUM_SIZE);
+        buffer.put(content);
+        buffer.putInt(Hashing.crc32c().hashBytes(content).asInt());
+        buffer.flip();
+
+        Path path = getPath(segment.getFileName());
+        Path tmpPath = Paths.get(path.toString() + TMP_EXTENSION);
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the index file of a segment into the segment index.
+     *
+     * @param segment     the segment handle
+     * @param segmentSize the current size of the segment file
+     * @return the log metadata of the records of the segment, or null (and the segment
+     *         index is left untouched) if the index file is missing, stale or corrupted
+     */
+    @Nullable
+    static LogMetadata load(SegmentHandle segment, long segmentSize) {
+        Path path = getPath(segment.getFileName());
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length < CHECKSUM_SIZE) {
+                log.warn("load: ignoring truncated index file {}", path);
+                return null;
+            }
+
+            int contentLength = bytes.length - CHECKSUM_SIZE;
+            int checksum = ByteBuffer.wrap(bytes, contentLength, CHECKSUM_SIZE).getInt();
+            if (checksum != Hashing.crc32c().hashBytes(bytes, 0, contentLength).asInt()) {
+                log.warn("load: ignoring corrupted index file {}", path);
+                return null;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, contentLength));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != segment.getSegment()) {
+                log.warn("load: ignoring index file {} with an invalid header", path);
+                return null;
+            }
+
+            long indexedSize = in.readLong();
+            if (indexedSize != segmentSize) {
+                log.info("load: ignoring stale index file {}, indexed size {} segment size {}",
+                        path, indexedSize, segmentSize);
+                return null;
+            }
+
+            if (in.readInt() != getSegmentChecksum(segment.getReadChannel(), segmentSize)) {
+                log.info("load: ignoring index file {} of another segment file", path);
+                return null;
+            }
+
+            int numRecords = in.readInt();
+            long[] addresses = new long[numRecords];
+            long[] offsets = new long[numRecords];
+            int[] lengths = new int[numRecords];
+            int[] checksums = new int[numRecords];
+            boolean[] holes = new boolean[numRecords];
+            for (int i = 0; i < numRecords; i++) {
+                addresses[i] = in.readLong();
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+                checksums[i] = in.readInt();
+                holes[i] = in.readBoolean();
+            }
+            LogMetadata metadata = readMetadata(in);
+
+            for (int i = 0; i < numRecords; i++) {
+                segment.getIndex().put(addresses[i], checksums[i], lengths[i], offsets[i], holes[i]);
+            }
+            return metadata;
+        } catch (IOException | RuntimeException e) {
+            log.warn("load: ignoring unreadable index file {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns a checksum of the head and of the tail of a segment file, which binds an
+     * index file to the segment file it was written for.
+     *
+     * @param channel     a channel of the segment file
+     * @param segmentSize the size of the segment file covered by the checksum
+     * @return the checksum
+     * @throws IOException IO exception
+     */
+    private static int getSegmentChecksum(FileChannel channel, long segmentSize) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(segmentSize, SEGMENT_SAMPLE_SIZE));
+        ByteBuffer tail = ByteBuffer.allocate((int) Math.min(segmentSize - head.capacity(),
+                SEGMENT_SAMPLE_SIZE));
+        readFully(channel, head, 0);
+        readFully(channel, tail, segmentSize - tail.capacity());
+        return Hashing.crc32c().newHasher()
+                .putBytes(head.array())
+                .putBytes(tail.array())
+                .hash()
+                .asInt();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Segment file shorter than " + (position + buffer.capacity()));
+            }
+        }
+    }
+
+    private static void writeMetadata(DataOutputStream out, LogMetadata metadata) throws IOException {
+        out.writeLong(metadata.getGlobalTail());
+
+        Map<UUID, Long> streamTails = metadata.getStreamTails();
+        out.writeInt(streamTails.size());
+        for (Map.Entry<UUID, Long> tail : streamTails.entrySet()) {
+            writeUuid(out, tail.getKey());
+            out.writeLong(tail.getValue());
+        }
+
+        Map<UUID, StreamAddressSpace> addressSpaces = metadata.getStreamsAddressSpaceMap();
+        out.writeInt(addressSpaces.size());
+        for (Map.Entry<UUID, StreamAddressSpace> addressSpace : addressSpaces.entrySet()) {
+            writeUuid(out, addressSpace.getKey());
+            out.writeLong(addressSpace.getValue().getTrimMark());
+            addressSpace.getValue().getAddressMap().serialize(out);
+        }
+    }
+
+    private static LogMetadata readMetadata(DataInputStream in) throws IOException {
+        LogMetadata metadata = new LogMetadata();
+        metadata.updateGlobalTail(in.readLong());
+
+        int numTails = in.readInt();
+        for (int i = 0; i < numTails; i++) {
+            metadata.getStreamTails().put(readUuid(in), in.readLong());
+        }
+
+        int numAddressSpaces = in.readInt();
+        for (int i = 0; i < numAddressSpaces; i++) {
+            UUID streamId = readUuid(in);
+            long trimMark = in.readLong();
+            Roaring64NavigableMap addressMap = new Roaring64NavigableMap();
+            addressMap.deserialize(in);
+            metadata.getStreamsAddressSpaceMap().put(streamId, new StreamAddressSpace(trimMark, addressMap));
+        }
+
+        if (in.available() != 0) {
+            throw new IOException("Unexpected trailing bytes: " + in.available());
+        }
+
+        return metadata;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
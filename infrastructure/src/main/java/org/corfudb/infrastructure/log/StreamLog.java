@@ -1,6 +1,7 @@
 package org.corfudb.infrastructure.log;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -8,6 +9,7 @@ import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
+import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.OverwriteCause;
 
 /**
@@ -34,6 +36,27 @@ public interface StreamLog {
      */
     void append(List<LogData> entries);
 
+    /**
+     * Append a group of independent writes. Each entry succeeds or fails on its own,
+     * exactly as if it was appended through {@link #append(long, LogData)}, but
+     * implementations are free to coalesce the entries into fewer disk writes.
+     *
+     * @param entries entries to append, in arrival order
+     * @return the exception each entry failed with, or null for entries that were written
+     */
+    default List<RuntimeException> appendGroup(List<LogData> entries) {
+        List<RuntimeException> failures = new ArrayList<>(entries.size());
+        for (LogData entry : entries) {
+            try {
+                append(entry.getGlobalAddress(), entry);
+                failures.add(null);
+            } catch (RuntimeException e) {
+                failures.add(e);
+            }
+        }
+        return failures;
+    }
+
     /**
      * Given an address, read the corresponding stream entry.
      * @param address  address to read from the log
@@ -41,6 +64,30 @@ public interface StreamLog {
      */
     LogData read(long address);
 
+    /**
+     * Given several addresses, read the corresponding stream entries. Implementations
+     * are free to coalesce the reads of the entries into fewer disk reads. A corrupted
+     * entry doesn't fail the read of the other entries, its address is reported in
+     * {@link BulkReadResult#getCorruptedAddresses()}.
+     *
+     * @param addresses addresses to read from the log
+     * @return the stream entries that exist and could be read, and the corrupted addresses
+     */
+    default BulkReadResult readAll(Iterable<? extends Long> addresses) {
+        BulkReadResult result = new BulkReadResult();
+        for (long address : addresses) {
+            try {
+                LogData entry = read(address);
+                if (entry != null) {
+                    result.getEntries().put(address, entry);
+                }
+            } catch (DataCorruptionException e) {
+                result.getCorruptedAddresses().add(address);
+            }
+        }
+        return result;
+    }
+
     /**
      * Prefix trim the global log.
      * @param address address to trim the log up to
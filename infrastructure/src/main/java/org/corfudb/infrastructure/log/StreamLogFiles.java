@@ -2,12 +2,14 @@ package org.corfudb.infrastructure.log;
 
 import static org.corfudb.infrastructure.utils.Persistence.syncDirectory;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Sets;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -28,6 +30,8 @@ import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.OverwriteCause;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
+import org.corfudb.util.CFUtils;
+import org.corfudb.util.CorfuComponent;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -35,6 +39,7 @@ import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileStore;
@@ -42,20 +47,33 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 
 /**
@@ -77,15 +95,69 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             .getSerializedSize();
     public static final int VERSION = 2;
     public static final int RECORDS_PER_LOG_FILE = 10000;
+
+    /**
+     * Segments whose live records take less than this fraction of the segment file
+     * are rewritten by the compaction.
+     */
+    static final double COMPACTION_LIVE_RATIO = 0.5;
+
+    static final String COMPACTION_RECLAIMED_METRIC =
+            CorfuComponent.INFRA_STREAM_OPS + "compaction.reclaimed-bytes";
+    static final String COMPACTION_REWRITTEN_METRIC =
+            CorfuComponent.INFRA_STREAM_OPS + "compaction.rewritten-bytes";
+
+    private static final String COMPACTION_EXTENSION = ".compact";
+
+    /**
+     * Maximum size of a read that coalesces adjacent records.
+     */
+    static final int MAX_COALESCED_READ_SIZE = 4 << 20;
+
+    /**
+     * The number of segments queued per recovery thread while the log metadata is loaded.
+     */
+    static final int RECOVERY_SEGMENTS_PER_THREAD = 2;
+
     private final Path logDir;
     private final boolean verify;
 
+    /**
+     * If true, reads on full segments are served from a memory-mapped view of the
+     * segment file instead of positional reads on the file channel.
+     */
+    private final boolean mmapReads;
+
     private final StreamLogDataStore dataStore;
 
     private ConcurrentMap<String, SegmentHandle> writeChannels;
     private Set<FileChannel> channelsToSync;
+
+    /**
+     * The syncs forcing channels, guarded by channelsToSync.
+     */
+    private final Set<CompletableFuture<Void>> syncsInProgress = new HashSet<>();
+
+    /**
+     * Guards the log metadata and the tail segment, which are updated by writes
+     * to different segments concurrently.
+     */
+    private final Object metadataLock = new Object();
+
+    /**
+     * The number of threads that scan and verify segments on startup.
+     */
+    private final int recoveryThreads;
     private MultiReadWriteLock segmentLocks = new MultiReadWriteLock();
 
+    /**
+     * Serializes segment compactions.
+     */
+    private final Object compactionLock = new Object();
+
+    private final Counter reclaimedBytes = ServerContext.getMetrics().counter(COMPACTION_RECLAIMED_METRIC);
+    private final Meter rewrittenBytes = ServerContext.getMetrics().meter(COMPACTION_REWRITTEN_METRIC);
+
     //=================Log Metadata=================
     // TODO(Maithem) this should effectively be final, but it is used
     // by a reset API that clears the state of this class, on reset
@@ -104,16 +176,25 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     public StreamLogFiles(ServerContext serverContext, boolean noVerify) {
         logDir = Paths.get(serverContext.getServerConfig().get("--log-path").toString(), "log");
         writeChannels = new ConcurrentHashMap<>();
-        channelsToSync = new HashSet<>();
+        channelsToSync = ConcurrentHashMap.newKeySet();
         this.verify = !noVerify;
+        this.mmapReads = Boolean.TRUE.equals(serverContext.getServerConfig().get("--mmap-reads"));
         this.dataStore = StreamLogDataStore.builder().dataStore(serverContext.getDataStore()).build();
+        Object threads = serverContext.getServerConfig().get("--log-recovery-threads");
+        int configuredThreads = threads == null ? 0 : Integer.parseInt(threads.toString());
+        this.recoveryThreads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
 
         initStreamLogDirectory();
-        verifyLogs();
-        // Starting address initialization should happen before
-        // initializing the tail segment (i.e. initializeMaxGlobalAddress)
-        logMetadata = new LogMetadata();
-        initializeLogMetadata();
+        ForkJoinPool recoveryPool = newRecoveryPool();
+        try {
+            verifyLogs(recoveryPool);
+            // Starting address initialization should happen before
+            // initializing the tail segment (i.e. initializeMaxGlobalAddress)
+            logMetadata = new LogMetadata();
+            initializeLogMetadata(recoveryPool);
+        } finally {
+            recoveryPool.shutdownNow();
+        }
 
         // This can happen if a prefix trim happens on
         // addresses that haven't been written
@@ -171,32 +252,82 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      *
      * consecutive segments from [startSegment, endSegment]
      */
-    private void initializeLogMetadata() {
+    private void initializeLogMetadata(ForkJoinPool recoveryPool) {
         long startingSegment = getStartingSegment();
         long tailSegment = dataStore.getTailSegment();
 
         long start = System.currentTimeMillis();
-        for (long currentSegment = startingSegment; currentSegment <= tailSegment; currentSegment++) {
-            // TODO(Maithem): factor out getSegmentHandleForAddress to allow getting segments by segment number
-            SegmentHandle segment = getSegmentHandleForAddress(currentSegment * RECORDS_PER_LOG_FILE + 1);
-            try {
-                for (Long address : segment.getKnownAddresses().keySet()) {
-                    // skip trimmed entries
-                    if (address < dataStore.getStartingAddress()) {
-                        continue;
-                    }
-                    LogData logEntry = read(address);
-                    logMetadata.update(logEntry);
+
+        // Segments are loaded in parallel, and the metadata of each segment is merged
+        // in segment order as soon as it is available. At most a few segments per thread
+        // are in flight, so that the metadata waiting to be merged doesn't grow with the log.
+        final int maxInFlight = recoveryPool.getParallelism() * RECOVERY_SEGMENTS_PER_THREAD;
+        Deque<ForkJoinTask<LogMetadata>> segmentTasks = new ArrayDeque<>(maxInFlight);
+        try {
+            for (long currentSegment = startingSegment; currentSegment <= tailSegment; currentSegment++) {
+                if (segmentTasks.size() >= maxInFlight) {
+                    logMetadata.merge(segmentTasks.removeFirst().join());
                 }
-            } finally {
-                segment.close();
+                final long segment = currentSegment;
+                segmentTasks.addLast(recoveryPool.submit(() -> loadSegmentMetadata(segment)));
+            }
+
+            while (!segmentTasks.isEmpty()) {
+                logMetadata.merge(segmentTasks.removeFirst().join());
             }
+        } finally {
+            segmentTasks.forEach(task -> task.cancel(false));
         }
 
-        // Open segment will add entries to the writeChannels map, therefore we need to clear it
-        writeChannels.clear();
         long end = System.currentTimeMillis();
-        log.info("initializeStreamTails: took {} ms to load {}", end - start, logMetadata);
+        log.info("initializeStreamTails: took {} ms to load {} segments with {} threads: {}", end - start,
+                tailSegment - startingSegment + 1, recoveryPool.getParallelism(), logMetadata);
+    }
+
+    /**
+     * Computes the log metadata of the untrimmed records of a segment.
+     *
+     * @param segmentId the segment to load
+     * @return the log metadata of the segment
+     */
+    private LogMetadata loadSegmentMetadata(long segmentId) throws IOException {
+        LogMetadata[] loadedMetadata = new LogMetadata[1];
+        SegmentHandle segment = openSegment(segmentId, getSegmentFilePath(segmentId),
+                metadata -> loadedMetadata[0] = metadata);
+
+        try {
+            long startingAddress = dataStore.getStartingAddress();
+
+            // The metadata of the segment can only be used as a whole,
+            // i.e. if none of its addresses have been trimmed
+            if (loadedMetadata[0] != null && segmentId * RECORDS_PER_LOG_FILE >= startingAddress) {
+                return loadedMetadata[0];
+            }
+
+            LogMetadata segmentMetadata = new LogMetadata();
+            for (long address : segment.getIndex().getAddresses()) {
+                // skip trimmed entries
+                if (address < startingAddress) {
+                    continue;
+                }
+                LogData logEntry = readRecord(segment, address);
+                segmentMetadata.update(logEntry);
+            }
+            return segmentMetadata;
+        } finally {
+            segment.close();
+        }
+    }
+
+    /**
+     * Returns a pool for the startup scan and verification of the segments.
+     */
+    private ForkJoinPool newRecoveryPool() {
+        return new ForkJoinPool(recoveryThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("LogUnit-Recovery-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
     }
 
     /**
@@ -248,31 +379,39 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     @Override
     public TailsResponse getTails(List<UUID> streams) {
         Map<UUID, Long> tails = new HashMap<>();
-        streams.forEach(stream -> {
-            tails.put(stream, logMetadata.getStreamTails().get(stream));
-        });
-        return new TailsResponse(logMetadata.getGlobalTail(), tails);
+        synchronized (metadataLock) {
+            streams.forEach(stream -> {
+                tails.put(stream, logMetadata.getStreamTails().get(stream));
+            });
+            return new TailsResponse(logMetadata.getGlobalTail(), tails);
+        }
     }
 
     @Override
     public StreamsAddressResponse getStreamsAddressSpace() {
-        return new StreamsAddressResponse(logMetadata.getGlobalTail(), logMetadata.getStreamsAddressSpaceMap());
+        synchronized (metadataLock) {
+            return new StreamsAddressResponse(logMetadata.getGlobalTail(), logMetadata.getStreamsAddressSpaceMap());
+        }
     }
 
     @Override
     public TailsResponse getAllTails() {
-        Map<UUID, Long> tails = new HashMap<>(logMetadata.getStreamTails());
-        return new TailsResponse(logMetadata.getGlobalTail(), tails);
+        synchronized (metadataLock) {
+            Map<UUID, Long> tails = new HashMap<>(logMetadata.getStreamTails());
+            return new TailsResponse(logMetadata.getGlobalTail(), tails);
+        }
     }
 
     private void syncTailSegment(long address) {
         // TODO(Maithem) since writing a record and setting the tail segment is not
         // an atomic operation, it is possible to set an incorrect tail segment. In
         // that case we will need to scan more than one segment
-        logMetadata.updateGlobalTail(address);
-        long segment = address / RECORDS_PER_LOG_FILE;
+        synchronized (metadataLock) {
+            logMetadata.updateGlobalTail(address);
+            long segment = address / RECORDS_PER_LOG_FILE;
 
-        dataStore.updateTailSegment(segment);
+            dataStore.updateTailSegment(segment);
+        }
     }
 
     @Override
@@ -296,7 +435,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         return address < dataStore.getStartingAddress();
     }
 
-    private void verifyLogs() {
+    private void verifyLogs(ForkJoinPool recoveryPool) {
         String[] extension = {"log"};
         File dir = logDir.toFile();
 
@@ -306,48 +445,95 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         Collection<File> files = FileUtils.listFiles(dir, extension, true);
 
+        List<ForkJoinTask<?>> verifyTasks = new ArrayList<>(files.size());
         for (File file : files) {
-            LogHeader header;
+            verifyTasks.add(recoveryPool.submit(() -> verifyLog(file)));
+        }
+        verifyTasks.forEach(ForkJoinTask::join);
+    }
 
-            try (FileChannel fileChannel = FileChannel.open(file.toPath())) {
-                header = parseHeader(fileChannel, file.getAbsolutePath());
-            } catch (IOException e) {
-                throw new IllegalStateException("Invalid header: " + file.getAbsolutePath(), e);
-            }
+    private void verifyLog(File file) {
+        LogHeader header;
 
-            if (header == null) {
-                log.warn("verifyLogs: Ignoring partially written header in {}", file.getAbsoluteFile());
-                continue;
-            }
+        try (FileChannel fileChannel = FileChannel.open(file.toPath())) {
+            header = parseHeader(fileChannel, file.getAbsolutePath());
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid header: " + file.getAbsolutePath(), e);
+        }
 
-            if (header.getVersion() != VERSION) {
-                String msg = String.format("Log version %s for %s should match the LogUnit log version %s",
-                        header.getVersion(), file.getAbsoluteFile(), VERSION);
-                throw new IllegalStateException(msg);
-            }
+        if (header == null) {
+            log.warn("verifyLogs: Ignoring partially written header in {}", file.getAbsoluteFile());
+            return;
+        }
 
-            if (verify && !header.getVerifyChecksum()) {
-                String msg = String.format("Log file %s not generated with check sums, can't verify!",
-                        file.getAbsoluteFile());
-                throw new IllegalStateException(msg);
-            }
+        if (header.getVersion() != VERSION) {
+            String msg = String.format("Log version %s for %s should match the LogUnit log version %s",
+                    header.getVersion(), file.getAbsoluteFile(), VERSION);
+            throw new IllegalStateException(msg);
+        }
+
+        if (verify && !header.getVerifyChecksum()) {
+            String msg = String.format("Log file %s not generated with check sums, can't verify!",
+                    file.getAbsoluteFile());
+            throw new IllegalStateException(msg);
         }
     }
 
     @Override
     public void sync(boolean force) throws IOException {
-        if (force) {
-            for (FileChannel ch : channelsToSync) {
-                ch.force(true);
+        // The dirty channels are collected under the lock and forced outside of it, so
+        // that the lanes force their segments concurrently. A channel is removed from
+        // the set before it is forced, so a concurrent sync may find it missing while
+        // the writes of its caller are still being forced: every sync therefore also
+        // waits for the syncs in progress when it started.
+        List<FileChannel> channels = new ArrayList<>();
+        List<CompletableFuture<Void>> concurrentSyncs;
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        synchronized (channelsToSync) {
+            Iterator<FileChannel> dirty = channelsToSync.iterator();
+            while (dirty.hasNext()) {
+                channels.add(dirty.next());
+                dirty.remove();
+            }
+            if (!force) {
+                return;
+            }
+            concurrentSyncs = new ArrayList<>(syncsInProgress);
+            syncsInProgress.add(synced);
+        }
+
+        try {
+            for (int idx = 0; idx < channels.size(); idx++) {
+                try {
+                    channels.get(idx).force(true);
+                } catch (ClosedChannelException e) {
+                    // The segment was closed by a trim or replaced by a compaction
+                    log.debug("sync: ignoring closed channel {}", channels.get(idx));
+                } catch (IOException e) {
+                    channelsToSync.addAll(channels.subList(idx, channels.size()));
+                    synced.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            synced.complete(null);
+        } finally {
+            synchronized (channelsToSync) {
+                syncsInProgress.remove(synced);
             }
         }
-        log.trace("Sync'd {} channels", channelsToSync.size());
-        channelsToSync.clear();
+
+        for (CompletableFuture<Void> concurrentSync : concurrentSyncs) {
+            CFUtils.getUninterruptibly(concurrentSync, IOException.class);
+        }
+        log.trace("Sync'd {} channels", channels.size());
     }
 
     @Override
-    public synchronized void compact() {
-        trimPrefix();
+    public void compact() {
+        synchronized (this) {
+            trimPrefix();
+        }
+        compactSegments();
     }
 
     @Override
@@ -381,8 +567,212 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         log.info("trimPrefix: completed, end segment {}", endSegment);
     }
 
+    /**
+     * Rewrites the segments below the tail segment whose live records take less than
+     * {@link #COMPACTION_LIVE_RATIO} of their file. The records below the trim mark and
+     * the records replaced by ranked overwrites are dead. Holes are copied, they are what
+     * prevents their address from being written again, but they don't count as live records.
+     *
+     * <p>Only the segments that are open and the segments around the trim mark are
+     * considered, so that the compaction doesn't open every segment of the log.
+     *
+     * @return the number of bytes reclaimed
+     */
+    @VisibleForTesting
+    long compactSegments() {
+        synchronized (compactionLock) {
+            long tailSegment = dataStore.getTailSegment();
+            long trimSegment = (dataStore.getStartingAddress() - 1) / RECORDS_PER_LOG_FILE;
+
+            Set<Long> candidates = new TreeSet<>();
+            for (SegmentHandle sh : writeChannels.values()) {
+                candidates.add(sh.getSegment());
+            }
+            for (long segment = trimSegment - 1; segment <= trimSegment; segment++) {
+                if (segment >= 0 && new File(getSegmentFilePath(segment)).exists()) {
+                    candidates.add(segment);
+                }
+            }
+
+            long reclaimed = 0;
+            for (long segment : candidates) {
+                if (segment >= tailSegment) {
+                    continue;
+                }
+
+                try {
+                    reclaimed += compactSegment(segment);
+                } catch (IOException | RuntimeException e) {
+                    log.error("compactSegments: failed to compact segment {}", segment, e);
+                }
+            }
+            return reclaimed;
+        }
+    }
+
+    /**
+     * Rewrites the live records of a segment into a new segment file, if they take less
+     * than {@link #COMPACTION_LIVE_RATIO} of the segment file. The records are copied
+     * as-is, the new file replaces the segment file atomically and a new handle replaces
+     * the segment handle.
+     *
+     * <p>Writes to the segment are blocked while it is rewritten. The handles are only
+     * swapped if no one else holds the segment handle, otherwise the rewrite is discarded
+     * and the segment is compacted by a later compaction.
+     *
+     * @param segmentId the segment to compact
+     * @return the number of bytes reclaimed
+     * @throws IOException IO exception
+     */
+    private long compactSegment(long segmentId) throws IOException {
+        SegmentHandle segment = getSegmentHandleForAddress(segmentId * RECORDS_PER_LOG_FILE);
+
+        try (MultiReadWriteLock.AutoCloseableLock ignored = segmentLocks.acquireWriteLock(segmentId)) {
+            long startingAddress = dataStore.getStartingAddress();
+            FileChannel readChannel = segment.getReadChannel();
+            long segmentSize = readChannel.size();
+            long headerSize = getHeaderSize(readChannel);
+
+            // Copy the records above the trim mark in file order, so that the segment file
+            // is read sequentially
+            List<Long> liveAddresses = new ArrayList<>();
+            long liveSize = headerSize;
+            long copiedSize = headerSize;
+            for (long address : segment.getIndex().getAddresses()) {
+                if (address >= startingAddress) {
+                    long recordSize = METADATA_SIZE + segment.getIndex().get(address).length;
+                    liveAddresses.add(address);
+                    copiedSize += recordSize;
+                    if (!segment.getIndex().isHole(address)) {
+                        liveSize += recordSize;
+                    }
+                }
+            }
+
+            // A segment left with holes only has nothing to reclaim
+            if (liveSize >= segmentSize * COMPACTION_LIVE_RATIO || copiedSize == segmentSize) {
+                return 0;
+            }
+
+            AddressMetaData[] records = new AddressMetaData[liveAddresses.size()];
+            boolean[] holes = new boolean[records.length];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = segment.getIndex().get(liveAddresses.get(i));
+                holes[i] = segment.getIndex().isHole(liveAddresses.get(i));
+            }
+            Integer[] order = new Integer[records.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> records[i].offset));
+
+            long startTime = System.nanoTime();
+            long[] newOffsets = new long[records.length];
+            Path compactedPath = Paths.get(segment.getFileName() + COMPACTION_EXTENSION);
+
+            try (FileChannel out = FileChannel.open(compactedPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                transferFully(readChannel, 0, headerSize, out);
+
+                // Records that are contiguous in the segment file are copied together
+                long written = headerSize;
+                long runStart = 0;
+                long runEnd = 0;
+                for (int i : order) {
+                    long recordStart = records[i].offset - METADATA_SIZE;
+                    long recordEnd = records[i].offset + records[i].length;
+                    if (recordStart != runEnd) {
+                        transferFully(readChannel, runStart, runEnd - runStart, out);
+                        runStart = recordStart;
+                    }
+                    runEnd = recordEnd;
+                    newOffsets[i] = written + METADATA_SIZE;
+                    written += recordEnd - recordStart;
+                }
+                transferFully(readChannel, runStart, runEnd - runStart, out);
+                out.force(true);
+            }
+
+            long compactedSize = Files.size(compactedPath);
+            if (compactedSize != copiedSize) {
+                Files.deleteIfExists(compactedPath);
+                throw new IOException("Compacted segment " + segmentId + " size " + compactedSize
+                        + " doesn't match its copied size " + copiedSize);
+            }
+
+            synchronized (this) {
+                if (writeChannels.get(segment.getFileName()) != segment || segment.getRefCount() != 1) {
+                    log.info("compactSegment: segment {} is in use, discarding its rewrite", segmentId);
+                    Files.deleteIfExists(compactedPath);
+                    return 0;
+                }
+
+                Files.move(compactedPath, Paths.get(segment.getFileName()),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                syncDirectory(logDir.toString());
+
+                // The old handle refers to the replaced file, it must not be used from now on
+                writeChannels.remove(segment.getFileName());
+                synchronized (channelsToSync) {
+                    channelsToSync.remove(segment.getWriteChannel());
+                }
+                segment.close();
+                Files.deleteIfExists(SegmentIndexFile.getPath(segment.getFileName()));
+
+                SegmentHandle compacted = new SegmentHandle(segmentId,
+                        getChannel(segment.getFileName(), false),
+                        getChannel(segment.getFileName(), true),
+                        segment.getFileName());
+                compacted.getWriteChannel().position(compactedSize);
+                for (int i = 0; i < records.length; i++) {
+                    compacted.getIndex().put(liveAddresses.get(i), records[i].checksum,
+                            records[i].length, newOffsets[i], holes[i]);
+                }
+                writeChannels.put(compacted.getFileName(), compacted);
+            }
+
+            long elapsedNanos = Math.max(System.nanoTime() - startTime, 1);
+            long reclaimed = segmentSize - compactedSize;
+            reclaimedBytes.inc(reclaimed);
+            rewrittenBytes.mark(compactedSize);
+            log.info("compactSegment: rewrote {} live records of segment {} in {} ms ({} MB/s), "
+                            + "size {} -> {}, reclaimed {} bytes", records.length, segmentId,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    String.format("%.2f", compactedSize * 1e3 / elapsedNanos),
+                    segmentSize, compactedSize, reclaimed);
+            return reclaimed;
+        } finally {
+            segment.release();
+        }
+    }
+
+    /**
+     * Returns the size of the header of a segment file, including its metadata.
+     */
+    private long getHeaderSize(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(METADATA_SIZE);
+        channel.read(buf, 0);
+        return METADATA_SIZE + Metadata.parseFrom(buf.array()).getLength();
+    }
+
+    /**
+     * Appends a range of a file to a channel.
+     */
+    private static void transferFully(FileChannel src, long position, long count,
+                                      FileChannel dst) throws IOException {
+        while (count > 0) {
+            long transferred = src.transferTo(position, count, dst);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file, position " + position);
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
     private LogData getLogData(LogEntry entry) {
-        ByteBuf data = Unpooled.wrappedBuffer(entry.getData().toByteArray());
+        // Wrap the payload in place, the LogData constructor makes the only copy
+        ByteBuf data = Unpooled.wrappedBuffer(entry.getData().asReadOnlyByteBuffer());
         LogData logData = new LogData(org.corfudb.protocols.wireprotocol
                 .DataType.typeMap.get((byte) entry.getDataType().getNumber()), data);
 
@@ -597,18 +987,37 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * Reads an address space from a log file into a SegmentHandle.
      *
      * @param segment Object containing state for the segment to be read
+     * @return the log metadata of the segment records, or null if the segment file
+     *         had no header
      */
-    private void readAddressSpace(SegmentHandle segment) throws IOException {
+    @Nullable
+    private LogMetadata readAddressSpace(SegmentHandle segment) throws IOException {
         FileChannel fileChannel = segment.getWriteChannel();
+
+        // A full segment is loaded from its index file if it is still valid,
+        // otherwise the segment file is scanned
+        LogMetadata indexedMetadata = SegmentIndexFile.load(segment, fileChannel.size());
+        if (indexedMetadata != null) {
+            log.trace("readAddressSpace: loaded segment {} from its index file", segment.getSegment());
+            fileChannel.position(fileChannel.size());
+            return indexedMetadata;
+        }
+
         fileChannel.position(0);
 
         LogHeader header = parseHeader(fileChannel, segment.getFileName());
         if (header == null) {
             log.warn("Couldn't find log header for {}, creating new header.", segment.getFileName());
             writeHeader(fileChannel, VERSION, verify);
-            return;
+            segment.setMetadata(new LogMetadata());
+            return null;
         }
 
+        // The metadata of the scanned records is then maintained by the writes,
+        // until the segment is full and indexed
+        LogMetadata segmentMetadata = new LogMetadata();
+        segment.setMetadata(segmentMetadata);
+
         while (fileChannel.size() - fileChannel.position() > 0) {
             long channelOffset = fileChannel.position();
             Metadata metadata = parseMetadata(fileChannel, segment.getFileName());
@@ -626,17 +1035,32 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 // to be ignored, or if the bytes correspond to a corrupted metadata field.
                 fileChannel.truncate(fileChannel.position());
                 fileChannel.force(true);
-                return;
+                return segmentMetadata;
             }
 
-            AddressMetaData addressMetadata = new AddressMetaData(
+            segment.getIndex().put(entry.getGlobalAddress(),
                     metadata.getPayloadChecksum(),
                     metadata.getLength(),
-                    channelOffset + METADATA_SIZE
+                    channelOffset + METADATA_SIZE,
+                    entry.getDataType() == Types.DataType.HOLE
             );
-
-            segment.getKnownAddresses().put(entry.getGlobalAddress(), addressMetadata);
+            segmentMetadata.update(getLogData(entry));
         }
+
+        // The segment was filled before index files were written, or its index
+        // file is stale. Index it now, so that it can be loaded on the next startup.
+        writeIndexFileIfFull(segment);
+        return segmentMetadata;
+    }
+
+    /**
+     * Parse a log entry whose payload aliases the parsed bytes, so that the payload
+     * is only copied once, by the {@link LogData} that is returned to the caller.
+     * The parsed bytes must not be modified afterwards.
+     */
+    private LogEntry parseEntry(CodedInputStream input) throws IOException {
+        input.enableAliasing(true);
+        return LogEntry.parseFrom(input);
     }
 
     /**
@@ -649,15 +1073,24 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     private LogData readRecord(SegmentHandle segment, long address) throws IOException {
         FileChannel fileChannel = segment.getReadChannel();
 
-        AddressMetaData metaData = segment.getKnownAddresses().get(address);
+        AddressMetaData metaData = segment.getIndex().get(address);
         if (metaData == null) {
             return null;
         }
 
         try {
+            ByteBuffer mappedBuf = getMappedBuffer(segment);
+            if (mappedBuf != null && metaData.offset + metaData.length <= mappedBuf.capacity()) {
+                // Parse the record straight from the mapped segment file
+                ByteBuffer entryBuf = mappedBuf.duplicate();
+                entryBuf.limit((int) metaData.offset + metaData.length);
+                entryBuf.position((int) metaData.offset);
+                return getLogData(parseEntry(CodedInputStream.newInstance(entryBuf)));
+            }
+
             ByteBuffer entryBuf = ByteBuffer.allocate(metaData.length);
             fileChannel.read(entryBuf, metaData.offset);
-            return getLogData(LogEntry.parseFrom(entryBuf.array()));
+            return getLogData(parseEntry(CodedInputStream.newInstance(entryBuf.array())));
         } catch (InvalidProtocolBufferException e) {
             String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
                     fileChannel, segment.getFileName()
@@ -666,6 +1099,119 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    /**
+     * Read the log entries of several addresses of a segment. The records are read in
+     * the order of their offsets, and records that follow each other in the segment file
+     * are read together.
+     *
+     * <p>A corrupted record doesn't fail the read of the other records, its address is
+     * added to the corrupted addresses of the result.
+     *
+     * @param segment   The file handle to use.
+     * @param addresses The addresses of the entries.
+     * @param result    The result the entries and the corrupted addresses are added to,
+     *                  addresses without an entry are skipped.
+     */
+    private void readRecords(SegmentHandle segment, List<Long> addresses, BulkReadResult result)
+            throws IOException {
+        if (getMappedBuffer(segment) != null) {
+            // Reads from the mapped segment file don't go through the channel
+            for (long address : addresses) {
+                try {
+                    LogData entry = readRecord(segment, address);
+                    if (entry != null) {
+                        result.getEntries().put(address, entry);
+                    }
+                } catch (DataCorruptionException e) {
+                    log.error("readRecords: corrupted record of address {}", address, e);
+                    result.getCorruptedAddresses().add(address);
+                }
+            }
+            return;
+        }
+
+        List<Long> toRead = new ArrayList<>(addresses.size());
+        List<AddressMetaData> metaData = new ArrayList<>(addresses.size());
+        for (long address : addresses) {
+            AddressMetaData record = segment.getIndex().get(address);
+            if (record != null) {
+                toRead.add(address);
+                metaData.add(record);
+            }
+        }
+
+        AddressMetaData[] records = metaData.toArray(new AddressMetaData[0]);
+        Integer[] order = new Integer[records.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> records[i].offset));
+
+        FileChannel fileChannel = segment.getReadChannel();
+        int first = 0;
+        while (first < order.length) {
+            // Extend the read over the records that follow each other in the file
+            final long start = records[order[first]].offset;
+            long end = start + records[order[first]].length;
+            int last = first + 1;
+            while (last < order.length) {
+                AddressMetaData next = records[order[last]];
+                if (next.offset - METADATA_SIZE != end
+                        || next.offset + next.length - start > MAX_COALESCED_READ_SIZE) {
+                    break;
+                }
+                end = next.offset + next.length;
+                last++;
+            }
+
+            ByteBuffer buf = ByteBuffer.allocate((int) (end - start));
+            while (buf.hasRemaining()) {
+                if (fileChannel.read(buf, start + buf.position()) < 0) {
+                    // The records past the end of the file are skipped below
+                    break;
+                }
+            }
+
+            for (int i = first; i < last; i++) {
+                AddressMetaData record = records[order[i]];
+                long address = toRead.get(order[i]);
+                if (record.offset + record.length > start + buf.position()) {
+                    log.error("readRecords: truncated record of address {} in {}",
+                            address, segment.getFileName());
+                    result.getCorruptedAddresses().add(address);
+                    continue;
+                }
+
+                try {
+                    LogEntry entry = parseEntry(CodedInputStream.newInstance(buf.array(),
+                            (int) (record.offset - start), record.length));
+                    result.getEntries().put(address, getLogData(entry));
+                } catch (InvalidProtocolBufferException e) {
+                    log.error("readRecords: corrupted record of address {} in {}",
+                            address, segment.getFileName(), e);
+                    result.getCorruptedAddresses().add(address);
+                }
+            }
+            first = last;
+        }
+    }
+
+    /**
+     * Returns the memory-mapped view of a segment if mmap reads are enabled and the
+     * segment is full, i.e. it will not receive any more (non-ranked) writes.
+     *
+     * @param segment the segment to read from
+     * @return the mapped segment file or null if reads should go through the channel
+     * @throws IOException IO exception
+     */
+    @Nullable
+    private ByteBuffer getMappedBuffer(SegmentHandle segment) throws IOException {
+        if (!mmapReads || segment.getIndex().size() < RECORDS_PER_LOG_FILE) {
+            return null;
+        }
+        return segment.map();
+    }
+
     @Nullable
     private FileChannel getChannel(String filePath, boolean readOnly) throws IOException {
         if (readOnly) {
@@ -709,36 +1255,49 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     synchronized SegmentHandle getSegmentHandleForAddress(long address) {
         long segment = address / RECORDS_PER_LOG_FILE;
 
-        String filePath = logDir + File.separator;
-        filePath += segment;
-        filePath += ".log";
-
-        SegmentHandle handle = writeChannels.computeIfAbsent(filePath, a -> {
-            FileChannel writeCh = null;
-            FileChannel readCh = null;
-
-            try {
-                writeCh = getChannel(a, false);
-                readCh = getChannel(a, true);
-
-                SegmentHandle sh = new SegmentHandle(segment, writeCh, readCh, a);
-                // The first time we open a file we should read to the end, to load the
-                // map of entries we already have.
-                // Once the segment address space is loaded, it should be ready to accept writes.
-                readAddressSpace(sh);
-                return sh;
-            } catch (IOException e) {
-                log.error("Error opening file {}", a, e);
-                IOUtils.closeQuietly(writeCh);
-                IOUtils.closeQuietly(readCh);
-                throw new IllegalStateException(e);
-            }
-        });
+        SegmentHandle handle = writeChannels.computeIfAbsent(getSegmentFilePath(segment),
+                filePath -> openSegment(segment, filePath, sh -> { }));
 
         handle.retain();
         return handle;
     }
 
+    private String getSegmentFilePath(long segment) {
+        return logDir + File.separator + segment + ".log";
+    }
+
+    /**
+     * Opens a segment file and loads its address space.
+     *
+     * @param segment          the segment to open
+     * @param filePath         the path of the segment file
+     * @param metadataConsumer consumes the log metadata of the segment records, loaded
+     *                         from the index file or computed by the scan of the segment,
+     *                         or null if the segment file had no header
+     * @return the handle of the segment
+     */
+    private SegmentHandle openSegment(long segment, String filePath, Consumer<LogMetadata> metadataConsumer) {
+        FileChannel writeCh = null;
+        FileChannel readCh = null;
+
+        try {
+            writeCh = getChannel(filePath, false);
+            readCh = getChannel(filePath, true);
+
+            SegmentHandle sh = new SegmentHandle(segment, writeCh, readCh, filePath);
+            // The first time we open a file we should read to the end, to load the
+            // map of entries we already have.
+            // Once the segment address space is loaded, it should be ready to accept writes.
+            metadataConsumer.accept(readAddressSpace(sh));
+            return sh;
+        } catch (IOException e) {
+            log.error("Error opening file {}", filePath, e);
+            IOUtils.closeQuietly(writeCh);
+            IOUtils.closeQuietly(readCh);
+            throw new IllegalStateException(e);
+        }
+    }
+
     private Map<String, Long> getStrLongMap(Map<UUID, Long> uuidLongMap) {
         Map<String, Long> stringLongMap = new HashMap<>();
 
@@ -842,52 +1401,50 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * Write a list of LogData entries to the log file.
      *
      * @param segment segment handle to the logfile
-     * @param entries list of LogData entries to write.
-     * @return A map of AddressMetaData for the written records
+     * @param entries list of LogData entries to write, they are added to the segment
+     *                index once written.
      * @throws IOException IO exception
      */
-    private Map<Long, AddressMetaData> writeRecords(SegmentHandle segment,
-                                                    List<LogData> entries) throws IOException {
-        Map<Long, AddressMetaData> recordsMap = new HashMap<>();
-
+    private void writeRecords(SegmentHandle segment, List<LogData> entries) throws IOException {
         List<ByteBuffer> entryBuffs = new ArrayList<>();
-        int totalBytes = 0;
-
         List<Metadata> metadataList = new ArrayList<>();
 
         for (LogData curr : entries) {
             LogEntry logEntry = getLogEntry(curr.getGlobalAddress(), curr);
             Metadata metadata = getMetadata(logEntry);
             metadataList.add(metadata);
-            ByteBuffer record = getByteBuffer(metadata, logEntry);
-            totalBytes += record.limit();
-            entryBuffs.add(record);
+            entryBuffs.add(getByteBuffer(metadata, logEntry));
         }
 
-        ByteBuffer allRecordsBuf = ByteBuffer.allocate(totalBytes);
-
         try (MultiReadWriteLock.AutoCloseableLock ignored =
                      segmentLocks.acquireWriteLock(segment.getSegment())) {
+            long channelOffset = segment.getWriteChannel().position();
+            long[] recordOffsets = new long[entryBuffs.size()];
             for (int ind = 0; ind < entryBuffs.size(); ind++) {
-                long channelOffset = segment.getWriteChannel().position()
-                        + allRecordsBuf.position() + METADATA_SIZE;
-                allRecordsBuf.put(entryBuffs.get(ind));
-                Metadata metadata = metadataList.get(ind);
-                recordsMap.put(entries.get(ind).getGlobalAddress(),
-                        new AddressMetaData(metadata.getPayloadChecksum(),
-                                metadata.getLength(), channelOffset));
+                recordOffsets[ind] = channelOffset + METADATA_SIZE;
+                channelOffset += entryBuffs.get(ind).remaining();
             }
 
-            allRecordsBuf.flip();
-            safeWrite(segment.getWriteChannel(), allRecordsBuf);
+            // Gather all the records into a single write
+            safeWrite(segment.getWriteChannel(), entryBuffs.toArray(new ByteBuffer[0]));
             channelsToSync.add(segment.getWriteChannel());
+
+            for (int ind = 0; ind < entryBuffs.size(); ind++) {
+                Metadata metadata = metadataList.get(ind);
+                segment.getIndex().put(entries.get(ind).getGlobalAddress(), metadata.getPayloadChecksum(),
+                        metadata.getLength(), recordOffsets[ind], entries.get(ind).isHole());
+            }
+            if (segment.getMetadata() != null) {
+                segment.getMetadata().update(entries);
+            }
             // Sync the global and stream tail(s)
             // TODO(Maithem): on ioexceptions the StreamLogFiles needs to be reinitialized
-            syncTailSegment(entries.get(entries.size() - 1).getGlobalAddress());
-            logMetadata.update(entries);
+            synchronized (metadataLock) {
+                syncTailSegment(entries.get(entries.size() - 1).getGlobalAddress());
+                logMetadata.update(entries);
+            }
+            writeIndexFileIfFull(segment);
         }
-
-        return recordsMap;
     }
 
     /**
@@ -900,9 +1457,31 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * @throws IOException IO exception
      */
     private static void safeWrite(FileChannel channel, ByteBuffer buf) throws IOException {
+        safeWrite(channel, new ByteBuffer[]{buf});
+    }
+
+    /**
+     * Attempts to write a sequence of buffers to a file channel with a gathering
+     * write, if the write fails with an IOException then the channel pointer is
+     * moved back to its original position before the write
+     *
+     * @param channel the channel to write to
+     * @param bufs    the buffers to write
+     * @throws IOException IO exception
+     */
+    private static void safeWrite(FileChannel channel, ByteBuffer[] bufs) throws IOException {
         long prev = channel.position();
+        long remaining = 0;
+        for (ByteBuffer buf : bufs) {
+            remaining += buf.remaining();
+        }
+
         try {
-            channel.write(buf);
+            // A gathering write can be split by the OS (i.e. IOV_MAX), so
+            // keep writing until all the buffers are drained
+            while (remaining > 0) {
+                remaining -= channel.write(bufs);
+            }
         } catch (IOException e) {
             // Write failed restore the channels position, so the subsequent writes
             // can overwrite the failed write.
@@ -925,27 +1504,58 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      *
      * @param segment The file handle to use.
      * @param address The address of the entry.
-     * @param entry   The LogData to append.
-     * @return Returns metadata for the written record
+     * @param entry   The LogData to append, it is added to the segment index once written.
      */
-    private AddressMetaData writeRecord(SegmentHandle segment, long address,
-                                        LogData entry) throws IOException {
+    private void writeRecord(SegmentHandle segment, long address,
+                             LogData entry) throws IOException {
         LogEntry logEntry = getLogEntry(address, entry);
         Metadata metadata = getMetadata(logEntry);
 
         ByteBuffer record = getByteBuffer(metadata, logEntry);
-        long channelOffset;
 
         try (MultiReadWriteLock.AutoCloseableLock ignored =
                      segmentLocks.acquireWriteLock(segment.getSegment())) {
-            channelOffset = segment.getWriteChannel().position() + METADATA_SIZE;
+            long channelOffset = segment.getWriteChannel().position() + METADATA_SIZE;
             safeWrite(segment.getWriteChannel(), record);
             channelsToSync.add(segment.getWriteChannel());
-            syncTailSegment(address);
-            logMetadata.update(entry);
+            segment.getIndex().put(address, metadata.getPayloadChecksum(), metadata.getLength(), channelOffset,
+                    entry.isHole());
+            if (segment.getMetadata() != null) {
+                segment.getMetadata().update(entry);
+            }
+            synchronized (metadataLock) {
+                syncTailSegment(address);
+                logMetadata.update(entry);
+            }
+            writeIndexFileIfFull(segment);
+        }
+    }
+
+    /**
+     * Writes the index file of a segment once it is full, so that the segment doesn't
+     * have to be scanned when it is opened again. Failing to write the index file
+     * isn't fatal, the segment is scanned instead.
+     *
+     * <p>The index file is written from the log metadata maintained by the writes, which
+     * is then dropped: later ranked overwrites leave the index file stale, and the segment
+     * is scanned and indexed again on the next startup.
+     *
+     * @param segment the segment handle, the caller holds the segment write lock or is
+     *                opening the segment
+     */
+    private void writeIndexFileIfFull(SegmentHandle segment) {
+        LogMetadata segmentMetadata = segment.getMetadata();
+        if (segmentMetadata == null || segment.getIndex().size() < RECORDS_PER_LOG_FILE) {
+            return;
         }
 
-        return new AddressMetaData(metadata.getPayloadChecksum(), metadata.getLength(), channelOffset);
+        try {
+            SegmentIndexFile.write(segment, segment.getWriteChannel().size(), segmentMetadata);
+            segment.setMetadata(null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("writeIndexFileIfFull: failed to write the index file of segment {}",
+                    segment.getSegment(), e);
+        }
     }
 
     private long getSegment(LogData entry) {
@@ -1030,51 +1640,51 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // check if the entries range cross a segment
         LogData first = entries.get(0);
         LogData last = entries.get(entries.size() - 1);
-        SegmentHandle firstSh = getSegmentHandleForAddress(first.getGlobalAddress());
-        SegmentHandle lastSh = getSegmentHandleForAddress(last.getGlobalAddress());
 
-        // Extract all addresses associated with the provided write range.
-        Set<Long> pendingWrites = range.stream()
-                .map(entry -> entry.getGlobalAddress()).collect(Collectors.toSet());
-
-        // Input validation.
-        if (pendingWrites.size() != range.size()) {
-            log.error("Input validation failed! Received entries are not unique.");
-            throw new OverwriteException(OverwriteCause.SAME_DATA);
+        // Input validation, all the addresses of the provided write range have to be unique.
+        long[] pendingWrites = new long[range.size()];
+        for (int idx = 0; idx < range.size(); idx++) {
+            pendingWrites[idx] = range.get(idx).getGlobalAddress();
         }
-
-        // See if the provided range overlaps with any of the previously written entries.
-        Set<Long> segOneOverlap = Sets.intersection(pendingWrites,
-                firstSh.getKnownAddresses().keySet());
-        Set<Long> segTwoOverlap = Sets.intersection(pendingWrites,
-                lastSh.getKnownAddresses().keySet());
-        if (!segOneOverlap.isEmpty() || !segTwoOverlap.isEmpty()) {
-            log.error("Overlapping addresses detected: {}, {}", segOneOverlap, segTwoOverlap);
-            throw new OverwriteException(OverwriteCause.SAME_DATA);
+        Arrays.sort(pendingWrites);
+        for (int idx = 1; idx < pendingWrites.length; idx++) {
+            if (pendingWrites[idx] == pendingWrites[idx - 1]) {
+                log.error("Input validation failed! Received entries are not unique.");
+                throw new OverwriteException(OverwriteCause.SAME_DATA);
+            }
         }
 
+        SegmentHandle firstSh = getSegmentHandleForAddress(first.getGlobalAddress());
+        SegmentHandle lastSh = getSegmentHandleForAddress(last.getGlobalAddress());
+
+        // See if the provided range overlaps with any of the previously written entries.
         List<LogData> segOneEntries = new ArrayList<>();
         List<LogData> segTwoEntries = new ArrayList<>();
 
         for (LogData curr : entries) {
-            if (getSegment(curr) == firstSh.getSegment() &&
-                    !firstSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+            long address = curr.getGlobalAddress();
+            SegmentHandle sh = getSegment(curr) == firstSh.getSegment() ? firstSh : lastSh;
+            if (sh.getIndex().contains(address)) {
+                log.error("Overlapping address detected: {}", address);
+                firstSh.release();
+                lastSh.release();
+                throw new OverwriteException(OverwriteCause.SAME_DATA);
+            }
+
+            if (sh == firstSh) {
                 segOneEntries.add(curr);
-            } else if (getSegment(curr) == lastSh.getSegment() &&
-                    !lastSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+            } else {
                 segTwoEntries.add(curr);
             }
         }
 
         try {
             if (!segOneEntries.isEmpty()) {
-                Map<Long, AddressMetaData> firstSegAddresses = writeRecords(firstSh, segOneEntries);
-                firstSh.getKnownAddresses().putAll(firstSegAddresses);
+                writeRecords(firstSh, segOneEntries);
             }
 
             if (!segTwoEntries.isEmpty()) {
-                Map<Long, AddressMetaData> lastSegAddresses = writeRecords(lastSh, segTwoEntries);
-                lastSh.getKnownAddresses().putAll(lastSegAddresses);
+                writeRecords(lastSh, segTwoEntries);
             }
         } catch (IOException e) {
             log.error("Disk_write[{}-{}]: Exception", first.getGlobalAddress(),
@@ -1097,8 +1707,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         try {
             // make sure the entry doesn't currently exist...
             // (probably need a faster way to do this - high watermark?)
-            if (segment.getKnownAddresses().containsKey(address)
-                    || segment.getTrimmedAddresses().contains(address)) {
+            if (segment.getIndex().contains(address)) {
                 if (entry.getRank() == null) {
                     OverwriteCause overwriteCause = getOverwriteCauseForAddress(address, entry);
                     log.trace("Disk_write[{}]: overwritten exception, cause: {}", address, overwriteCause);
@@ -1106,12 +1715,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 } else {
                     // the method below might throw DataOutrankedException or ValueAdoptedException
                     assertAppendPermittedUnsafe(address, entry);
-                    AddressMetaData addressMetaData = writeRecord(segment, address, entry);
-                    segment.getKnownAddresses().put(address, addressMetaData);
+                    writeRecord(segment, address, entry);
                 }
             } else {
-                AddressMetaData addressMetaData = writeRecord(segment, address, entry);
-                segment.getKnownAddresses().put(address, addressMetaData);
+                writeRecord(segment, address, entry);
             }
             log.trace("Disk_write[{}]: Written to disk.", address);
         } catch (IOException e) {
@@ -1122,6 +1729,106 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    @Override
+    public List<RuntimeException> appendGroup(List<LogData> entries) {
+        RuntimeException[] failures = new RuntimeException[entries.size()];
+        Map<Long, SegmentHandle> segments = new HashMap<>();
+        // Indexes of the entries that still need to be written, grouped by segment
+        Map<Long, List<Integer>> pending = new TreeMap<>();
+        Set<Long> pendingAddresses = new HashSet<>();
+        // Indexes of entries that collide with an earlier entry of the same group
+        List<Integer> duplicates = new ArrayList<>();
+
+        try {
+            for (int idx = 0; idx < entries.size(); idx++) {
+                LogData entry = entries.get(idx);
+                long address = entry.getGlobalAddress();
+
+                if (entry.getRank() != null) {
+                    // Ranked writes can replace existing records, so they go through the
+                    // single append path after everything gathered before them is written
+                    writeGroup(entries, pending, segments, failures);
+                    pendingAddresses.clear();
+                    try {
+                        append(address, entry);
+                    } catch (RuntimeException e) {
+                        failures[idx] = e;
+                    }
+                    continue;
+                }
+
+                if (isTrimmed(address)) {
+                    failures[idx] = new OverwriteException(OverwriteCause.TRIM);
+                    continue;
+                }
+
+                long segmentId = address / RECORDS_PER_LOG_FILE;
+                SegmentHandle segment = segments.get(segmentId);
+                if (segment == null) {
+                    segment = getSegmentHandleForAddress(address);
+                    segments.put(segmentId, segment);
+                }
+
+                if (segment.getIndex().contains(address) || segment.getIndex().isTrimmed(address)) {
+                    OverwriteCause overwriteCause = getOverwriteCauseForAddress(address, entry);
+                    log.trace("appendGroup[{}]: overwritten exception, cause: {}", address, overwriteCause);
+                    failures[idx] = new OverwriteException(overwriteCause);
+                } else if (!pendingAddresses.add(address)) {
+                    duplicates.add(idx);
+                } else {
+                    pending.computeIfAbsent(segmentId, s -> new ArrayList<>()).add(idx);
+                }
+            }
+
+            writeGroup(entries, pending, segments, failures);
+
+            // The overwrite cause of a duplicate depends on the entry
+            // that won the address, which is only readable now
+            for (int idx : duplicates) {
+                LogData entry = entries.get(idx);
+                failures[idx] = new OverwriteException(
+                        getOverwriteCauseForAddress(entry.getGlobalAddress(), entry));
+            }
+        } finally {
+            segments.values().forEach(SegmentHandle::release);
+        }
+
+        return Arrays.asList(failures);
+    }
+
+    /**
+     * Write the pending entries of a group, with a single write per segment.
+     *
+     * @param entries  all the entries of the group
+     * @param pending  indexes of the entries to write, grouped by segment, cleared on return
+     * @param segments segment handles acquired by the group
+     * @param failures failures of the group entries, updated for entries that can't be written
+     */
+    private void writeGroup(List<LogData> entries, Map<Long, List<Integer>> pending,
+                            Map<Long, SegmentHandle> segments, RuntimeException[] failures) {
+        for (Map.Entry<Long, List<Integer>> segmentEntries : pending.entrySet()) {
+            SegmentHandle segment = segments.get(segmentEntries.getKey());
+            List<Integer> indexes = segmentEntries.getValue();
+            indexes.sort(Comparator.comparing(idx -> entries.get(idx).getGlobalAddress()));
+
+            List<LogData> records = new ArrayList<>(indexes.size());
+            for (int idx : indexes) {
+                records.add(entries.get(idx));
+            }
+
+            try {
+                writeRecords(segment, records);
+            } catch (IOException e) {
+                log.error("writeGroup: Disk_write[{}-{}]: Exception", records.get(0).getGlobalAddress(),
+                        records.get(records.size() - 1).getGlobalAddress(), e);
+                for (int idx : indexes) {
+                    failures[idx] = new RuntimeException(e);
+                }
+            }
+        }
+        pending.clear();
+    }
+
     @Override
     public LogData read(long address) {
         if (isTrimmed(address)) {
@@ -1130,9 +1837,6 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         SegmentHandle segment = getSegmentHandleForAddress(address);
 
         try {
-            if (segment.getPendingTrims().contains(address)) {
-                return LogData.getTrimmed(address);
-            }
             return readRecord(segment, address);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1141,6 +1845,34 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    @Override
+    public BulkReadResult readAll(Iterable<? extends Long> addresses) {
+        BulkReadResult result = new BulkReadResult();
+
+        // Group the addresses by segment, so that each segment is only looked up once
+        Map<Long, List<Long>> segments = new TreeMap<>();
+        for (long address : addresses) {
+            if (isTrimmed(address)) {
+                result.getEntries().put(address, LogData.getTrimmed(address));
+            } else {
+                segments.computeIfAbsent(address / RECORDS_PER_LOG_FILE, s -> new ArrayList<>()).add(address);
+            }
+        }
+
+        for (List<Long> segmentAddresses : segments.values()) {
+            SegmentHandle segment = getSegmentHandleForAddress(segmentAddresses.get(0));
+            try {
+                readRecords(segment, segmentAddresses, result);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                segment.release();
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public void close() {
         for (SegmentHandle fh : writeChannels.values()) {
@@ -0,0 +1,62 @@
+package org.corfudb.comm;
+
+import io.netty.channel.local.LocalAddress;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A registry of the endpoints of the Corfu servers which run in this process.
+ *
+ * <p>A server registers its endpoint once it is bound to the {@link LocalAddress} of the
+ * endpoint, so that the client routers of the runtimes embedded in the server process can
+ * reach it over an in-JVM channel instead of a TCP loopback connection. Endpoints are in
+ * the legacy host:port format.
+ */
+public final class InProcessEndpoints {
+
+    private static final Set<String> endpoints = ConcurrentHashMap.newKeySet();
+
+    private InProcessEndpoints() {
+        // Prevent instantiation of this class
+    }
+
+    /**
+     * Returns the in-JVM address a server with the given endpoint is bound to.
+     *
+     * @param endpoint The endpoint of the server.
+     * @return The {@link LocalAddress} of the endpoint.
+     */
+    public static LocalAddress getLocalAddress(@Nonnull String endpoint) {
+        return new LocalAddress("corfu-" + endpoint);
+    }
+
+    /**
+     * Register an endpoint as served by this process.
+     *
+     * @param endpoint The endpoint of the server.
+     */
+    public static void register(@Nonnull String endpoint) {
+        endpoints.add(endpoint);
+    }
+
+    /**
+     * Unregister an endpoint, once its server stops serving in-JVM connections.
+     *
+     * @param endpoint The endpoint of the server.
+     */
+    public static void unregister(@Nonnull String endpoint) {
+        endpoints.remove(endpoint);
+    }
+
+    /**
+     * Returns true if the server of an endpoint runs in this process.
+     *
+     * @param endpoint The endpoint of the server.
+     */
+    public static boolean isRegistered(@Nonnull String endpoint) {
+        return endpoints.contains(endpoint);
+    }
+}
@@ -50,7 +50,15 @@ public class CheckpointEntry extends LogEntry {
         START_LOG_ADDRESS(2),
         ENTRY_COUNT(3),
         BYTE_COUNT(4),
-        SNAPSHOT_ADDRESS(5);
+        SNAPSHOT_ADDRESS(5),
+        // Optional: set by incremental checkpoints only, to the id of the
+        // checkpoint whose state they are applied on top of.
+        PREVIOUS_CHECKPOINT_ID(6),
+        // Optional: number of incremental checkpoints since the last full one.
+        INCREMENTAL_COUNT(7),
+        // Optional: snapshot address of the full checkpoint an incremental
+        // checkpoint builds on.
+        BASE_SNAPSHOT_ADDRESS(8);
 
         public final int type;
 
@@ -0,0 +1,70 @@
+package org.corfudb.protocols.logprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import org.corfudb.util.serializer.Serializers;
+
+/**
+ * A {@link MultiSMREntry} whose updates are serialized as they are added, into a
+ * pooled buffer, so that writing the entry copies the serialized updates rather
+ * than serializing them again.
+ *
+ * <p>It is serialized as a {@link MultiSMREntry}, and read back as one. The buffer
+ * must be released once the entry has been written.
+ */
+public class SerializedMultiSMREntry extends MultiSMREntry {
+
+    private final ByteBuf serializedUpdates = PooledByteBufAllocator.DEFAULT.buffer();
+
+    /**
+     * Add an update, serializing it.
+     *
+     * @param entry The update to add.
+     */
+    @Override
+    public void addTo(SMREntry entry) {
+        Serializers.CORFU.serialize(entry, serializedUpdates);
+        getUpdates().add(entry);
+    }
+
+    /**
+     * Add an update which is already serialized.
+     *
+     * @param entry      The update to add.
+     * @param serialized The update, serialized by {@link Serializers#CORFU}. Its
+     *                   readable bytes are copied, without being consumed.
+     */
+    public void addTo(SMREntry entry, ByteBuf serialized) {
+        serializedUpdates.writeBytes(serialized, serialized.readerIndex(),
+                serialized.readableBytes());
+        getUpdates().add(entry);
+    }
+
+    /**
+     * Returns the size of the serialized updates.
+     */
+    public int getSerializedUpdatesSize() {
+        return serializedUpdates.readableBytes();
+    }
+
+    /**
+     * Release the buffer of the serialized updates.
+     */
+    public void release() {
+        serializedUpdates.release();
+    }
+
+    @Override
+    public void mergeInto(MultiSMREntry other) {
+        other.getUpdates().forEach(this::addTo);
+    }
+
+    @Override
+    public void serialize(ByteBuf b) {
+        b.writeByte(getType().asByte());
+        b.writeInt(getUpdates().size());
+        b.writeBytes(serializedUpdates, serializedUpdates.readerIndex(),
+                serializedUpdates.readableBytes());
+    }
+}
@@ -0,0 +1,70 @@
+package org.corfudb.protocols.wireprotocol;
+
+import com.google.common.collect.Sets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Copies the messages exchanged over an in-JVM channel, unless their payload is known
+ * to be immutable.
+ *
+ * <p>Messages sent over an in-JVM channel are handed to the other end as is, instead of
+ * being encoded by {@link NettyCorfuMessageEncoder} and decoded by
+ * {@link NettyCorfuMessageDecoder}. The client and the server would otherwise share (and
+ * modify) the payloads they exchange, such as the log data they cache and the layouts
+ * they install. Every message is copied by serializing it into a heap buffer, except the
+ * messages without a payload and the messages whose payload is immutable, so that a new
+ * message type is copied until it is known to be safe to share.
+ */
+@ChannelHandler.Sharable
+public class NettyCorfuMessageCopier extends ChannelDuplexHandler {
+
+    /**
+     * The types of the messages which are handed over without a copy: the messages
+     * without a payload, and the messages whose payload is a boxed primitive or an
+     * immutable value.
+     */
+    static final Set<CorfuMsgType> IMMUTABLE_TYPES = Sets.immutableEnumSet(Stream.concat(
+            Arrays.stream(CorfuMsgType.values())
+                    .filter(type -> type.messageType.getRawType() == CorfuMsg.class),
+            Stream.of(
+                    CorfuMsgType.LAYOUT_REQUEST,
+                    CorfuMsgType.LAYOUT_QUERY,
+                    CorfuMsgType.SEQUENCER_TRIM_REQ,
+                    CorfuMsgType.READ_REQUEST,
+                    CorfuMsgType.PREFIX_TRIM,
+                    CorfuMsgType.TRIM_MARK_RESPONSE,
+                    CorfuMsgType.RESET_LOGUNIT,
+                    CorfuMsgType.ERROR_OVERWRITE))
+            .collect(Collectors.toSet()));
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+            throws Exception {
+        ctx.write(copyIfShared(msg), promise);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        ctx.fireChannelRead(copyIfShared(msg));
+    }
+
+    private Object copyIfShared(Object msg) {
+        if (!(msg instanceof CorfuMsg) || IMMUTABLE_TYPES.contains(((CorfuMsg) msg).getMsgType())) {
+            return msg;
+        }
+        ByteBuf buf = Unpooled.buffer();
+        ((CorfuMsg) msg).serialize(buf);
+        return CorfuMsg.deserialize(buf);
+    }
+}
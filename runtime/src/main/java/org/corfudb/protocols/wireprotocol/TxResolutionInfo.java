@@ -6,19 +6,26 @@ import io.netty.buffer.ByteBuf;
 
 import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
 
 import lombok.Getter;
 import lombok.Setter;
 
+import org.corfudb.runtime.exceptions.SerializerException;
 import org.corfudb.util.Utils;
 
 /**
  * Created by dmalkhi on 12/26/16.
+ *
+ * <p>The serialized form starts with a format version. Format 1 carries the conflict
+ * parameters as 64-bit hashes, and is not compatible with the unversioned format,
+ * which carried them as byte arrays: clients and sequencers must be upgraded together.</p>
  */
 public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
 
+    /** The version of the serialized form. */
+    static final byte FORMAT_VERSION = 1;
+
     @Getter
     @SuppressWarnings({"checkstyle:abbreviationaswordinname", "checkstyle:membername"})
     final UUID TXid; // transaction ID, mostly for debugging purposes
@@ -28,13 +35,14 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
     @Setter
     Token snapshotTimestamp;
 
-    /** A set of poisoned streams, which have a conflict against all updates. */
-
+    /** The 64-bit hashes of the conflict parameters read by the txn, by stream. A stream
+     * without conflict parameters has a conflict against all updates. */
     @Getter
-    final Map<UUID, Set<byte[]>> conflictSet;
+    final Map<UUID, long[]> conflictSet;
 
+    /** The 64-bit hashes of the conflict parameters written by the txn, by stream. */
     @Getter
-    final Map<UUID, Set<byte[]>>  writeConflictParams;
+    final Map<UUID, long[]>  writeConflictParams;
 
     /**
      * Constructor for TxResolutionInfo.
@@ -54,11 +62,11 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
      *
      * @param txId transaction identifier
      * @param snapshotTimestamp transaction snapshot timestamp
-     * @param conflictMap map of conflict parameters, arranged by stream IDs
-     * @param writeConflictParams map of write conflict parameters, arranged by stream IDs
+     * @param conflictMap map of conflict parameter hashes, arranged by stream IDs
+     * @param writeConflictParams map of write conflict parameter hashes, arranged by stream IDs
      */
-    public TxResolutionInfo(UUID txId, Token snapshotTimestamp, Map<UUID, Set<byte[]>>
-            conflictMap, Map<UUID, Set<byte[]>> writeConflictParams) {
+    public TxResolutionInfo(UUID txId, Token snapshotTimestamp, Map<UUID, long[]>
+            conflictMap, Map<UUID, long[]> writeConflictParams) {
         this.TXid = txId;
         this.snapshotTimestamp = snapshotTimestamp;
         this.conflictSet = conflictMap;
@@ -68,39 +76,41 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
     /**
      * fast, specialized deserialization constructor, from a ByteBuf to this object
      *
-     * <p>The first entry is a long, the snapshot timestamp.
+     * <p>The first entry is a byte, the format version, then the transaction ID.
+     * Next is the snapshot timestamp, as two longs.
      * The second is an int, the size of the map.
-     * Next, entries are serialized one by one, first the key, then each value,
-     * itself a set of objects.</p>
+     * Next, entries are serialized one by one, first the key, then the number of
+     * hashes of the conflict parameters, then each hash as a long.</p>
      *
      * @param buf        The buffer to deserialize.
      */
     public TxResolutionInfo(ByteBuf buf) {
+        final byte version = buf.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new SerializerException("Unsupported TxResolutionInfo format " + version
+                    + ", expected " + FORMAT_VERSION);
+        }
         TXid = ICorfuPayload.fromBuffer(buf, UUID.class);
         final long epoch = buf.readLong();
         final long sequence = buf.readLong();
         snapshotTimestamp = new Token(epoch, sequence);
 
-        // conflictSet
-        int numEntries = buf.readInt();
-        ImmutableMap.Builder<UUID, Set<byte[]>> conflictMapBuilder = new ImmutableMap.Builder<>();
-        for (int i = 0; i < numEntries; i++) {
-            UUID k = ICorfuPayload.fromBuffer(buf, UUID.class);
-            Set<byte[]> v = ICorfuPayload.setFromBuffer(buf, byte[].class);
-            conflictMapBuilder.put(k, v);
-        }
-        conflictSet = conflictMapBuilder.build();
+        conflictSet = hashesFromBuffer(buf);
+        writeConflictParams = hashesFromBuffer(buf);
+    }
 
-        // writeConflictParams
-        numEntries = buf.readInt();
-        ImmutableMap.Builder<UUID, Set<byte[]>> writeMapBuilder = new ImmutableMap.Builder<>();
+    private static Map<UUID, long[]> hashesFromBuffer(ByteBuf buf) {
+        int numEntries = buf.readInt();
+        ImmutableMap.Builder<UUID, long[]> mapBuilder = new ImmutableMap.Builder<>();
         for (int i = 0; i < numEntries; i++) {
             UUID k = ICorfuPayload.fromBuffer(buf, UUID.class);
-            Set<byte[]> v = ICorfuPayload.setFromBuffer(buf, byte[].class);
-            writeMapBuilder.put(k, v);
+            long[] v = new long[buf.readInt()];
+            for (int j = 0; j < v.length; j++) {
+                v[j] = buf.readLong();
+            }
+            mapBuilder.put(k, v);
         }
-
-        writeConflictParams = writeMapBuilder.build();
+        return mapBuilder.build();
     }
 
     /**
@@ -110,23 +120,24 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
      */
     @Override
     public void doSerialize(ByteBuf buf) {
+        buf.writeByte(FORMAT_VERSION);
         ICorfuPayload.serialize(buf, TXid);
         buf.writeLong(snapshotTimestamp.getEpoch());
         buf.writeLong(snapshotTimestamp.getSequence());
 
-        // conflictSet
-        buf.writeInt(conflictSet.size());
-        conflictSet.entrySet().stream().forEach(x -> {
-            ICorfuPayload.serialize(buf, x.getKey());
-            ICorfuPayload.serialize(buf, x.getValue());
-        });
-
-        // writeConflictParams
-        buf.writeInt(writeConflictParams.size());
-        writeConflictParams.entrySet().stream().forEach(x -> {
-            ICorfuPayload.serialize(buf, x.getKey());
-            ICorfuPayload.serialize(buf, x.getValue());
-        });
+        hashesToBuffer(buf, conflictSet);
+        hashesToBuffer(buf, writeConflictParams);
+    }
+
+    private static void hashesToBuffer(ByteBuf buf, Map<UUID, long[]> hashes) {
+        buf.writeInt(hashes.size());
+        for (Map.Entry<UUID, long[]> entry : hashes.entrySet()) {
+            ICorfuPayload.serialize(buf, entry.getKey());
+            buf.writeInt(entry.getValue().length);
+            for (long hash : entry.getValue()) {
+                buf.writeLong(hash);
+            }
+        }
     }
 
     @Override
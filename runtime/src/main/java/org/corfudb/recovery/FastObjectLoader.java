@@ -1,8 +1,11 @@
 package org.corfudb.recovery;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Data;
@@ -27,14 +30,20 @@ import org.corfudb.runtime.object.CorfuCompileProxy;
 import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.ObjectBuilder;
 import org.corfudb.util.CFUtils;
+import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.Utils;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -47,12 +56,16 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 import static org.corfudb.recovery.RecoveryUtils.createObjectIfNotExist;
 import static org.corfudb.recovery.RecoveryUtils.deserializeLogData;
 import static org.corfudb.recovery.RecoveryUtils.getCorfuCompileProxy;
 import static org.corfudb.recovery.RecoveryUtils.getLogData;
+import static org.corfudb.recovery.RecoveryUtils.getPreviousIdOfCheckPoint;
 import static org.corfudb.recovery.RecoveryUtils.getSnapShotAddressOfCheckPoint;
 import static org.corfudb.recovery.RecoveryUtils.getStartAddressOfCheckPoint;
 import static org.corfudb.recovery.RecoveryUtils.isCheckPointEntry;
@@ -65,6 +78,10 @@ import static org.corfudb.recovery.RecoveryUtils.isCheckPointEntry;
  *
  * If used in the recoverSequencer mode, it will reconstruct the stream tails.
  *
+ * In parallel loading mode, several ranges of the log are read at once, and the entries are
+ * applied by several stream workers. Each stream is owned by the worker its id hashes to, so
+ * the entries of a stream are still applied in order, by a single thread.
+ *
  * There are two main modes, blacklist and whitelist. These two modes are mutually exclusive:
  * In blacklist mode, we will process every streams as long as they are not in the streamToIgnore
  * list. In whitelist mode, only the streams present in streamsToLoad will be loaded. We make
@@ -126,6 +143,14 @@ public class FastObjectLoader {
     @Getter
     private boolean logHasNoCheckPoint = false;
 
+    /**
+     * Whether the log is read and applied in parallel, by numOfWorkers readers and
+     * stream workers, rather than by the single necromancer thread.
+     */
+    @Setter
+    @Getter
+    private boolean parallelLoading = false;
+
     private boolean whiteList = false;
     private List<UUID> streamsToLoad = new ArrayList<>();
 
@@ -203,6 +228,17 @@ public class FastObjectLoader {
     // In charge of summoning Corfu maps back in this world
     private ExecutorService necromancer;
 
+    // In parallel loading, each worker summons the maps of a partition of the streams
+    private ExecutorService[] streamWorkers;
+
+    // The first failure of the stream workers
+    private final AtomicReference<Throwable> streamWorkerFailure = new AtomicReference<>();
+
+    // Metrics: progress of the loading
+    private final Counter counterAddressesRead;
+    private final Counter counterEntriesApplied;
+    private final Counter counterCheckpointsLoaded;
+
     private Map<UUID, StreamMetaData> streamsMetaData;
 
     @Setter
@@ -216,6 +252,12 @@ public class FastObjectLoader {
         this.runtime = corfuRuntime;
         loadInCache = !corfuRuntime.getParameters().isCacheDisabled();
         streamsMetaData = new HashMap<>();
+
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        String mpLoader = CorfuComponent.OBJECT_LOADER.toString();
+        counterAddressesRead = metrics.counter(mpLoader + "addresses-read");
+        counterEntriesApplied = metrics.counter(mpLoader + "entries-applied");
+        counterCheckpointsLoaded = metrics.counter(mpLoader + "checkpoints-loaded");
     }
 
     public void addStreamToIgnore(String streamName) {
@@ -285,6 +327,117 @@ public class FastObjectLoader {
         CFUtils.getUninterruptibly(lastReadRequest);
     }
 
+    /**
+     * Stream worker utilities
+     *
+     * In parallel loading, each stream worker is a single thread, which applies the entries
+     * of the streams it owns in the order they are submitted. As for the necromancer, a
+     * bounded queue of pending requests limits how far ahead of the workers the log is read.
+     */
+    private void summonStreamWorkers() {
+        streamWorkers = new ExecutorService[numOfWorkers];
+        for (int i = 0; i < numOfWorkers; i++) {
+            streamWorkers[i] = new ThreadPoolExecutor(1, 1,
+                    0L, TimeUnit.MILLISECONDS,
+                    new BoundedQueue<>(numberOfPendingFutures),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("FastObjectLoaderStreamWorkerThread-" + i).build());
+        }
+        streamWorkerFailure.set(null);
+    }
+
+    private int getStreamWorker(UUID streamId) {
+        return Math.floorMod(streamId.hashCode(), streamWorkers.length);
+    }
+
+    /**
+     * Split the entries of a range of the log between the workers which own their streams,
+     * and submit them to the workers, keeping the order of the log.
+     *
+     * @param range the entries of a range of the log, in ascending order
+     */
+    private void invokeStreamWorkers(Map<Long, ILogData> range) {
+        List<List<ILogData>> partitions = new ArrayList<>(streamWorkers.length);
+        for (int i = 0; i < streamWorkers.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+
+        for (ILogData logData : range.values()) {
+            // Checkpoint should have been processed first
+            if (logData.getType() != DataType.DATA || isCheckPointEntry(logData)) {
+                continue;
+            }
+            for (UUID streamId : logData.getStreams()) {
+                if (!shouldStreamBeProcessed(streamId)) {
+                    continue;
+                }
+                // A worker which owns several streams of the entry only gets it once
+                List<ILogData> partition = partitions.get(getStreamWorker(streamId));
+                if (partition.isEmpty() || partition.get(partition.size() - 1) != logData) {
+                    partition.add(logData);
+                }
+            }
+        }
+
+        for (int i = 0; i < streamWorkers.length; i++) {
+            final int worker = i;
+            final List<ILogData> partition = partitions.get(i);
+            if (partition.isEmpty()) {
+                continue;
+            }
+            streamWorkers[i].submit(() -> {
+                // Don't apply any more entries once a worker failed
+                if (streamWorkerFailure.get() != null) {
+                    return;
+                }
+                try {
+                    partition.forEach(logData -> updateCorfuObject(logData,
+                            streamId -> getStreamWorker(streamId) == worker));
+                } catch (RuntimeException | Error e) {
+                    log.error("invokeStreamWorkers: worker {} failed", worker, e);
+                    streamWorkerFailure.compareAndSet(null, e);
+                    throw e;
+                }
+            });
+        }
+    }
+
+    private void killStreamWorkers() {
+        for (ExecutorService worker : streamWorkers) {
+            worker.shutdown();
+        }
+
+        try {
+            for (ExecutorService worker : streamWorkers) {
+                if (!worker.awaitTermination(timeoutInMinutesForLoading, TimeUnit.MINUTES)) {
+                    throw new FastObjectLoaderException("Stream workers are taking too long to "
+                            + "load the maps. Gave up.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FastObjectLoaderException("Stream workers are taking too long to load "
+                    + "the maps. Gave up.");
+        }
+
+        checkStreamWorkers();
+    }
+
+    /**
+     * Abort the loading as soon as a stream worker failed, dropping the entries
+     * still pending in the workers.
+     */
+    private void checkStreamWorkers() {
+        Throwable failure = streamWorkerFailure.get();
+        if (failure != null) {
+            for (ExecutorService worker : streamWorkers) {
+                worker.shutdownNow();
+            }
+            throw new FastObjectLoaderException("Stream workers failed to load the maps: "
+                    + failure);
+        }
+    }
+
     /**
      * These two functions are called if no parameter were supplied
      * by the user.
@@ -412,6 +565,8 @@ public class FastObjectLoader {
             }
             CorfuCompileProxy cp = getCorfuCompileProxy(runtime, streamId, objectType);
             cp.getUnderlyingObject().applyUpdateToStreamUnsafe(entry, globalAddress);
+            MetricsUtils.incConditionalCounter(MetricsUtils.isMetricsCollectionEnabled(),
+                    counterEntriesApplied, 1);
         }
     }
 
@@ -421,14 +576,21 @@ public class FastObjectLoader {
     }
 
 
-    private void updateCorfuObjectWithSmrEntry(ILogData logData, LogEntry logEntry, long globalAddress) {
+    private void updateCorfuObjectWithSmrEntry(ILogData logData, LogEntry logEntry, long globalAddress,
+                                               Predicate<UUID> isOwnedStream) {
         UUID streamId = logData.getStreams().iterator().next();
-        applySmrEntryToStream(streamId, (SMREntry) logEntry, globalAddress);
+        if (isOwnedStream.test(streamId)) {
+            applySmrEntryToStream(streamId, (SMREntry) logEntry, globalAddress);
+        }
     }
 
-    private void updateCorfuObjectWithMultiObjSmrEntry(LogEntry logEntry, long globalAddress) {
+    private void updateCorfuObjectWithMultiObjSmrEntry(LogEntry logEntry, long globalAddress,
+                                                       Predicate<UUID> isOwnedStream) {
         MultiObjectSMREntry multiObjectLogEntry = (MultiObjectSMREntry) logEntry;
         multiObjectLogEntry.getEntryMap().forEach((streamId, multiSmrEntry) -> {
+            if (!isOwnedStream.test(streamId)) {
+                return;
+            }
             multiSmrEntry.getSMRUpdates(streamId).forEach((smrEntry) -> {
                 applySmrEntryToStream(streamId, smrEntry, globalAddress);
             });
@@ -461,6 +623,16 @@ public class FastObjectLoader {
      * @param logData LogData received from Corfu server.
      */
     private void updateCorfuObject(ILogData logData) {
+        updateCorfuObject(logData, streamId -> true);
+    }
+
+    /**
+     * Extract log entries from logData and update the Corfu Objects of the given streams
+     *
+     * @param logData LogData received from Corfu server.
+     * @param isOwnedStream whether the updates of a stream should be applied by this call.
+     */
+    private void updateCorfuObject(ILogData logData, Predicate<UUID> isOwnedStream) {
         LogEntry logEntry;
         try {
             logEntry = deserializeLogData(runtime, logData);
@@ -475,10 +647,10 @@ public class FastObjectLoader {
 
         switch (logEntry.getType()) {
             case SMR:
-                updateCorfuObjectWithSmrEntry(logData, logEntry, globalAddress);
+                updateCorfuObjectWithSmrEntry(logData, logEntry, globalAddress, isOwnedStream);
                 break;
             case MULTIOBJSMR:
-                updateCorfuObjectWithMultiObjSmrEntry(logEntry, globalAddress);
+                updateCorfuObjectWithMultiObjSmrEntry(logEntry, globalAddress, isOwnedStream);
                 break;
             case CHECKPOINT:
                 updateCorfuObjectWithCheckPointEntry(logData, logEntry);
@@ -581,11 +753,13 @@ public class FastObjectLoader {
             CheckpointEntry logEntry = (CheckpointEntry) deserializeLogData(runtime, logData);
             long snapshotAddress = getSnapShotAddressOfCheckPoint(logEntry);
             long startAddress = getStartAddressOfCheckPoint(logData);
+            UUID previousCheckPointId = getPreviousIdOfCheckPoint(logEntry);
 
             streamMeta.addCheckPoint(new CheckPoint(checkPointId)
                     .addAddress(address)
                     .setSnapshotAddress(snapshotAddress)
                     .setStartAddress(startAddress)
+                    .setPreviousCheckPointId(previousCheckPointId)
                     .setStarted(true));
 
         } catch (InterruptedException ie) {
@@ -653,6 +827,7 @@ public class FastObjectLoader {
         ExecutorService executorService = Executors.newFixedThreadPool(numOfWorkers, new ThreadFactoryBuilder()
                 .setNameFormat("FastObjectLoaderResurrectCheckpointsThread-%d").build());
         CompletableFuture[] cfs = new CompletableFuture[streamsMetaData.size()];
+        AtomicInteger checkpointsLoaded = new AtomicInteger();
         int i = 0;
         try {
             for (Map.Entry<UUID, StreamMetaData> entry : streamsMetaData.entrySet()) {
@@ -664,10 +839,23 @@ public class FastObjectLoader {
                         return;
                     }
 
-                    // For now one by one read and apply
-                    for (long address : checkPoint.getAddresses()) {
-                        updateCorfuObject(getLogData(runtime, loadInCache, address));
+                    // Read the checkpoints of the chain in batches (the full checkpoint,
+                    // then each incremental checkpoint), and apply them in order
+                    for (CheckPoint link : entry.getValue().getCheckPointChain(checkPoint)) {
+                        for (List<Long> batch : Lists.partition(link.getAddresses(),
+                                (int) batchReadSize)) {
+                            Map<Long, ILogData> checkpointData = getLogData(runtime, loadInCache, batch);
+                            for (long address : batch) {
+                                updateCorfuObject(checkpointData.get(address));
+                            }
+                        }
                     }
+
+                    MetricsUtils.incConditionalCounter(MetricsUtils.isMetricsCollectionEnabled(),
+                            counterCheckpointsLoaded, 1);
+                    log.debug("resurrectCheckpoints[{}]: loaded checkpoint {}/{}",
+                            Utils.toReadableId(entry.getKey()),
+                            checkpointsLoaded.incrementAndGet(), cfs.length);
                 }, executorService);
             }
 
@@ -683,6 +871,8 @@ public class FastObjectLoader {
                     throw new FastObjectLoaderException("Failed to load checkpoints");
                 }
             }
+            log.info("resurrectCheckpoints: loaded {} checkpoints of {} streams",
+                    checkpointsLoaded.get(), cfs.length);
 
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
@@ -703,12 +893,20 @@ public class FastObjectLoader {
         // we can just do the last step. Risky, but the flag is
         // explicit enough.
         if (logHasNoCheckPoint) {
-            applyForEachAddress(this::processLogData);
+            applyLogData();
         } else {
             applyForEachAddress(this::findCheckPointsInLogAddress);
             resurrectCheckpoints();
 
             resetAddressProcessed();
+            applyLogData();
+        }
+    }
+
+    private void applyLogData() {
+        if (parallelLoading) {
+            applyForEachAddressInParallel();
+        } else {
             applyForEachAddress(this::processLogData);
         }
 
@@ -743,27 +941,8 @@ public class FastObjectLoader {
                 final long lower = nextRead;
                 final long upper = Math.min(lower + batchReadSize - 1, logTail);
                 nextRead = upper + 1;
-                Map<Long, ILogData> range =
-                        runtime.getAddressSpaceView().fetchAll(ContiguousSet.create(
-                                Range.closed(lower, upper), DiscreteDomain.longs()), true);
-
-                // Sanity
-                for (Map.Entry<Long, ILogData> entry : range.entrySet()) {
-                    long address = entry.getKey();
-                    ILogData logData = entry.getValue();
-                    if (address != addressProcessed + 1) {
-                        throw new IllegalStateException("We missed an entry. It can lead to correctness issues.");
-                    }
-                    addressProcessed++;
-
-                    if (logData.getType() == DataType.TRIMMED) {
-                        throw new IllegalStateException("Unexpected TRIMMED data");
-                    }
-
-                    if (address % STATUS_UPDATE_PACE == 0) {
-                        log.info("applyForEachAddress: read up to {}", address);
-                    }
-                }
+                Map<Long, ILogData> range = readRange(lower, upper);
+                checkRange(range);
 
                 invokeNecromancer(range, logDataProcessor);
 
@@ -775,11 +954,91 @@ public class FastObjectLoader {
         killNecromancer();
     }
 
+    /**
+     * This method will process the log data of each address, reading several
+     * ranges of the log at once. The stream workers apply the entries.
+     */
+    private void applyForEachAddressInParallel() {
+        ExecutorService readers = Executors.newFixedThreadPool(numOfWorkers, new ThreadFactoryBuilder()
+                .setNameFormat("FastObjectLoaderReaderThread-%d").build());
+        Deque<CompletableFuture<Map<Long, ILogData>>> pendingReads = new ArrayDeque<>();
+
+        summonStreamWorkers();
+        nextRead = logHead;
+        try {
+            while (nextRead <= logTail || !pendingReads.isEmpty()) {
+                // Keep a range read in flight for each reader
+                while (nextRead <= logTail && pendingReads.size() < numOfWorkers) {
+                    final long lower = nextRead;
+                    final long upper = Math.min(lower + batchReadSize - 1, logTail);
+                    nextRead = upper + 1;
+                    pendingReads.add(CompletableFuture.supplyAsync(() -> readRange(lower, upper),
+                            readers));
+                }
+
+                try {
+                    // Ranges are checked and dispatched in order
+                    Map<Long, ILogData> range = CFUtils.getUninterruptibly(pendingReads.poll(),
+                            TrimmedException.class);
+                    checkRange(range);
+
+                    checkStreamWorkers();
+                    invokeStreamWorkers(range);
+
+                } catch (TrimmedException ex) {
+                    log.warn("Error loading data", ex);
+                    // Let the reads in flight and the workers finish before starting over
+                    pendingReads.forEach(read -> read.handle((r, e) -> null).join());
+                    pendingReads.clear();
+                    killStreamWorkers();
+                    handleRetry();
+                    summonStreamWorkers();
+                }
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        killStreamWorkers();
+    }
+
+    private Map<Long, ILogData> readRange(long lower, long upper) {
+        return runtime.getAddressSpaceView().fetchAll(ContiguousSet.create(
+                Range.closed(lower, upper), DiscreteDomain.longs()), true);
+    }
+
+    /**
+     * Check that a range follows the last address processed, without gaps.
+     *
+     * @param range the entries of a range of the log, in ascending order
+     */
+    private void checkRange(Map<Long, ILogData> range) {
+        for (Map.Entry<Long, ILogData> entry : range.entrySet()) {
+            long address = entry.getKey();
+            ILogData logData = entry.getValue();
+            if (address != addressProcessed + 1) {
+                throw new IllegalStateException("We missed an entry. It can lead to correctness issues.");
+            }
+            addressProcessed++;
+
+            if (logData.getType() == DataType.TRIMMED) {
+                throw new IllegalStateException("Unexpected TRIMMED data");
+            }
+
+            if (address % STATUS_UPDATE_PACE == 0) {
+                log.info("applyForEachAddress: read up to {}", address);
+            }
+        }
+        MetricsUtils.incConditionalCounter(MetricsUtils.isMetricsCollectionEnabled(),
+                counterAddressesRead, range.size());
+    }
+
     @Data
     private class CheckPoint {
         final UUID checkPointId;
         long snapshotAddress;
         long startAddress;
+        // The checkpoint an incremental checkpoint builds on, null for a full checkpoint
+        UUID previousCheckPointId;
         boolean ended = false;
         boolean started = false;
         List<Long> addresses = new ArrayList<>();
@@ -812,8 +1071,36 @@ public class FastObjectLoader {
             return checkPoints.containsKey(checkPointId);
         }
 
+        /**
+         * Get the checkpoints whose entries make up the state of a checkpoint, from
+         * its full checkpoint to the checkpoint itself.
+         *
+         * @return the chain of checkpoints, or an empty list if a checkpoint of the
+         *     chain is missing or incomplete.
+         */
+        public List<CheckPoint> getCheckPointChain(CheckPoint checkPoint) {
+            LinkedList<CheckPoint> chain = new LinkedList<>();
+            for (CheckPoint link = checkPoint; link != null;
+                 link = getCheckPoint(link.getPreviousCheckPointId())) {
+                if (!link.isEnded()) {
+                    return Collections.emptyList();
+                }
+                chain.addFirst(link);
+                if (link.getPreviousCheckPointId() == null) {
+                    return chain;
+                }
+            }
+            return Collections.emptyList();
+        }
+
         public void updateLatestCheckpointIfLater(UUID checkPointId) {
             CheckPoint contender = getCheckPoint(checkPointId);
+            if (getCheckPointChain(contender).isEmpty()) {
+                log.warn("updateLatestCheckpointIfLater[{}]: Checkpoint {} can't be used, a checkpoint "
+                        + "it builds on is missing", Utils.toReadableId(streamId),
+                        Utils.toReadableId(checkPointId));
+                return;
+            }
             if (latestCheckPoint == null ||
                     contender.getSnapshotAddress() > latestCheckPoint.getSnapshotAddress()) {
                         latestCheckPoint = contender;
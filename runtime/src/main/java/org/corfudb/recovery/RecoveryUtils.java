@@ -10,8 +10,11 @@ import org.corfudb.runtime.view.ObjectBuilder;
 import org.corfudb.runtime.view.ObjectsView;
 import org.corfudb.util.serializer.ISerializer;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.corfudb.protocols.logprotocol.CheckpointEntry.CheckpointDictKey.PREVIOUS_CHECKPOINT_ID;
 import static org.corfudb.protocols.logprotocol.CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS;
 
 /**
@@ -39,6 +42,11 @@ public class RecoveryUtils {
         return logData.getCheckpointedStreamStartLogAddress();
     }
 
+    static UUID getPreviousIdOfCheckPoint(CheckpointEntry logEntry) {
+        String previousId = logEntry.getDict().get(PREVIOUS_CHECKPOINT_ID);
+        return previousId == null ? null : UUID.fromString(previousId);
+    }
+
     /**
      * Create a new object SMRMap as recipient of SMRUpdates (if doesn't exist yet)
      */
@@ -74,6 +82,21 @@ public class RecoveryUtils {
         }
     }
 
+    /**
+     * Fetch LogData from Corfu server, for a batch of addresses
+     *
+     * @param addresses addresses to be fetched
+     * @return LogData at each address
+     */
+    static Map<Long, ILogData> getLogData(CorfuRuntime runtime, boolean loadInCache,
+                                          List<Long> addresses) {
+        if (loadInCache) {
+            return runtime.getAddressSpaceView().read(addresses);
+        } else {
+            return runtime.getAddressSpaceView().fetchAll(addresses, true);
+        }
+    }
+
     /**
      * Deserialize a logData by getting the logEntry
      *
@@ -1,33 +1,56 @@
 package org.corfudb.runtime;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.logprotocol.CheckpointEntry;
-import org.corfudb.protocols.logprotocol.MultiSMREntry;
+import org.corfudb.protocols.logprotocol.ISMRConsumable;
 import org.corfudb.protocols.logprotocol.SMREntry;
+import org.corfudb.protocols.logprotocol.SerializedMultiSMREntry;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.ICorfuSMRIterable;
+import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
+import org.corfudb.runtime.object.transactions.AbstractTransactionalContext;
 import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.runtime.object.transactions.TransactionalContext;
 import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.CacheOption;
 import org.corfudb.runtime.view.StreamsView;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.corfudb.util.CFUtils;
 import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
+import org.corfudb.util.Utils;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
+import org.roaringbitmap.longlong.LongIterator;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -36,6 +59,13 @@ import java.util.function.Function;
  *  object via TXBegin(), then dump the frozen object's
  *  state into CheckpointEntry records into the object's
  *  stream.
+ *
+ *  <p>If incremental checkpoints are enabled, and the previous
+ *  checkpoint of the object can be built on, only the keys updated
+ *  since the snapshot of the previous checkpoint are dumped. The
+ *  state of the object is then the last full checkpoint plus every
+ *  incremental checkpoint written after it, which readers apply in
+ *  order.</p>
  *  TODO: Generalize to all SMR objects.
  */
 @Slf4j
@@ -49,14 +79,45 @@ public class CheckpointWriter<T extends Map> {
     private LocalDateTime startTime;
     private long startAddress;
     private long endAddress;
+    @Getter
     private long numEntries = 0;
+    @Getter
     private long numBytes = 0;
+    /** Number of SMREntry written in the CONTINUATION records.
+     */
+    @Getter
+    private long numUpdates = 0;
+    /** Largest number of bytes of serialized SMREntry held at once.
+     */
+    @Getter
+    private long maxBufferedBytes = 0;
 
     // Registry and Timer used for measuring append checkpoint
     private static MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
     private static final String CHECKPOINT_TIMER_NAME = CorfuComponent.GARBAGE_COLLECTION +
             "append-checkpoint";
     private Timer appendCheckpointTimer = metricRegistry.timer(CHECKPOINT_TIMER_NAME);
+    private Meter updatesMeter = metricRegistry.meter(CorfuComponent.GARBAGE_COLLECTION +
+            "checkpoint-updates");
+    private Meter bytesMeter = metricRegistry.meter(CorfuComponent.GARBAGE_COLLECTION +
+            "checkpoint-bytes");
+
+    /** Room left in a write for the CONTINUATION record around its SMREntry.
+     */
+    private static final int CONTINUATION_OVERHEAD_BYTES = 4 * 1024;
+
+    /** Default size of the SMREntry of a CONTINUATION, if writes aren't limited.
+     */
+    private static final int DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+
+    /** The executor which appends the CONTINUATION records, while the next
+     *  ones are built, shared by all writers.
+     */
+    private static final ExecutorService APPEND_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("CheckpointWriterAppend-%d")
+                    .build());
 
     @SuppressWarnings("checkstyle:abbreviation")
     final UUID checkpointStreamID;
@@ -77,11 +138,39 @@ public class CheckpointWriter<T extends Map> {
     @Setter
     Function<Object,Object> valueMutator = (x) -> x;
 
-    /** Batch size: number of SMREntry in a single CONTINUATION.
+    /** Batch size: maximum number of SMREntry in a single CONTINUATION,
+     *  which are otherwise sized by maxBatchBytes.
      */
     @Getter
     @Setter
-    private int batchSize = 50;
+    private int batchSize = Integer.MAX_VALUE;
+
+    /** Maximum serialized size of the SMREntry in a single CONTINUATION,
+     *  by default what the runtime's maxWriteSize leaves room for. A
+     *  larger SMREntry is written alone.
+     */
+    @Getter
+    @Setter
+    private int maxBatchBytes;
+
+    /** Maximum number of incremental checkpoints written after a full
+     *  checkpoint, before a full checkpoint is written again. If 0, only
+     *  full checkpoints are written.
+     */
+    @Getter
+    @Setter
+    private int maxIncrementalCheckpoints = 0;
+
+    /** Write the state of the map from the object itself, synced to the
+     *  snapshot, rather than from a copy of its entries, so the heap used
+     *  by the checkpoint doesn't grow with the map. The object is locked
+     *  meanwhile (unless an immutable version of it at the snapshot is
+     *  kept), and other threads of this runtime accessing it wait: the
+     *  postAppendFunc must not access it.
+     */
+    @Getter
+    @Setter
+    private boolean streaming = false;
 
     /** BiConsumer to run after every CheckpointEntry is appended to the stream.
      */
@@ -120,10 +209,17 @@ public class CheckpointWriter<T extends Map> {
         checkpointId = UUID.randomUUID();
         checkpointStreamID = CorfuRuntime.getCheckpointStreamIdFromId(streamId);
         sv = rt.getStreamsView();
+        int maxWriteSize = rt.getParameters().getMaxWriteSize();
+        maxBatchBytes = maxWriteSize > 0
+                ? Math.max(maxWriteSize - CONTINUATION_OVERHEAD_BYTES, maxWriteSize / 2)
+                : DEFAULT_MAX_BATCH_BYTES;
     }
 
     /**
-     * @return Token at which the snapshot for this checkpoint was taken.
+     * @return Token up to which the log can be trimmed once this checkpoint is
+     *     written, which is the token at which the snapshot for this checkpoint
+     *     was taken, or for an incremental checkpoint the snapshot of the full
+     *     checkpoint it builds on.
      */
     public Token appendCheckpoint() {
         long start = System.currentTimeMillis();
@@ -144,22 +240,177 @@ public class CheckpointWriter<T extends Map> {
         try (Timer.Context context = MetricsUtils.getConditionalContext(appendCheckpointTimer)) {
             Token snapshot = TransactionalContext.getCurrentContext().getSnapshotTimestamp();
             // A checkpoint writer will do two accesses one to obtain the object
-            // vlo version and to get a shallow copy of the entry set
+            // vlo version and to get a shallow copy of the entry set (or, when
+            // streaming, to iterate the entries in place)
             log.info("appendCheckpoint: Started checkpoint for {} at snapshot {}", streamId, snapshot);
             ICorfuSMR<T> corfuObject = (ICorfuSMR<T>) this.map;
-            Set<Map.Entry> entries = this.map.entrySet();
             long vloVersion = corfuObject.getCorfuSMRProxy().getVersion();
+
+            CheckpointEntry previous = maxIncrementalCheckpoints > 0
+                    ? findPreviousCheckpoint(snapshot.getSequence()) : null;
+            Set<Object> updatedKeys = previous != null
+                    ? getUpdatedKeys(previous, snapshot.getSequence()) : null;
+
+            if (updatedKeys == null) {
+                if (streaming) {
+                    startCheckpoint(snapshot, vloVersion);
+                    appendObjectStateInPlace(snapshot);
+                } else {
+                    Set<Map.Entry> entries = this.map.entrySet();
+                    startCheckpoint(snapshot, vloVersion);
+                    appendObjectState(entries);
+                }
+                finishCheckpoint();
+                log.info("appendCheckpoint: completed checkpoint for {}, num of entries {} at snapshot {} in {} ms",
+                        streamId, numUpdates, snapshot, System.currentTimeMillis() - start);
+                return snapshot;
+            }
+
+            Map<CheckpointEntry.CheckpointDictKey, String> previousDict = previous.getDict();
+            String baseSnapshotAddress = previousDict.getOrDefault(
+                    CheckpointEntry.CheckpointDictKey.BASE_SNAPSHOT_ADDRESS,
+                    previousDict.get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS));
+            mdkv.put(CheckpointEntry.CheckpointDictKey.PREVIOUS_CHECKPOINT_ID,
+                    previous.getCheckpointId().toString());
+            mdkv.put(CheckpointEntry.CheckpointDictKey.INCREMENTAL_COUNT,
+                    Integer.toString(getIncrementalCount(previous) + 1));
+            mdkv.put(CheckpointEntry.CheckpointDictKey.BASE_SNAPSHOT_ADDRESS, baseSnapshotAddress);
+
             startCheckpoint(snapshot, vloVersion);
-            appendObjectState(entries);
+            appendUpdatedKeys(updatedKeys);
             finishCheckpoint();
-            log.info("appendCheckpoint: completed checkpoint for {}, num of entries {} at snapshot {} in {} ms",
-                    streamId, entries.size(), snapshot, System.currentTimeMillis() - start);
-            return snapshot;
+            log.info("appendCheckpoint: completed incremental checkpoint for {} on {}, num of entries {} "
+                            + "at snapshot {} in {} ms", streamId,
+                    Utils.toReadableId(previous.getCheckpointId()), updatedKeys.size(), snapshot,
+                    System.currentTimeMillis() - start);
+            return new Token(snapshot.getEpoch(), Long.parseLong(baseSnapshotAddress));
         } finally {
             rt.getObjectsView().TXEnd();
         }
     }
 
+    /**
+     * Find the latest checkpoint of this object which an incremental checkpoint at
+     * the given snapshot can build on.
+     *
+     * @param snapshotAddress snapshot of the checkpoint being written.
+     * @return the END record of the previous checkpoint, or null if a full
+     *     checkpoint has to be written.
+     */
+    private CheckpointEntry findPreviousCheckpoint(long snapshotAddress) {
+        StreamAddressSpace addresses = rt.getSequencerView().getStreamAddressSpace(
+                new StreamAddressRange(checkpointStreamID, snapshotAddress, Address.NEVER_READ));
+        LongIterator checkpointAddresses = addresses.getAddressMap().getReverseLongIterator();
+
+        while (checkpointAddresses.hasNext()) {
+            ILogData data;
+            try {
+                data = rt.getAddressSpaceView().read(checkpointAddresses.next());
+            } catch (TrimmedException te) {
+                return null;
+            }
+            if (!data.hasCheckpointMetadata()) {
+                continue;
+            }
+
+            CheckpointEntry cp = (CheckpointEntry) data.getPayload(rt);
+            String previousSnapshot = cp.getDict().get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS);
+            if (cp.getCpType() != CheckpointEntry.CheckpointEntryType.END || previousSnapshot == null
+                    || Long.parseLong(previousSnapshot) > snapshotAddress) {
+                // Not complete, or taken after this checkpoint by a concurrent writer
+                continue;
+            }
+
+            if (getIncrementalCount(cp) >= maxIncrementalCheckpoints) {
+                log.debug("findPreviousCheckpoint: {} incremental checkpoints of {}, writing a full one",
+                        getIncrementalCount(cp), streamId);
+                return null;
+            }
+
+            // The whole chain of checkpoints has to be readable
+            String baseSnapshot = cp.getDict().getOrDefault(
+                    CheckpointEntry.CheckpointDictKey.BASE_SNAPSHOT_ADDRESS, previousSnapshot);
+            if (Address.isAddress(addresses.getTrimMark())
+                    && addresses.getTrimMark() > Long.parseLong(baseSnapshot)) {
+                return null;
+            }
+            return cp;
+        }
+
+        return null;
+    }
+
+    private static int getIncrementalCount(CheckpointEntry cp) {
+        return Integer.parseInt(cp.getDict()
+                .getOrDefault(CheckpointEntry.CheckpointDictKey.INCREMENTAL_COUNT, "0"));
+    }
+
+    /**
+     * Get the keys of the map updated between the snapshot of the previous checkpoint
+     * and the given snapshot.
+     *
+     * @param previous        END record of the previous checkpoint.
+     * @param snapshotAddress snapshot of the checkpoint being written.
+     * @return the updated keys, or null if they can't be known (the updates were
+     *     trimmed, or the map was cleared), in which case a full checkpoint has to
+     *     be written.
+     */
+    private Set<Object> getUpdatedKeys(CheckpointEntry previous, long snapshotAddress) {
+        long previousSnapshot = Long.parseLong(previous.getDict()
+                .get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS));
+        StreamAddressSpace addresses = rt.getSequencerView().getStreamAddressSpace(
+                new StreamAddressRange(streamId, snapshotAddress, previousSnapshot));
+        if (Address.isAddress(addresses.getTrimMark())
+                && addresses.getTrimMark() > previousSnapshot) {
+            return null;
+        }
+
+        Set<Object> keys = new HashSet<>();
+        for (List<Long> batch : Iterables.partition(Longs.asList(addresses.getAddressMap().toArray()),
+                rt.getParameters().getBulkReadSize())) {
+            Map<Long, ILogData> updates;
+            try {
+                updates = rt.getAddressSpaceView().read(batch);
+            } catch (TrimmedException te) {
+                return null;
+            }
+
+            for (ILogData data : updates.values()) {
+                if (data.getType() != DataType.DATA
+                        || !(data.getPayload(rt) instanceof ISMRConsumable)) {
+                    continue;
+                }
+                for (SMREntry update : ((ISMRConsumable) data.getPayload(rt)).getSMRUpdates(streamId)) {
+                    if (!addUpdatedKeys(update, keys)) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Add the keys of the map updated by an SMR update.
+     *
+     * @return false if the keys updated aren't known.
+     */
+    private static boolean addUpdatedKeys(SMREntry update, Set<Object> keys) {
+        Object[] args = update.getSMRArguments();
+        switch (update.getSMRMethod()) {
+            case "put":
+            case "remove":
+                keys.add(args[0]);
+                return true;
+            case "putAll":
+                keys.addAll(((Map<?, ?>) args[0]).keySet());
+                return true;
+            default:
+                // clear(), or any update we can't tell the keys of
+                return false;
+        }
+    }
+
     /** Append a checkpoint START record to this object's stream.
      *
      *  <p>Corfu client transaction management, if desired, is the
@@ -194,7 +445,7 @@ public class CheckpointWriter<T extends Map> {
     /** Append zero or more CONTINUATION records to this
      *  object's stream.  Each will contain a fraction of
      *  the state of the object that we're checkpointing
-     *  (up to batchSize items at a time).
+     *  (up to maxBatchBytes of serialized items at a time).
      *
      *  <p>Corfu client transaction management, if desired, is the
      *  caller's responsibility.</p>
@@ -202,10 +453,12 @@ public class CheckpointWriter<T extends Map> {
      *  <p>The Iterators class appears to preserve the laziness
      *  of Stream processing; we don't wish to use more
      *  memory than strictly necessary to generate the
-     *  checkpoint.  NOTE: It would be even more useful if
-     *  the map had a lazy iterator: the eagerness of
-     *  map.keySet().stream() is not ideal, but at least
-     *  it should be much smaller than the entire map.</p>
+     *  checkpoint.  When {@link #streaming}, the entries
+     *  are iterated lazily from the object itself.</p>
+     *
+     *  <p>Records are appended in the background: the next
+     *  record is built and its items serialized while the
+     *  previous one is written, at most one being in flight.</p>
      *
      *  <p>NOTE: The postAppendFunc lambda is executed in the
      *  current thread context, i.e., inside of a Corfu
@@ -216,29 +469,158 @@ public class CheckpointWriter<T extends Map> {
      * @return Stream of global log addresses of the CONTINUATION records written.
      */
     public void appendObjectState(Set<Map.Entry> entries) {
-        ImmutableMap<CheckpointEntry.CheckpointDictKey, String> mdkv =
-                ImmutableMap.copyOf(this.mdkv);
+        appendContinuations(Iterables.transform(entries, this::toPutEntry));
+    }
 
-        Iterable<List<Map.Entry>> partitions = Iterables.partition(entries, batchSize);
+    /** Append the state of the object at the snapshot to this object's stream,
+     *  iterating the object in place, under its lock, instead of a copy of its
+     *  entries.
+     */
+    @SuppressWarnings("unchecked")
+    private void appendObjectStateInPlace(Token snapshot) {
+        ICorfuSMRProxyInternal<T> proxy =
+                (ICorfuSMRProxyInternal<T>) ((ICorfuSMR<T>) this.map).getCorfuSMRProxy();
+        AbstractTransactionalContext context = TransactionalContext.getCurrentContext();
+        proxy.getUnderlyingObject().accessExclusive(snapshot.getSequence(),
+                o -> context.syncWithRetryUnsafe(o, snapshot, proxy, null),
+                object -> {
+                    Iterator<Map.Entry> entries = object instanceof ICorfuSMRIterable
+                            ? ((ICorfuSMRIterable<Map.Entry>) object).unsafeIterator()
+                            : object.entrySet().iterator();
+                    appendContinuations(() -> Iterators.transform(entries, this::toPutEntry));
+                    return null;
+                });
+    }
+
+    private SMREntry toPutEntry(Map.Entry entry) {
+        return new SMREntry("put", new Object[]{keyMutator.apply(entry.getKey()),
+                valueMutator.apply(entry.getValue())}, serializer);
+    }
+
+    /** Append the state of the keys updated since the previous checkpoint
+     *  to this object's stream: the value of a key if it is in the map,
+     *  or its removal.
+     */
+    private void appendUpdatedKeys(Set<Object> keys) {
+        appendContinuations(Iterables.transform(keys, key -> map.containsKey(key)
+                ? new SMREntry("put", new Object[]{keyMutator.apply(key),
+                        valueMutator.apply(map.get(key))}, serializer)
+                : new SMREntry("remove", new Object[]{keyMutator.apply(key)}, serializer)));
+    }
 
-        for (List<Map.Entry> partition : partitions) {
-            MultiSMREntry smrEntries = new MultiSMREntry();
-            for (Map.Entry entry : partition) {
-                smrEntries.addTo(new SMREntry("put",
-                        new Object[]{keyMutator.apply(entry.getKey()),
-                                valueMutator.apply(entry.getValue())},
-                        serializer));
+    private void appendContinuations(Iterable<SMREntry> updates) {
+        try (ContinuationWriter writer = new ContinuationWriter()) {
+            for (SMREntry update : updates) {
+                writer.add(update);
             }
+            writer.finish();
+        }
+    }
+
+    /** Builds the CONTINUATION records, of up to maxBatchBytes of serialized
+     *  updates each, and appends each one while the next one is built.
+     *
+     *  <p>Updates are serialized once, into pooled buffers, so at most two
+     *  records worth of serialized updates are held at once.</p>
+     */
+    private class ContinuationWriter implements AutoCloseable {
+        final ImmutableMap<CheckpointEntry.CheckpointDictKey, String> mdkv =
+                ImmutableMap.copyOf(CheckpointWriter.this.mdkv);
+
+        // The last update, serialized to size it before adding it to a record.
+        final ByteBuf update = PooledByteBufAllocator.DEFAULT.buffer();
 
-            CheckpointEntry cp = new CheckpointEntry(CheckpointEntry
-                    .CheckpointEntryType.CONTINUATION,
-                    author, checkpointId, streamId, mdkv, smrEntries);
-            long pos = nonCachedAppend(cp, checkpointStreamID);
-            postAppendFunc.accept(cp, pos);
-            numEntries++;
-            // CheckpointEntry::serialize() has a side-effect we use
-            // for an accurate count of serialized bytes of SRMEntries.
-            numBytes += cp.getSmrEntriesBytes();
+        SerializedMultiSMREntry batch = new SerializedMultiSMREntry();
+
+        PendingAppend pending = null;
+
+        void add(SMREntry smrEntry) {
+            update.clear();
+            Serializers.CORFU.serialize(smrEntry, update);
+            if (!batch.getUpdates().isEmpty() && (batch.getUpdates().size() >= batchSize
+                    || batch.getSerializedUpdatesSize() + update.readableBytes() > maxBatchBytes)) {
+                flush();
+            }
+            batch.addTo(smrEntry, update);
+        }
+
+        void flush() {
+            if (batch.getUpdates().isEmpty()) {
+                return;
+            }
+            long bufferedBytes = batch.getSerializedUpdatesSize() + update.capacity()
+                    + (pending == null ? 0 : pending.batch.getSerializedUpdatesSize());
+            maxBufferedBytes = Math.max(maxBufferedBytes, bufferedBytes);
+
+            PendingAppend previous = pending;
+            pending = null;
+            completeAppend(previous);
+
+            CheckpointEntry cp = new CheckpointEntry(CheckpointEntry.CheckpointEntryType.CONTINUATION,
+                    author, checkpointId, streamId, mdkv, batch);
+            SerializedMultiSMREntry appended = batch;
+            batch = new SerializedMultiSMREntry();
+            pending = new PendingAppend(cp, appended, CompletableFuture.supplyAsync(() ->
+                    nonCachedAppend(cp, checkpointStreamID), APPEND_EXECUTOR));
+        }
+
+        void finish() {
+            flush();
+            PendingAppend last = pending;
+            pending = null;
+            completeAppend(last);
+        }
+
+        @Override
+        public void close() {
+            update.release();
+            batch.release();
+            if (pending != null) {
+                // Failed while a record was being appended, release it once written.
+                final SerializedMultiSMREntry appended = pending.batch;
+                pending.address.whenComplete((address, ex) -> appended.release());
+            }
+        }
+    }
+
+    /** A CONTINUATION record being appended.
+     */
+    private static class PendingAppend {
+        final CheckpointEntry cp;
+        final SerializedMultiSMREntry batch;
+        final CompletableFuture<Long> address;
+
+        PendingAppend(CheckpointEntry cp, SerializedMultiSMREntry batch,
+                      CompletableFuture<Long> address) {
+            this.cp = cp;
+            this.batch = batch;
+            this.address = address;
+        }
+    }
+
+    /** Wait for a CONTINUATION record to be appended, and release its buffer.
+     */
+    private void completeAppend(PendingAppend pending) {
+        if (pending == null) {
+            return;
+        }
+        try {
+            long pos = CFUtils.getUninterruptibly(pending.address);
+            // The hook may read the updates of the record, so its buffer
+            // is released only once the hook has run.
+            postAppendFunc.accept(pending.cp, pos);
+        } finally {
+            pending.batch.release();
+        }
+        numEntries++;
+        // CheckpointEntry::serialize() has a side-effect we use
+        // for an accurate count of serialized bytes of SRMEntries.
+        numBytes += pending.cp.getSmrEntriesBytes();
+        int updates = pending.batch.getUpdates().size();
+        numUpdates += updates;
+        if (MetricsUtils.isMetricsCollectionEnabled()) {
+            updatesMeter.mark(updates);
+            bytesMeter.mark(pending.cp.getSmrEntriesBytes());
         }
     }
 
@@ -161,6 +161,21 @@ public class CorfuRuntime {
          */
         @Default
         long cacheExpiryTime = Long.MAX_VALUE;
+
+        /**
+         * The maximum weight of the cache, the sum of the serialized sizes of the
+         * cached entries in bytes. If 0, the cache is bounded by numCacheEntries.
+         */
+        @Default
+        long maxCacheWeight = 0;
+
+        /**
+         * The maximum size of the off-heap tier of the cache in bytes, which holds the
+         * serialized form of the entries evicted from the cache. If 0, the off-heap
+         * tier is disabled.
+         */
+        @Default
+        long offHeapCacheSize = 0;
         // endregion
 
         // region Handshake Parameters
@@ -212,6 +227,15 @@ public class CorfuRuntime {
         @Default
         int streamBatchSize = 10;
 
+        /**
+         * Maximum size of the read-ahead window of address map stream views. The window starts
+         * at streamBatchSize, grows up to this size while a stream is read sequentially, and
+         * the next batch is read asynchronously while the current one is consumed. Read-ahead
+         * is only adaptive if this is larger than streamBatchSize and the cache is enabled.
+         */
+        @Default
+        int streamReadAheadMaxSize = 0;
+
         /**
          * Checkpoint read Batch Size: number of checkpoint addresses to fetch in batch when stream
          * address discovery mechanism relies on address maps instead of follow backpointers;
@@ -220,6 +244,18 @@ public class CorfuRuntime {
         int checkpointReadBatchSize = 5;
         // endregion
 
+        // region Object Parameters
+        /**
+         * The maximum number of immutable versions each object keeps for snapshot reads,
+         * for the objects which can copy their state. A snapshot read at a kept version
+         * doesn't lock or roll back the object. Each version is a full copy of the
+         * object, taken when a snapshot read misses, so versions are only worth
+         * keeping for small objects read at a few snapshots. If 0, no versions are kept.
+         */
+        @Default
+        int maxObjectVersions = 0;
+        // endregion
+
         //region        Security parameters
         /**
          * True, if TLS is enabled.
@@ -338,6 +374,24 @@ public class CorfuRuntime {
         @Default
         int systemDownHandlerTriggerLimit = 20;
 
+        /**
+         * True, if {@link NettyClientRouter}s should pipeline requests: the flushes of the
+         * requests sent during an event loop tick are coalesced into a single flush, and
+         * request timeouts are tracked by a shared hashed wheel timer instead of a timeout
+         * future per request.
+         */
+        @Default
+        boolean requestPipeliningEnabled = false;
+
+        /**
+         * True, if {@link NettyClientRouter}s should reach the servers which run in this
+         * process over an in-JVM channel, which hands messages to the server without
+         * encoding them. The servers must be started with --in-process-transport, other
+         * servers are still reached over TCP.
+         */
+        @Default
+        boolean inProcessTransportEnabled = false;
+
         /**
          * The initial list of layout servers.
          */
@@ -733,6 +787,9 @@ public class CorfuRuntime {
 
         stop(true);
 
+        // Release the cached entries, and the off-heap memory of the cache
+        addressSpaceView.resetCaches();
+
         // Shutdown the event loop
         if (parameters.shutdownNettyEventLoop) {
             nettyEventLoop.shutdownGracefully();
@@ -2,13 +2,17 @@ package org.corfudb.runtime;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.object.CorfuCompileProxy;
 import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.util.CFUtils;
 import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
+import org.corfudb.util.Utils;
 import org.corfudb.util.serializer.ISerializer;
 
 import java.util.ArrayList;
@@ -16,9 +20,15 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Checkpoint multiple SMRMaps serially as a prerequisite for a later log trim.
+ * Checkpoint multiple SMRMaps as a prerequisite for a later log trim. Since
+ * the checkpoints of different maps are independent, up to numOfWorkers maps
+ * are checkpointed concurrently.
  */
 @Slf4j
 public class MultiCheckpointWriter<T extends Map> {
@@ -31,6 +41,26 @@ public class MultiCheckpointWriter<T extends Map> {
             "append-several-checkpoints";
     private Timer appendCheckpointsTimer = metricRegistry.timer(MULTI_CHECKPOINT_TIMER_NAME);
 
+    /** Maximum number of incremental checkpoints written for a map after a full
+     *  checkpoint, see {@link CheckpointWriter#setMaxIncrementalCheckpoints(int)}.
+     */
+    @Getter
+    @Setter
+    private int maxIncrementalCheckpoints = 0;
+
+    /** Whether maps are checkpointed from the objects themselves, see
+     *  {@link CheckpointWriter#setStreaming(boolean)}.
+     */
+    @Getter
+    @Setter
+    private boolean streaming = false;
+
+    /** Number of maps checkpointed concurrently.
+     */
+    @Getter
+    @Setter
+    private int numOfWorkers = Runtime.getRuntime().availableProcessors();
+
     /** Add a map to the list of maps to be checkpointed by this class. */
     @SuppressWarnings("unchecked")
     public void addMap(T map) {
@@ -61,17 +91,21 @@ public class MultiCheckpointWriter<T extends Map> {
         Token minSnapshot = Token.UNINITIALIZED;
 
         final long cpStart = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numOfWorkers),
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("MultiCheckpointWriter-%d")
+                        .build());
         try (Timer.Context context = MetricsUtils.getConditionalContext(appendCheckpointsTimer)) {
+            List<CompletableFuture<Token>> checkpoints = new ArrayList<>(maps.size());
             for (ICorfuSMR<T> map : maps) {
-                UUID streamId = map.getCorfuStreamID();
-
-                CheckpointWriter<T> cpw = new CheckpointWriter(rt, streamId, author, (T) map);
-                ISerializer serializer =
-                        ((CorfuCompileProxy<Map>) map.getCorfuSMRProxy())
-                                .getSerializer();
-                cpw.setSerializer(serializer);
+                // Each checkpoint runs in its own snapshot transaction, on a worker thread
+                checkpoints.add(CompletableFuture.supplyAsync(() ->
+                        appendCheckpoint(rt, author, map), executor));
+            }
 
-                Token minCPSnapshot = cpw.appendCheckpoint();
+            for (CompletableFuture<Token> checkpoint : checkpoints) {
+                Token minCPSnapshot = CFUtils.getUninterruptibly(checkpoint);
 
                 if (minSnapshot == Token.UNINITIALIZED) {
                     minSnapshot = minCPSnapshot;
@@ -85,6 +119,7 @@ public class MultiCheckpointWriter<T extends Map> {
                 }
             }
         } finally {
+            executor.shutdownNow();
             // TODO(Maithem): print cp id?
             log.trace("appendCheckpoints: finished, author '{}' at min globalAddress {}",
                     author, minSnapshot);
@@ -97,4 +132,26 @@ public class MultiCheckpointWriter<T extends Map> {
         return minSnapshot;
     }
 
+    private Token appendCheckpoint(CorfuRuntime rt, String author, ICorfuSMR<T> map) {
+        UUID streamId = map.getCorfuStreamID();
+
+        CheckpointWriter<T> cpw = new CheckpointWriter(rt, streamId, author, (T) map);
+        ISerializer serializer =
+                ((CorfuCompileProxy<Map>) map.getCorfuSMRProxy())
+                        .getSerializer();
+        cpw.setSerializer(serializer);
+        cpw.setMaxIncrementalCheckpoints(maxIncrementalCheckpoints);
+        cpw.setStreaming(streaming);
+
+        final long start = System.currentTimeMillis();
+        Token minCPSnapshot = cpw.appendCheckpoint();
+        final long duration = Math.max(1, System.currentTimeMillis() - start);
+
+        // So that the checkpoint rate can be compared to the write rate of each map.
+        log.info("appendCheckpoints[{}]: took {} ms, {} entries ({} bytes), {} entries/s",
+                Utils.toReadableId(streamId), duration, cpw.getNumUpdates(), cpw.getNumBytes(),
+                cpw.getNumUpdates() * TimeUnit.SECONDS.toMillis(1) / duration);
+        return minCPSnapshot;
+    }
+
 }
@@ -0,0 +1,47 @@
+package org.corfudb.runtime.clients;
+
+import com.codahale.metrics.Histogram;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An outbound handler which records the number of messages written by each flush of a
+ * channel in a histogram, which gives the batching ratio of the channel. It is added
+ * between the encoder and a {@link FlushConsolidationHandler}, so that it observes the
+ * flushes that reach the socket.
+ *
+ * <p>Every method of the handler runs on the event loop of its channel, so a handler is
+ * bound to a single channel and its state is not synchronized.
+ */
+class FlushBatchRecorder extends ChannelOutboundHandlerAdapter {
+
+    private final Histogram batchSizes;
+
+    /** The number of messages written since the last flush. */
+    private int unflushedMessages = 0;
+
+    FlushBatchRecorder(@Nonnull Histogram batchSizes) {
+        this.batchSizes = batchSizes;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+            throws Exception {
+        unflushedMessages++;
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (unflushedMessages > 0) {
+            batchSizes.update(unflushedMessages);
+            unflushedMessages = 0;
+        }
+        ctx.flush();
+    }
+}
@@ -1,5 +1,8 @@
 package org.corfudb.runtime.clients;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -13,12 +16,16 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -40,11 +47,13 @@ import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.corfudb.comm.InProcessEndpoints;
 import org.corfudb.protocols.wireprotocol.ClientHandshakeHandler;
 import org.corfudb.protocols.wireprotocol.ClientHandshakeHandler.ClientHandshakeEvent;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.InboundMsgFilterHandler;
+import org.corfudb.protocols.wireprotocol.NettyCorfuMessageCopier;
 import org.corfudb.protocols.wireprotocol.NettyCorfuMessageDecoder;
 import org.corfudb.protocols.wireprotocol.NettyCorfuMessageEncoder;
 import org.corfudb.runtime.CorfuRuntime;
@@ -150,6 +159,30 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
     private SslContext sslContext;
     private final Map<CorfuMsgType, String> timerNameCache;
 
+    /**
+     * The timer which expires the requests of all the routers which pipeline requests.
+     * A single timer thread is started on the first pipelined request.
+     */
+    private static final HashedWheelTimer REQUEST_TIMER = new HashedWheelTimer(
+            new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("client-router-timer-%d")
+                    .build(),
+            10, TimeUnit.MILLISECONDS);
+
+    /** The name of the gauge of the number of outstanding requests. */
+    private final String inFlightMetricName;
+
+    /** The gauge of the number of outstanding requests on this router. */
+    private final Gauge<Integer> inFlightGauge;
+
+    /** The number of messages written by each flush, if requests are pipelined. */
+    private final Histogram flushBatchSizes;
+
+    /** Whether the node runs in this process and is reached over an in-JVM channel. */
+    @Getter
+    private final boolean inProcess;
+
     /**
      * Creates a new NettyClientRouter connected to the specified host and port with the
      * specified tls and sasl options. The new {@link this} will attempt connection to
@@ -186,6 +219,18 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         outstandingRequests = new ConcurrentHashMap<>();
         shutdown = true;
 
+        // Register the per-router metrics
+        final MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        final String endpoint = NodeLocator.getLegacyEndpoint(node);
+        inFlightMetricName = CorfuComponent.CLIENT_ROUTER + "inflight." + endpoint;
+        inFlightGauge = outstandingRequests::size;
+        try {
+            metrics.register(inFlightMetricName, inFlightGauge);
+        } catch (IllegalArgumentException e) {
+            // Another router to the same node registered the gauge, not a problem
+        }
+        flushBatchSizes = metrics.histogram(CorfuComponent.CLIENT_ROUTER + "flush-batch." + endpoint);
+
         if (parameters.isTlsEnabled()) {
             try {
                 sslContext = SslContextConstructor.constructSslContext(false,
@@ -201,13 +246,22 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         addClient(new BaseHandler());
 
 
-        // Initialize the channel
+        // Initialize the channel. Nodes which run in this process are reached over
+        // an in-JVM channel, other nodes over TCP.
+        inProcess = parameters.isInProcessTransportEnabled()
+                && InProcessEndpoints.isRegistered(endpoint);
         shutdown = false;
         Bootstrap b = new Bootstrap();
         b.group(eventLoopGroup);
-        b.channel(parameters.getSocketType().getChannelClass());
-        parameters.getNettyChannelOptions().forEach(b::option);
-        b.handler(getChannelInitializer());
+        if (inProcess) {
+            log.info("NettyClientRouter: {} runs in this process, using an in-JVM channel", node);
+            b.channel(LocalChannel.class);
+            b.handler(getLocalChannelInitializer());
+        } else {
+            b.channel(parameters.getSocketType().getChannelClass());
+            parameters.getNettyChannelOptions().forEach(b::option);
+            b.handler(getChannelInitializer());
+        }
         b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeoutConnect);
 
         // Asynchronously connect, retrying until shut down.
@@ -298,6 +352,38 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
                             new InboundMsgFilterHandler(parameters.getNettyClientInboundMsgFilters());
                     ch.pipeline().addLast(inboundMsgFilterHandler);
                 }
+                if (parameters.isRequestPipeliningEnabled()) {
+                    ch.pipeline().addLast(new FlushBatchRecorder(flushBatchSizes));
+                    ch.pipeline().addLast(new FlushConsolidationHandler(
+                            FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+                }
+                ch.pipeline().addLast(NettyClientRouter.this);
+            }
+        };
+    }
+
+    /** Get the {@link ChannelInitializer} used for initializing the pipeline of an in-JVM
+     *  channel. Messages are handed to the server as is, so the pipeline doesn't frame,
+     *  encode or secure them.
+     *
+     * @return A {@link ChannelInitializer} which initializes the pipeline.
+     */
+    private ChannelInitializer getLocalChannelInitializer() {
+        return new ChannelInitializer() {
+            @Override
+            protected void initChannel(@Nonnull Channel ch) throws Exception {
+                ch.pipeline().addLast(new NettyCorfuMessageCopier());
+                ch.pipeline().addLast(new ClientHandshakeHandler(parameters.getClientId(),
+                    node.getNodeId(), parameters.getHandshakeTimeout()));
+                if (parameters.getNettyClientInboundMsgFilters() != null) {
+                    ch.pipeline().addLast(
+                            new InboundMsgFilterHandler(parameters.getNettyClientInboundMsgFilters()));
+                }
+                if (parameters.isRequestPipeliningEnabled()) {
+                    ch.pipeline().addLast(new FlushBatchRecorder(flushBatchSizes));
+                    ch.pipeline().addLast(new FlushConsolidationHandler(
+                            FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+                }
                 ch.pipeline().addLast(NettyClientRouter.this);
             }
         };
@@ -342,7 +428,9 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
             return;
         }
         // Use the bootstrap to create a new channel.
-        ChannelFuture f = bootstrap.connect(node.getHost(), node.getPort());
+        ChannelFuture f = inProcess
+                ? bootstrap.connect(InProcessEndpoints.getLocalAddress(NodeLocator.getLegacyEndpoint(node)))
+                : bootstrap.connect(node.getHost(), node.getPort());
         f.addListener((ChannelFuture cf) -> channelConnectionFutureHandler(cf, bootstrap));
     }
 
@@ -382,6 +470,10 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         if (channel != null && channel.isOpen()) {
             channel.close();
         }
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        if (metrics.getGauges().get(inFlightMetricName) == inFlightGauge) {
+            metrics.remove(inFlightMetricName);
+        }
     }
 
     /** {@inheritDoc}
@@ -450,6 +542,18 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         }
         log.trace("Sent message: {}", message);
 
+        if (parameters.isRequestPipeliningEnabled()) {
+            // Expire the request with the shared timer. A request that completes
+            // exceptionally leaves its timeout to fire, which is then a no-op.
+            final Timeout timeout = REQUEST_TIMER.newTimeout(t -> expireRequest(thisRequest, cf),
+                    timeoutResponse, TimeUnit.MILLISECONDS);
+            return cf.thenApply(x -> {
+                timeout.cancel();
+                MetricsUtils.stopConditionalContext(roundTripMsgContext);
+                return x;
+            });
+        }
+
         // Generate a benchmarked future to measure the underlying request
         final CompletableFuture<T> cfBenchmarked = cf.thenApply(x -> {
             MetricsUtils.stopConditionalContext(roundTripMsgContext);
@@ -475,6 +579,21 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         return cfTimeout;
     }
 
+    /**
+     * Exceptionally complete a request with a {@link TimeoutException}, if it is
+     * still outstanding.
+     *
+     * @param requestId The request to expire.
+     * @param cf        The future of the request.
+     */
+    private void expireRequest(long requestId, CompletableFuture cf) {
+        if (outstandingRequests.remove(requestId, cf)) {
+            cf.completeExceptionally(new TimeoutException());
+            log.debug("sendMessageAndGetCompletable: Remove request {} to {} due to timeout!",
+                    requestId, node);
+        }
+    }
+
     /**
      * Send a one way message, without adding a completable future.
      *
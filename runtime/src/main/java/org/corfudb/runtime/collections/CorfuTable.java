@@ -38,6 +38,8 @@ import org.corfudb.annotations.DontInstrument;
 import org.corfudb.annotations.Mutator;
 import org.corfudb.annotations.MutatorAccessor;
 import org.corfudb.annotations.TransactionalMethod;
+import org.corfudb.runtime.object.ICorfuSMRIterable;
+import org.corfudb.runtime.object.ICorfuSMRSnapshotable;
 import org.corfudb.util.ImmuableListSetWrapper;
 
 /** The CorfuTable implements a simple key-value store.
@@ -59,7 +61,8 @@ import org.corfudb.util.ImmuableListSetWrapper;
  */
 @Slf4j
 @CorfuObject
-public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
+public class CorfuTable<K ,V> implements ICorfuMap<K, V>,
+        ICorfuSMRSnapshotable<CorfuTable<K, V>>, ICorfuSMRIterable<Map.Entry<K, V>> {
 
     /**
      * Denotes a function that supplies the unique name of an index registered to
@@ -289,6 +292,36 @@ public class CorfuTable<K ,V> implements ICorfuMap<K, V> {
         this(IndexRegistry.empty());
     }
 
+    /** {@inheritDoc}
+     *
+     * <p>The primary map and the secondary indexes are copied, the keys and values are not.
+     */
+    @Override
+    @DontInstrument
+    public CorfuTable<K, V> snapshot() {
+        CorfuTable<K, V> copy = new CorfuTable<>();
+        copy.mainMap.putAll(mainMap);
+        copy.indexSpec.addAll(indexSpec);
+        secondaryIndexes.forEach((indexName, secondaryMap) -> {
+            Map<Comparable, Map<K, V>> secondaryMapCopy = new HashMap<>();
+            secondaryMap.forEach((indexKey, entries) ->
+                    secondaryMapCopy.put(indexKey, new HashMap<>(entries)));
+            copy.secondaryIndexes.put(indexName, secondaryMapCopy);
+        });
+        copy.indexGenerationFailed = indexGenerationFailed;
+        return copy;
+    }
+
+    /** {@inheritDoc}
+     *
+     * <p>Iterates the entries of the primary map.
+     */
+    @Override
+    @DontInstrument
+    public Iterator<Map.Entry<K, V>> unsafeIterator() {
+        return mainMap.entrySet().iterator();
+    }
+
     /** {@inheritDoc} */
     @Override
     @Accessor
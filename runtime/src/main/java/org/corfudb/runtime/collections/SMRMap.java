@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -20,7 +21,10 @@ import java.util.stream.Collectors;
 
 import org.corfudb.annotations.Accessor;
 import org.corfudb.annotations.CorfuObject;
+import org.corfudb.annotations.DontInstrument;
 import org.corfudb.annotations.TransactionalMethod;
+import org.corfudb.runtime.object.ICorfuSMRIterable;
+import org.corfudb.runtime.object.ICorfuSMRSnapshotable;
 
 /**
  * Created by mwei on 1/7/16.
@@ -28,7 +32,27 @@ import org.corfudb.annotations.TransactionalMethod;
 @CorfuObject
 @Deprecated // TODO: Add replacement method that conforms to style
 @SuppressWarnings("checkstyle:abbreviation") // Due to deprecation
-public class SMRMap<K, V> extends HashMap<K, V> implements ISMRMap<K,V> {
+public class SMRMap<K, V> extends HashMap<K, V> implements ISMRMap<K,V>,
+        ICorfuSMRSnapshotable<SMRMap<K, V>>, ICorfuSMRIterable<Map.Entry<K, V>> {
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The map is copied, the keys and values are not.
+     */
+    @Override
+    @DontInstrument
+    @SuppressWarnings("unchecked")
+    public SMRMap<K, V> snapshot() {
+        return (SMRMap<K, V>) super.clone();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @DontInstrument
+    public Iterator<Entry<K, V>> unsafeIterator() {
+        return super.entrySet().iterator();
+    }
 
     /**
      * Returns a {@link Set} view of the keys contained in this map.
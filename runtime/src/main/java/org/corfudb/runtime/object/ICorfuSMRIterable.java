@@ -0,0 +1,24 @@
+package org.corfudb.runtime.object;
+
+import java.util.Iterator;
+
+/**
+ * An SMR object whose state can be iterated in place, without copying it first,
+ * by the runtime while it holds the lock of the {@link VersionLockedObject}
+ * backing the object.
+ *
+ * <p>Implementations should mark the method {@code @DontInstrument}, since it is
+ * called by the runtime on the underlying object, and never through the wrapper.
+ *
+ * @param <E> The type of the elements of the state.
+ */
+public interface ICorfuSMRIterable<E> {
+
+    /**
+     * Returns an iterator over the state of this object, which reads the state
+     * in place. It is only valid as long as the object isn't modified.
+     *
+     * @return An iterator over the state of this object.
+     */
+    Iterator<E> unsafeIterator();
+}
@@ -0,0 +1,22 @@
+package org.corfudb.runtime.object;
+
+/**
+ * An SMR object which can copy its state, so that the {@link VersionLockedObject}
+ * backing it can keep immutable versions of the object for snapshot reads.
+ *
+ * <p>Implementations should mark the method {@code @DontInstrument}, since it is
+ * called by the runtime on the underlying object, and never through the wrapper.
+ *
+ * @param <T> The type of the SMR object.
+ */
+public interface ICorfuSMRSnapshotable<T> {
+
+    /**
+     * Returns a copy of the state of this object. The copy is never modified
+     * after it is returned, and may be read by several threads at once, so it
+     * must not share any mutable state with this object.
+     *
+     * @return A copy of this object.
+     */
+    T snapshot();
+}
@@ -0,0 +1,144 @@
+package org.corfudb.runtime.object;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * A bounded set of immutable versions of an object, which snapshot reads access
+ * without locking the {@link VersionLockedObject}.
+ *
+ * <p>A version is the state of the object after applying the updates of its stream
+ * up to an address, and it holds for any snapshot from that address up to the next
+ * update of the stream. Since the next update isn't known, each version records the
+ * highest snapshot it was synced to, and is only used for the snapshots in between.
+ * When the cache is full, the least recently read version is evicted.
+ *
+ * <p>Versions are read concurrently, while adding and removing versions must be
+ * serialized by the caller (under the write lock of the object).
+ *
+ * @param <T> The type of the object.
+ */
+class ObjectVersionCache<T> {
+
+    /**
+     * An immutable version of the object.
+     */
+    private static class Version<T> {
+        final T object;
+
+        // The highest snapshot this version is known to be valid at.
+        final long validUpTo;
+
+        Version(T object, long validUpTo) {
+            this.object = object;
+            this.validUpTo = validUpTo;
+        }
+    }
+
+    private final int maxVersions;
+
+    // The versions, by the address of the last update applied to them.
+    private final ConcurrentNavigableMap<Long, Version<T>> versions =
+            new ConcurrentSkipListMap<>();
+
+    // The addresses of the versions, from the least to the most recently read.
+    private final LinkedHashMap<Long, Boolean> readOrder = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Create a cache of versions.
+     *
+     * @param maxVersions The maximum number of versions to keep, if 0 no
+     *                    versions are kept.
+     */
+    ObjectVersionCache(int maxVersions) {
+        this.maxVersions = maxVersions;
+    }
+
+    /**
+     * Returns true if this cache keeps versions.
+     */
+    boolean isEnabled() {
+        return maxVersions > 0;
+    }
+
+    /**
+     * Returns the number of versions in this cache.
+     */
+    int size() {
+        return versions.size();
+    }
+
+    /**
+     * Get the version of the object at a snapshot.
+     *
+     * @param snapshot The snapshot to read the object at.
+     * @return The version of the object at the snapshot, or null if it isn't cached.
+     */
+    T get(long snapshot) {
+        Map.Entry<Long, Version<T>> entry = versions.floorEntry(snapshot);
+        if (entry == null || entry.getValue().validUpTo < snapshot) {
+            return null;
+        }
+        touch(entry.getKey());
+        return entry.getValue().object;
+    }
+
+    /**
+     * Add a version of the object, unless it is already cached, in which case it
+     * is extended up to the snapshot.
+     *
+     * @param address  The address of the last update applied to the object.
+     * @param snapshot The snapshot the object was synced to.
+     * @param copy     A function which copies the object.
+     */
+    void put(long address, long snapshot, Supplier<T> copy) {
+        Version<T> current = versions.get(address);
+        if (current != null) {
+            if (current.validUpTo < snapshot) {
+                versions.put(address, new Version<>(current.object, snapshot));
+            }
+            touch(address);
+            return;
+        }
+
+        versions.put(address, new Version<>(copy.get(), snapshot));
+        synchronized (readOrder) {
+            readOrder.put(address, Boolean.TRUE);
+            Iterator<Long> eldest = readOrder.keySet().iterator();
+            while (versions.size() > maxVersions && eldest.hasNext()) {
+                versions.remove(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove the versions which are only valid at snapshots before the trim mark.
+     *
+     * @param trimMark The trim mark of the stream.
+     */
+    void gc(long trimMark) {
+        versions.entrySet().removeIf(entry -> {
+            if (entry.getValue().validUpTo >= trimMark) {
+                return false;
+            }
+            synchronized (readOrder) {
+                readOrder.remove(entry.getKey());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Move a version to the most recently read end of the read order.
+     */
+    private void touch(long address) {
+        synchronized (readOrder) {
+            readOrder.get(address);
+        }
+    }
+}
@@ -113,6 +113,11 @@ public class VersionLockedObject<T> {
      */
     private final Supplier<T> newObjectFn;
 
+    /**
+     * Immutable versions of the object, which snapshot reads access without locking.
+     */
+    private final ObjectVersionCache<T> versions;
+
     /**
      * Correctness Logging
      */
@@ -136,6 +141,30 @@ public class VersionLockedObject<T> {
                                Map<String, IUndoRecordFunction<T>> undoRecordTargets,
                                Map<String, IUndoFunction<T>> undoTargets,
                                Set<String> resetSet) {
+        this(newObjectFn, smrStream, upcallTargets, undoRecordTargets, undoTargets,
+                resetSet, 0);
+    }
+
+    /**
+     * The VersionLockedObject maintains a versioned object which is backed by an ISMRStream,
+     * and is optionally backed by an additional optimistic update stream.
+     *
+     * @param newObjectFn       A function passed to instantiate a new instance of this object.
+     * @param smrStream         Stream View backing this object.
+     * @param upcallTargets     UpCall map for this object.
+     * @param undoRecordTargets Undo record function map for this object.
+     * @param undoTargets       Undo functions map.
+     * @param resetSet          Reset set for this object.
+     * @param maxVersions       The maximum number of immutable versions to keep for
+     *                          snapshot reads, if the object can be copied.
+     */
+    public VersionLockedObject(Supplier<T> newObjectFn,
+                               StreamViewSMRAdapter smrStream,
+                               Map<String, ICorfuSMRUpcallTarget<T>> upcallTargets,
+                               Map<String, IUndoRecordFunction<T>> undoRecordTargets,
+                               Map<String, IUndoFunction<T>> undoTargets,
+                               Set<String> resetSet,
+                               int maxVersions) {
         this.smrStream = smrStream;
 
         this.upcallTargetMap = upcallTargets;
@@ -147,6 +176,7 @@ public class VersionLockedObject<T> {
         this.object = newObjectFn.get();
         this.pendingUpcalls = ConcurrentHashMap.newKeySet();
         this.upcallResults = new ConcurrentHashMap<>();
+        this.versions = new ObjectVersionCache<>(maxVersions);
 
         lock = new StampedLock();
     }
@@ -162,6 +192,7 @@ public class VersionLockedObject<T> {
             ts = lock.writeLock();
             pendingUpcalls.removeIf(e -> e < trimMark);
             upcallResults.entrySet().removeIf(e -> e.getKey() < trimMark);
+            versions.gc(trimMark);
             smrStream.gc(trimMark);
         } finally {
             lock.unlock(ts);
@@ -259,6 +290,91 @@ public class VersionLockedObject<T> {
         }
     }
 
+    /**
+     * Access an immutable version of the object at a snapshot, without locking the
+     * object. If no version of the object at the snapshot is kept, the object is synced
+     * to the snapshot under the write lock instead, and a version of it is saved for
+     * the next reads at the snapshot.
+     *
+     * @param snapshot       The snapshot to read the object at.
+     * @param updateFunction A function which syncs the object to the snapshot, executed
+     *                       under a write lock.
+     * @param accessFunction A function which reads the object.
+     * @param <R>            The type of the access function return.
+     * @return Returns the access function.
+     */
+    public <R> R accessSnapshot(long snapshot,
+                                Consumer<VersionLockedObject<T>> updateFunction,
+                                Function<T, R> accessFunction) {
+        final T version = versions.get(snapshot);
+        if (version != null) {
+            try (Timer.Context versionReadDuration = VloMetricsHelper.getVersionReadContext()) {
+                log.trace("Access [{}] Version access at {}", this, snapshot);
+                return accessFunction.apply(version);
+            }
+        }
+
+        return access(o -> o.getVersionUnsafe() == snapshot
+                        && !o.isOptimisticallyModifiedUnsafe(),
+                o -> {
+                    updateFunction.accept(o);
+                    o.saveVersionUnsafe(snapshot);
+                },
+                accessFunction);
+    }
+
+    /**
+     * Access the object at a snapshot under the write lock, for an access which can't
+     * be retried as optimistic reads are (e.g. a long running one, or with side effects).
+     * If an immutable version of the object at the snapshot is kept, it is accessed
+     * without locking the object instead.
+     *
+     * <p>Other accesses to the object wait until the access function returns, so it
+     * must not wait on them.
+     *
+     * @param snapshot       The snapshot to read the object at.
+     * @param updateFunction A function which syncs the object to the snapshot, executed
+     *                       under the write lock.
+     * @param accessFunction A function which reads the object.
+     * @param <R>            The type of the access function return.
+     * @return Returns the access function.
+     */
+    public <R> R accessExclusive(long snapshot,
+                                 Consumer<VersionLockedObject<T>> updateFunction,
+                                 Function<T, R> accessFunction) {
+        final T version = versions.get(snapshot);
+        if (version != null) {
+            log.trace("AccessExclusive [{}] Version access at {}", this, snapshot);
+            return accessFunction.apply(version);
+        }
+
+        return update(o -> {
+            updateFunction.accept(o);
+            log.trace("AccessExclusive [{}] (writelock) access at {}", this, getVersionUnsafe());
+            return accessFunction.apply(object);
+        });
+    }
+
+    /**
+     * Save an immutable copy of the object, as its version at the given snapshot.
+     * Only objects which implement {@link ICorfuSMRSnapshotable} are copied.
+     *
+     * <p>Unsafe, requires that the caller has acquired a write lock, and has synced
+     * the object to the snapshot.
+     *
+     * @param snapshot The snapshot the object was synced to.
+     */
+    @SuppressWarnings("unchecked")
+    public void saveVersionUnsafe(long snapshot) {
+        if (!versions.isEnabled()
+                || isOptimisticallyModifiedUnsafe()
+                || !(object instanceof ICorfuSMRSnapshotable)) {
+            return;
+        }
+        versions.put(getVersionUnsafe(), snapshot,
+                () -> ((ICorfuSMRSnapshotable<T>) object).snapshot());
+    }
+
     /**
      * Update the object under a write lock.
      *
@@ -688,6 +804,8 @@ public class VersionLockedObject<T> {
                 "vlo.updated-object-read";
         private static final String VLO_UPDATE = CorfuComponent.OBJECT.toString() + "vlo.update";
         private static final String VLO_GC = CorfuComponent.OBJECT.toString() + "vlo.gc";
+        private static final String VLO_VERSION_READ = CorfuComponent.OBJECT.toString() +
+                "vlo.version-read";
 
         private static Timer.Context getOptimisticReadContext() {
             return MetricsUtils.getConditionalContext(metrics.timer(VLO_OPTIMISTIC_READ));
@@ -704,5 +822,9 @@ public class VersionLockedObject<T> {
         private  static Timer.Context getVloGcContext() {
             return MetricsUtils.getConditionalContext(metrics.timer(VLO_GC));
         }
+
+        private  static Timer.Context getVersionReadContext() {
+            return MetricsUtils.getConditionalContext(metrics.timer(VLO_VERSION_READ));
+        }
     }
 }
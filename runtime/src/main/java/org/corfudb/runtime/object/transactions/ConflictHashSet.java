@@ -0,0 +1,150 @@
+package org.corfudb.runtime.object.transactions;
+
+import java.util.Arrays;
+
+/**
+ * A set of the 64-bit hashes of the conflict parameters of a stream.
+ *
+ * <p>Hashes are kept as primitives in an open-addressing table, so adding a hash
+ * doesn't allocate (unless the table grows), and a conflict parameter which is
+ * accessed many times is only counted once. The free slots of the table are 0,
+ * so whether the set holds the hash 0 is tracked separately.
+ *
+ * <p>This class is not thread-safe, like the conflict sets which hold it.
+ */
+class ConflictHashSet {
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final long HASH_SEED = 0x9E3779B97F4A7C15L;
+
+    private long[] table = EMPTY;
+
+    // The number of non-zero hashes in the table.
+    private int size = 0;
+
+    private boolean containsZero = false;
+
+    /**
+     * Returns the number of hashes in this set.
+     */
+    int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    /**
+     * Returns true if this set holds a hash.
+     *
+     * @param hash the hash to look up.
+     */
+    boolean contains(long hash) {
+        if (hash == 0L) {
+            return containsZero;
+        }
+        if (size == 0) {
+            return false;
+        }
+
+        final int mask = table.length - 1;
+        for (int slot = slot(hash, mask); table[slot] != 0L; slot = (slot + 1) & mask) {
+            if (table[slot] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a hash to this set.
+     *
+     * @param hash the hash to add.
+     * @return true if the hash was added, false if it was already in the set.
+     */
+    boolean add(long hash) {
+        if (hash == 0L) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        // Keep the table at most half full.
+        if ((size + 1) * 2 > table.length) {
+            resize(Math.max(INITIAL_CAPACITY, table.length * 2));
+        }
+
+        final int mask = table.length - 1;
+        int slot = slot(hash, mask);
+        while (table[slot] != 0L) {
+            if (table[slot] == hash) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = hash;
+        size++;
+        return true;
+    }
+
+    /**
+     * Add all the hashes of another set to this set.
+     *
+     * @param other the set to copy the hashes from.
+     */
+    void addAll(ConflictHashSet other) {
+        if (other.containsZero) {
+            containsZero = true;
+        }
+        for (long hash : other.table) {
+            if (hash != 0L) {
+                add(hash);
+            }
+        }
+    }
+
+    /**
+     * Returns the hashes of this set, in no particular order.
+     */
+    long[] toArray() {
+        long[] hashes = new long[size()];
+        int i = 0;
+        for (long hash : table) {
+            if (hash != 0L) {
+                hashes[i++] = hash;
+            }
+        }
+        if (containsZero) {
+            hashes[i] = 0L;
+        }
+        return hashes;
+    }
+
+    private void resize(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        final int mask = capacity - 1;
+        for (long hash : old) {
+            if (hash != 0L) {
+                int slot = slot(hash, mask);
+                while (table[slot] != 0L) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = hash;
+            }
+        }
+    }
+
+    // Conflict parameters such as small integer keys hash to themselves, spread them.
+    private static int slot(long hash, int mask) {
+        long h = hash * HASH_SEED;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        long[] hashes = toArray();
+        Arrays.sort(hashes);
+        return Arrays.toString(hashes);
+    }
+}
@@ -1,59 +1,80 @@
 package org.corfudb.runtime.object.transactions;
 
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+
+import net.openhft.hashing.LongHashFunction;
 
 import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
+import org.corfudb.util.Utils;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 /**
  * This class captures information about objects accessed (read) during speculative
  * transaction execution.
+ *
+ * <p>Conflict objects are hashed once, as they are accessed, into a set of 64-bit
+ * hashes per stream, so the conflict set sent to the sequencer at commit time is
+ * ready.</p>
  */
 @Getter
 public class ConflictSetInfo {
 
 
-    /** Set of objects this conflict set conflicts with. */
-    protected Map<ICorfuSMRProxyInternal, Set<Object>> conflicts = new HashMap<>();
+    /** The hashes of the objects this conflict set conflicts with, by stream. A stream
+     * without conflict objects conflicts with any update to the stream. */
+    @Getter(AccessLevel.NONE)
+    protected Map<UUID, ConflictHashSet> hashedConflicts = new HashMap<>();
+
+    /** Get a hash for the object, given a proxy, as sent to the sequencer. */
+    public static long generateConflictHash(ICorfuSMRProxyInternal p, Object o) {
+        final byte[] hash = p.getSerializer().hash(o);
+        if (hash.length == Long.BYTES) {
+            // Most serializer hashes are already 64 bits wide.
+            long value = 0;
+            for (byte b : hash) {
+                value = (value << Byte.SIZE) | (b & 0xFF);
+            }
+            return value;
+        }
+        return LongHashFunction.xx().hashBytes(hash);
+    }
 
-    /** Get a hash for the object, given a proxy. */
+    /** Get a hash for the object, given a proxy, as reported in conflicts. */
     public static byte[] generateHashFromObject(ICorfuSMRProxyInternal p, Object o) {
-        return p.getSerializer().hash(o);
+        return Utils.longToBigEndianByteArray(generateConflictHash(p, o));
     }
 
     /** Get the hashed conflict set.
      * @return              The hashed conflict set.
      */
-    public Map<UUID, Set<byte[]>> getHashedConflictSet() {
-        return conflicts.entrySet().stream()
-                .collect(Collectors.toMap(
-                        // Key = UUID
-                        e -> e.getKey().getStreamID(),
-                        // Value = Generated hash.
-                        e -> e.getValue().stream()
-                                .map(o -> ConflictSetInfo.generateHashFromObject(e.getKey(), o))
-                                .collect(Collectors.toSet()),
-                        // Merge function, in case key was already mapped
-                        // (If two proxies have the same stream).
-                        (v1,v2) -> {
-                            // Combine the two sets.
-                            v1.addAll(v2);
-                            return v1;
-                        }));
+    public Map<UUID, long[]> getHashedConflictSet() {
+        Map<UUID, long[]> hashedConflictSet = new HashMap<>();
+        hashedConflicts.forEach((streamId, hashes) ->
+                hashedConflictSet.put(streamId, hashes.toArray()));
+        return hashedConflictSet;
+    }
+
+    /** Check whether this conflict set conflicts with an object.
+     * @param proxy          The proxy of the object's stream.
+     * @param conflictObject The conflict object.
+     * @return               True, if the hash of the object is in the conflict set.
+     */
+    public boolean conflictsWith(ICorfuSMRProxyInternal proxy, Object conflictObject) {
+        ConflictHashSet hashes = hashedConflicts.get(proxy.getStreamID());
+        return hashes != null && hashes.contains(generateConflictHash(proxy, conflictObject));
     }
 
     /** Merge a conflict set into this conflict set.
      * @param other         The conflict set to merge.
      */
     public void mergeInto(ConflictSetInfo other) {
-        conflicts.putAll(other.conflicts);
+        other.hashedConflicts.forEach((streamId, hashes) ->
+                hashedConflicts.computeIfAbsent(streamId, s -> new ConflictHashSet())
+                        .addAll(hashes));
     }
 
     /** Add an operation into this conflict set. */
@@ -62,16 +83,12 @@ public class ConflictSetInfo {
             return;
         }
 
-        // Add the conflict objects to the set for this proxy,
-        // creating a new set if needed.
-        conflicts.compute(proxy, (p, c) -> {
-            // If key not previously mapped
-            if (c == null) {
-                c = new HashSet<>();
-            }
-            // Add conflicts to set.
-            c.addAll(Arrays.asList(conflictObjects));
-            return c;
-        });
+        // Hash the conflict objects once, when they are accessed, into the set
+        // of the stream, creating a new set if needed.
+        ConflictHashSet hashes = hashedConflicts.computeIfAbsent(proxy.getStreamID(),
+                s -> new ConflictHashSet());
+        for (Object conflictObject : conflictObjects) {
+            hashes.add(generateConflictHash(proxy, conflictObject));
+        }
     }
 }
@@ -7,8 +7,10 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.netty.handler.timeout.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +33,7 @@ import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
 import org.corfudb.util.CFUtils;
 import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.OffHeapDataCache;
 import org.corfudb.util.Sleep;
 import org.corfudb.util.Utils;
 
@@ -44,9 +47,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 
 /**
@@ -57,16 +64,28 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class AddressSpaceView extends AbstractView {
 
+    /**
+     * The executor which validates the state of asynchronous writes which failed,
+     * off the threads completing the writes.
+     */
+    private static final ExecutorService WRITE_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("AddressSpaceViewWrite-%d")
+                    .build());
+
     /**
      * A cache for read results.
      */
-    final Cache<Long, ILogData> readCache = CacheBuilder.newBuilder()
-            .maximumSize(runtime.getParameters().getNumCacheEntries())
-            .expireAfterAccess(runtime.getParameters().getCacheExpiryTime(), TimeUnit.SECONDS)
-            .expireAfterWrite(runtime.getParameters().getCacheExpiryTime(), TimeUnit.SECONDS)
-            .removalListener(this::handleEviction)
-            .recordStats()
-            .build();
+    final Cache<Long, ILogData> readCache;
+
+    /**
+     * The off-heap tier of the read cache, which holds the serialized form of the
+     * entries evicted from the read cache, or null if it is disabled.
+     */
+    @Nullable
+    private final OffHeapDataCache offHeapCache;
 
     /**
      * Constructor for the Address Space View.
@@ -76,17 +95,63 @@ public class AddressSpaceView extends AbstractView {
         MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
         final String pfx = String.format("%s0x%x.cache.", CorfuComponent.ADDRESS_SPACE_VIEW.toString(),
                                          this.hashCode());
+        readCache = buildReadCache();
         metrics.register(pfx + "cache-size", (Gauge<Long>) readCache::size);
         metrics.register(pfx + "evictions", (Gauge<Long>) () -> readCache.stats().evictionCount());
         metrics.register(pfx + "hit-rate", (Gauge<Double>) () -> readCache.stats().hitRate());
         metrics.register(pfx + "hits", (Gauge<Long>) () -> readCache.stats().hitCount());
         metrics.register(pfx + "misses", (Gauge<Long>) () -> readCache.stats().missCount());
+
+        if (runtime.getParameters().getOffHeapCacheSize() > 0) {
+            offHeapCache = new OffHeapDataCache(runtime.getParameters().getOffHeapCacheSize(),
+                    pfx + "offheap.", metrics);
+        } else {
+            offHeapCache = null;
+        }
+    }
+
+    /**
+     * Build the read cache, which is bounded by the serialized size of its entries if a
+     * maximum cache weight is set, and by its number of entries otherwise.
+     */
+    private Cache<Long, ILogData> buildReadCache() {
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+                .expireAfterAccess(runtime.getParameters().getCacheExpiryTime(), TimeUnit.SECONDS)
+                .expireAfterWrite(runtime.getParameters().getCacheExpiryTime(), TimeUnit.SECONDS)
+                .recordStats();
+
+        if (runtime.getParameters().getMaxCacheWeight() > 0) {
+            return cacheBuilder
+                    .maximumWeight(runtime.getParameters().getMaxCacheWeight())
+                    .weigher((Long address, ILogData data) -> getWeight(data))
+                    .removalListener(this::handleEviction)
+                    .build();
+        }
+
+        return cacheBuilder
+                .maximumSize(runtime.getParameters().getNumCacheEntries())
+                .removalListener(this::handleEviction)
+                .build();
+    }
+
+    /**
+     * Returns the weight of a cached entry, the serialized size of its payload.
+     */
+    private static int getWeight(ILogData data) {
+        // Holes and empty entries have no payload, and no known size
+        return data.getType() == DataType.DATA ? Math.max(1, data.getSizeEstimate()) : 1;
     }
 
     public void handleEviction(RemovalNotification<Long, ILogData> notification) {
         if (log.isTraceEnabled()) {
             log.trace("handleEviction: evicting {} cause {}", notification.getKey(), notification.getCause());
         }
+
+        // Entries evicted because the cache is full are moved to the off-heap tier
+        if (offHeapCache != null && notification.getCause() == RemovalCause.SIZE
+                && notification.getKey() != null && notification.getValue() != null) {
+            offHeapCache.put(notification.getKey(), notification.getValue());
+        }
     }
 
     /**
@@ -94,6 +159,9 @@ public class AddressSpaceView extends AbstractView {
      */
     public void gc(long trimMark) {
         readCache.asMap().entrySet().removeIf(e -> e.getKey() < trimMark);
+        if (offHeapCache != null) {
+            offHeapCache.invalidateBelow(trimMark);
+        }
     }
 
     /**
@@ -101,6 +169,9 @@ public class AddressSpaceView extends AbstractView {
      */
     public void resetCaches() {
         readCache.invalidateAll();
+        if (offHeapCache != null) {
+            offHeapCache.invalidateAll();
+        }
     }
 
 
@@ -195,7 +266,97 @@ public class AddressSpaceView extends AbstractView {
         }, true);
 
         // Cache the successful write
+        cacheWrite(token, ld, cacheOption);
+    }
+
+    /**
+     * Asynchronously write the given log data using a token, returning a future
+     * which completes once the write has been completed successfully.
+     *
+     * <p>The caller thread is not blocked while the write is replicated, so many
+     * writes can be kept in flight. The future completes exceptionally with the
+     * exceptions {@link AddressSpaceView#write(IToken, Object, CacheOption)} throws.</p>
+     *
+     * @param token        The token to use for the write.
+     * @param data         The data to write.
+     * @param cacheOption  The caching behaviour for this write
+     * @return A future which completes once the write is committed to the log.
+     */
+    public CompletableFuture<Void> writeAsync(@Nonnull IToken token, @Nonnull Object data,
+                                              @Nonnull CacheOption cacheOption) {
+        final ILogData ld;
+        if (data instanceof ILogData) {
+            ld = (ILogData) data;
+        } else {
+            ld = new LogData(DataType.DATA, data);
+        }
+
+        final RuntimeLayout runtimeLayout = runtime.getLayoutView().getRuntimeLayout();
+        final Layout l = runtimeLayout.getLayout();
+        // Check if the token issued is in the same
+        // epoch as the layout we are about to write
+        // to.
+        if (token.getEpoch() != l.getEpoch()) {
+            CompletableFuture<Void> stale = new CompletableFuture<>();
+            stale.completeExceptionally(new StaleTokenException(l.getEpoch()));
+            return stale;
+        }
+
+        // Set the data to use the token
+        ld.useToken(token);
+        ld.setId(runtime.getParameters().getClientId());
+
+        return l.getReplicationMode(token.getSequence())
+                .getReplicationProtocol(runtime)
+                .writeAsync(runtimeLayout, ld)
+                .handle((written, ex) -> {
+                    if (ex == null) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                            ? ex.getCause() : ex;
+                    boolean overwritten = cause instanceof OverwriteException
+                            && ((OverwriteException) cause).getOverWriteCause()
+                            != OverwriteCause.SAME_DATA;
+                    if (overwritten || cause instanceof WriteSizeException
+                            || !(cause instanceof RuntimeException)) {
+                        CompletableFuture<Void> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(cause);
+                        return failed;
+                    }
+
+                    // As in the synchronous write, validate the state of the write, which
+                    // reads the address, off the thread which completed the write.
+                    if (!(cause instanceof OverwriteException)) {
+                        log.error("writeAsync: Got exception during replication protocol write "
+                                + "with token: {}", token, cause);
+                    }
+                    return CompletableFuture.runAsync(() ->
+                            validateStateOfWrittenEntry(token.getSequence(), ld), WRITE_EXECUTOR);
+                })
+                .thenCompose(Function.identity())
+                .thenRun(() -> cacheWrite(token, ld, cacheOption));
+    }
+
+    /**
+     * Write the given log data asynchronously and then add it to the address
+     * space cache (i.e. WRITE_THROUGH option)
+     *
+     * @see AddressSpaceView#writeAsync(IToken, Object, CacheOption)
+     */
+    public CompletableFuture<Void> writeAsync(@Nonnull IToken token, @Nonnull Object data) {
+        return writeAsync(token, data, CacheOption.WRITE_THROUGH);
+    }
+
+    /**
+     * Cache a successful write, if the cache option asks for it.
+     */
+    private void cacheWrite(IToken token, ILogData ld, CacheOption cacheOption) {
         if (!runtime.getParameters().isCacheDisabled() && cacheOption == CacheOption.WRITE_THROUGH) {
+            if (offHeapCache != null) {
+                offHeapCache.invalidate(token.getSequence());
+            }
             readCache.put(token.getSequence(), ld);
         }
     }
@@ -259,7 +420,10 @@ public class AddressSpaceView extends AbstractView {
                 // load the same value), but currently a redundant RPC
                 // is much cheaper than the cost of a NoRollBackException, therefore
                 // this trade-off is reasonable
-                final ILogData loadedVal = fetch(address);
+                ILogData loadedVal = offHeapCache == null ? null : offHeapCache.get(address);
+                if (loadedVal == null) {
+                    loadedVal = fetch(address);
+                }
                 return cacheLoadAndGet(readCache, address, loadedVal);
             }
         return data;
@@ -343,6 +507,14 @@ public class AddressSpaceView extends AbstractView {
 
             for (Long address : addresses) {
                 ILogData val = readCache.getIfPresent(address);
+                if (val == null && offHeapCache != null) {
+                    // Decode the entries of the off-heap tier and promote them to the cache
+                    val = offHeapCache.get(address);
+                    if (val != null) {
+                        val = cacheLoadAndGet(readCache, address, val);
+                    }
+                }
+
                 if (val == null) {
                     addressesToFetch.add(address);
                 } else {
@@ -515,7 +687,7 @@ public class AddressSpaceView extends AbstractView {
      * Force the client cache to be invalidated.
      */
     public void invalidateClientCache() {
-        readCache.invalidateAll();
+        resetCaches();
     }
 
     /**
@@ -597,4 +769,10 @@ public class AddressSpaceView extends AbstractView {
     Cache<Long, ILogData> getReadCache() {
         return readCache;
     }
+
+    @VisibleForTesting
+    @Nullable
+    OffHeapDataCache getOffHeapCache() {
+        return offHeapCache;
+    }
 }
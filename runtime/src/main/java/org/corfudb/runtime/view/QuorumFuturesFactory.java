@@ -13,6 +13,7 @@ import com.google.common.collect.TreeMultimap;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -109,9 +110,13 @@ public class QuorumFuturesFactory {
         private final CompletableFuture<R>[] futures;
         private final Set<Class> failFastThrowables;
         private final Set<Throwable> throwables = ConcurrentHashMap.newKeySet();
+        private final TreeMultimap<Integer, R> valuesSortedByCount;
+        private final TreeMultimap<R, Integer> indexesByValue;
         private volatile boolean done = false;
         private volatile boolean canceled = false;
         private volatile boolean conflict = false;
+        private R result;
+        private ExecutionException failure;
 
         private CompositeFuture(Comparator<R> comparator,  int quorum,
                                 CompletableFuture<R>[] futures,  Class... failFastThrowables) {
@@ -119,86 +124,141 @@ public class QuorumFuturesFactory {
             this.comparator = comparator;
             this.quorum = quorum;
             this.futures = futures;
+            Comparator<Integer> ic = Integer::compareTo;
+            this.valuesSortedByCount = TreeMultimap.create(ic.reversed(), comparator);
+            this.indexesByValue = TreeMultimap.create(comparator, ic);
+        }
+
+        /**
+         * Check the futures which completed so far against the quorum.
+         *
+         * @return the value of the quorum, or null if it is not reached yet
+         * @throws ExecutionException if a future failed with a fail fast exception, or if
+         *                            there is no hope to reach the quorum
+         */
+        private synchronized R checkQuorum() throws ExecutionException {
+            if (result != null) {
+                return result;
+            } else if (failure != null) {
+                throw failure;
+            }
+
+            int numIncompleteFutures = 0;
+            for (int i = 0; i < futures.length; i++) {
+                CompletableFuture<R> c = futures[i];
+                if (!c.isDone()) {
+                    numIncompleteFutures++;
+                } else if (!c.isCancelled()) {
+                    if (c.isCompletedExceptionally()) {
+                        try {
+                            c.join(); // this will throw the CompletionException
+                        } catch (CompletionException e) {
+                            Throwable t = e.getCause();
+                            throwables.add(t);
+                            if (failFastThrowables.contains(t.getClass())) {
+                                done = canceled = true;
+                                failure = new ExecutionException(t);
+                                throw failure;
+                            }
+                        }
+                    } else {
+                        R value = c.join();
+                        Set<Integer> indexes = indexesByValue.get(value);
+                        if (!indexes.contains(i)) {
+                            valuesSortedByCount.remove(indexes.size(), value);
+                            indexes.add(i);
+                            valuesSortedByCount.put(indexes.size(), value);
+                        }
+                        if (indexesByValue.keySet().size() > 1) {
+                            conflict = true;
+                        }
+                    }
+                }
+            }
+
+            int greatestNumCompleteFutures = valuesSortedByCount.size() == 0 ? 0 :
+                    valuesSortedByCount.keySet().iterator().next();
+            if (greatestNumCompleteFutures >= quorum) { // normal exit, quorum
+                done = true;
+                result = valuesSortedByCount.entries().iterator().next().getValue();
+                return result;
+            }
+            boolean noMoreHope = numIncompleteFutures + greatestNumCompleteFutures < quorum;
+            if (noMoreHope) {
+                done = canceled = true;
+                // Check if we have a quorum over any exception type
+                Multiset<Throwable> exceptionCounter = HashMultiset.create();
+                for (Throwable t: getThrowables()) {
+                    log.debug("QuorumGet: Exception {}", t.getClass().getSimpleName());
+                    exceptionCounter.add(t);
+                }
+                // Iterate over each exception type, and throw the first one with a quorum
+                for (Throwable t : exceptionCounter.elementSet()) {
+                    if (exceptionCounter.count(t) >= quorum) {
+                        failure = new ExecutionException(t);
+                        throw failure;
+                    }
+                }
+                failure = new ExecutionException(
+                        new QuorumUnreachableException(greatestNumCompleteFutures, quorum));
+                throw failure;
+            }
+            return null;
+        }
+
+        /**
+         * Returns a future which completes with the outcome of this future, without
+         * blocking any thread: the quorum is checked again each time one of the
+         * aggregated futures completes.
+         *
+         * @return a future which completes with the value of the quorum, or exceptionally
+         *         with the cause of the failure
+         */
+        public CompletableFuture<R> toCompletableFuture() {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            for (CompletableFuture<R> c : futures) {
+                c.whenComplete((value, throwable) -> {
+                    try {
+                        R quorumValue = checkQuorum();
+                        if (quorumValue != null) {
+                            future.complete(quorumValue);
+                        }
+                    } catch (ExecutionException e) {
+                        future.completeExceptionally(e.getCause());
+                    }
+                });
+            }
+            return future;
         }
 
         @Override
         public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
                 TimeoutException {
 
-            Comparator<Integer> ic = Integer::compareTo;
-            TreeMultimap<Integer, R> valuesSortedByCount = TreeMultimap.create(ic.reversed(),
-                    comparator);
-            TreeMultimap<R, Integer> indexesByValue = TreeMultimap.create(comparator, ic);
-
             long until = 0;
             boolean infinite = (timeout == Long.MAX_VALUE);
             if (!infinite) {
                 until = System.nanoTime() + unit.toNanos(timeout);
             }
             while (infinite || System.nanoTime() < until) {
-                int numIncompleteFutures = 0;
+                R quorumValue = checkQuorum();
+                if (quorumValue != null) {
+                    return quorumValue;
+                }
+
                 CompletableFuture aggregatedFuture = null; // block until some future completes
-                for (int i = 0; i < futures.length; i++) {
-                    CompletableFuture<R> c = futures[i];
+                for (CompletableFuture<R> c : futures) {
                     if (!c.isDone()) {
-                        numIncompleteFutures++;
                         if (aggregatedFuture == null) {
                             aggregatedFuture = c;
                         } else {
                             aggregatedFuture = CompletableFuture.anyOf(aggregatedFuture, c);
                         }
-                    } else {
-                        if (!c.isCancelled()) {
-                            if (c.isCompletedExceptionally()) {
-                                try {
-                                    futures[i].get(); // this will throw the ExecutionException
-                                } catch (ExecutionException e) {
-                                    Throwable t = e.getCause();
-                                    throwables.add(t);
-                                    if (failFastThrowables.contains(t.getClass())) {
-                                        done = canceled = true;
-                                        throw e;
-                                    }
-                                }
-                            } else {
-                                R value = c.get();
-                                Set<Integer> indexes = indexesByValue.get(value);
-                                if (!indexes.contains(i)) {
-                                    valuesSortedByCount.remove(indexes.size(), value);
-                                    indexes.add(i);
-                                    valuesSortedByCount.put(indexes.size(), value);
-                                }
-                                if (indexesByValue.keySet().size() > 1) {
-                                    conflict = true;
-                                }
-                            }
-                        }
                     }
                 }
-
-                int greatestNumCompleteFutures = valuesSortedByCount.size() == 0 ? 0 :
-                        valuesSortedByCount.keySet().iterator().next();
-                if (greatestNumCompleteFutures >= quorum) { // normal exit, quorum
-                    done = true;
-                    return valuesSortedByCount.entries().iterator().next().getValue();
-                }
-                boolean noMoreHope = numIncompleteFutures + greatestNumCompleteFutures < quorum;
-                if (noMoreHope) {
-                    done = canceled = true;
-                    // Check if we have a quorum over any exception type
-                    Multiset<Throwable> exceptionCounter = HashMultiset.create();
-                    for (Throwable t: getThrowables()) {
-                        log.debug("QuorumGet: Exception {}", t.getClass().getSimpleName());
-                        exceptionCounter.add(t);
-                    }
-                    // Iterate over each exception type, and throw the first one with a quorum
-                    for (Throwable t : exceptionCounter.elementSet()) {
-                        if (exceptionCounter.count(t) >= quorum) {
-                            throw new ExecutionException(t);
-                        }
-                    }
-                    throw new ExecutionException(
-                            new QuorumUnreachableException(greatestNumCompleteFutures, quorum));
+                if (aggregatedFuture == null) {
+                    // The last futures completed since the check
+                    continue;
                 }
                 try {
                     if (infinite) {
@@ -30,6 +30,7 @@ public class SequencerView extends AbstractView {
     private Timer sequencerNextOneStream;
     private Timer sequencerQuery;
     private Timer sequencerNextMultipleStream;
+    private Timer sequencerNextRange;
     private Timer sequencerDeprecatedNextOneStream;
     private Timer sequencerDeprecatedNextMultipleStream;
     private Timer sequencerTrimCache;
@@ -54,6 +55,8 @@ public class SequencerView extends AbstractView {
                 "particular-next");
         sequencerNextMultipleStream = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
                 "multiple-next");
+        sequencerNextRange = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
+                "range-next");
         sequencerDeprecatedNextOneStream = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
                 "deprecated-particular-next");
         sequencerDeprecatedNextMultipleStream = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
@@ -92,6 +95,28 @@ public class SequencerView extends AbstractView {
         }
     }
 
+    /**
+     * Reserve a range of consecutive tokens for a set of streams in a single request.
+     *
+     * <p>The returned token is the first address of the range [token, token + numTokens),
+     * and its backpointers are the tails of the streams before the range. All the addresses
+     * of the range are added to each of the streams.</p>
+     *
+     * @param numTokens The number of tokens to reserve, must be positive.
+     * @param streamIds The stream IDs to reserve the tokens for.
+     * @return The first token of the range.
+     */
+    public TokenResponse next(int numTokens, UUID ... streamIds) {
+        if (numTokens <= 0) {
+            throw new IllegalArgumentException("Can't reserve " + numTokens + " tokens");
+        }
+
+        try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerNextRange)){
+            return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
+                    .nextToken(Arrays.asList(streamIds), numTokens)));
+        }
+    }
+
     /**
      * Retrieve a stream's address space from sequencer server.
      *
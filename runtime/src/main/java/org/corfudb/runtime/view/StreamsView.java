@@ -1,8 +1,14 @@
 package org.corfudb.runtime.view;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
@@ -17,6 +23,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TokenType;
 import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
@@ -28,6 +35,7 @@ import org.corfudb.runtime.exceptions.StaleTokenException;
 import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.object.transactions.TransactionalContext;
 import org.corfudb.runtime.view.stream.IStreamView;
+import org.corfudb.util.CFUtils;
 import org.corfudb.util.Utils;
 
 /**
@@ -218,6 +226,106 @@ public class StreamsView extends AbstractView {
         throw new AppendException();
     }
 
+    /**
+     * Append a batch of objects to multiple streams simultaneously.
+     *
+     * <p>A range of consecutive tokens is reserved for the whole batch with a single
+     * sequencer request, and the entries are then written to their addresses asynchronously,
+     * all the writes being in flight at once. If the address of an entry has been overwritten,
+     * only that entry is appended again with a new token (see
+     * {@link StreamsView#append(Object, TxResolutionInfo, CacheOption, UUID...)}). The
+     * overwritten entries are appended again in the order of the batch, but after the range,
+     * so the batch is only in order in the log if none of its entries was overwritten.</p>
+     *
+     * <p>All the writes of the batch complete before any entry is appended again. The
+     * entries which could not be written because the epoch changed since the tokens were
+     * acquired are appended again in the same way as the overwritten ones.</p>
+     *
+     * @param objects     The objects to append to each stream, in order.
+     * @param cacheOption The caching mode for the writes.
+     * @param streamIDs   The streams to append to.
+     * @return The addresses the entries were written to, in the order of the objects.
+     */
+    public List<Long> appendAll(@Nonnull List<?> objects, @Nonnull CacheOption cacheOption,
+                                @Nonnull UUID ... streamIDs) {
+        if (objects.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<LogData> entries = new ArrayList<>(objects.size());
+        for (Object object : objects) {
+            LogData ld = new LogData(DataType.DATA, object);
+            ld.checkMaxWriteSize(maxWrite);
+            entries.add(ld);
+        }
+
+        // Go to the sequencer once, and grab a token for each entry.
+        final TokenResponse range = runtime.getSequencerView().next(entries.size(), streamIDs);
+        final long start = range.getSequence();
+
+        final List<TokenResponse> tokens = new ArrayList<>(entries.size());
+        final List<CompletableFuture<Void>> writes = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            // The first entry points back to the previous tails of the streams,
+            // the following entries to the entry which precedes them in the range.
+            Map<UUID, Long> backpointerMap = range.getBackpointerMap();
+            if (i > 0) {
+                backpointerMap = new HashMap<>();
+                for (UUID streamID : streamIDs) {
+                    backpointerMap.put(streamID, start + i - 1);
+                }
+            }
+            final TokenResponse token = new TokenResponse(
+                    new Token(range.getEpoch(), start + i), backpointerMap);
+            tokens.add(token);
+            writes.add(runtime.getAddressSpaceView().writeAsync(token, entries.get(i), cacheOption));
+        }
+
+        // Let every write of the batch settle before deciding the outcome, so that
+        // no write lands after the entries which failed are appended again.
+        try {
+            CFUtils.allOf(writes).join();
+        } catch (CompletionException ce) {
+            // Each failed write is handled below, in the order of the batch
+        }
+
+        final List<Long> addresses = new ArrayList<>(writes.size());
+        for (int i = 0; i < writes.size(); i++) {
+            final TokenResponse token = tokens.get(i);
+            try {
+                writes.get(i).join();
+                addresses.add(token.getSequence());
+            } catch (CompletionException ce) {
+                final Throwable cause = ce.getCause() != null ? ce.getCause() : ce;
+                if (cause instanceof OverwriteException) {
+                    // We were overwritten, append this entry again with a new token.
+                    log.warn("appendAll[{}]: Overwritten, appending again to streams {}",
+                            token.getSequence(), Arrays.stream(streamIDs)
+                                    .map(Utils::toReadableId).collect(Collectors.toSet()));
+                } else if (cause instanceof StaleTokenException) {
+                    // the epoch changed from when we grabbed the tokens from sequencer,
+                    // append this entry again with a token of the new epoch.
+                    log.warn("appendAll[{}]: StaleToken, appending again to streams {}",
+                            token.getSequence(), Arrays.stream(streamIDs)
+                                    .map(Utils::toReadableId).collect(Collectors.toSet()));
+                } else {
+                    CFUtils.unwrap(ce);
+                }
+                addresses.add(append(objects.get(i), null, cacheOption, streamIDs));
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * Append a batch of objects to multiple streams and caches the results.
+     *
+     * @see StreamsView#appendAll(List, CacheOption, UUID...)
+     */
+    public List<Long> appendAll(@Nonnull List<?> objects, @Nonnull UUID ... streamIDs) {
+        return appendAll(objects, CacheOption.WRITE_THROUGH, streamIDs);
+    }
+
     /**
      * Append to multiple streams and caches the result.
      *
@@ -1,11 +1,19 @@
 package org.corfudb.runtime.view.replication;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.Nonnull;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.runtime.exceptions.HoleFillRequiredException;
+import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.view.RuntimeLayout;
+import org.corfudb.util.CFUtils;
 
 /**
  * Created by mwei on 4/6/17.
@@ -13,6 +21,18 @@ import org.corfudb.runtime.view.RuntimeLayout;
 @Slf4j
 public abstract class AbstractReplicationProtocol implements IReplicationProtocol {
 
+    /**
+     * The executor which recovers asynchronous writes which failed, since the recovery
+     * blocks and cannot run on the threads completing the replies of the log units,
+     * shared by all the replication protocols.
+     */
+    protected static final ExecutorService RECOVERY_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("ReplicationRecovery-%d")
+                    .build());
+
     /**
      * The hole fill policy to apply.
      */
@@ -28,6 +48,40 @@ public abstract class AbstractReplicationProtocol implements IReplicationProtoco
         this.holeFillPolicy = holeFillPolicy;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>In the base implementation, we block on the asynchronous write.
+     **/
+    @Override
+    public void write(RuntimeLayout runtimeLayout, ILogData data) throws OverwriteException {
+        CFUtils.getUninterruptibly(writeAsync(runtimeLayout, data), OverwriteException.class);
+    }
+
+    /**
+     * Returns the cause of the failure of a future stage, which wraps the
+     * exception it was completed with.
+     *
+     * @param throwable the exception a future completed with.
+     * @return the unwrapped exception.
+     */
+    protected static Throwable unwrap(Throwable throwable) {
+        if ((throwable instanceof CompletionException || throwable instanceof ExecutionException)
+                && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * Returns a future which is completed exceptionally with the given exception.
+     */
+    protected static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
     /**
      * {@inheritDoc}
      *
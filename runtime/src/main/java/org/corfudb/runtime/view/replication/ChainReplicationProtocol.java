@@ -18,6 +18,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -32,32 +34,53 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
 
     /**
      * {@inheritDoc}
+     *
+     * <p>The write is sent to the chain head, and then propagated down the chain
+     * one unit after the other, each write being sent once the previous unit has
+     * acknowledged it. No thread is blocked while the write goes down the chain.
      */
     @Override
-    public void write(RuntimeLayout runtimeLayout, ILogData data) throws OverwriteException {
+    public CompletableFuture<Void> writeAsync(RuntimeLayout runtimeLayout, ILogData data) {
         final long globalAddress = data.getGlobalAddress();
         int numUnits = runtimeLayout.getLayout().getSegmentLength(globalAddress);
 
         // To reduce the overhead of serialization, we serialize only the
-        // first time we write, saving when we go down the chain.
-        try (ILogData.SerializationHandle sh =
-                     data.getSerializedForm()) {
-            log.trace("Write[{}]: chain head {}/{}", globalAddress, 1, numUnits);
-            // In chain replication, we start at the chain head.
-            try {
-                CFUtils.getUninterruptibly(
-                        runtimeLayout.getLogUnitClient(globalAddress, 0)
-                                .write(sh.getSerialized()),
-                        OverwriteException.class);
-                propagate(runtimeLayout, globalAddress, sh.getSerialized());
-            } catch (OverwriteException oe) {
-                // Some other wrote here (usually due to hole fill)
-                // We need to invoke the recovery protocol, in case
-                // the write wasn't driven to completion.
-                recover(runtimeLayout, globalAddress);
-                throw oe;
-            }
+        // first time we write, saving when we go down the chain. The serialized
+        // form is released once the write has gone down the chain.
+        final ILogData.SerializationHandle sh = data.getSerializedForm();
+        log.trace("Write[{}]: chain head {}/{}", globalAddress, 1, numUnits);
+        // In chain replication, we start at the chain head.
+        final CompletableFuture<Boolean> headWrite;
+        try {
+            headWrite = runtimeLayout.getLogUnitClient(globalAddress, 0)
+                    .write(sh.getSerialized());
+        } catch (RuntimeException re) {
+            sh.close();
+            throw re;
         }
+
+        return headWrite
+                .handle((written, ex) -> {
+                    if (ex == null) {
+                        return propagateAsync(runtimeLayout, globalAddress, sh.getSerialized());
+                    }
+
+                    Throwable cause = unwrap(ex);
+                    if (cause instanceof OverwriteException) {
+                        // Some other wrote here (usually due to hole fill)
+                        // We need to invoke the recovery protocol, in case
+                        // the write wasn't driven to completion. The recovery
+                        // blocks, so it is run off the thread which completed
+                        // the write.
+                        return CompletableFuture.runAsync(() ->
+                                recover(runtimeLayout, globalAddress), RECOVERY_EXECUTOR)
+                                .thenCompose(v ->
+                                        AbstractReplicationProtocol.<Void>failedFuture(cause));
+                    }
+                    return AbstractReplicationProtocol.<Void>failedFuture(cause);
+                })
+                .thenCompose(Function.identity())
+                .whenComplete((v, ex) -> sh.close());
     }
 
     /**
@@ -178,34 +201,61 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
      * @param runtimeLayout the epoch stamped client containing the layout to use for propagation.
      * @param globalAddress the global address to start writing at.
      * @param data          the data to propagate, or NULL, if it is to be a hole.
+     * @return a future which completes once every unit of the chain has the write.
      */
-    private void propagate(RuntimeLayout runtimeLayout,
-                           long globalAddress,
-                           @Nullable ILogData data) {
+    private CompletableFuture<Void> propagateAsync(RuntimeLayout runtimeLayout,
+                                                   long globalAddress,
+                                                   @Nullable ILogData data) {
         int numUnits = runtimeLayout.getLayout().getSegmentLength(globalAddress);
 
+        // In chain replication, a unit of the chain is written only
+        // after the unit which precedes it.
+        CompletableFuture<Void> propagated = CompletableFuture.completedFuture(null);
         for (int i = 1; i < numUnits; i++) {
-            log.trace("Propagate[{}]: chain {}/{}", Token.of(runtimeLayout.getLayout().getEpoch(),
-                    globalAddress),
-                    i + 1, numUnits);
-            // In chain replication, we write synchronously to every unit
-            // in the chain.
-            try {
-                if (data != null) {
-                    CFUtils.getUninterruptibly(
-                            runtimeLayout.getLogUnitClient(globalAddress, i)
-                                    .write(data),
-                            OverwriteException.class);
-                } else {
-                    Token token = new Token(runtimeLayout.getLayout().getEpoch(), globalAddress);
-                    CFUtils.getUninterruptibly(runtimeLayout
-                            .getLogUnitClient(globalAddress, i)
-                            .fillHole(token), OverwriteException.class);
-                }
-            } catch (OverwriteException oe) {
+            final int unit = i;
+            propagated = propagated.thenCompose(v ->
+                    propagateTo(runtimeLayout, globalAddress, data, unit));
+        }
+        return propagated;
+    }
+
+    /**
+     * Propagate a write to a unit of the chain, ignoring any overwrite error.
+     *
+     * @param runtimeLayout the epoch stamped client containing the layout to use for propagation.
+     * @param globalAddress the global address to write at.
+     * @param data          the data to propagate, or NULL, if it is to be a hole.
+     * @param unit          the index of the unit in the chain.
+     * @return a future which completes once the unit has the write.
+     */
+    private CompletableFuture<Void> propagateTo(RuntimeLayout runtimeLayout,
+                                                long globalAddress,
+                                                @Nullable ILogData data,
+                                                int unit) {
+        int numUnits = runtimeLayout.getLayout().getSegmentLength(globalAddress);
+        log.trace("Propagate[{}]: chain {}/{}", Token.of(runtimeLayout.getLayout().getEpoch(),
+                globalAddress),
+                unit + 1, numUnits);
+
+        final CompletableFuture<Boolean> write;
+        if (data != null) {
+            write = runtimeLayout.getLogUnitClient(globalAddress, unit).write(data);
+        } else {
+            Token token = new Token(runtimeLayout.getLayout().getEpoch(), globalAddress);
+            write = runtimeLayout.getLogUnitClient(globalAddress, unit).fillHole(token);
+        }
+
+        return write.handle((written, ex) -> {
+            if (ex == null) {
+                return null;
+            }
+            Throwable cause = unwrap(ex);
+            if (cause instanceof OverwriteException) {
                 log.info("Propagate[{}]: Completed by other writer", globalAddress);
+                return null;
             }
-        }
+            throw new CompletionException(cause);
+        });
     }
 
     /**
@@ -281,7 +331,7 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
             CFUtils.getUninterruptibly(runtimeLayout
                     .getLogUnitClient(globalAddress, 0)
                     .fillHole(token), OverwriteException.class);
-            propagate(runtimeLayout, globalAddress, null);
+            CFUtils.getUninterruptibly(propagateAsync(runtimeLayout, globalAddress, null));
         } catch (OverwriteException oe) {
             // The hole-fill failed. We must ensure the other writer's
             // value is adopted before returning.
@@ -7,6 +7,7 @@ import org.corfudb.runtime.view.RuntimeLayout;
 import javax.annotation.Nonnull;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -38,6 +39,20 @@ public interface IReplicationProtocol {
      */
     void write(RuntimeLayout runtimeLayout, ILogData data) throws OverwriteException;
 
+    /**
+     * Asynchronously write data to the log at the given address.
+     *
+     * <p>This function does not block, the returned future completes when -a-
+     * write at the global address is committed to the log. It completes normally
+     * if the write which is committed to the log was this write, and exceptionally
+     * with an OverwriteException if it was not the result of this call.
+     *
+     * @param runtimeLayout the RuntimeLayout stamped with layout to use for the write.
+     * @param data          the ILogData to write to the log.
+     * @return a future which completes when the write is committed to the log.
+     */
+    CompletableFuture<Void> writeAsync(RuntimeLayout runtimeLayout, ILogData data);
+
     /**
      * Read data from a given address.
      *
@@ -42,6 +42,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -131,38 +132,58 @@ public class QuorumReplicationProtocol extends AbstractReplicationProtocol {
 
     /**
      * {@inheritDoc}
+     *
+     * <p>The write is sent to all the units, and completes as soon as a quorum of
+     * them acknowledges it. If the write competes with another writer, the recovery
+     * write is run off the thread which completed the quorum.
      */
     @Override
-    public void write(RuntimeLayout runtimeLayout, ILogData data) throws OverwriteException {
+    public CompletableFuture<Void> writeAsync(RuntimeLayout runtimeLayout, ILogData data) {
         final long globalAddress = data.getGlobalAddress();
-        log.debug("Write at {} " + globalAddress);
+        log.debug("Write at {}", globalAddress);
         IMetadata.DataRank rank = new IMetadata.DataRank(0);
-        QuorumFuturesFactory.CompositeFuture<Boolean> future = null;
         data.setRank(rank);
+
+        final ILogData.SerializationHandle sh = data.getSerializedForm();
+        final QuorumFuturesFactory.CompositeFuture<Boolean> future;
         try {
-            try (ILogData.SerializationHandle sh =
-                         data.getSerializedForm()) {
-                future = getWriteFuture(runtimeLayout, sh.getSerialized());
-                CFUtils.getUninterruptibly(future, QuorumUnreachableException.class,
-                        OverwriteException.class, DataOutrankedException.class);
-            }
-        } catch (OverwriteException e) {
-            log.error("Client implementation error, race in phase 1. "
-                    + "Broken sequencer, data consistency in danger.");
-            throw e;
-        } catch (LogUnitException | QuorumUnreachableException e) {
-            if (future.containsThrowableFrom(DataOutrankedException.class)
-                    || future.containsThrowableFrom(ValueAdoptedException.class)) {
-                // we are competing with other client that writes the same data or fills a hole
-                boolean adopted = recoveryWrite(runtimeLayout, data);
-                if (!adopted) {
-                    return;
-                }
-            }
-            throw new OverwriteException(OverwriteCause.DIFF_DATA);
+            future = getWriteFuture(runtimeLayout, sh.getSerialized());
+        } catch (RuntimeException re) {
+            sh.close();
+            throw re;
         }
-    }
+        return future.toCompletableFuture()
+                .whenComplete((written, ex) -> sh.close())
+                .handle((written, ex) -> {
+                    if (ex == null) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
 
+                    Throwable cause = unwrap(ex);
+                    if (cause instanceof OverwriteException) {
+                        log.error("Client implementation error, race in phase 1. "
+                                + "Broken sequencer, data consistency in danger.");
+                        return AbstractReplicationProtocol.<Void>failedFuture(cause);
+                    } else if (cause instanceof LogUnitException
+                            || cause instanceof QuorumUnreachableException) {
+                        if (future.containsThrowableFrom(DataOutrankedException.class)
+                                || future.containsThrowableFrom(ValueAdoptedException.class)) {
+                            // we are competing with other client that writes the same data
+                            // or fills a hole
+                            return CompletableFuture.runAsync(() -> {
+                                boolean adopted = recoveryWrite(runtimeLayout, data);
+                                if (adopted) {
+                                    throw new OverwriteException(OverwriteCause.DIFF_DATA);
+                                }
+                            }, RECOVERY_EXECUTOR);
+                        }
+                        return AbstractReplicationProtocol.<Void>failedFuture(
+                                new OverwriteException(OverwriteCause.DIFF_DATA));
+                    }
+                    return AbstractReplicationProtocol.<Void>failedFuture(cause);
+                })
+                .thenCompose(Function.identity());
+    }
 
     private ILogData.SerializationHandle createEmptyData(
             long position, DataType type, IMetadata.DataRank rank) {
@@ -1,12 +1,11 @@
 package org.corfudb.runtime.view.stream;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableSet;
 import java.util.Optional;
-import java.util.TreeSet;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -101,8 +100,8 @@ public abstract class AbstractQueuedStreamView extends
         }
 
         // If checkpoint data is available, get from readCpQueue first
-        NavigableSet<Long> getFrom;
-        if (context.readCpQueue.size() > 0) {
+        StreamAddressQueue getFrom;
+        if (!context.readCpQueue.isEmpty()) {
             getFrom = context.readCpQueue;
             // Note: this is a checkpoint, we do not need to verify it is before the trim mark, it actually should be
             // cause this is the last address of the trimmed range.
@@ -127,7 +126,7 @@ public abstract class AbstractQueuedStreamView extends
      * @return next available entry. or null if there are no more entries
      *         or remaining entries are not part of this stream.
      */
-    protected abstract ILogData removeFromQueue(NavigableSet<Long> queue);
+    protected abstract ILogData removeFromQueue(StreamAddressQueue queue);
 
     @Override
     public void gc(long trimMark) {
@@ -141,9 +140,9 @@ public abstract class AbstractQueuedStreamView extends
                     getCurrentContext().getGcTrimMark());
             // Remove all the entries that are strictly less than
             // the trim mark
-            getCurrentContext().readCpQueue.headSet(getCurrentContext().getGcTrimMark()).clear();
-            getCurrentContext().readQueue.headSet(getCurrentContext().getGcTrimMark()).clear();
-            getCurrentContext().resolvedQueue.headSet(getCurrentContext().getGcTrimMark()).clear();
+            getCurrentContext().readCpQueue.removeLowerThan(getCurrentContext().getGcTrimMark());
+            getCurrentContext().readQueue.removeLowerThan(getCurrentContext().getGcTrimMark());
+            getCurrentContext().resolvedQueue.removeLowerThan(getCurrentContext().getGcTrimMark());
 
             if (!getCurrentContext().resolvedQueue.isEmpty()) {
                 getCurrentContext().minResolution = getCurrentContext()
@@ -289,8 +288,6 @@ public abstract class AbstractQueuedStreamView extends
     @Override
     protected List<ILogData> getNextEntries(QueuedStreamContext context, long maxGlobal,
                                             Function<ILogData, Boolean> contextCheckFn) {
-        NavigableSet<Long> readSet = new TreeSet<>();
-
         // Scan backward in the stream to find interesting
         // log records less than or equal to maxGlobal.
         // Boolean includes both CHECKPOINT & DATA entries.
@@ -309,19 +306,13 @@ public abstract class AbstractQueuedStreamView extends
         }
 
         // If we witnessed a checkpoint during our scan that
-        // we should pay attention to, then start with them.
-        readSet.addAll(context.readCpQueue);
-
-        if (!context.readQueue.isEmpty() && context.readQueue.first() > maxGlobal) {
-            // If the lowest element is greater than maxGlobal, there's nothing
-            // more to return: readSet is ok as-is.
-        } else {
-            // Select everything in the read queue between
-            // the start and maxGlobal
-            readSet.addAll(context.readQueue.headSet(maxGlobal, true));
-        }
-        List<Long> toRead = readSet.stream()
-                .collect(Collectors.toList());
+        // we should pay attention to, then start with them,
+        // along with everything in the read queue between
+        // the start and maxGlobal, in ascending order and
+        // without duplicates
+        List<Long> toRead = new ArrayList<>(context.readCpQueue.size() + context.readQueue.size());
+        StreamAddressQueue.forEachMerged(context.readCpQueue, Address.MAX,
+                context.readQueue, maxGlobal, toRead::add);
 
         // The list to store read results in
         List<ILogData> readFrom = readAll(toRead).stream()
@@ -339,11 +330,9 @@ public abstract class AbstractQueuedStreamView extends
                     contextEntry.get().getGlobalAddress());
             int idx = readFrom.indexOf(contextEntry.get());
             readFrom = readFrom.subList(0, idx + 1);
-            // NOTE: readSet's clear() changed underlying context.readQueue
-            readSet.headSet(contextEntry.get().getGlobalAddress(), true).clear();
         } else {
             // Clear the entries which were read
-            context.readQueue.headSet(maxGlobal, true).clear();
+            context.readQueue.removeUpTo(maxGlobal);
         }
 
         // Transfer the addresses of the read entries to the resolved queue
@@ -426,7 +415,7 @@ public abstract class AbstractQueuedStreamView extends
             return fillFromResolved(maxGlobal, context);
         }
 
-        Long latestTokenValue = null;
+        long latestTokenValue = Address.NON_ADDRESS;
 
         // If the max has been resolved, use it.
         if (maxGlobal != Address.MAX) {
@@ -435,7 +424,7 @@ public abstract class AbstractQueuedStreamView extends
 
         // If we don't have a larger token in resolved, or the request was for
         // a linearized read, fetch the token from the sequencer.
-        if (latestTokenValue == null || maxGlobal == Address.MAX) {
+        if (latestTokenValue == Address.NON_ADDRESS || maxGlobal == Address.MAX) {
             // The stream tail might be ahead of maxGlobal (our max timestamp to resolve up to)
             // We could limit it to the min between these two (maxGlobal and tail), but that could
             // lead to reading an address (maxGlobal) that does not belong to our stream and attempt
@@ -510,7 +499,7 @@ public abstract class AbstractQueuedStreamView extends
      * @return true if addresses were discovered, false, otherwise.
      */
     protected abstract boolean discoverAddressSpace(final UUID streamId,
-                                                    final NavigableSet<Long> queue,
+                                                    final StreamAddressQueue queue,
                                                     final long startAddress,
                                                     final long stopAddress,
                                                     final Function<ILogData, BackpointerOp> filter,
@@ -523,14 +512,10 @@ public abstract class AbstractQueuedStreamView extends
         if (maxGlobal < context.getGlobalPointer()) {
             return false;
         }
-        // Get the subset of the resolved queue, which starts at
-        // globalPointer and ends at maxAddress inclusive.
-        NavigableSet<Long> resolvedSet =
-                context.resolvedQueue.subSet(context.getGlobalPointer(),
-                        false, maxGlobal, true);
-
-        // Put those elements in the read queue
-        context.readQueue.addAll(resolvedSet);
+        // Put the subset of the resolved queue, which starts after
+        // globalPointer and ends at maxAddress inclusive, in the read queue.
+        context.readQueue.addAll(context.resolvedQueue,
+                context.getGlobalPointer() + 1, maxGlobal);
 
         return !context.readQueue.isEmpty();
     }
@@ -598,7 +583,7 @@ public abstract class AbstractQueuedStreamView extends
         }
         // Next, check all elements excluding
         // in the correct direction.
-        Long result;
+        long result;
         if (direction.isForward()) {
             result = context.resolvedQueue.higher(globalAddress);
         }  else {
@@ -606,7 +591,7 @@ public abstract class AbstractQueuedStreamView extends
         }
 
         // Convert the address to never read if there was no result.
-        return result == null ? Address.NOT_FOUND : result;
+        return result == Address.NON_ADDRESS ? Address.NOT_FOUND : result;
     }
 
     protected BackpointerOp resolveCheckpoint(final QueuedStreamContext context, ILogData data,
@@ -626,29 +611,45 @@ public abstract class AbstractQueuedStreamView extends
                         Utils.toReadableId(cpEntry.getCheckpointId()),
                         cpEntry.getCheckpointAuthorId());
                 context.checkpointSuccessId = cpEntry.getCheckpointId();
+                context.checkpointResolveId = cpEntry.getCheckpointId();
 
                 context.checkpointSuccessNumEntries = 1L;
                 context.checkpointSuccessBytes = (long) data.getSizeEstimate();
                 context.checkpointSuccessEndAddr = data.getGlobalAddress();
             }
-            else if (data.getCheckpointId().equals(context.checkpointSuccessId)) {
+            else if (data.getCheckpointId().equals(context.checkpointResolveId)) {
                 context.checkpointSuccessNumEntries++;
                 context.checkpointSuccessBytes += cpEntry.getSmrEntriesBytes();
                 if (cpEntry.getCpType().equals(CheckpointEntry.CheckpointEntryType.START)) {
-                    context.checkpointSuccessStartAddr = Long.decode(cpEntry.getDict()
-                            .get(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS));
-                    if (cpEntry.getDict().get(CheckpointEntry.CheckpointDictKey
-                            .SNAPSHOT_ADDRESS) != null) {
-                        context.checkpointSnapshotAddress = Long.decode(cpEntry.getDict()
-                                .get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS));
+                    if (context.checkpointResolveId.equals(context.checkpointSuccessId)) {
+                        context.checkpointSuccessStartAddr = Long.decode(cpEntry.getDict()
+                                .get(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS));
+                        if (cpEntry.getDict().get(CheckpointEntry.CheckpointDictKey
+                                .SNAPSHOT_ADDRESS) != null) {
+                            context.checkpointSnapshotAddress = Long.decode(cpEntry.getDict()
+                                    .get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS));
+                        }
+                    }
+
+                    String previousId = cpEntry.getDict()
+                            .get(CheckpointEntry.CheckpointDictKey.PREVIOUS_CHECKPOINT_ID);
+                    if (previousId == null) {
+                        log.trace("Checkpoint[{}] HALT due to START at address {} startAddr"
+                                        + " {} type {} id {} author {}",
+                                this, data.getGlobalAddress(), context.checkpointSuccessStartAddr,
+                                cpEntry.getCpType(),
+                                Utils.toReadableId(cpEntry.getCheckpointId()),
+                                cpEntry.getCheckpointAuthorId());
+                        return BackpointerOp.INCLUDE_STOP;
                     }
-                    log.trace("Checkpoint[{}] HALT due to START at address {} startAddr"
-                                    + " {} type {} id {} author {}",
-                            this, data.getGlobalAddress(), context.checkpointSuccessStartAddr,
-                            cpEntry.getCpType(),
-                            Utils.toReadableId(cpEntry.getCheckpointId()),
-                            cpEntry.getCheckpointAuthorId());
-                    return BackpointerOp.INCLUDE_STOP;
+
+                    // An incremental checkpoint, its entries are applied on top of the
+                    // checkpoint it builds on, so keep resolving back to a full checkpoint.
+                    context.checkpointResolveId = UUID.fromString(previousId);
+                    log.trace("Checkpoint[{}] START of incremental checkpoint {} at address {},"
+                                    + " resolving previous checkpoint {}", this,
+                            Utils.toReadableId(cpEntry.getCheckpointId()), data.getGlobalAddress(),
+                            Utils.toReadableId(context.checkpointResolveId));
                 }
             } else {
                 return BackpointerOp.EXCLUDE;
@@ -682,14 +683,14 @@ public abstract class AbstractQueuedStreamView extends
 
         // Otherwise, the previous entry should be resolved, so get
         // one less than the current.
-        Long prevAddress = context
+        long prevAddress = context
                 .resolvedQueue.lower(context.getGlobalPointer());
         // If the pointer is before our min resolution, we need to resolve
         // to get the correct previous entry.
-        if (prevAddress == null && Address.isAddress(context.minResolution)
-                || prevAddress != null && prevAddress <= context.minResolution) {
-            context.setGlobalPointerCheckGCTrimMark(prevAddress == null ? Address.NEVER_READ :
-                    prevAddress - 1L);
+        if (prevAddress == Address.NON_ADDRESS && Address.isAddress(context.minResolution)
+                || prevAddress != Address.NON_ADDRESS && prevAddress <= context.minResolution) {
+            context.setGlobalPointerCheckGCTrimMark(prevAddress == Address.NON_ADDRESS
+                    ? Address.NEVER_READ : prevAddress - 1L);
 
             remainingUpTo(context.minResolution);
             context.minResolution = Address.NON_ADDRESS;
@@ -702,7 +703,7 @@ public abstract class AbstractQueuedStreamView extends
         // Clear the read queue, it may no longer be valid
         context.readQueue.clear();
 
-        if (prevAddress != null) {
+        if (prevAddress != Address.NON_ADDRESS) {
             log.trace("previous[{}]: updated read queue {}", this, context.readQueue);
             context.setGlobalPointerCheckGCTrimMark(prevAddress);
             return read(prevAddress);
@@ -773,8 +774,7 @@ public abstract class AbstractQueuedStreamView extends
 
 
         /** A queue of addresses which have already been resolved. */
-        final NavigableSet<Long> resolvedQueue
-                = new TreeSet<>();
+        final StreamAddressQueue resolvedQueue = new StreamAddressQueue();
 
         /** The minimum global address which we have resolved this
          * stream to.
@@ -789,12 +789,11 @@ public abstract class AbstractQueuedStreamView extends
         /**
          * A priority queue of potential addresses to be read from.
          */
-        final NavigableSet<Long> readQueue
-                = new TreeSet<>();
+        final StreamAddressQueue readQueue = new StreamAddressQueue();
 
         /** List of checkpoint records, if a successful checkpoint has been observed.
          */
-        final NavigableSet<Long> readCpQueue = new TreeSet<>();
+        final StreamAddressQueue readCpQueue = new StreamAddressQueue();
 
         /** Info on checkpoint we used for initial stream replay,
          *  other checkpoint-related info & stats.  Hodgepodge, clarify.
@@ -804,6 +803,11 @@ public abstract class AbstractQueuedStreamView extends
         long checkpointSuccessEndAddr = Address.NEVER_READ;
         long checkpointSuccessNumEntries = 0L;
         long checkpointSuccessBytes = 0L;
+        /** The id of the checkpoint being resolved: the checkpoint used for replay,
+         *  then if it is incremental each of the checkpoints it builds on, back to
+         *  a full checkpoint.
+         */
+        UUID checkpointResolveId = null;
         // No need to keep track of # of DATA entries, use context.resolvedQueue.size()?
         long resolvedEstBytes = 0L;
         /** The address the current checkpoint snapshot was taken at.
@@ -812,6 +816,10 @@ public abstract class AbstractQueuedStreamView extends
          */
         long checkpointSnapshotAddress = Address.NEVER_READ;
 
+        /** The read-ahead of the read queue, if the stream view reads ahead adaptively.
+         */
+        StreamReadAhead readAhead = null;
+
         /** Create a new stream context with the given ID and maximum address
          * to read to.
          * @param id                  The ID of the stream to read from
@@ -835,12 +843,16 @@ public abstract class AbstractQueuedStreamView extends
             maxResolution = Address.NON_ADDRESS;
 
             checkpointSuccessId = null;
+            checkpointResolveId = null;
             checkpointSuccessStartAddr = Address.NEVER_READ;
             checkpointSuccessEndAddr = Address.NEVER_READ;
             checkpointSnapshotAddress = Address.NEVER_READ;
             checkpointSuccessNumEntries = 0;
             checkpointSuccessBytes = 0;
             resolvedEstBytes = 0;
+            if (readAhead != null) {
+                readAhead.reset();
+            }
         }
 
         /**
@@ -861,11 +873,14 @@ public abstract class AbstractQueuedStreamView extends
             }
             // remove anything in the read queue LESS
             // than global address.
-            readQueue.headSet(globalAddress).clear();
+            readQueue.removeLowerThan(globalAddress);
             // transfer from the resolved queue into
             // the read queue anything equal to or
             // greater than the global address
-            readQueue.addAll(resolvedQueue.tailSet(globalAddress, true));
+            readQueue.addAll(resolvedQueue, globalAddress, Address.MAX);
+            if (readAhead != null) {
+                readAhead.seek(globalAddress);
+            }
             super.seek(globalAddress);
         }
     }
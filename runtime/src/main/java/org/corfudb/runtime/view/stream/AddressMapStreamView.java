@@ -1,18 +1,12 @@
 package org.corfudb.runtime.view.stream;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.NavigableSet;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.UUID;
 import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 
-import com.google.common.collect.Iterables;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
@@ -22,6 +16,7 @@ import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.StreamOptions;
+import org.roaringbitmap.longlong.LongIterator;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 
@@ -49,6 +44,8 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
 
     private int batchSize;
 
+    private final boolean readAheadEnabled;
+
     private long addressCount = 0L;
 
     final StreamOptions options;
@@ -64,6 +61,7 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
         super(runtime, streamId);
         this.options = options;
         batchSize = runtime.getParameters().getStreamBatchSize();
+        readAheadEnabled = StreamReadAhead.isEnabled(runtime);
     }
 
     public AddressMapStreamView(final CorfuRuntime runtime,
@@ -72,19 +70,24 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
     }
 
     @Override
-    protected ILogData removeFromQueue(NavigableSet<Long> queue) {
+    protected ILogData removeFromQueue(StreamAddressQueue queue) {
         // Because the discovery mechanism implemented by this class
         // does not require to read log entries in advance (requests
         // full address map in a single call), entries can be read in
         // batches whenever we have a cache miss. This allows next reads
         // to be serviced immediately, rather than reading one entry at a time.
-        Long thisRead = queue.pollFirst();
+        if (!queue.isEmpty()) {
+            final long thisRead = queue.pollFirst();
 
-        if (thisRead != null) {
             // In the case that the immediately requested address (thisRead) is not available,
             // read it along with a batch of subsequent addresses.
-            List<Long> batchRead = getBatch(thisRead, queue);
-            ILogData ld = readRange(thisRead, batchRead);
+            ILogData ld;
+            if (readAheadEnabled && queue == getCurrentContext().readQueue) {
+                ld = getReadAhead(getCurrentContext()).read(thisRead, queue, this::readRange);
+            } else {
+                List<Long> batchRead = getBatch(thisRead, queue);
+                ld = readRange(thisRead, batchRead);
+            }
 
             if (queue == getCurrentContext().readQueue) {
                 // Validate that the data entry belongs to this stream, otherwise, skip.
@@ -106,6 +109,31 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
         return null;
     }
 
+    private StreamReadAhead getReadAhead(QueuedStreamContext context) {
+        if (context.readAhead == null) {
+            context.readAhead = new StreamReadAhead(runtime);
+        }
+        return context.readAhead;
+    }
+
+    /**
+     * Returns the fraction of the entries of this stream which were read ahead,
+     * or 0 if the stream doesn't read ahead adaptively.
+     */
+    public synchronized double getReadAheadHitRate() {
+        StreamReadAhead readAhead = getCurrentContext().readAhead;
+        return readAhead == null ? 0.0 : readAhead.getHitRate();
+    }
+
+    /**
+     * Returns the number of entries of this stream which were read ahead but never
+     * consumed, because the stream was reset or seeked past them.
+     */
+    public synchronized long getReadAheadWaste() {
+        StreamReadAhead readAhead = getCurrentContext().readAhead;
+        return readAhead == null ? 0L : readAhead.getWasted();
+    }
+
     /**
      * Prepare a batch of entries to be read, including the current address to retrieve.
      *
@@ -113,15 +141,15 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
      * @param queue queue to get entries from.
      * @return batch of entries.
      */
-    private List<Long> getBatch(long currentRead, @NonNull NavigableSet<Long> queue) {
+    private List<Long> getBatch(long currentRead, @NonNull StreamAddressQueue queue) {
         int counter = COUNTER_INIT_VALUE;
         List<Long> batchRead = new ArrayList<>();
         batchRead.add(currentRead);
         counter++;
 
-        Iterator<Long> it = queue.iterator();
-        while (it.hasNext() && counter < batchSize) {
-            batchRead.add(it.next());
+        int index = 0;
+        while (index < queue.size() && counter < batchSize) {
+            batchRead.add(queue.get(index++));
             counter++;
         }
 
@@ -144,7 +172,7 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
      */
     @Override
     protected boolean discoverAddressSpace(final UUID streamId,
-                                           final NavigableSet<Long> queue,
+                                           final StreamAddressQueue queue,
                                            final long startAddress,
                                            final long stopAddress,
                                            final Function<ILogData, BackpointerOp> filter,
@@ -164,7 +192,7 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
                 // Transfer discovered addresses to queue. We must limit to maxGlobal,
                 // as startAddress could be ahead of maxGlobal---in case it reflects
                 // the tail of the stream.
-                queue.addAll(streamAddressSpace.copyAddressesToSet(maxGlobal));
+                streamAddressSpace.copyAddressesToQueue(queue, maxGlobal);
 
                 long trimMark = streamAddressSpace.getTrimMark();
                 // Address maps might have been trimmed, hence not reflecting all updates to the stream
@@ -193,10 +221,7 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
     }
 
     private void processCheckpoint(StreamAddressSpace streamAddressSpace, Function<ILogData, BackpointerOp> filter,
-                                   NavigableSet<Long> queue) {
-        SortedSet<Long> checkpointAddresses = new TreeSet<>(Collections.reverseOrder());
-        streamAddressSpace.getAddressMap().forEach(checkpointAddresses::add);
-
+                                   StreamAddressQueue queue) {
         // Checkpoint entries will be read in batches of a predefined size,
         // the reason not to read them all in a single call is that:
         // 1. There might be more than one checkpoint and not all of them might be required.
@@ -207,16 +232,22 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
         // trimmed from the log, but stream maps (sequencer) still do not reflect it
         // (causing unnecessary TrimmedExceptions--as this checkpoint is not even
         // needed in the first place).
-        Iterable<List<Long>> batches = Iterables.partition(checkpointAddresses,
-                runtime.getParameters().getCheckpointReadBatchSize());
+        // Batches are taken from the latest checkpoint address backwards.
+        final int checkpointReadBatchSize = runtime.getParameters().getCheckpointReadBatchSize();
+        LongIterator checkpointAddresses = streamAddressSpace.getAddressMap().getReverseLongIterator();
 
         boolean checkpointResolved = false;
-        for (List<Long> batch : batches) {
+        while (checkpointAddresses.hasNext()) {
             if (checkpointResolved) {
                 // No need to fetch next batch of addresses, checkpoint has been resolved.
                 break;
             }
 
+            List<Long> batch = new ArrayList<>(checkpointReadBatchSize);
+            while (checkpointAddresses.hasNext() && batch.size() < checkpointReadBatchSize) {
+                batch.add(checkpointAddresses.next());
+            }
+
             try {
                 List<ILogData> entries = readAll(batch);
                 for (ILogData data : entries) {
@@ -247,7 +278,7 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
      */
     private boolean processCheckpointBatchByEntry(List<Long> batch,
                                                   Function<ILogData, BackpointerOp> filter,
-                                                  NavigableSet<Long> queue) {
+                                                  StreamAddressQueue queue) {
         long lastReadAddress = Address.NON_ADDRESS;
         try {
             boolean checkpointResolved;
@@ -284,7 +315,7 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
      *         False, if checkpoint resolution needs to continue.
      */
     private boolean filterCheckpointEntry(ILogData data, Function<ILogData, BackpointerOp> filter,
-                                          NavigableSet<Long> queue) {
+                                          StreamAddressQueue queue) {
         BackpointerOp op = filter.apply(data);
         if (op == BackpointerOp.INCLUDE || op == BackpointerOp.INCLUDE_STOP) {
             log.trace("filterCheckpointEntry[{}]: Adding checkpoint address[{}] to queue",
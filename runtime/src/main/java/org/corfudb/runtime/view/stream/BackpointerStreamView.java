@@ -8,7 +8,6 @@ import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.StreamOptions;
 
 import javax.annotation.Nonnull;
-import java.util.NavigableSet;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -43,7 +42,7 @@ public class BackpointerStreamView extends AbstractQueuedStreamView {
     }
 
     @Override
-    protected ILogData removeFromQueue(NavigableSet<Long> queue) {
+    protected ILogData removeFromQueue(StreamAddressQueue queue) {
         if (!queue.isEmpty()) {
             final long thisRead = queue.pollFirst();
             ILogData ld = read(thisRead);
@@ -64,7 +63,7 @@ public class BackpointerStreamView extends AbstractQueuedStreamView {
     }
 
     protected boolean discoverAddressSpace(final UUID streamId,
-                                           final NavigableSet<Long> queue,
+                                           final StreamAddressQueue queue,
                                            final long startAddress,
                                            final long stopAddress,
                                            final Function<ILogData, BackpointerOp> filter,
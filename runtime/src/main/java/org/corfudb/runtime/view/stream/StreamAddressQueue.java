@@ -0,0 +1,370 @@
+package org.corfudb.runtime.view.stream;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+import org.corfudb.runtime.view.Address;
+
+/**
+ * A sorted set of the addresses of a stream, which is consumed in ascending order.
+ *
+ * <p>Addresses are kept as primitives in a sorted array, from a head index which moves
+ * forward as addresses are polled, so a queue holds 8 bytes per address instead of a boxed
+ * {@link Long} and a tree node. Addresses are mostly discovered in ascending order, which
+ * appends them at the end of the array, while inserting an address in the middle of the
+ * queue shifts the addresses which follow it. Lookups are binary searches, and ranges are
+ * iterated (or removed) without allocating.
+ *
+ * <p>Lookups of addresses which are not in the queue return {@link Address#NON_ADDRESS}.
+ * This class is not thread-safe, queues are only accessed under the lock of their stream view.
+ */
+public class StreamAddressQueue {
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The addresses in [head, tail) of this array, in ascending order.
+    private long[] addresses = EMPTY;
+
+    private int head = 0;
+
+    private int tail = 0;
+
+    /**
+     * Returns the number of addresses in this queue.
+     */
+    public int size() {
+        return tail - head;
+    }
+
+    /**
+     * Returns true if this queue has no addresses.
+     */
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * Returns the lowest address of this queue.
+     *
+     * @throws NoSuchElementException if this queue is empty.
+     */
+    public long first() {
+        checkNotEmpty();
+        return addresses[head];
+    }
+
+    /**
+     * Returns the highest address of this queue.
+     *
+     * @throws NoSuchElementException if this queue is empty.
+     */
+    public long last() {
+        checkNotEmpty();
+        return addresses[tail - 1];
+    }
+
+    /**
+     * Returns the address at the given position of this queue, where 0 is the position
+     * of the lowest address.
+     *
+     * @param index the position of the address.
+     * @throws IndexOutOfBoundsException if the position is not in [0, size()).
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return addresses[head + index];
+    }
+
+    /**
+     * Remove and return the lowest address of this queue.
+     *
+     * @throws NoSuchElementException if this queue is empty.
+     */
+    public long pollFirst() {
+        long address = first();
+        head++;
+        if (isEmpty()) {
+            head = 0;
+            tail = 0;
+        }
+        return address;
+    }
+
+    /**
+     * Add an address to this queue.
+     *
+     * @param address the address to add.
+     * @return true if the address was added, false if it was already in the queue.
+     */
+    public boolean add(long address) {
+        if (isEmpty() || address > addresses[tail - 1]) {
+            ensureCapacity(1);
+            addresses[tail++] = address;
+            return true;
+        }
+
+        if (search(address) >= 0) {
+            return false;
+        }
+
+        // Growing or compacting the array moves the addresses, search again.
+        ensureCapacity(1);
+        int index = -(search(address) + 1);
+        System.arraycopy(addresses, index, addresses, index + 1, tail - index);
+        addresses[index] = address;
+        tail++;
+        return true;
+    }
+
+    /**
+     * Add the addresses of another queue which are in [from, to] to this queue.
+     *
+     * @param other the queue to copy the addresses from.
+     * @param from  the lowest address to copy (inclusive).
+     * @param to    the highest address to copy (inclusive).
+     */
+    public void addAll(StreamAddressQueue other, long from, long to) {
+        final int start = other.ceilingIndex(from);
+        final int end = other.higherIndex(to);
+        if (start >= end) {
+            return;
+        }
+
+        if (isEmpty() || other.addresses[start] > addresses[tail - 1]) {
+            // The addresses all follow the addresses of this queue, append them.
+            final int length = end - start;
+            ensureCapacity(length);
+            System.arraycopy(other.addresses, start, addresses, tail, length);
+            tail += length;
+            return;
+        }
+
+        for (int i = start; i < end; i++) {
+            add(other.addresses[i]);
+        }
+    }
+
+    /**
+     * Add all the addresses of another queue to this queue.
+     *
+     * @param other the queue to copy the addresses from.
+     */
+    public void addAll(StreamAddressQueue other) {
+        addAll(other, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Remove an address from this queue.
+     *
+     * @param address the address to remove.
+     * @return true if the address was in the queue.
+     */
+    public boolean remove(long address) {
+        if (isEmpty()) {
+            return false;
+        }
+        if (addresses[head] == address) {
+            pollFirst();
+            return true;
+        }
+
+        int index = search(address);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(addresses, index + 1, addresses, index, tail - index - 1);
+        tail--;
+        return true;
+    }
+
+    /**
+     * Returns true if this queue holds an address.
+     *
+     * @param address the address to look up.
+     */
+    public boolean contains(long address) {
+        return !isEmpty() && search(address) >= 0;
+    }
+
+    /**
+     * Returns the lowest address greater than or equal to the given address,
+     * or {@link Address#NON_ADDRESS} if there is none.
+     */
+    public long ceiling(long address) {
+        return addressAt(ceilingIndex(address));
+    }
+
+    /**
+     * Returns the lowest address strictly greater than the given address,
+     * or {@link Address#NON_ADDRESS} if there is none.
+     */
+    public long higher(long address) {
+        return addressAt(higherIndex(address));
+    }
+
+    /**
+     * Returns the highest address lower than or equal to the given address,
+     * or {@link Address#NON_ADDRESS} if there is none.
+     */
+    public long floor(long address) {
+        return addressAt(higherIndex(address) - 1);
+    }
+
+    /**
+     * Returns the highest address strictly lower than the given address,
+     * or {@link Address#NON_ADDRESS} if there is none.
+     */
+    public long lower(long address) {
+        return addressAt(ceilingIndex(address) - 1);
+    }
+
+    /**
+     * Remove all the addresses strictly lower than the given address.
+     *
+     * @param address the lowest address to keep.
+     */
+    public void removeLowerThan(long address) {
+        head = ceilingIndex(address);
+        if (isEmpty()) {
+            clear();
+        }
+    }
+
+    /**
+     * Remove all the addresses lower than or equal to the given address.
+     *
+     * @param address the highest address to remove.
+     */
+    public void removeUpTo(long address) {
+        head = higherIndex(address);
+        if (isEmpty()) {
+            clear();
+        }
+    }
+
+    /**
+     * Apply an action to the addresses in [from, to], in ascending order.
+     *
+     * @param from   the lowest address (inclusive).
+     * @param to     the highest address (inclusive).
+     * @param action the action to apply to each address.
+     */
+    public void forEach(long from, long to, LongConsumer action) {
+        final int end = higherIndex(to);
+        for (int i = ceilingIndex(from); i < end; i++) {
+            action.accept(addresses[i]);
+        }
+    }
+
+    /**
+     * Apply an action to the union of the addresses of two queues which are at most
+     * {@code firstTo} and {@code secondTo} respectively, in ascending order and once
+     * per address.
+     *
+     * @param first    the first queue.
+     * @param firstTo  the highest address of the first queue (inclusive).
+     * @param second   the second queue.
+     * @param secondTo the highest address of the second queue (inclusive).
+     * @param action   the action to apply to each address.
+     */
+    public static void forEachMerged(StreamAddressQueue first, long firstTo,
+                                     StreamAddressQueue second, long secondTo,
+                                     LongConsumer action) {
+        final int firstEnd = first.higherIndex(firstTo);
+        final int secondEnd = second.higherIndex(secondTo);
+        int i = first.head;
+        int j = second.head;
+        while (i < firstEnd || j < secondEnd) {
+            final long address;
+            if (j == secondEnd || (i < firstEnd && first.addresses[i] < second.addresses[j])) {
+                address = first.addresses[i++];
+            } else if (i == firstEnd || second.addresses[j] < first.addresses[i]) {
+                address = second.addresses[j++];
+            } else {
+                // The address is in both queues
+                address = first.addresses[i++];
+                j++;
+            }
+            action.accept(address);
+        }
+    }
+
+    /**
+     * Remove all the addresses of this queue, and release its storage.
+     */
+    public void clear() {
+        addresses = EMPTY;
+        head = 0;
+        tail = 0;
+    }
+
+    /**
+     * Make room for the given number of addresses at the end of the queue, compacting
+     * the array if the addresses fit in three quarters of it, and growing it otherwise.
+     *
+     * @param count the number of addresses to make room for.
+     */
+    public void ensureCapacity(int count) {
+        if (tail + count <= addresses.length) {
+            return;
+        }
+
+        final int size = size();
+        if (size + count <= addresses.length - (addresses.length >> 2)) {
+            System.arraycopy(addresses, head, addresses, 0, size);
+        } else {
+            int capacity = Math.max(INITIAL_CAPACITY,
+                    Math.max(size + count, addresses.length + (addresses.length >> 1)));
+            long[] grown = new long[capacity];
+            System.arraycopy(addresses, head, grown, 0, size);
+            addresses = grown;
+        }
+        head = 0;
+        tail = size;
+    }
+
+    /**
+     * Returns the number of addresses this queue can hold without growing.
+     */
+    int capacity() {
+        return addresses.length;
+    }
+
+    private void checkNotEmpty() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    // Returns the index of an address in the array, or -(insertion point) - 1.
+    private int search(long address) {
+        return Arrays.binarySearch(addresses, head, tail, address);
+    }
+
+    private int ceilingIndex(long address) {
+        int index = search(address);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private int higherIndex(long address) {
+        int index = search(address);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    private long addressAt(int index) {
+        return index >= head && index < tail ? addresses[index] : Address.NON_ADDRESS;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "[]";
+        }
+        return "[" + first() + ".." + last() + "](" + size() + ")";
+    }
+}
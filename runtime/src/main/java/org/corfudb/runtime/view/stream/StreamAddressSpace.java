@@ -8,8 +8,6 @@ import org.roaringbitmap.longlong.Roaring64NavigableMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.NavigableSet;
-import java.util.TreeSet;
 
 /**
  * This class represents the space of all addresses belonging to a stream.
@@ -43,19 +41,30 @@ public class StreamAddressSpace {
     }
 
     /**
-     * Copy this stream's addresses to a set, under a given boundary (inclusive).
+     * Copy this stream's addresses to a queue, under a given boundary (inclusive).
      *
+     * <p>Addresses are copied in ascending order, as primitives, and the iteration
+     * stops at the first address above the boundary.
+     *
+     * @param queue     queue to copy the addresses to
      * @param maxGlobal maximum address (inclusive upper bound)
      */
-    public NavigableSet<Long> copyAddressesToSet(final Long maxGlobal) {
-        NavigableSet<Long> queue = new TreeSet<>();
-        this.addressMap.forEach(address -> {
-            if (address <= maxGlobal){
-                queue.add(address);
-            }
-        });
+    public void copyAddressesToQueue(final StreamAddressQueue queue, final long maxGlobal) {
+        if (maxGlobal < 0) {
+            return;
+        }
 
-        return queue;
+        // Make room for all the addresses at once, rather than growing the queue as they are added
+        queue.ensureCapacity((int) Math.min(Integer.MAX_VALUE, addressMap.rankLong(maxGlobal)));
+
+        LongIterator it = addressMap.getLongIterator();
+        while (it.hasNext()) {
+            long address = it.next();
+            if (address > maxGlobal) {
+                break;
+            }
+            queue.add(address);
+        }
     }
 
     /**
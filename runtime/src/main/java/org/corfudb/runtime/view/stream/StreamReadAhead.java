@@ -0,0 +1,268 @@
+package org.corfudb.runtime.view.stream;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nonnull;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.AddressSpaceView;
+import org.corfudb.util.CorfuComponent;
+
+/**
+ * An adaptive read-ahead for the read queue of a stream context.
+ *
+ * <p>Entries are read in batches of the next addresses of the read queue, which are brought
+ * into the address space view cache. The size of a batch (the window) starts at the stream
+ * batch size, doubles every time the consumer reads through half of the prefetched entries,
+ * up to the maximum read-ahead size, and shrinks back on random access (seeks). Once half of
+ * the prefetched entries have been read, the next batch is read asynchronously, so that it
+ * is in the cache by the time the consumer gets to it, instead of stalling the consumer at
+ * every batch boundary.
+ *
+ * <p>Reads of prefetched addresses are hits, other reads are misses, and prefetched
+ * addresses which are skipped or dropped before being read are wasted. A read-ahead is
+ * only used under the lock of its stream view.
+ */
+@Slf4j
+class StreamReadAhead {
+
+    /**
+     * The executor which reads batches ahead of the consumers, shared by all streams.
+     */
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("StreamReadAhead-%d")
+                    .build());
+
+    static final String HITS_METRIC = CorfuComponent.STREAM_VIEW + "read-ahead.hits";
+    static final String MISSES_METRIC = CorfuComponent.STREAM_VIEW + "read-ahead.misses";
+    static final String WASTED_METRIC = CorfuComponent.STREAM_VIEW + "read-ahead.wasted";
+
+    /**
+     * A batch which is read asynchronously.
+     */
+    private static class PendingBatch {
+        final long firstAddress;
+        final long lastAddress;
+        final CompletableFuture<Void> future;
+
+        PendingBatch(long firstAddress, long lastAddress, CompletableFuture<Void> future) {
+            this.firstAddress = firstAddress;
+            this.lastAddress = lastAddress;
+            this.future = future;
+        }
+    }
+
+    private final AddressSpaceView addressSpaceView;
+
+    private final int minWindow;
+
+    private final int maxWindow;
+
+    /** The number of addresses read by the next batch. */
+    @Getter
+    private int window;
+
+    /** The prefetched addresses which were not read yet. */
+    private final StreamAddressQueue prefetched = new StreamAddressQueue();
+
+    /** The batches which are read asynchronously, in the order of their addresses. */
+    private final Deque<PendingBatch> pending = new ArrayDeque<>();
+
+    /** The future of the last batch, the batches of a stream are read one after the other. */
+    private CompletableFuture<Void> lastBatch = CompletableFuture.completedFuture(null);
+
+    /** The last address which was read. */
+    private long lastRead = Address.NON_ADDRESS;
+
+    @Getter
+    private long hits = 0;
+
+    @Getter
+    private long misses = 0;
+
+    @Getter
+    private long wasted = 0;
+
+    private final Meter hitsMeter;
+    private final Meter missesMeter;
+    private final Meter wastedMeter;
+
+    StreamReadAhead(@Nonnull CorfuRuntime runtime) {
+        this.addressSpaceView = runtime.getAddressSpaceView();
+        this.minWindow = Math.max(1, runtime.getParameters().getStreamBatchSize());
+        this.maxWindow = Math.max(minWindow, runtime.getParameters().getStreamReadAheadMaxSize());
+        this.window = minWindow;
+
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        this.hitsMeter = metrics.meter(HITS_METRIC);
+        this.missesMeter = metrics.meter(MISSES_METRIC);
+        this.wastedMeter = metrics.meter(WASTED_METRIC);
+    }
+
+    /**
+     * Returns true if the read-ahead of a runtime adapts its window, otherwise streams read
+     * fixed size batches synchronously.
+     */
+    static boolean isEnabled(@Nonnull CorfuRuntime runtime) {
+        return !runtime.getParameters().isCacheDisabled()
+                && runtime.getParameters().getStreamReadAheadMaxSize()
+                > runtime.getParameters().getStreamBatchSize();
+    }
+
+    /**
+     * Read the entry of an address which was polled from the read queue.
+     *
+     * @param address The address to read.
+     * @param queue   The read queue, which holds the addresses which follow the address.
+     * @param reader  Reads an address, and a batch of addresses into the cache on a miss.
+     * @return The entry of the address.
+     */
+    ILogData read(long address, @Nonnull StreamAddressQueue queue,
+                  @Nonnull BiFunction<Long, List<Long>, ILogData> reader) {
+        lastRead = address;
+
+        if (!prefetched.remove(address)) {
+            misses++;
+            missesMeter.mark();
+            List<Long> batch = nextAddresses(address, queue);
+            ILogData ld = reader.apply(address, batch);
+            for (int i = 1; i < batch.size(); i++) {
+                prefetched.add(batch.get(i));
+            }
+            return ld;
+        }
+
+        hits++;
+        hitsMeter.mark();
+        awaitPending(address);
+
+        // Evicted entries are read again along with the prefetched entries that follow
+        ILogData ld = reader.apply(address, nextAddresses(address, prefetched));
+
+        if (prefetched.size() <= window / 2) {
+            // The consumer reads sequentially, grow the window and read
+            // the next batch ahead of it
+            window = Math.min(window * 2, maxWindow);
+            prefetchAsync(queue);
+        }
+        return ld;
+    }
+
+    /**
+     * Update the read-ahead on a seek of the stream. Seeks are random accesses, which
+     * shrink the window, and the prefetched addresses that the seek skips are wasted.
+     *
+     * @param globalAddress The address the stream seeks to.
+     */
+    void seek(long globalAddress) {
+        final int size = prefetched.size();
+        prefetched.removeLowerThan(globalAddress);
+        waste(size - prefetched.size());
+
+        if (globalAddress <= lastRead) {
+            window = minWindow;
+        } else {
+            window = Math.max(minWindow, window / 2);
+        }
+    }
+
+    /**
+     * Reset the read-ahead, all the prefetched addresses are wasted.
+     */
+    void reset() {
+        waste(prefetched.size());
+        prefetched.clear();
+        pending.clear();
+        window = minWindow;
+        lastRead = Address.NON_ADDRESS;
+    }
+
+    /**
+     * Returns the fraction of the reads which were of prefetched addresses.
+     */
+    double getHitRate() {
+        long reads = hits + misses;
+        return reads == 0 ? 0.0 : (double) hits / reads;
+    }
+
+    private void waste(int count) {
+        if (count > 0) {
+            wasted += count;
+            wastedMeter.mark(count);
+        }
+    }
+
+    /**
+     * Returns the address followed by up to window - 1 of the given addresses
+     * which are greater than it.
+     */
+    private List<Long> nextAddresses(long address, StreamAddressQueue addresses) {
+        List<Long> batch = new ArrayList<>(Math.min(window, addresses.size() + 1));
+        batch.add(address);
+        for (int i = 0; i < addresses.size() && batch.size() < window; i++) {
+            if (addresses.get(i) > address) {
+                batch.add(addresses.get(i));
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Read the next window of addresses of the read queue asynchronously.
+     */
+    private void prefetchAsync(StreamAddressQueue queue) {
+        final long from = prefetched.isEmpty() ? lastRead : prefetched.last();
+        List<Long> batch = new ArrayList<>(window);
+        for (int i = 0; i < queue.size() && batch.size() < window; i++) {
+            if (queue.get(i) > from) {
+                batch.add(queue.get(i));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        for (long address : batch) {
+            prefetched.add(address);
+        }
+        lastBatch = lastBatch.thenRunAsync(() -> addressSpaceView.read(batch), PREFETCH_EXECUTOR)
+                .exceptionally(e -> {
+                    // The consumer reads the entries again, and handles the failure
+                    log.debug("prefetchAsync: failed to read {} entries from {}",
+                            batch.size(), batch.get(0), e);
+                    return null;
+                });
+        pending.addLast(new PendingBatch(batch.get(0), batch.get(batch.size() - 1), lastBatch));
+    }
+
+    /**
+     * Wait for the batch which reads an address, if it is being read asynchronously.
+     */
+    private void awaitPending(long address) {
+        while (!pending.isEmpty() && pending.peekFirst().lastAddress < address) {
+            pending.removeFirst();
+        }
+        if (!pending.isEmpty() && pending.peekFirst().firstAddress <= address) {
+            pending.peekFirst().future.join();
+        }
+    }
+}
@@ -12,8 +12,10 @@ public enum CorfuComponent {
     CLIENT_ROUTER("corfu.runtime.client-router."),
     LOG_UNIT_CLIENT("corfu.runtime.log-unit-client."),
     OBJECT("corfu.runtime.object."),
+    OBJECT_LOADER("corfu.runtime.object-loader."),
     GARBAGE_COLLECTION("corfu.runtime.gc."),
     CLIENT_SEQUENCER("corfu.runtime.sequencer."),
+    STREAM_VIEW("corfu.runtime.stream-view."),
 
     // Infrastructure components
     INFRA_MSG_HANDLER("corfu.infrastructure.message-handler."),
@@ -0,0 +1,270 @@
+package org.corfudb.util;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * A second tier of a log data cache (the log unit data cache, or the read cache of
+ * the address space view) that holds the serialized form of log entries in pooled
+ * direct memory, so that large entries can be cached without growing the heap.
+ * Entries are evicted by the size based policy of a Caffeine cache once the serialized
+ * entries exceed the maximum size. The eviction runs on the maintenance executor of
+ * the cache, not on the threads that add the entries.
+ *
+ * <p>Entries are decoded on every read, so that the on-heap cache only holds the
+ * entries that are hot. The entries are reference counted: a read retains the entry,
+ * so that an entry that is evicted while it is being decoded is only released once it
+ * has been decoded.
+ */
+@Slf4j
+@ThreadSafe
+public class OffHeapDataCache implements AutoCloseable {
+
+    // The names of the metrics of a cache, under the metrics prefix of the cache
+    public static final String HITS_METRIC = "hits";
+    public static final String MISSES_METRIC = "misses";
+    public static final String EVICTIONS_METRIC = "evictions";
+    public static final String BYTES_METRIC = "bytes";
+
+    private final ByteBufAllocator allocator;
+
+    @Getter
+    private final long maxSize;
+
+    private final Cache<Long, CachedEntry> entries;
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+    private final Counter bytes;
+
+    /**
+     * Returns a new off-heap cache backed by the default pooled allocator.
+     *
+     * @param maxSize       the maximum size of the serialized entries in bytes
+     * @param metricsPrefix the prefix of the names of the metrics of the cache
+     * @param metrics       the registry of the metrics of the cache
+     */
+    public OffHeapDataCache(long maxSize, String metricsPrefix, MetricRegistry metrics) {
+        this(maxSize, metricsPrefix, PooledByteBufAllocator.DEFAULT, metrics);
+    }
+
+    public OffHeapDataCache(long maxSize, String metricsPrefix, ByteBufAllocator allocator,
+                            MetricRegistry metrics) {
+        Preconditions.checkArgument(maxSize > 0, "maxSize must be positive");
+        this.maxSize = maxSize;
+        this.allocator = allocator;
+        this.hits = metrics.meter(metricsPrefix + HITS_METRIC);
+        this.misses = metrics.meter(metricsPrefix + MISSES_METRIC);
+        this.evictions = metrics.meter(metricsPrefix + EVICTIONS_METRIC);
+        this.bytes = metrics.counter(metricsPrefix + BYTES_METRIC);
+        try {
+            metrics.register(metricsPrefix + BYTES_METRIC + ".max", (Gauge<Long>) () -> maxSize);
+        } catch (IllegalArgumentException e) {
+            // Re-registering metrics during test runs, not a problem
+        }
+        this.entries = Caffeine.newBuilder()
+                .<Long, CachedEntry>weigher((address, entry) -> entry.getSize())
+                .maximumWeight(maxSize)
+                .writer(new CacheWriter<Long, CachedEntry>() {
+                    @Override
+                    public void write(@Nonnull Long address, @Nonnull CachedEntry entry) {
+                        // The size of the entries is accounted for by put
+                    }
+
+                    @Override
+                    public void delete(@Nonnull Long address, @Nullable CachedEntry entry,
+                                       @Nonnull RemovalCause cause) {
+                        if (entry != null) {
+                            remove(entry, cause);
+                        }
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Adds or replaces the entry of an address. Entries larger than the maximum size
+     * of the cache are not cached.
+     *
+     * @param address the address of the entry
+     * @param entry   the log entry
+     */
+    public void put(long address, ILogData entry) {
+        int sizeEstimate = entry.getSizeEstimate();
+        if (sizeEstimate > maxSize) {
+            return;
+        }
+
+        ByteBuf buf = allocator.directBuffer(sizeEstimate);
+        try {
+            ((LogData) entry).doSerialize(buf);
+        } catch (RuntimeException e) {
+            log.warn("put: failed to serialize entry {}", address, e);
+            buf.release();
+            return;
+        }
+
+        if (buf.readableBytes() > maxSize) {
+            buf.release();
+            return;
+        }
+
+        CachedEntry cached = new CachedEntry(buf);
+        size.addAndGet(cached.getSize());
+        bytes.inc(cached.getSize());
+        CachedEntry previous = entries.asMap().put(address, cached);
+        if (previous != null) {
+            remove(previous, RemovalCause.REPLACED);
+        }
+    }
+
+    /**
+     * Returns the decoded entry of an address.
+     *
+     * @param address the address to lookup
+     * @return the log entry, or null if the address is not cached
+     */
+    @Nullable
+    public ILogData get(long address) {
+        CachedEntry cached = entries.getIfPresent(address);
+        if (cached == null || !cached.retain()) {
+            misses.mark();
+            return null;
+        }
+
+        try {
+            hits.mark();
+            return new LogData(cached.getBuf().duplicate());
+        } finally {
+            cached.release();
+        }
+    }
+
+    /**
+     * Returns true if an address is cached, without affecting the eviction order.
+     */
+    public boolean contains(long address) {
+        return entries.asMap().containsKey(address);
+    }
+
+    /**
+     * Removes the entry of an address.
+     */
+    public void invalidate(long address) {
+        entries.invalidate(address);
+    }
+
+    /**
+     * Removes the entries of all the addresses lower than the given address.
+     */
+    public void invalidateBelow(long address) {
+        List<Long> addresses = entries.asMap().keySet().stream()
+                .filter(a -> a < address)
+                .collect(Collectors.toList());
+        entries.invalidateAll(addresses);
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * Returns the number of cached entries, once the pending evictions are done.
+     */
+    public long getNumEntries() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    /**
+     * Returns the size of the serialized entries in bytes, once the pending evictions
+     * are done.
+     */
+    public long getSize() {
+        entries.cleanUp();
+        return size.get();
+    }
+
+    private void remove(CachedEntry entry, RemovalCause cause) {
+        size.addAndGet(-entry.getSize());
+        bytes.dec(entry.getSize());
+        if (cause.wasEvicted()) {
+            evictions.mark();
+        }
+        entry.release();
+    }
+
+    @Override
+    public void close() {
+        invalidateAll();
+    }
+
+    /**
+     * The serialized form of an entry. The reference count of the buffer itself can't be
+     * used to pin the entry: a pooled buffer released by its removal can be recycled for
+     * another entry before a concurrent read retains it.
+     */
+    private static class CachedEntry {
+        @Getter
+        private final ByteBuf buf;
+
+        @Getter
+        private final int size;
+
+        // The cache holds one reference, every read in progress holds one more
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        CachedEntry(ByteBuf buf) {
+            this.buf = buf;
+            this.size = buf.readableBytes();
+        }
+
+        /**
+         * Retains the entry, unless it has already been released.
+         */
+        boolean retain() {
+            int refs;
+            do {
+                refs = refCount.get();
+                if (refs == 0) {
+                    return false;
+                }
+            } while (!refCount.compareAndSet(refs, refs + 1));
+            return true;
+        }
+
+        void release() {
+            if (refCount.decrementAndGet() == 0) {
+                buf.release();
+            }
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.corfudb.protocols.wireprotocol.*;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
 import org.corfudb.runtime.view.Address;
+import org.corfudb.util.OffHeapDataCache;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
@@ -145,6 +146,55 @@ public class LogUnitServerTest extends AbstractServerTest {
                 .matchesDataAtAddress(HIGH_ADDRESS, high_payload.getBytes());
     }
 
+    /**
+     * Test that writes spread over several segments are persisted when the log unit
+     * has multiple write lanes.
+     */
+    @Test
+    public void checkThatWritesArePersistedWithMultipleLanes() throws Exception {
+        String serviceDir = PARAMETERS.TEST_TEMP_DIR;
+        final String numLanes = "4";
+        final int numSegments = 6;
+        final int writesPerSegment = 3;
+        final String streamName = "a";
+
+        LogUnitServer s1 = new LogUnitServer(new ServerContextBuilder()
+                .setLogPath(serviceDir)
+                .setMemory(false)
+                .setLogUnitWriteLanes(numLanes)
+                .build());
+
+        this.router.reset();
+        this.router.addServer(s1);
+
+        for (int segment = 0; segment < numSegments; segment++) {
+            for (int i = 0; i < writesPerSegment; i++) {
+                long address = (long) segment * StreamLogFiles.RECORDS_PER_LOG_FILE + i;
+                rawWrite(address, Long.toString(address), streamName);
+            }
+        }
+
+        waitForLogUnit(s1);
+        s1.shutdown();
+
+        LogUnitServer s2 = new LogUnitServer(new ServerContextBuilder()
+                .setLogPath(serviceDir)
+                .setMemory(false)
+                .setLogUnitWriteLanes(numLanes)
+                .build());
+        this.router.reset();
+        this.router.addServer(s2);
+
+        for (int segment = 0; segment < numSegments; segment++) {
+            for (int i = 0; i < writesPerSegment; i++) {
+                long address = (long) segment * StreamLogFiles.RECORDS_PER_LOG_FILE + i;
+                assertThat(s2)
+                        .containsDataAtAddress(address)
+                        .matchesDataAtAddress(address, Long.toString(address).getBytes());
+            }
+        }
+    }
+
     /**
      * Test that corfu refuses to start if the filesystem/directory is/becomes read-only
      *
@@ -344,6 +394,56 @@ public class LogUnitServerTest extends AbstractServerTest {
         assertThat(entry.getGlobalAddress()).isEqualTo(globalAddress);
     }
 
+    /**
+     * Test that entries evicted from the data cache are served by the off-heap tier.
+     */
+    @Test
+    public void checkEvictedEntriesAreServedFromOffHeapCache() throws Exception {
+        final long offHeapCacheSize = 1024 * 1024;
+        LogUnitServer s1 = new LogUnitServer(new ServerContextBuilder()
+                .setLogPath(PARAMETERS.TEST_TEMP_DIR)
+                .setMemory(false)
+                .setCacheOffHeapSize(Long.toString(offHeapCacheSize))
+                .build());
+
+        this.router.reset();
+        this.router.addServer(s1);
+
+        ByteBuf b = Unpooled.buffer();
+        Serializers.CORFU.serialize("0".getBytes(), b);
+        WriteRequest m = WriteRequest.builder()
+                .data(new LogData(DataType.DATA, b))
+                .build();
+        final Long globalAddress = 0L;
+        m.setGlobalAddress(globalAddress);
+        Map<UUID, Long> uuidLongMap = Collections.singletonMap(new UUID(1, 1), Address.NON_EXIST);
+        m.setBackpointerMap(uuidLongMap);
+        sendMessage(CorfuMsgType.WRITE.payloadMsg(m));
+        waitForLogUnit(s1);
+
+        OffHeapDataCache offHeapCache = s1.getOffHeapCache();
+        assertThat(offHeapCache.getMaxSize()).isEqualTo(offHeapCacheSize);
+        assertThat(offHeapCache.contains(globalAddress)).isFalse();
+
+        // Evict every entry of the data cache
+        s1.getDataCache().policy().eviction().get().setMaximum(0);
+        s1.getDataCache().cleanUp();
+        assertThat(s1.getDataCache().estimatedSize()).isZero();
+        assertThat(offHeapCache.contains(globalAddress)).isTrue();
+
+        s1.getDataCache().policy().eviction().get().setMaximum(s1.getMaxCacheSize());
+        ILogData entry = s1.getDataCache().get(globalAddress);
+        assertThat(entry.getBackpointerMap()).isEqualTo(uuidLongMap);
+        assertThat(entry.getGlobalAddress()).isEqualTo(globalAddress);
+        assertThat(((LogData) entry).getData()).isEqualTo(((LogData) m.getData()).getData());
+
+        // Flushing the cache also flushes the off-heap tier
+        sendMessage(CorfuMsgType.FLUSH_CACHE.msg());
+        waitForLogUnit(s1);
+        assertThat(offHeapCache.getNumEntries()).isZero();
+        assertThat(offHeapCache.getSize()).isZero();
+    }
+
     private String createLogFile(String path, int version, boolean noVerify) throws IOException {
         // Generate a log file and manually change the version
         File logDir = new File(path + File.separator + "log");
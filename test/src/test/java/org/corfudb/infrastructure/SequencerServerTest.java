@@ -2,11 +2,20 @@ package org.corfudb.infrastructure;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.SequencerRecoveryMsg;
@@ -15,6 +24,7 @@ import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenRequest;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TokenType;
+import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
 import org.corfudb.runtime.view.Address;
 import org.junit.Before;
 import org.junit.Test;
@@ -287,4 +297,182 @@ public class SequencerServerTest extends AbstractServerTest {
                         Collections.emptyMap(), Collections.emptyList()));
     }
 
+    /**
+     * A router that hands the response of a request back to the client that sent it.
+     */
+    private static class ClientRouter implements IServerRouter {
+        final CompletableFuture<CorfuMsg> response = new CompletableFuture<>();
+
+        @Override
+        public void sendResponse(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg) {
+            response.complete(outMsg);
+        }
+
+        @Override
+        public long getServerEpoch() {
+            return 0L;
+        }
+
+        @Override
+        public void setServerEpoch(long newEpoch) {
+        }
+
+        @Override
+        public void addServer(AbstractServer server) {
+        }
+
+        @Override
+        public List<AbstractServer> getServers() {
+            return Collections.emptyList();
+        }
+    }
+
+    private SequencerServer newSequencer(int threads) {
+        ServerContext context = new ServerContextBuilder()
+                .setSequencerThreads(Integer.toString(threads))
+                .setPort(SERVERS.PORT_0)
+                .build();
+        context.setServerRouter(new TestServerRouter());
+        SequencerServer sequencer = new SequencerServer(context);
+        sequencer.setSequencerEpoch(0L);
+        return sequencer;
+    }
+
+    /**
+     * Sends a token request through the executor of the sequencer, the way a client
+     * connected through netty would, and waits for the response.
+     */
+    @SuppressWarnings("unchecked")
+    private TokenResponse requestToken(SequencerServer sequencer, TokenRequest request) throws Exception {
+        CorfuPayloadMsg<TokenRequest> msg = new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ, request);
+        ClientRouter clientRouter = new ClientRouter();
+        sequencer.getExecutor(msg.getMsgType()).submit(() -> sequencer.handleMessage(msg, null, clientRouter));
+        return ((CorfuPayloadMsg<TokenResponse>) clientRouter.response.get()).getPayload();
+    }
+
+    /**
+     * Concurrent multi-stream allocations get distinct addresses, and the backpointers
+     * of every stream form a chain.
+     */
+    @Test
+    public void concurrentAllocationsKeepStreamsConsistent() throws Exception {
+        final int numStreams = 8;
+        final int numClients = PARAMETERS.CONCURRENCY_SOME;
+        final int numRequests = PARAMETERS.NUM_ITERATIONS_LOW;
+        SequencerServer sequencer = newSequencer(numClients);
+
+        List<UUID> streams = new ArrayList<>();
+        for (int i = 0; i < numStreams; i++) {
+            streams.add(UUID.nameUUIDFromBytes(("stream" + i).getBytes()));
+        }
+
+        Queue<TokenResponse> responses = new ConcurrentLinkedQueue<>();
+        scheduleConcurrently(numClients, client -> {
+            for (int i = 0; i < numRequests; i++) {
+                // Each request spans two streams, so that requests of different clients overlap
+                List<UUID> requestStreams = new ArrayList<>();
+                requestStreams.add(streams.get((client + i) % numStreams));
+                requestStreams.add(streams.get((client + i + 1) % numStreams));
+                responses.add(requestToken(sequencer, new TokenRequest(1L, requestStreams)));
+            }
+        });
+        executeScheduled(numClients, PARAMETERS.TIMEOUT_LONG);
+
+        final long totalRequests = (long) numClients * numRequests;
+        assertThat(responses.stream().map(r -> r.getToken().getSequence()).distinct().count())
+                .isEqualTo(totalRequests);
+        assertThat(sequencer.getGlobalLogTail()).isEqualTo(totalRequests);
+
+        // Replay the responses in address order, the backpointer of every stream must be
+        // the previous address allocated to that stream
+        Map<UUID, Long> tails = new HashMap<>();
+        responses.stream()
+                .sorted((a, b) -> Long.compare(a.getToken().getSequence(), b.getToken().getSequence()))
+                .forEach(response -> response.getBackpointerMap().forEach((stream, backpointer) -> {
+                    assertThat(backpointer).isEqualTo(tails.getOrDefault(stream, Address.NON_EXIST));
+                    tails.put(stream, response.getToken().getSequence());
+                }));
+
+        for (UUID stream : streams) {
+            TokenResponse query = requestToken(sequencer, new TokenRequest(0L, Collections.singletonList(stream)));
+            assertThat(query.getToken().getSequence()).isEqualTo(tails.get(stream));
+        }
+
+        sequencer.shutdown();
+    }
+
+    /**
+     * Concurrent transactions on the same stream only commit if no other transaction
+     * committed on the stream after their snapshot.
+     */
+    @Test
+    public void concurrentTransactionsDetectConflicts() throws Exception {
+        final int numClients = PARAMETERS.CONCURRENCY_SOME;
+        final int numRequests = PARAMETERS.NUM_ITERATIONS_LOW;
+        SequencerServer sequencer = newSequencer(numClients);
+        UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        Map<UUID, long[]> conflictSet = Collections.singletonMap(streamA, new long[0]);
+
+        AtomicInteger commits = new AtomicInteger();
+        scheduleConcurrently(numClients, client -> {
+            for (int i = 0; i < numRequests; i++) {
+                Token snapshot = requestToken(sequencer,
+                        new TokenRequest(0L, Collections.emptyList())).getToken();
+                TxResolutionInfo txInfo = new TxResolutionInfo(UUID.randomUUID(), snapshot,
+                        conflictSet, Collections.emptyMap());
+                TokenResponse response = requestToken(sequencer,
+                        new TokenRequest(1L, Collections.singletonList(streamA), txInfo));
+
+                if (response.getRespType() == TokenType.NORMAL) {
+                    // The previous update of the stream must be visible to the snapshot
+                    assertThat(response.getBackpointerMap().get(streamA))
+                            .isLessThanOrEqualTo(snapshot.getSequence());
+                    commits.incrementAndGet();
+                } else {
+                    assertThat(response.getRespType()).isEqualTo(TokenType.TX_ABORT_CONFLICT);
+                }
+            }
+        });
+        executeScheduled(numClients, PARAMETERS.TIMEOUT_LONG);
+
+        assertThat(commits.get()).isGreaterThan(0);
+        assertThat(sequencer.getGlobalLogTail()).isEqualTo(commits.get());
+        sequencer.shutdown();
+    }
+
+    /**
+     * A load generator that issues multi-stream token requests from closed-loop clients,
+     * and reports the tokens per second served by sequencers with an increasing number
+     * of threads.
+     */
+    @Test
+    public void tokenThroughputScalesWithThreads() throws Exception {
+        final int numStreams = 1000;
+        final int numClients = PARAMETERS.CONCURRENCY_LOTS;
+        final int numRequests = PARAMETERS.NUM_ITERATIONS_MODERATE;
+        final int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        List<UUID> streams = new ArrayList<>();
+        for (int i = 0; i < numStreams; i++) {
+            streams.add(UUID.nameUUIDFromBytes(("stream" + i).getBytes()));
+        }
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            SequencerServer sequencer = newSequencer(threads);
+
+            scheduleConcurrently(numClients, client -> {
+                for (int i = 0; i < numRequests; i++) {
+                    UUID stream = streams.get((client * numRequests + i) % numStreams);
+                    requestToken(sequencer, new TokenRequest(1L, Collections.singletonList(stream)));
+                }
+            });
+
+            long startTime = System.currentTimeMillis();
+            executeScheduled(numClients, PARAMETERS.TIMEOUT_LONG);
+            calculateRequestsPerSecond("TPS-" + threads, numClients * numRequests, startTime);
+
+            assertThat(sequencer.getGlobalLogTail()).isEqualTo((long) numClients * numRequests);
+            sequencer.shutdown();
+        }
+    }
 }
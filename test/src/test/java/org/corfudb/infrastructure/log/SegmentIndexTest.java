@@ -0,0 +1,85 @@
+package org.corfudb.infrastructure.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.corfudb.AbstractCorfuTest;
+import org.ehcache.sizeof.SizeOf;
+import org.junit.Test;
+
+@Slf4j
+public class SegmentIndexTest extends AbstractCorfuTest {
+
+    private static final int CAPACITY = StreamLogFiles.RECORDS_PER_LOG_FILE;
+    private static final long SEGMENT = 3;
+    private static final long FIRST_ADDRESS = SEGMENT * CAPACITY;
+    private static final int LENGTH = 100;
+
+    @Test
+    public void testPutAndGet() {
+        SegmentIndex index = new SegmentIndex(FIRST_ADDRESS, CAPACITY);
+
+        assertThat(index.size()).isZero();
+        assertThat(index.contains(FIRST_ADDRESS)).isFalse();
+        assertThat(index.get(FIRST_ADDRESS)).isNull();
+        assertThat(index.getAddresses()).isEmpty();
+
+        final long secondAddress = FIRST_ADDRESS + CAPACITY - 1;
+        index.put(secondAddress, 2, LENGTH, LENGTH, false);
+        index.put(FIRST_ADDRESS, 1, LENGTH, 0, true);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.contains(FIRST_ADDRESS)).isTrue();
+        assertThat(index.contains(FIRST_ADDRESS + 1)).isFalse();
+        assertThat(index.getAddresses()).containsExactly(FIRST_ADDRESS, secondAddress);
+
+        AddressMetaData metaData = index.get(secondAddress);
+        assertThat(metaData.checksum).isEqualTo(2);
+        assertThat(metaData.length).isEqualTo(LENGTH);
+        assertThat(metaData.offset).isEqualTo(LENGTH);
+        assertThat(index.isHole(FIRST_ADDRESS)).isTrue();
+        assertThat(index.isHole(secondAddress)).isFalse();
+
+        // Replacing a record doesn't change the size of the index
+        index.put(secondAddress, new AddressMetaData(2, LENGTH, LENGTH * 2));
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get(secondAddress).offset).isEqualTo(LENGTH * 2);
+
+        // Addresses of other segments are never part of the index
+        assertThat(index.contains(FIRST_ADDRESS - 1)).isFalse();
+        assertThat(index.contains(FIRST_ADDRESS + CAPACITY)).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutOutsideOfSegment() {
+        SegmentIndex index = new SegmentIndex(FIRST_ADDRESS, CAPACITY);
+        index.put(FIRST_ADDRESS + CAPACITY, 0, LENGTH, 0, false);
+    }
+
+    /**
+     * Compares the heap used by the index of a full segment with the map of
+     * boxed addresses it replaces.
+     */
+    @Test
+    public void testHeapUsage() {
+        SegmentIndex index = new SegmentIndex(FIRST_ADDRESS, CAPACITY);
+        Map<Long, AddressMetaData> map = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < CAPACITY; i++) {
+            long address = FIRST_ADDRESS + i;
+            index.put(address, i, LENGTH, (long) i * LENGTH, false);
+            map.put(address, new AddressMetaData(i, LENGTH, (long) i * LENGTH));
+        }
+
+        SizeOf sizeOf = SizeOf.newInstance();
+        long indexSize = sizeOf.deepSizeOf(index);
+        long mapSize = sizeOf.deepSizeOf(map);
+        log.info("testHeapUsage: index {} bytes, map {} bytes", indexSize, mapSize);
+
+        assertThat(indexSize).isLessThan(mapSize / 2);
+    }
+}
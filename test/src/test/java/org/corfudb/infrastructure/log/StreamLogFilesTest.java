@@ -11,11 +11,16 @@ import io.netty.buffer.Unpooled;
 import java.io.File;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
@@ -28,10 +33,13 @@ import org.corfudb.infrastructure.log.StreamLogFiles.Checksum;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
+import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.WorkflowException;
 import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
@@ -96,6 +104,326 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(writeEntries).isEqualTo(readEntries);
     }
 
+    @Test
+    public void testMmapReads() throws Exception {
+        ServerContext sc = new ServerContextBuilder()
+                .setLogPath(getDirPath())
+                .setMemory(false)
+                .setMmapReads(true)
+                .build();
+        StreamLogFiles log = new StreamLogFiles(sc, false);
+
+        // Fill the first segment completely and write a single entry to the next one
+        final int numIter = StreamLogFiles.RECORDS_PER_LOG_FILE + 1;
+        List<LogData> writeEntries = new ArrayList<>();
+        for (int x = 0; x < numIter; x++) {
+            writeEntries.add(getEntry(x));
+        }
+
+        log.append(writeEntries);
+        log.sync(true);
+
+        List<LogData> readEntries = readRange(0, numIter, log);
+        assertThat(writeEntries).isEqualTo(readEntries);
+        for (LogData entry : readEntries) {
+            assertThat(entry.getPayload(null)).isEqualTo("Payload".getBytes());
+        }
+
+        // Only the full segment should be served from a mapped file
+        for (SegmentHandle sh : log.getSegmentHandles()) {
+            if (sh.getSegment() == 0) {
+                assertThat(sh.getMappedBuffer()).isNotNull();
+            } else {
+                assertThat(sh.getMappedBuffer()).isNull();
+            }
+        }
+    }
+
+    /**
+     * Records are parsed with aliasing from the mapped segment file and from the buffers
+     * read through the file channel. The payloads must still round-trip byte for byte
+     * once the segment file is overwritten, which the mapped file reflects.
+     */
+    @Test
+    public void testAliasedReadsRoundTrip() throws Exception {
+        String logDir = getContext().getServerConfig().get("--log-path") + File.separator + "log";
+        StreamLogFiles writer = new StreamLogFiles(getContext(), false);
+
+        final int maxPayloadSize = 64;
+        List<byte[]> payloads = new ArrayList<>();
+        List<LogData> writeEntries = new ArrayList<>();
+        List<Long> addresses = new ArrayList<>();
+        for (int address = 0; address < RECORDS_PER_LOG_FILE; address++) {
+            byte[] payload = new byte[address % maxPayloadSize + 1];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = (byte) (address + i);
+            }
+            payloads.add(payload);
+            LogData entry = new LogData(DataType.DATA, Unpooled.wrappedBuffer(payload));
+            entry.setGlobalAddress((long) address);
+            writeEntries.add(entry);
+            addresses.add((long) address);
+        }
+        writer.append(writeEntries);
+        writer.sync(true);
+        writer.close();
+
+        ServerContext mmapContext = new ServerContextBuilder()
+                .setLogPath(getDirPath())
+                .setMemory(false)
+                .setMmapReads(true)
+                .build();
+        StreamLogFiles mappedLog = new StreamLogFiles(mmapContext, false);
+        StreamLogFiles channelLog = new StreamLogFiles(getContext(), false);
+
+        // Read every record one by one and in a batch, through both paths
+        List<LogData> readEntries = new ArrayList<>();
+        for (StreamLogFiles log : Arrays.asList(mappedLog, channelLog)) {
+            readEntries.addAll(readRange(0, RECORDS_PER_LOG_FILE, log));
+            BulkReadResult result = log.readAll(addresses);
+            assertThat(result.getCorruptedAddresses()).isEmpty();
+            for (long address : addresses) {
+                readEntries.add(result.getEntries().get(address));
+            }
+        }
+
+        for (SegmentHandle sh : mappedLog.getSegmentHandles()) {
+            assertThat(sh.getMappedBuffer()).isNotNull();
+        }
+        for (SegmentHandle sh : channelLog.getSegmentHandles()) {
+            assertThat(sh.getMappedBuffer()).isNull();
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(logDir + File.separator + "0.log", "rw")) {
+            file.write(new byte[(int) file.length()]);
+        }
+
+        for (LogData entry : readEntries) {
+            long address = entry.getGlobalAddress();
+            byte[] payload = payloads.get((int) address);
+            assertThat(entry.getData()).isEqualTo(payload);
+
+            ByteBuf buf = Unpooled.buffer();
+            entry.doSerialize(buf);
+            LogData deserialized = new LogData(buf);
+            assertThat(deserialized.getData()).isEqualTo(payload);
+            assertThat(deserialized.getGlobalAddress()).isEqualTo(address);
+        }
+    }
+
+    @Test
+    public void testSegmentIndexFile() throws Exception {
+        ServerContext sc = getContext();
+        StreamLogFiles log = new StreamLogFiles(sc, false);
+        String logDir = sc.getServerConfig().get("--log-path") + File.separator + "log";
+        final UUID streamA = UUID.nameUUIDFromBytes("a".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("b".getBytes());
+
+        // Fill the first segment completely and write a single entry to the next one
+        final int numIter = StreamLogFiles.RECORDS_PER_LOG_FILE + 1;
+        List<LogData> writeEntries = new ArrayList<>();
+        for (int x = 0; x < numIter; x++) {
+            LogData entry = getEntry(x);
+            entry.setBackpointerMap(Collections.singletonMap(x % 2 == 0 ? streamA : streamB,
+                    Address.NON_ADDRESS));
+            writeEntries.add(entry);
+        }
+
+        log.append(writeEntries);
+        log.sync(true);
+
+        // Only the full segment is indexed
+        File indexFile = SegmentIndexFile.getPath(logDir + File.separator + "0.log").toFile();
+        assertThat(indexFile).exists();
+        assertThat(SegmentIndexFile.getPath(logDir + File.separator + "1.log")).doesNotExist();
+
+        TailsResponse tails = log.getAllTails();
+        StreamsAddressResponse addressSpace = log.getStreamsAddressSpace();
+        log.close();
+
+        // Restart from the index file
+        StreamLogFiles log2 = new StreamLogFiles(sc, false);
+        assertThat(readRange(0, numIter, log2)).isEqualTo(writeEntries);
+        assertSameMetadata(log2, tails, addressSpace);
+        log2.close();
+
+        // A corrupted index file is ignored and the segment is scanned instead
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            long position = file.length() / 2;
+            file.seek(position);
+            byte value = file.readByte();
+            file.seek(position);
+            file.writeByte(~value);
+        }
+
+        StreamLogFiles log3 = new StreamLogFiles(sc, false);
+        assertThat(readRange(0, numIter, log3)).isEqualTo(writeEntries);
+        assertSameMetadata(log3, tails, addressSpace);
+    }
+
+    @Test
+    public void testParallelRecovery() throws Exception {
+        final String numThreads = "4";
+        final int numSegments = 3;
+        final long trimMark = RECORDS_PER_LOG_FILE / 2;
+        final UUID streamA = UUID.nameUUIDFromBytes("a".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("b".getBytes());
+
+        StreamLogFiles log = new StreamLogFiles(getContext(), false);
+
+        // Full segments followed by a partial one, with a trim mark in the first segment
+        final int numIter = RECORDS_PER_LOG_FILE * numSegments + 1;
+        List<LogData> writeEntries = new ArrayList<>();
+        for (int x = 0; x < numIter; x++) {
+            LogData entry = getEntry(x);
+            entry.setBackpointerMap(Collections.singletonMap(x % 2 == 0 ? streamA : streamB,
+                    Address.NON_ADDRESS));
+            writeEntries.add(entry);
+            if (writeEntries.size() == RECORDS_PER_LOG_FILE) {
+                log.append(writeEntries);
+                writeEntries.clear();
+            }
+        }
+        log.append(writeEntries);
+        log.prefixTrim(trimMark);
+        log.sync(true);
+        log.close();
+
+        ServerContext sc = new ServerContextBuilder()
+                .setLogPath(getDirPath())
+                .setMemory(false)
+                .setLogRecoveryThreads("1")
+                .build();
+        StreamLogFiles sequentialLog = new StreamLogFiles(sc, false);
+        TailsResponse tails = sequentialLog.getAllTails();
+        StreamsAddressResponse addressSpace = sequentialLog.getStreamsAddressSpace();
+        sequentialLog.close();
+
+        assertThat(tails.getLogTail()).isEqualTo(numIter - 1);
+        assertThat(addressSpace.getAddressMap().get(streamA).getAddressMap().contains(trimMark - 2)).isFalse();
+        assertThat(addressSpace.getAddressMap().get(streamA).getAddressMap().contains(trimMark + 2)).isTrue();
+
+        sc = new ServerContextBuilder()
+                .setLogPath(getDirPath())
+                .setMemory(false)
+                .setLogRecoveryThreads(numThreads)
+                .build();
+        StreamLogFiles parallelLog = new StreamLogFiles(sc, false);
+        assertSameMetadata(parallelLog, tails, addressSpace);
+        assertThat(parallelLog.read(numIter - 1)).isNotNull();
+    }
+
+    /**
+     * Test that the index file of a segment is ignored once the segment file is replaced
+     * by another segment file of the same size.
+     */
+    @Test
+    public void testSegmentIndexFileOfReplacedSegment() throws Exception {
+        ServerContext sc = getContext();
+        ServerContext otherSc = new ServerContextBuilder()
+                .setLogPath(getDirPath() + File.separator + "other")
+                .setMemory(false)
+                .build();
+        String logDir = sc.getServerConfig().get("--log-path") + File.separator + "log";
+        String otherLogDir = otherSc.getServerConfig().get("--log-path") + File.separator + "log";
+        final UUID streamA = UUID.nameUUIDFromBytes("a".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("b".getBytes());
+
+        // Full segments of the same size, with the records of both streams swapped
+        List<LogData> entries = new ArrayList<>();
+        List<LogData> otherEntries = new ArrayList<>();
+        for (int x = 0; x < RECORDS_PER_LOG_FILE; x++) {
+            LogData entry = getEntry(x);
+            entry.setBackpointerMap(Collections.singletonMap(x % 2 == 0 ? streamA : streamB,
+                    Address.NON_ADDRESS));
+            entries.add(entry);
+            LogData otherEntry = getEntry(x);
+            otherEntry.setBackpointerMap(Collections.singletonMap(x % 2 == 0 ? streamB : streamA,
+                    Address.NON_ADDRESS));
+            otherEntries.add(otherEntry);
+        }
+
+        StreamLogFiles log = new StreamLogFiles(sc, false);
+        log.append(entries);
+        log.sync(true);
+        log.close();
+
+        StreamLogFiles otherLog = new StreamLogFiles(otherSc, false);
+        otherLog.append(otherEntries);
+        otherLog.sync(true);
+        TailsResponse otherTails = otherLog.getAllTails();
+        StreamsAddressResponse otherAddressSpace = otherLog.getStreamsAddressSpace();
+        otherLog.close();
+
+        // Replace the segment file and keep its index file
+        File segmentFile = new File(logDir, "0.log");
+        File otherSegmentFile = new File(otherLogDir, "0.log");
+        assertThat(SegmentIndexFile.getPath(segmentFile.getPath())).exists();
+        assertThat(otherSegmentFile.length()).isEqualTo(segmentFile.length());
+        Files.copy(otherSegmentFile.toPath(), segmentFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        StreamLogFiles log2 = new StreamLogFiles(sc, false);
+        assertThat(readRange(0, RECORDS_PER_LOG_FILE, log2)).isEqualTo(otherEntries);
+        assertSameMetadata(log2, otherTails, otherAddressSpace);
+    }
+
+    /**
+     * Returns the names of the segment files of a log directory, which also holds
+     * the index files of the full segments.
+     */
+    private String[] listSegmentFiles(File logDir) {
+        return logDir.list((dir, name) -> name.endsWith(".log"));
+    }
+
+    private void assertSameMetadata(StreamLog log, TailsResponse tails, StreamsAddressResponse addressSpace) {
+        assertThat(log.getLogTail()).isEqualTo(tails.getLogTail());
+        assertThat(log.getAllTails().getStreamTails()).isEqualTo(tails.getStreamTails());
+
+        Map<UUID, StreamAddressSpace> addressMap = log.getStreamsAddressSpace().getAddressMap();
+        assertThat(addressMap.keySet()).isEqualTo(addressSpace.getAddressMap().keySet());
+        addressSpace.getAddressMap().forEach((streamId, streamAddressSpace) -> {
+            assertThat(addressMap.get(streamId).getTrimMark()).isEqualTo(streamAddressSpace.getTrimMark());
+            assertThat(addressMap.get(streamId).getAddressMap()).isEqualTo(streamAddressSpace.getAddressMap());
+        });
+    }
+
+    @Test
+    public void testAppendGroup() throws Exception {
+        ServerContext sc = getContext();
+        StreamLog log = new StreamLogFiles(sc, false);
+
+        final long trimMark = 5;
+        final long existingAddress = 10;
+        final long lastSegmentAddress = RECORDS_PER_LOG_FILE + 1;
+        log.prefixTrim(trimMark);
+        log.append(existingAddress, getEntry(existingAddress));
+
+        // A group of unordered writes spanning two segments, which contains a trimmed
+        // address, an already written address and the same address written twice
+        final long[] addresses = {lastSegmentAddress, 7, trimMark, existingAddress, 8, 7};
+        List<LogData> group = new ArrayList<>();
+        for (long address : addresses) {
+            group.add(getEntry(address));
+        }
+
+        List<RuntimeException> failures = log.appendGroup(group);
+        assertThat(failures).hasSize(addresses.length);
+        assertThat(failures.get(0)).isNull();
+        assertThat(failures.get(1)).isNull();
+        assertThat(failures.get(2)).isInstanceOf(OverwriteException.class);
+        assertThat(failures.get(3)).isInstanceOf(OverwriteException.class);
+        assertThat(failures.get(4)).isNull();
+        assertThat(failures.get(5)).isInstanceOf(OverwriteException.class);
+        log.sync(true);
+
+        // Verify that the written entries survive a restart
+        StreamLog log2 = new StreamLogFiles(sc, false);
+        assertThat(log2.read(7L)).isEqualTo(group.get(1));
+        assertThat(log2.read(8L)).isEqualTo(group.get(4));
+        assertThat(log2.read(lastSegmentAddress)).isEqualTo(group.get(0));
+        assertThat(log2.getLogTail()).isEqualTo(lastSegmentAddress);
+    }
+
     @Test
     public void testRangeWriteTrim() throws Exception {
         StreamLog log = new StreamLogFiles(getContext(), false);
@@ -398,6 +726,94 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(log.getChannelsToSync().size()).isEqualTo(0);
     }
 
+    /**
+     * Batched reads return the same entries as single reads, across segments and
+     * with gaps between the records that are read together.
+     */
+    @Test
+    public void testReadAll() {
+        StreamLogFiles log = new StreamLogFiles(getContext(), false);
+
+        final long trimAddress = 2;
+        final long firstHole = 10;
+        final long lastHole = 12;
+        final long lastAddress = RECORDS_PER_LOG_FILE + 5;
+        for (long address = 0; address <= lastAddress; address++) {
+            if (address < firstHole || address > lastHole) {
+                writeToLog(log, address);
+            }
+        }
+        log.prefixTrim(trimAddress);
+
+        // Read the addresses out of order, including an unwritten one past the tail
+        List<Long> addresses = new ArrayList<>();
+        for (long address = lastAddress + 1; address >= 0; address--) {
+            addresses.add(address);
+        }
+
+        BulkReadResult result = log.readAll(addresses);
+        assertThat(result.getCorruptedAddresses()).isEmpty();
+        Map<Long, LogData> entries = result.getEntries();
+        for (long address : addresses) {
+            if (address <= trimAddress) {
+                assertThat(entries.get(address).isTrimmed()).isTrue();
+            } else if ((address >= firstHole && address <= lastHole) || address > lastAddress) {
+                assertThat(entries).doesNotContainKey(address);
+            } else {
+                assertThat(entries.get(address)).isEqualTo(log.read(address));
+                assertThat(entries.get(address).getPayload(null)).isEqualTo("Payload".getBytes());
+            }
+        }
+    }
+
+    /**
+     * A corrupted record doesn't fail the batched read of the other records, its
+     * address is reported as corrupted.
+     */
+    @Test
+    public void testReadAllWithCorruptedRecord() throws Exception {
+        String logDir = getContext().getServerConfig().get("--log-path") + File.separator + "log";
+        StreamLogFiles log = new StreamLogFiles(getContext(), false);
+
+        final long numEntries = 5;
+        final long corruptedAddress = 2;
+        for (long address = 0; address < numEntries; address++) {
+            writeToLog(log, address);
+        }
+
+        // Skip the header and the records before the corrupted one, and overwrite the
+        // start of its entry with a malformed varint
+        final int overwriteBytes = 16;
+        try (RandomAccessFile file = new RandomAccessFile(logDir + File.separator + "0.log", "rw")) {
+            long position = 0;
+            for (long record = -1; record < corruptedAddress; record++) {
+                ByteBuffer metaDataBuf = ByteBuffer.allocate(METADATA_SIZE);
+                file.getChannel().read(metaDataBuf, position);
+                position += METADATA_SIZE + Metadata.parseFrom(metaDataBuf.array()).getLength();
+            }
+            file.seek(position + METADATA_SIZE);
+            for (int i = 0; i < overwriteBytes; i++) {
+                file.writeByte(0xFF);
+            }
+        }
+
+        List<Long> addresses = new ArrayList<>();
+        for (long address = 0; address < numEntries; address++) {
+            addresses.add(address);
+        }
+        BulkReadResult result = log.readAll(addresses);
+        assertThat(result.getCorruptedAddresses()).containsExactly(corruptedAddress);
+        Map<Long, LogData> entries = result.getEntries();
+        assertThat(entries).doesNotContainKey(corruptedAddress);
+        assertThat(entries).hasSize((int) numEntries - 1);
+        for (long address : entries.keySet()) {
+            assertThat(entries.get(address).getPayload(null)).isEqualTo("Payload".getBytes());
+        }
+
+        // Reading the address on its own reports the same corruption
+        assertThatThrownBy(() -> log.read(corruptedAddress)).isInstanceOf(DataCorruptionException.class);
+    }
+
     private void writeToLog(StreamLog log, long address) {
         ByteBuf b = Unpooled.buffer();
         byte[] streamEntry = "Payload".getBytes();
@@ -461,7 +877,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
 
         File logs = new File(logDir);
 
-        assertThat((long) logs.list().length).isEqualTo(numSegments * filesPerSegment);
+        assertThat((long) listSegmentFiles(logs).length).isEqualTo(numSegments * filesPerSegment);
 
         final long endSegment = 25;
         long trimAddress = endSegment * StreamLogFiles.RECORDS_PER_LOG_FILE + 1;
@@ -481,7 +897,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(((StreamLogFiles)log).getSegmentHandles().size()).isEqualTo((int) endSegment);
 
         // Verify that first 25 segments have been deleted
-        String[] afterTrimFiles = logs.list();
+        String[] afterTrimFiles = listSegmentFiles(logs);
         assertThat(afterTrimFiles).hasSize((int)((numSegments - endSegment + 1) * filesPerSegment));
 
         Set<String> fileNames = new HashSet(Arrays.asList(afterTrimFiles));
@@ -513,6 +929,101 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(trimmedExceptions).isEqualTo(trimAddress + 1);
     }
 
+    /**
+     * Test that the compaction rewrites the live records of mostly trimmed segments.
+     */
+    @Test
+    public void testSegmentCompaction() throws Exception {
+        String logDir = getContext().getServerConfig().get("--log-path") + File.separator + "log";
+        StreamLogFiles log = new StreamLogFiles(getContext(), false);
+
+        // Fill three segments and start the fourth one
+        final long numSegments = 3;
+        final long tail = numSegments * RECORDS_PER_LOG_FILE;
+        for (long x = 0; x <= tail; x++) {
+            writeToLog(log, x);
+        }
+
+        File segment0 = new File(logDir, "0.log");
+        File segment1 = new File(logDir, "1.log");
+        File segment2 = new File(logDir, "2.log");
+        final long segment1Size = segment1.length();
+        final long segment2Size = segment2.length();
+
+        // Trim most of the second segment
+        final long trimMark = RECORDS_PER_LOG_FILE + RECORDS_PER_LOG_FILE * 3 / 4;
+        log.prefixTrim(trimMark);
+        log.compact();
+
+        // The first two segments are mostly trimmed and rewritten, the third one is left as is
+        assertThat(segment0.length()).isLessThan(segment1Size / RECORDS_PER_LOG_FILE);
+        assertThat(segment1.length()).isLessThan(segment1Size / 2);
+        assertThat(segment2.length()).isEqualTo(segment2Size);
+        // The index files of the rewritten segments are deleted
+        assertThat(new File(logDir).list()).containsOnly("0.log", "1.log", "2.log", "2.idx", "3.log");
+
+        final byte[] payload = "Payload".getBytes();
+        for (long x = 0; x <= tail; x++) {
+            if (x <= trimMark) {
+                assertThat(log.read(x).isTrimmed()).isTrue();
+            } else {
+                assertThat(log.read(x).getPayload(null)).isEqualTo(payload);
+            }
+        }
+
+        // The rewritten segments still reject overwrites and nothing is left to compact
+        assertThatThrownBy(() -> writeToLog(log, trimMark + 1)).isInstanceOf(OverwriteException.class);
+        assertThat(log.compactSegments()).isZero();
+        log.close();
+
+        StreamLogFiles log2 = new StreamLogFiles(getContext(), false);
+        assertThat(log2.getLogTail()).isEqualTo(tail);
+        for (long x = trimMark + 1; x <= tail; x++) {
+            assertThat(log2.read(x).getPayload(null)).isEqualTo(payload);
+        }
+    }
+
+    /**
+     * Test that holes are kept by the compaction, but don't count as live records.
+     */
+    @Test
+    public void testSegmentCompactionOfHoles() throws Exception {
+        String logDir = getContext().getServerConfig().get("--log-path") + File.separator + "log";
+        StreamLogFiles log = new StreamLogFiles(getContext(), false);
+
+        // Fill the first segment with records followed by holes, and start the second one
+        final long firstHole = RECORDS_PER_LOG_FILE / 2;
+        for (long x = 0; x < firstHole; x++) {
+            writeToLog(log, x);
+        }
+        for (long x = firstHole; x < RECORDS_PER_LOG_FILE; x++) {
+            log.append(x, LogData.getHole(x));
+        }
+        writeToLog(log, RECORDS_PER_LOG_FILE);
+
+        File segment0 = new File(logDir, "0.log");
+        final long segment0Size = segment0.length();
+
+        // The records left above the trim mark take less than half of the segment
+        final long trimMark = RECORDS_PER_LOG_FILE / 4;
+        log.prefixTrim(trimMark);
+        log.compact();
+        assertThat(segment0.length()).isLessThan(segment0Size);
+
+        for (long x = trimMark + 1; x < RECORDS_PER_LOG_FILE; x++) {
+            assertThat(log.read(x).isHole()).isEqualTo(x >= firstHole);
+        }
+
+        // The holes still reject overwrites, and a segment of holes isn't rewritten again
+        assertThatThrownBy(() -> writeToLog(log, firstHole)).isInstanceOf(OverwriteException.class);
+        log.prefixTrim(firstHole - 1);
+        log.compact();
+        final long holesSize = segment0.length();
+        assertThat(log.compactSegments()).isZero();
+        assertThat(segment0.length()).isEqualTo(holesSize);
+        log.close();
+    }
+
     @Test
     public void testPrefixTrimAndStartUp() {
         StreamLog log = new StreamLogFiles(getContext(), false);
@@ -547,7 +1058,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
 
         File logs = new File(logDir);
         final int lastTwoSegmentsFiles = 2;
-        assertThat(logs.list()).hasSize(lastTwoSegmentsFiles);
+        assertThat(listSegmentFiles(logs)).hasSize(lastTwoSegmentsFiles);
     }
 
     /**
@@ -572,7 +1083,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         final int expectedFilesBeforeReset = (int) (numSegments - filesToBeTrimmed);
         final long globalTailBeforeReset = (RECORDS_PER_LOG_FILE * numSegments) - 1;
         final long trimMarkBeforeReset = (RECORDS_PER_LOG_FILE * (filesToBeTrimmed + 1)) + 1;
-        assertThat(logsDir.list()).hasSize(expectedFilesBeforeReset);
+        assertThat(listSegmentFiles(logsDir)).hasSize(expectedFilesBeforeReset);
         assertThat(log.getLogTail()).isEqualTo(globalTailBeforeReset);
         assertThat(log.getTrimMark()).isEqualTo(trimMarkBeforeReset);
 
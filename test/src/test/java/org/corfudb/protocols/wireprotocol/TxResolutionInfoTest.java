@@ -0,0 +1,50 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.corfudb.runtime.exceptions.SerializerException;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TxResolutionInfoTest {
+
+    @Test
+    public void conflictHashesAreSerialized() {
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("streamB".getBytes());
+        final long[] readHashes = {0L, 1L, Long.MAX_VALUE};
+        final long[] writeHashes = {Long.MIN_VALUE};
+
+        TxResolutionInfo txInfo = new TxResolutionInfo(UUID.randomUUID(), new Token(1L, 2L),
+                Collections.singletonMap(streamA, readHashes),
+                Collections.singletonMap(streamB, writeHashes));
+        ByteBuf buf = Unpooled.buffer();
+        txInfo.doSerialize(buf);
+        TxResolutionInfo deserialized = new TxResolutionInfo(buf);
+
+        // The whole serialized form is consumed
+        assertThat(buf.readableBytes()).isZero();
+        assertThat(deserialized.getTXid()).isEqualTo(txInfo.getTXid());
+        assertThat(deserialized.getSnapshotTimestamp()).isEqualTo(new Token(1L, 2L));
+        Map<UUID, long[]> conflictSet = deserialized.getConflictSet();
+        assertThat(conflictSet.keySet()).containsExactly(streamA);
+        assertThat(conflictSet.get(streamA)).containsExactly(readHashes);
+        assertThat(deserialized.getWriteConflictParams().get(streamB)).containsExactly(writeHashes);
+    }
+
+    @Test
+    public void unknownFormatIsRejected() {
+        ByteBuf buf = Unpooled.buffer();
+        new TxResolutionInfo(UUID.randomUUID(), new Token(1L, 2L)).doSerialize(buf);
+        buf.setByte(0, TxResolutionInfo.FORMAT_VERSION + 1);
+
+        assertThatThrownBy(() -> new TxResolutionInfo(buf))
+                .isInstanceOf(SerializerException.class);
+    }
+}
@@ -155,6 +155,37 @@ public class FastObjectLoaderTest extends AbstractViewTest {
         assertThatMapsAreBuilt(rt2);
     }
 
+    /** Test that the maps are reloaded by the parallel loader, from checkpoints
+     * and from transactions which update several maps.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void canReloadMapsInParallel() throws Exception {
+        populateMaps(MORE, getDefaultRuntime(), CorfuTable.class, true, 2);
+        checkPointAll(getDefaultRuntime());
+        populateMaps(MORE, getDefaultRuntime(), CorfuTable.class, false, 2);
+
+        getDefaultRuntime().getObjectsView().TXBegin();
+        maps.get("Map1").put("k1", "v1");
+        maps.get("Map3").put("k3", "v3");
+        getDefaultRuntime().getObjectsView().TXEnd();
+
+        // We need to read the maps to get to the current version
+        maps.values().forEach(Map::size);
+
+        CorfuRuntime rt2 = new CorfuRuntime(getDefaultConfigurationString()).connect();
+        FastObjectLoader loader = new FastObjectLoader(rt2)
+                .setDefaultObjectsType(CorfuTable.class)
+                .setParallelLoading(true)
+                .setBatchReadSize(2);
+        loader.setNumOfWorkers(2);
+        loader.loadMaps();
+
+        assertThatMapsAreBuilt(rt2);
+        assertThatObjectCacheIsTheSameSize(getDefaultRuntime(), rt2);
+    }
+
     @Test
     public void canReadWithCacheDisable() throws Exception {
         populateMaps(1, getDefaultRuntime(), CorfuTable.class, true,2);
@@ -2,14 +2,19 @@ package org.corfudb.runtime.checkpoint;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.reflect.TypeToken;
 
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -577,6 +582,180 @@ public class CheckpointSmokeTest extends AbstractViewTest {
         }
     }
 
+    /** Incremental checkpoints only record the keys updated since the previous
+     *  checkpoint, and a new runtime rebuilds the map from the full checkpoint
+     *  and the incremental ones, even after the log is trimmed.
+     */
+    @Test
+    public void incrementalCheckpointTest() throws Exception {
+        final String streamName = "incremental";
+        final UUID streamId = CorfuRuntime.getStreamID(streamName);
+        final String author = "CPWriter";
+        final int numKeys = 10;
+        final long updatedValue = 100L;
+
+        Map<String, Long> m = instantiateMap(streamName);
+        for (int i = 0; i < numKeys; i++) {
+            m.put(Integer.toString(i), (long) i);
+        }
+
+        List<SMREntry> fullUpdates = new ArrayList<>();
+        CheckpointWriter cpw1 = new CheckpointWriter(r, streamId, author, (SMRMap) m);
+        cpw1.setSerializer(serializer);
+        cpw1.setMaxIncrementalCheckpoints(1);
+        cpw1.setPostAppendFunc(collectUpdates(streamId, fullUpdates));
+        Token fullSnapshot = cpw1.appendCheckpoint();
+        assertThat(fullUpdates).hasSize(numKeys);
+
+        m.put("1", updatedValue);
+        m.remove("2");
+        m.put(Integer.toString(numKeys), (long) numKeys);
+
+        List<SMREntry> incrementalUpdates = new ArrayList<>();
+        CheckpointWriter cpw2 = new CheckpointWriter(r, streamId, author, (SMRMap) m);
+        cpw2.setSerializer(serializer);
+        cpw2.setMaxIncrementalCheckpoints(1);
+        cpw2.setPostAppendFunc(collectUpdates(streamId, incrementalUpdates));
+        // The log can't be trimmed past the full checkpoint
+        assertThat(cpw2.appendCheckpoint()).isEqualTo(fullSnapshot);
+        assertThat(incrementalUpdates).extracting(SMREntry::getSMRMethod)
+                .containsExactlyInAnyOrder("put", "remove", "put");
+
+        r.getAddressSpaceView().prefixTrim(fullSnapshot);
+        r.getAddressSpaceView().gc();
+        r.getAddressSpaceView().invalidateServerCaches();
+        r.getAddressSpaceView().invalidateClientCache();
+
+        setRuntime();
+        Map<String, Long> m2 = instantiateMap(streamName);
+        assertThat(m2).hasSize(numKeys);
+        assertThat(m2.get("1")).isEqualTo(updatedValue);
+        assertThat(m2).doesNotContainKey("2");
+        assertThat(m2.get(Integer.toString(numKeys))).isEqualTo((long) numKeys);
+
+        // A third checkpoint is a full one again
+        List<SMREntry> nextUpdates = new ArrayList<>();
+        CheckpointWriter cpw3 = new CheckpointWriter(r, streamId, author, (SMRMap) m2);
+        cpw3.setSerializer(serializer);
+        cpw3.setMaxIncrementalCheckpoints(1);
+        cpw3.setPostAppendFunc(collectUpdates(streamId, nextUpdates));
+        assertThat(cpw3.appendCheckpoint()).isGreaterThan(fullSnapshot);
+        assertThat(nextUpdates).hasSize(numKeys);
+    }
+
+    /** CONTINUATION records are sized by the serialized size of their entries.
+     */
+    @Test
+    public void checkpointBatchesAreSizedByBytes() throws Exception {
+        final String streamName = "sized";
+        final UUID streamId = CorfuRuntime.getStreamID(streamName);
+        final int numKeys = 100;
+        final int maxBatchBytes = 512;
+
+        Map<String, Long> m = instantiateMap(streamName);
+        for (int i = 0; i < numKeys; i++) {
+            m.put(Integer.toString(i), (long) i);
+        }
+
+        List<CheckpointEntry> continuations = new ArrayList<>();
+        CheckpointWriter cpw = new CheckpointWriter(r, streamId, "CPWriter", (SMRMap) m);
+        cpw.setSerializer(serializer);
+        cpw.setMaxBatchBytes(maxBatchBytes);
+        cpw.setPostAppendFunc((cp, address) -> {
+            if (cp.getCpType() == CheckpointEntry.CheckpointEntryType.CONTINUATION) {
+                continuations.add(cp);
+            }
+        });
+        cpw.appendCheckpoint();
+
+        assertThat(continuations.size()).isGreaterThan(1);
+        // The entries, after the type and count of the MultiSMREntry
+        assertThat(continuations).allMatch(cp ->
+                cp.getSmrEntriesBytes() <= Byte.BYTES + Integer.BYTES + maxBatchBytes);
+        assertThat(cpw.getNumUpdates()).isEqualTo(numKeys);
+
+        setRuntime();
+        Map<String, Long> m2 = instantiateMap(streamName);
+        assertThat(m2).hasSize(numKeys);
+    }
+
+    /** A streaming checkpoint holds at most the record being built, the one being
+     *  appended and the last serialized update, whatever the size of the map.
+     */
+    @Test
+    public void streamingCheckpointHoldsBoundedBuffers() throws Exception {
+        final int smallMap = 200;
+        final int largeMap = 2000;
+        final int maxBatchBytes = 1024;
+        // Two records, and the buffer of the last update, smaller than a record
+        final long maxBufferedBytes = 3L * maxBatchBytes;
+
+        for (int numKeys : new int[]{smallMap, largeMap}) {
+            final String streamName = "streaming" + numKeys;
+            final UUID streamId = CorfuRuntime.getStreamID(streamName);
+            Map<String, Long> m = instantiateMap(streamName);
+            for (int i = 0; i < numKeys; i++) {
+                m.put(Integer.toString(i), (long) i);
+            }
+
+            CheckpointWriter cpw = new CheckpointWriter(r, streamId, "CPWriter", (SMRMap) m);
+            cpw.setSerializer(serializer);
+            cpw.setMaxBatchBytes(maxBatchBytes);
+            cpw.setStreaming(true);
+            cpw.appendCheckpoint();
+
+            assertThat(cpw.getNumUpdates()).isEqualTo(numKeys);
+            assertThat(cpw.getMaxBufferedBytes()).isBetween(1L, maxBufferedBytes);
+
+            setRuntime();
+            Map<String, Long> m2 = instantiateMap(streamName);
+            assertThat(m2).hasSize(numKeys);
+            assertThat(m2.get(Integer.toString(numKeys - 1))).isEqualTo((long) (numKeys - 1));
+        }
+    }
+
+    /** The pooled memory used while streaming the checkpoint of a map several chunks
+     *  large grows by less than the size of the map.
+     */
+    @Test
+    public void streamingCheckpointBoundsPooledMemory() throws Exception {
+        final PooledByteBufAllocatorMetric metric = PooledByteBufAllocator.DEFAULT.metric();
+        final int numKeys = 64;
+        final int mapChunks = 4;
+        final int maxGrowthChunks = 2;
+        final int keySize = mapChunks * metric.chunkSize() / numKeys;
+        final String streamName = "streamingPooled";
+        final UUID streamId = CorfuRuntime.getStreamID(streamName);
+
+        Map<String, Long> m = instantiateMap(streamName);
+        final String padding = Strings.repeat("k", keySize);
+        for (int i = 0; i < numKeys; i++) {
+            m.put(i + padding, (long) i);
+        }
+
+        final long usedBefore = metric.usedHeapMemory() + metric.usedDirectMemory();
+        final AtomicLong maxUsed = new AtomicLong(usedBefore);
+        CheckpointWriter cpw = new CheckpointWriter(r, streamId, "CPWriter", (SMRMap) m);
+        cpw.setSerializer(serializer);
+        cpw.setMaxBatchBytes(keySize);
+        cpw.setStreaming(true);
+        cpw.setPostAppendFunc((cp, address) -> maxUsed.accumulateAndGet(
+                metric.usedHeapMemory() + metric.usedDirectMemory(), Math::max));
+        cpw.appendCheckpoint();
+
+        assertThat(cpw.getNumUpdates()).isEqualTo(numKeys);
+        assertThat(maxUsed.get() - usedBefore)
+                .isLessThan((long) maxGrowthChunks * metric.chunkSize());
+    }
+
+    private BiConsumer<CheckpointEntry, Long> collectUpdates(UUID streamId, List<SMREntry> updates) {
+        return (cp, address) -> {
+            if (cp.getSmrEntries() != null) {
+                updates.addAll(cp.getSmrEntries().getSMRUpdates(streamId));
+            }
+        };
+    }
+
     @Test
     public void emptyCheckPoint() throws Exception {
         final String streamA = "streamA";
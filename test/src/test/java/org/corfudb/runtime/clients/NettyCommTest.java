@@ -1,18 +1,27 @@
 package org.corfudb.runtime.clients;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.codahale.metrics.Histogram;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.AbstractCorfuTest;
+import org.corfudb.comm.InProcessEndpoints;
 import org.corfudb.infrastructure.BaseServer;
 import org.corfudb.infrastructure.CorfuServerNode;
 import org.corfudb.infrastructure.NettyServerRouter;
 import org.corfudb.infrastructure.ServerContext;
 import org.corfudb.infrastructure.ServerContextBuilder;
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.MsgHandlingFilter;
+import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.CorfuRuntime.CorfuRuntimeParameters;
+import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.NodeLocator;
 import org.junit.Rule;
 import org.junit.Test;
@@ -24,8 +33,13 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Created by mwei on 3/28/16.
@@ -257,6 +271,108 @@ public class NettyCommTest extends AbstractCorfuTest {
             });
     }
 
+    /**
+     * Concurrent requests on a router that pipelines requests are all answered, and
+     * the flushes of the requests are recorded in the batching histogram.
+     */
+    @Test
+    public void nettyServerClientPipelinedRequests() throws Exception {
+        runWithBaseServer(
+            (port) -> {
+                return new NettyServerData(ServerContextBuilder.defaultContext(port));
+            },
+            (port) -> {
+                return new NettyClientRouter(
+                    NodeLocator.builder().host("localhost").port(port).build(),
+                    CorfuRuntimeParameters.builder()
+                        .requestPipeliningEnabled(true)
+                        .build());
+            },
+            (r, d) -> {
+                Histogram batchSizes = CorfuRuntime.getDefaultMetrics().histogram(
+                        CorfuComponent.CLIENT_ROUTER + "flush-batch."
+                                + NodeLocator.getLegacyEndpoint(r.getNode()));
+                final long flushes = batchSizes.getCount();
+
+                List<CompletableFuture<Boolean>> pings = new ArrayList<>();
+                for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_MODERATE; i++) {
+                    pings.add(getBaseClient(r).ping());
+                }
+                for (CompletableFuture<Boolean> ping : pings) {
+                    assertThat(ping.join()).isTrue();
+                }
+
+                assertThat(batchSizes.getCount()).isGreaterThan(flushes);
+                assertThat(r.outstandingRequests).isEmpty();
+            });
+    }
+
+    /**
+     * Pipelined requests which are never answered are expired by the shared timer with
+     * a {@link TimeoutException}, and are no longer outstanding.
+     */
+    @Test
+    public void nettyServerClientPipelinedRequestsTimeout() throws Exception {
+        // Drop every response to a ping
+        final Function<CorfuMsg, CorfuMsg> dropPong = m -> m.getMsgType() == CorfuMsgType.PONG ? null : m;
+        runWithBaseServer(
+            (port) -> {
+                return new NettyServerData(ServerContextBuilder.defaultContext(port));
+            },
+            (port) -> {
+                return new NettyClientRouter(
+                    NodeLocator.builder().host("localhost").port(port).build(),
+                    CorfuRuntimeParameters.builder()
+                        .requestPipeliningEnabled(true)
+                        .requestTimeout(PARAMETERS.TIMEOUT_VERY_SHORT)
+                        .nettyClientInboundMsgFilters(Collections.singletonList(
+                                new MsgHandlingFilter(m -> true, dropPong)))
+                        .build());
+            },
+            (r, d) -> {
+                List<CompletableFuture<Boolean>> pings = new ArrayList<>();
+                for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW; i++) {
+                    pings.add(getBaseClient(r).ping());
+                }
+                for (CompletableFuture<Boolean> ping : pings) {
+                    assertThatThrownBy(ping::join).hasCauseInstanceOf(TimeoutException.class);
+                }
+                assertThat(r.outstandingRequests).isEmpty();
+            });
+    }
+
+    /**
+     * A router to a server of this process reaches it over an in-JVM channel, which
+     * keeps working once the TCP channel of the server is closed.
+     */
+    @Test
+    public void nettyServerClientInProcess() throws Exception {
+        int port = findRandomOpenPort();
+        NettyServerData d = new NettyServerData(new ServerContextBuilder()
+                .setImplementation("auto")
+                .setAddress("localhost")
+                .setPort(port)
+                .build());
+        d.bootstrapServer();
+        d.bootstrapLocalServer();
+
+        NettyClientRouter r = new NettyClientRouter(
+                NodeLocator.builder().host("localhost").port(port).build(),
+                CorfuRuntimeParameters.builder()
+                        .inProcessTransportEnabled(true)
+                        .build());
+        try {
+            assertThat(r.isInProcess()).isTrue();
+            assertThat(getBaseClient(r).pingSync()).isTrue();
+
+            d.shutdownServer();
+            assertThat(getBaseClient(r).pingSync()).isTrue();
+        } finally {
+            r.stop();
+            d.shutdownLocalServer();
+        }
+    }
+
     @Test
     public void nettySasl() throws Exception {
         runWithBaseServer(
@@ -543,10 +659,14 @@ public class NettyCommTest extends AbstractCorfuTest {
             this.serverContext = context;
         }
 
+        CorfuServerNode corfuServerNode;
+        NettyServerRouter nsr;
+        Channel localChannel;
+
         void bootstrapServer() {
             BaseServer baseServer = new BaseServer(serverContext);
-            NettyServerRouter nsr = new NettyServerRouter(Collections.singletonList(baseServer));
-            CorfuServerNode corfuServerNode = new CorfuServerNode(serverContext,
+            nsr = new NettyServerRouter(Collections.singletonList(baseServer));
+            corfuServerNode = new CorfuServerNode(serverContext,
                     Collections.singletonMap(BaseServer.class, baseServer));
             f = corfuServerNode.bindServer(serverContext.getBossGroup(),
                     serverContext.getWorkerGroup(),
@@ -557,9 +677,21 @@ public class NettyCommTest extends AbstractCorfuTest {
                     serverContext.getServerConfig(Integer.class, "<port>"));
         }
 
+        void bootstrapLocalServer() {
+            localChannel = corfuServerNode.bindLocalServer(serverContext.getBossGroup(),
+                    serverContext.getWorkerGroup(),
+                    serverContext,
+                    nsr);
+        }
+
         void shutdownServer() {
             f.channel().close().awaitUninterruptibly();
         }
 
+        void shutdownLocalServer() {
+            InProcessEndpoints.unregister(address + ":" + serverContext.getServerConfig(Integer.class, "<port>"));
+            localChannel.close().awaitUninterruptibly();
+        }
+
     }
 }
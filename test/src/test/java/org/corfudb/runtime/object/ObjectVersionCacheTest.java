@@ -0,0 +1,53 @@
+package org.corfudb.runtime.object;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests the versions kept by objects for snapshot reads.
+ */
+public class ObjectVersionCacheTest {
+
+    @Test
+    public void versionsAreOnlyReadAtValidSnapshots() {
+        ObjectVersionCache<String> versions = new ObjectVersionCache<>(2);
+        // An object last updated at 5, synced up to 7
+        versions.put(5L, 7L, () -> "v5");
+
+        assertThat(versions.get(4L)).isNull();
+        assertThat(versions.get(5L)).isEqualTo("v5");
+        assertThat(versions.get(7L)).isEqualTo("v5");
+        assertThat(versions.get(8L)).isNull();
+
+        // Syncing the same version further extends it, without copying it again
+        versions.put(5L, 9L, () -> "copy");
+        assertThat(versions.get(8L)).isEqualTo("v5");
+        assertThat(versions.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void leastRecentlyReadVersionIsEvicted() {
+        ObjectVersionCache<String> versions = new ObjectVersionCache<>(2);
+        versions.put(1L, 1L, () -> "v1");
+        versions.put(2L, 2L, () -> "v2");
+        assertThat(versions.get(1L)).isEqualTo("v1");
+
+        versions.put(3L, 3L, () -> "v3");
+        assertThat(versions.size()).isEqualTo(2);
+        assertThat(versions.get(1L)).isEqualTo("v1");
+        assertThat(versions.get(2L)).isNull();
+        assertThat(versions.get(3L)).isEqualTo("v3");
+    }
+
+    @Test
+    public void gcRemovesTrimmedVersions() {
+        ObjectVersionCache<String> versions = new ObjectVersionCache<>(2);
+        versions.put(1L, 2L, () -> "v1");
+        versions.put(3L, 4L, () -> "v3");
+
+        versions.gc(3L);
+        assertThat(versions.get(2L)).isNull();
+        assertThat(versions.get(4L)).isEqualTo("v3");
+    }
+}
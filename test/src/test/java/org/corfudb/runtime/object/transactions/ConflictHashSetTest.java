@@ -0,0 +1,58 @@
+package org.corfudb.runtime.object.transactions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.corfudb.AbstractCorfuTest;
+import org.junit.Test;
+
+/**
+ * Tests the primitive sets of conflict parameter hashes.
+ */
+public class ConflictHashSetTest extends AbstractCorfuTest {
+
+    @Test
+    public void hashesAreDeduplicated() {
+        ConflictHashSet hashes = new ConflictHashSet();
+
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW; i++) {
+            assertThat(hashes.add(i)).isTrue();
+        }
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW; i++) {
+            assertThat(hashes.add(i)).isFalse();
+        }
+
+        assertThat(hashes.size()).isEqualTo(PARAMETERS.NUM_ITERATIONS_LOW);
+        assertThat(hashes.contains(0L)).isTrue();
+        assertThat(hashes.contains(PARAMETERS.NUM_ITERATIONS_LOW)).isFalse();
+        assertThat(hashes.toArray()).hasSize(PARAMETERS.NUM_ITERATIONS_LOW)
+                .contains(0L, PARAMETERS.NUM_ITERATIONS_LOW - 1L);
+    }
+
+    @Test
+    public void mergedSetsHoldAllHashes() {
+        final long[] first = {0L, 1L, Long.MIN_VALUE};
+        final long[] second = {1L, 2L, Long.MAX_VALUE};
+        ConflictHashSet hashes = new ConflictHashSet();
+        ConflictHashSet other = new ConflictHashSet();
+        for (long hash : first) {
+            hashes.add(hash);
+        }
+        for (long hash : second) {
+            other.add(hash);
+        }
+
+        hashes.addAll(other);
+        assertThat(hashes.toArray())
+                .containsExactlyInAnyOrder(0L, 1L, 2L, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void emptySet() {
+        ConflictHashSet hashes = new ConflictHashSet();
+
+        assertThat(hashes.size()).isZero();
+        assertThat(hashes.contains(0L)).isFalse();
+        assertThat(hashes.contains(1L)).isFalse();
+        assertThat(hashes.toArray()).isEmpty();
+    }
+}
@@ -7,7 +7,6 @@ import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -21,6 +20,8 @@ import org.corfudb.runtime.collections.SMRMap;
 import org.corfudb.runtime.exceptions.AbortCause;
 import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.object.ConflictParameterClass;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
 import org.corfudb.runtime.view.Layout;
 import org.corfudb.util.serializer.ICorfuHashable;
 import org.corfudb.util.serializer.Serializers;
@@ -62,21 +63,17 @@ public class OptimisticTransactionContextTest extends AbstractTransactionContext
         testObject.mutatorAccessorTest(TEST_4, TEST_5);
 
         // Assert that the conflict set contains TEST_0, TEST_4
-        assertThat(TransactionalContext.getCurrentContext()
-                .getReadSetInfo().getConflicts()
-                .values()
-                .stream()
-                .flatMap(x -> x.stream())
-                .collect(Collectors.toList()))
-                .contains(TEST_0, TEST_4);
+        final ICorfuSMRProxyInternal proxy = (ICorfuSMRProxyInternal)
+                ((ICorfuSMR) testObject).getCorfuSMRProxy();
+        final ConflictSetInfo readSet = TransactionalContext.getCurrentContext()
+                .getReadSetInfo();
+        assertThat(readSet.conflictsWith(proxy, TEST_0)).isTrue();
+        assertThat(readSet.conflictsWith(proxy, TEST_4)).isTrue();
 
         // in optimistic mode, assert that the conflict set does NOT contain TEST_2, TEST_3
-        assertThat(TransactionalContext.getCurrentContext()
-                .getReadSetInfo()
-                .getConflicts().values().stream()
-                .flatMap(x -> x.stream())
-                .collect(Collectors.toList()))
-                .doesNotContain(TEST_2, TEST_3, TEST_5);
+        assertThat(readSet.conflictsWith(proxy, TEST_2)).isFalse();
+        assertThat(readSet.conflictsWith(proxy, TEST_3)).isFalse();
+        assertThat(readSet.conflictsWith(proxy, TEST_5)).isFalse();
 
         getRuntime().getObjectsView().TXAbort();
     }
@@ -2,8 +2,6 @@ package org.corfudb.runtime.object.transactions;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-import com.github.benmanes.caffeine.cache.CacheWriter;
-import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.google.common.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.SequencerServer;
@@ -12,13 +10,12 @@ import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.collections.SMRMap;
 import org.corfudb.runtime.object.AbstractObjectTest;
+import org.corfudb.runtime.view.Address;
 import org.junit.Test;
 
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Created by maithem on 7/24/17.
@@ -60,20 +57,7 @@ public class SequencerServerCacheTest extends AbstractObjectTest {
      */
     @Test
     public void testCache() {
-        final AtomicBoolean criticalVariable = new AtomicBoolean();
-
-        SequencerServerCache cache = new SequencerServerCache(1, new CacheWriter<ConflictTxStream, Long>() {
-            @Override
-            public void write(@Nonnull ConflictTxStream key, @Nonnull Long value) {
-                log.info("Write: [{}, {}]. Thread: {}", key, value, Thread.currentThread().getName());
-            }
-
-            @Override
-            public void delete(@Nonnull ConflictTxStream key, @Nullable Long value, @Nonnull RemovalCause cause) {
-                log.info("Delete record: {}. Thread: {}", key, Thread.currentThread().getName());
-                criticalVariable.set(true);
-            }
-        });
+        SequencerServerCache cache = new SequencerServerCache(1);
 
         final ConflictTxStream firstKey = new ConflictTxStream(UUID.randomUUID(), new byte[]{});
         final ConflictTxStream secondKey = new ConflictTxStream(UUID.randomUUID(), new byte[]{});
@@ -82,16 +66,131 @@ public class SequencerServerCacheTest extends AbstractObjectTest {
         final int iterations = 10;
 
         for (int i = 0; i < iterations; i++) {
-            criticalVariable.set(false);
+            cache.updateMaxConflictAddress(Address.NOT_FOUND);
 
             cache.put(firstKey, firstValue);
             cache.put(secondKey, secondValue);
 
+            // The evicted entry is reflected by the wildcard
             assertThat(cache.size()).isOne();
             assertThat(cache.getIfPresent(firstKey)).isNull();
+            assertThat(cache.getIfPresent(secondKey)).isEqualTo(secondValue);
+            assertThat(cache.getMaxConflictWildcard()).isEqualTo(firstValue);
 
             cache.invalidateAll();
             assertThat(cache.size()).isZero();
+            assertThat(cache.getMaxConflictWildcard()).isEqualTo(secondValue);
         }
     }
+
+    /**
+     * Entries are evicted in the order of their addresses, and updating an entry
+     * moves it to the end of the eviction order.
+     */
+    @Test
+    public void testEvictionOrder() {
+        final int cacheSize = 10;
+        final UUID streamId = UUID.randomUUID();
+        SequencerServerCache cache = new SequencerServerCache(cacheSize);
+
+        for (int i = 0; i < cacheSize; i++) {
+            cache.put(streamId, new byte[]{(byte) i}, i);
+        }
+
+        // Update the first key, the second one is now the oldest entry
+        cache.put(streamId, new byte[]{0}, cacheSize);
+        cache.put(streamId, new byte[]{(byte) cacheSize}, cacheSize + 1);
+
+        assertThat(cache.size()).isEqualTo(cacheSize);
+        assertThat(cache.get(streamId, new byte[]{0})).isEqualTo(cacheSize);
+        assertThat(cache.get(streamId, new byte[]{1})).isEqualTo(Address.NON_ADDRESS);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(1L);
+
+        // Trimming only invalidates the entries below the trim mark
+        final long trimMark = cacheSize / 2;
+        cache.invalidateUpTo(trimMark);
+        // The keys 2 to trimMark - 1 are invalidated
+        assertThat(cache.size()).isEqualTo(cacheSize - (trimMark - 2));
+        for (int i = 2; i < trimMark; i++) {
+            assertThat(cache.get(streamId, new byte[]{(byte) i})).isEqualTo(Address.NON_ADDRESS);
+        }
+        assertThat(cache.get(streamId, new byte[]{0})).isEqualTo(cacheSize);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(trimMark - 1);
+    }
+
+    /**
+     * Entries updated out of address order are still evicted in address order, and
+     * updating the same entries many times doesn't evict any of them.
+     */
+    @Test
+    public void testEvictionOfOutOfOrderUpdates() {
+        final int cacheSize = 4;
+        final UUID streamId = UUID.randomUUID();
+        SequencerServerCache cache = new SequencerServerCache(cacheSize);
+
+        final int numUpdates = cacheSize * 10;
+        for (int i = 0; i < numUpdates; i++) {
+            cache.put(streamId, new byte[]{(byte) (i % cacheSize)}, i);
+        }
+        assertThat(cache.size()).isEqualTo(cacheSize);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(Address.NOT_FOUND);
+
+        // The addresses are put in reverse order, the lowest one is evicted
+        final long base = numUpdates * 2;
+        cache.put(streamId, new byte[]{(byte) (cacheSize + 1)}, base + 1);
+        cache.put(streamId, new byte[]{(byte) cacheSize}, base);
+        assertThat(cache.size()).isEqualTo(cacheSize);
+        assertThat(cache.get(streamId, new byte[]{(byte) cacheSize})).isEqualTo(base);
+        assertThat(cache.get(streamId, new byte[]{(byte) (cacheSize + 1)})).isEqualTo(base + 1);
+        assertThat(cache.get(streamId, new byte[]{0})).isEqualTo(Address.NON_ADDRESS);
+        assertThat(cache.get(streamId, new byte[]{1})).isEqualTo(Address.NON_ADDRESS);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(numUpdates - cacheSize + 1L);
+
+        // Trimming invalidates the entries below the trim mark, regardless of the update order
+        cache.invalidateUpTo(base + 1);
+        assertThat(cache.size()).isOne();
+        assertThat(cache.get(streamId, new byte[]{(byte) (cacheSize + 1)})).isEqualTo(base + 1);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(base);
+    }
+
+    /**
+     * Reports the throughput of commits that update several conflict parameters,
+     * and of the conflict checks that look them up.
+     */
+    @Test
+    public void testCacheThroughput() {
+        final int numStreams = 100;
+        final int paramsPerTx = 4;
+        final int numTxn = PARAMETERS.NUM_ITERATIONS_LARGE;
+        // Half of the updates are evicted
+        final int cacheSize = numTxn * paramsPerTx / 2;
+        SequencerServerCache cache = new SequencerServerCache(cacheSize);
+
+        UUID[] streams = new UUID[numStreams];
+        for (int i = 0; i < numStreams; i++) {
+            streams[i] = UUID.randomUUID();
+        }
+        byte[][] params = new byte[numTxn * paramsPerTx][];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = ByteBuffer.allocate(Long.BYTES * 4).putLong(i).array();
+        }
+
+        long startTime = System.currentTimeMillis();
+        for (int tx = 0; tx < numTxn; tx++) {
+            for (int i = 0; i < paramsPerTx; i++) {
+                cache.put(streams[tx % numStreams], params[tx * paramsPerTx + i], tx);
+            }
+        }
+        calculateRequestsPerSecond("PutPS", numTxn * paramsPerTx, startTime);
+
+        startTime = System.currentTimeMillis();
+        for (int tx = 0; tx < numTxn; tx++) {
+            for (int i = 0; i < paramsPerTx; i++) {
+                cache.get(streams[tx % numStreams], params[tx * paramsPerTx + i]);
+            }
+        }
+        calculateRequestsPerSecond("GetPS", numTxn * paramsPerTx, startTime);
+
+        assertThat(cache.size()).isEqualTo(cacheSize);
+    }
 }
@@ -1,7 +1,12 @@
 package org.corfudb.runtime.object.transactions;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import com.google.common.reflect.TypeToken;
 import org.corfudb.runtime.collections.SMRMap;
+import org.corfudb.runtime.object.CorfuCompileProxy;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.VersionLockedObject;
 import org.junit.Test;
 
 /**
@@ -65,6 +70,37 @@ public class SnapshotTransactionContextTest extends AbstractTransactionContextTe
         t2(this::TXEnd);
     }
 
+    /** Ensure that reading a snapshot again is served from a version of the
+     * object, without rolling the object back to the snapshot.
+     */
+    @Test
+    public void snapshotReadAgainDoesNotRollBackObject() {
+        final int maxObjectVersions = 4;
+        getRuntime().getParameters().setMaxObjectVersions(maxObjectVersions);
+        t1(() -> put("k" , "v1"));    // TS = 0
+        t1(() -> put("k" , "v2"));    // TS = 1
+        t1(() -> put("k" , "v3"));    // TS = 2
+        t1(() -> put("k" , "v4"));    // TS = 3
+
+        t1(this::SnapshotTXBegin);
+        t1(() -> get("k"))
+                .assertResult().isEqualTo("v3");
+        t1(this::TXEnd);
+
+        // Sync the object back to the tail
+        t1(() -> get("k"))
+                .assertResult().isEqualTo("v4");
+        VersionLockedObject<?> vlo = ((CorfuCompileProxy<?>) ((ICorfuSMR<?>) getMap())
+                .getCorfuSMRProxy()).getUnderlyingObject();
+        final long version = vlo.getVersionUnsafe();
+
+        t1(this::SnapshotTXBegin);
+        t1(() -> get("k"))
+                .assertResult().isEqualTo("v3");
+        t1(this::TXEnd);
+        assertThat(vlo.getVersionUnsafe()).isEqualTo(version);
+    }
+
     /* Test if we can have implicit nested transaction for SnapshotTransactions. */
     @Test
     public void testSnapshotTxNestedImplicitTx() {
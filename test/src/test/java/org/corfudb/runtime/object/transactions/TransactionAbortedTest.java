@@ -9,6 +9,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.collections.CorfuTable;
 import org.corfudb.runtime.exceptions.TransactionAbortedException;
+import org.corfudb.runtime.object.ICorfuSMR;
 import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
 import org.junit.Test;
 
@@ -69,7 +70,9 @@ public class TransactionAbortedTest extends AbstractTransactionContextTest {
 
                 // Ensure that the correct key is reported.
                 final ICorfuSMRProxyInternal proxyInternal =
-                        tae.getContext().getWriteSetInfo().getConflicts().keySet().stream().findFirst().get();
+                        (ICorfuSMRProxyInternal) ((ICorfuSMR) map).getCorfuSMRProxy();
+                assertThat(tae.getContext().getWriteSetInfo().conflictsWith(proxyInternal, key))
+                        .isTrue();
                 final byte[] keyHash = ConflictSetInfo.generateHashFromObject(proxyInternal, key);
                 assertThat(Arrays.equals(keyHash, tae.getConflictKey())).isTrue();
                 return true;
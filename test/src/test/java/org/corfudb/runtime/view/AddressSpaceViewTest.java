@@ -114,6 +114,48 @@ public class AddressSpaceViewTest extends AbstractViewTest {
         assertThat(clientCache.getIfPresent(2L)).isNotNull();
     }
 
+    /**
+     * Entries evicted from a weighted read cache are moved to its off-heap tier,
+     * and read back from it instead of from the log units.
+     */
+    @Test
+    public void testWeightedCacheWithOffHeapTier() {
+        final int payloadSize = 1000;
+        final int numEntries = PARAMETERS.NUM_ITERATIONS_LOW;
+        final int numCachedEntries = 10;
+        setupNodes();
+        CorfuRuntime rt = getNewRuntime(CorfuRuntime.CorfuRuntimeParameters.builder()
+                .maxCacheWeight(payloadSize * numCachedEntries)
+                .offHeapCacheSize(payloadSize * numEntries * 2)
+                .build())
+                .parseConfigurationString(getDefaultConfigurationString())
+                .connect();
+
+        for (int i = 0; i < numEntries; i++) {
+            byte[] payload = new byte[payloadSize];
+            payload[0] = (byte) i;
+            rt.getAddressSpaceView().write(rt.getSequencerView().next(), payload);
+        }
+
+        // The cache is bounded by the size of the entries rather than their number
+        Cache<Long, ILogData> clientCache = rt.getAddressSpaceView().getReadCache();
+        assertThat(clientCache.size()).isLessThan(numCachedEntries);
+        assertThat(clientCache.stats().evictionCount()).isGreaterThan(0L);
+        assertThat(rt.getAddressSpaceView().getOffHeapCache().getNumEntries())
+                .isEqualTo(numEntries - (int) clientCache.size());
+
+        // Evicted entries are decoded from the off-heap tier
+        for (long address = 0; address < numEntries; address++) {
+            byte[] payload = (byte[]) rt.getAddressSpaceView().read(address).getPayload(rt);
+            assertThat(payload).hasSize(payloadSize);
+            assertThat(payload[0]).isEqualTo((byte) address);
+        }
+
+        rt.getAddressSpaceView().invalidateClientCache();
+        assertThat(clientCache.size()).isZero();
+        assertThat(rt.getAddressSpaceView().getOffHeapCache().getNumEntries()).isZero();
+    }
+
     @Test
     public void testGetTrimMark() {
         setupNodes();
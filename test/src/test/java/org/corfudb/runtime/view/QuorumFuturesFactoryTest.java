@@ -260,4 +260,65 @@ public class QuorumFuturesFactoryTest extends AbstractCorfuTest {
         assertTrue(result.isConflict());
     }
 
+
+    @Test
+    public void testCompletableQuorumCompletesOnQuorum() throws Exception {
+        CompletableFuture<String> f1 = new CompletableFuture<>();
+        CompletableFuture<String> f2 = new CompletableFuture<>();
+        CompletableFuture<String> f3 = new CompletableFuture<>();
+        QuorumFuturesFactory.CompositeFuture<String> quorum =
+                QuorumFuturesFactory.getQuorumFuture(String::compareTo,
+                        new CompletableFuture[]{f1, f2, f3});
+        CompletableFuture<String> result = quorum.toCompletableFuture();
+        f1.complete("ok");
+        assertFalse(result.isDone());
+        f2.complete("ok");
+        // The quorum is reached without waiting for the third future
+        assertTrue(result.isDone());
+        assertEquals("ok", result.get());
+        assertFalse(quorum.isConflict());
+    }
+
+    @Test
+    public void testCompletableQuorumFailsWithoutHope() throws Exception {
+        CompletableFuture<String> f1 = new CompletableFuture<>();
+        CompletableFuture<String> f2 = new CompletableFuture<>();
+        CompletableFuture<String> f3 = new CompletableFuture<>();
+        QuorumFuturesFactory.CompositeFuture<String> quorum =
+                QuorumFuturesFactory.getQuorumFuture(String::compareTo,
+                        new CompletableFuture[]{f1, f2, f3});
+        CompletableFuture<String> result = quorum.toCompletableFuture();
+        f1.complete("a");
+        f2.completeExceptionally(new NullPointerException());
+        assertFalse(result.isDone());
+        f3.complete("b");
+        assertTrue(result.isDone());
+        assertTrue(quorum.isConflict());
+        assertTrue(quorum.containsThrowableFrom(NullPointerException.class));
+        try {
+            result.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof QuorumUnreachableException);
+        }
+    }
+
+    @Test
+    public void testCompletableQuorumFailsFast() throws Exception {
+        CompletableFuture<String> f1 = new CompletableFuture<>();
+        CompletableFuture<String> f2 = new CompletableFuture<>();
+        CompletableFuture<String> f3 = new CompletableFuture<>();
+        CompletableFuture<String> result =
+                QuorumFuturesFactory.getQuorumFuture(String::compareTo,
+                        new CompletableFuture[]{f1, f2, f3}, IllegalStateException.class)
+                        .toCompletableFuture();
+        f1.completeExceptionally(new IllegalStateException());
+        assertTrue(result.isDone());
+        try {
+            result.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package org.corfudb.runtime.view;
 
 import lombok.Getter;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
+import org.corfudb.protocols.wireprotocol.WriteRequest;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.MultiCheckpointWriter;
+import org.corfudb.runtime.clients.TestRule;
 import org.corfudb.runtime.collections.CorfuTable;
 import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.object.CorfuCompileProxy;
@@ -16,10 +20,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -95,6 +102,131 @@ public class StreamViewTest extends AbstractViewTest {
         assertThat(entries.size()).isEqualTo((firstIter / 2));
     }
 
+    @Test
+    public void canAppendBatchToStream() {
+        UUID streamA = UUID.nameUUIDFromBytes("stream A".getBytes());
+        UUID streamB = UUID.nameUUIDFromBytes("stream B".getBytes());
+
+        List<byte[]> payloads = new ArrayList<>();
+        for (int x = 0; x < PARAMETERS.NUM_ITERATIONS_LOW; x++) {
+            payloads.add(Integer.toString(x).getBytes());
+        }
+
+        final long tail = r.getSequencerView().query().getSequence();
+        List<Long> addresses = r.getStreamsView().appendAll(payloads, streamA, streamB);
+
+        // The batch is written to a single range of consecutive addresses
+        assertThat(addresses).hasSize(PARAMETERS.NUM_ITERATIONS_LOW);
+        for (int x = 0; x < addresses.size(); x++) {
+            assertThat(addresses.get(x)).isEqualTo(tail + 1 + x);
+        }
+
+        for (UUID stream : Arrays.asList(streamA, streamB)) {
+            IStreamView sv = r.getStreamsView().get(stream);
+            for (byte[] payload : payloads) {
+                assertThat(sv.next().getPayload(getRuntime())).isEqualTo(payload);
+            }
+            assertThat(sv.next()).isNull();
+        }
+    }
+
+    @Test
+    public void overwrittenBatchEntryIsAppendedAgain() {
+        UUID streamA = UUID.nameUUIDFromBytes("stream A".getBytes());
+        final List<byte[]> payloads = Arrays.asList(
+                "a".getBytes(), "b".getBytes(), "c".getBytes());
+
+        // Take the address the second entry of the batch will be given
+        final long tail = r.getSequencerView().query().getSequence();
+        final long overwritten = tail + 2;
+        r.getAddressSpaceView().write(new Token(r.getLayoutView().getLayout().getEpoch(),
+                overwritten), "x".getBytes());
+
+        List<Long> addresses = r.getStreamsView().appendAll(payloads, streamA);
+
+        assertThat(addresses.get(0)).isEqualTo(tail + 1);
+        assertThat(addresses.get(2)).isEqualTo(tail + 3);
+        assertThat(addresses.get(1)).isGreaterThan(tail + 3);
+        for (int x = 0; x < payloads.size(); x++) {
+            assertThat(r.getAddressSpaceView().read(addresses.get(x)).getPayload(r))
+                    .isEqualTo(payloads.get(x));
+        }
+        assertThat(r.getAddressSpaceView().read(overwritten).getPayload(r))
+                .isEqualTo("x".getBytes());
+    }
+
+    @Test
+    public void overwrittenBatchEntriesAreAppendedAgainInOrder() {
+        UUID streamA = UUID.nameUUIDFromBytes("stream A".getBytes());
+        final List<byte[]> payloads = Arrays.asList(
+                "a".getBytes(), "b".getBytes(), "c".getBytes(), "d".getBytes());
+
+        // Take the addresses the first and third entries of the batch will be given
+        final long tail = r.getSequencerView().query().getSequence();
+        final long epoch = r.getLayoutView().getLayout().getEpoch();
+        r.getAddressSpaceView().write(new Token(epoch, tail + 1), "x".getBytes());
+        r.getAddressSpaceView().write(new Token(epoch, tail + 3), "y".getBytes());
+
+        List<Long> addresses = r.getStreamsView().appendAll(payloads, streamA);
+
+        // The overwritten entries are appended after the range, in the order of the batch
+        final int first = 0;
+        final int third = 2;
+        assertThat(addresses.get(first)).isGreaterThan(tail + payloads.size());
+        assertThat(addresses.get(third)).isGreaterThan(addresses.get(first));
+        for (int x = 0; x < payloads.size(); x++) {
+            assertThat(r.getAddressSpaceView().read(addresses.get(x)).getPayload(r))
+                    .isEqualTo(payloads.get(x));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void batchIsAppendedAcrossEpochChange() throws Exception {
+        UUID streamA = UUID.nameUUIDFromBytes("stream A".getBytes());
+        final List<byte[]> payloads = Arrays.asList(
+                "a".getBytes(), "b".getBytes(), "c".getBytes(), "d".getBytes());
+
+        // Change the epoch when the write of the second entry of the batch is sent,
+        // with another runtime
+        final CorfuRuntime rt2 = getNewRuntime(getDefaultNode()).connect();
+        final long tail = r.getSequencerView().query().getSequence();
+        final AtomicBoolean epochChanged = new AtomicBoolean(false);
+        addClientRule(r, new TestRule()
+                .matches(msg -> msg.getMsgType() == CorfuMsgType.WRITE
+                        && ((CorfuPayloadMsg<WriteRequest>) msg).getPayload()
+                        .getGlobalAddress() == tail + 2
+                        && epochChanged.compareAndSet(false, true))
+                .transform(msg -> {
+                    Layout layout = rt2.getLayoutView().getLayout();
+                    Layout newLayout = new Layout(layout);
+                    newLayout.nextEpoch();
+                    try {
+                        rt2.getLayoutView().getRuntimeLayout(newLayout).sealMinServerSet();
+                        rt2.getLayoutView().updateLayout(newLayout, 1L);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    rt2.getLayoutManagementView().reconfigureSequencerServers(layout,
+                            newLayout, false);
+                    r.invalidateLayout();
+                }));
+
+        List<Long> addresses = r.getStreamsView().appendAll(payloads, streamA);
+        assertThat(epochChanged.get()).isTrue();
+
+        // Every entry is written once, whether its write landed before the epoch
+        // changed or it was appended again in the new epoch
+        assertThat(addresses).hasSize(payloads.size()).doesNotHaveDuplicates();
+        for (int x = 0; x < payloads.size(); x++) {
+            assertThat(r.getAddressSpaceView().read(addresses.get(x)).getPayload(r))
+                    .isEqualTo(payloads.get(x));
+        }
+        IStreamView sv = r.getStreamsView().get(streamA);
+        List<ILogData> entries = sv.remainingUpTo(Long.MAX_VALUE);
+        assertThat(entries).hasSize(payloads.size());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void canReadWriteFromStreamConcurrent()
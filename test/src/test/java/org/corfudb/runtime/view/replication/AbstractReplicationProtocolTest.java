@@ -12,6 +12,11 @@ import org.corfudb.runtime.view.RuntimeLayout;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -109,4 +114,53 @@ public abstract class AbstractReplicationProtocolTest extends AbstractViewTest {
         assertThatThrownBy(() -> rp.write(runtimeLayout, d2))
                 .isInstanceOf(OverwriteException.class);
     }
+
+    /** Check that many asynchronous writes can be in flight at once,
+     * and that each of them can be read once it completes.
+     */
+    @Test
+    public void canWriteAsyncRead()
+            throws Exception {
+        setupNodes();
+
+        //begin tests
+        final CorfuRuntime r = getDefaultRuntime();
+        final IReplicationProtocol rp = getProtocol();
+        final RuntimeLayout runtimeLayout = r.getLayoutView().getRuntimeLayout();
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int x = 0; x < PARAMETERS.NUM_ITERATIONS_LOW; x++) {
+            writes.add(rp.writeAsync(runtimeLayout, getLogData(x, Integer.toString(x).getBytes())));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[writes.size()])).join();
+
+        for (int x = 0; x < PARAMETERS.NUM_ITERATIONS_LOW; x++) {
+            ILogData read = rp.read(runtimeLayout, x);
+            assertThat(read.getType())
+                    .isEqualTo(DataType.DATA);
+            assertThat(read.getPayload(r))
+                    .isEqualTo(Integer.toString(x).getBytes());
+        }
+    }
+
+    /** Check to make sure that an asynchronous write which overwrites a
+     * previously written entry completes with an OverwriteException.
+     */
+    @Test
+    public void overwriteAsyncCompletesExceptionally()
+            throws Exception {
+        setupNodes();
+
+        //begin tests
+        final CorfuRuntime r = getDefaultRuntime();
+        final IReplicationProtocol rp = getProtocol();
+        final RuntimeLayout runtimeLayout = r.getLayoutView().getRuntimeLayout();
+
+        LogData d1 = getLogData(0, "1".getBytes());
+        LogData d2 = getLogData(0, "2".getBytes());
+        rp.writeAsync(runtimeLayout, d1).join();
+        assertThatThrownBy(() -> rp.writeAsync(runtimeLayout, d2).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(OverwriteException.class);
+    }
 }
@@ -0,0 +1,85 @@
+package org.corfudb.runtime.view.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.junit.Test;
+
+/**
+ * Tests the adaptive read-ahead of the AddressMapStreamView.
+ */
+public class AddressMapStreamViewTest extends AbstractViewTest {
+
+    private static final int BATCH_SIZE = 4;
+    private static final int MAX_READ_AHEAD = 32;
+
+    private AddressMapStreamView newStreamView(CorfuRuntime runtime, int numEntries) {
+        runtime.getParameters().setStreamBatchSize(BATCH_SIZE);
+        runtime.getParameters().setStreamReadAheadMaxSize(MAX_READ_AHEAD);
+
+        UUID streamId = CorfuRuntime.getStreamID("streamA");
+        AddressMapStreamView sv = new AddressMapStreamView(runtime, streamId);
+        for (int i = 0; i < numEntries; i++) {
+            sv.append(String.valueOf(i).getBytes());
+        }
+
+        // Entries are cached on write, make sure they are read from the log units
+        runtime.getAddressSpaceView().invalidateClientCache();
+        return sv;
+    }
+
+    /**
+     * The read-ahead window grows while the stream is read sequentially, and the
+     * entries are read ahead of the consumer.
+     */
+    @Test
+    public void readAheadGrowsOnSequentialReads() {
+        CorfuRuntime runtime = getDefaultRuntime();
+        AddressMapStreamView sv = newStreamView(runtime, PARAMETERS.NUM_ITERATIONS_MODERATE);
+
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_MODERATE; i++) {
+            byte[] payload = (byte[]) sv.next().getPayload(runtime);
+            assertThat(new String(payload)).isEqualTo(String.valueOf(i));
+        }
+        assertThat(sv.next()).isNull();
+
+        StreamReadAhead readAhead = sv.getCurrentContext().readAhead;
+        assertThat(readAhead.getWindow()).isEqualTo(MAX_READ_AHEAD);
+        assertThat(readAhead.getMisses()).isEqualTo(1);
+        assertThat(sv.getReadAheadHitRate()).isGreaterThan(0.5);
+        assertThat(sv.getReadAheadWaste()).isZero();
+    }
+
+    /**
+     * Seeks shrink the read-ahead window, and the prefetched entries which are skipped
+     * are wasted.
+     */
+    @Test
+    public void readAheadShrinksOnRandomAccess() {
+        CorfuRuntime runtime = getDefaultRuntime();
+        AddressMapStreamView sv = newStreamView(runtime, PARAMETERS.NUM_ITERATIONS_LOW);
+        StreamReadAhead readAhead;
+
+        // Reading the first two entries grows the window
+        sv.next();
+        sv.next();
+        readAhead = sv.getCurrentContext().readAhead;
+        assertThat(readAhead.getWindow()).isEqualTo(BATCH_SIZE * 2);
+
+        // Seeking backwards resets the window
+        sv.seek(0L);
+        assertThat(readAhead.getWindow()).isEqualTo(BATCH_SIZE);
+        assertThat(sv.next().getGlobalAddress()).isEqualTo(0L);
+        sv.next();
+
+        // Seeking forward skips the prefetched entries
+        final long skipTo = PARAMETERS.NUM_ITERATIONS_LOW - 1;
+        sv.seek(skipTo);
+        assertThat(readAhead.getWindow()).isEqualTo(BATCH_SIZE);
+        assertThat(sv.getReadAheadWaste()).isGreaterThan(0L);
+        assertThat(sv.next().getGlobalAddress()).isEqualTo(skipTo);
+    }
+}
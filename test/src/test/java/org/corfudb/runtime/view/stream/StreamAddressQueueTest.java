@@ -0,0 +1,189 @@
+package org.corfudb.runtime.view.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.runtime.view.Address;
+import org.junit.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Tests the primitive address queues of the stream contexts.
+ */
+public class StreamAddressQueueTest extends AbstractCorfuTest {
+
+    private static final int STREAM_SIZE = 10_000_000;
+
+    private static final long MAX_BYTES_PER_ADDRESS = 10L;
+
+    private static StreamAddressQueue queueOf(long... addresses) {
+        StreamAddressQueue queue = new StreamAddressQueue();
+        for (long address : addresses) {
+            queue.add(address);
+        }
+        return queue;
+    }
+
+    private static List<Long> toList(StreamAddressQueue queue) {
+        List<Long> addresses = new ArrayList<>();
+        queue.forEach(Long.MIN_VALUE, Long.MAX_VALUE, addresses::add);
+        return addresses;
+    }
+
+    @Test
+    public void addressesAreSortedAndUnique() {
+        final long[] addresses = {5L, 1L, 9L, 3L, 7L, 3L, 9L};
+        StreamAddressQueue queue = queueOf(addresses);
+
+        assertThat(toList(queue)).containsExactly(1L, 3L, 5L, 7L, 9L);
+        assertThat(queue.add(5L)).isFalse();
+        assertThat(queue.first()).isEqualTo(1L);
+        assertThat(queue.last()).isEqualTo(9L);
+        assertThat(queue.get(2)).isEqualTo(5L);
+        assertThat(queue.contains(7L)).isTrue();
+        assertThat(queue.contains(8L)).isFalse();
+
+        assertThat(queue.pollFirst()).isEqualTo(1L);
+        assertThat(queue.remove(7L)).isTrue();
+        assertThat(queue.remove(7L)).isFalse();
+        assertThat(toList(queue)).containsExactly(3L, 5L, 9L);
+    }
+
+    @Test
+    public void lookupsReturnNonAddressWhenMissing() {
+        final long[] addresses = {2L, 4L, 6L};
+        StreamAddressQueue queue = queueOf(addresses);
+
+        assertThat(queue.ceiling(4L)).isEqualTo(4L);
+        assertThat(queue.ceiling(5L)).isEqualTo(6L);
+        assertThat(queue.ceiling(7L)).isEqualTo(Address.NON_ADDRESS);
+        assertThat(queue.higher(4L)).isEqualTo(6L);
+        assertThat(queue.higher(6L)).isEqualTo(Address.NON_ADDRESS);
+        assertThat(queue.floor(5L)).isEqualTo(4L);
+        assertThat(queue.floor(1L)).isEqualTo(Address.NON_ADDRESS);
+        assertThat(queue.lower(4L)).isEqualTo(2L);
+        assertThat(queue.lower(2L)).isEqualTo(Address.NON_ADDRESS);
+    }
+
+    @Test
+    public void emptyQueue() {
+        StreamAddressQueue queue = new StreamAddressQueue();
+
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.ceiling(0L)).isEqualTo(Address.NON_ADDRESS);
+        assertThat(queue.lower(Address.MAX)).isEqualTo(Address.NON_ADDRESS);
+        assertThatThrownBy(queue::first).isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(queue::pollFirst).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    public void removeAndCopyRanges() {
+        StreamAddressQueue queue = new StreamAddressQueue();
+        for (long address = 0; address < PARAMETERS.NUM_ITERATIONS_LOW; address++) {
+            queue.add(address);
+        }
+
+        final long low = 10L;
+        final long high = 20L;
+        StreamAddressQueue copy = new StreamAddressQueue();
+        copy.addAll(queue, low, high);
+        assertThat(copy.size()).isEqualTo((int) (high - low + 1));
+        assertThat(copy.first()).isEqualTo(low);
+        assertThat(copy.last()).isEqualTo(high);
+
+        // Copied addresses which precede the addresses of the queue are merged
+        copy.addAll(queue, 0L, low);
+        assertThat(toList(copy)).hasSize((int) high + 1).isSorted();
+
+        copy.removeLowerThan(low);
+        assertThat(copy.first()).isEqualTo(low);
+        copy.removeUpTo(low);
+        assertThat(copy.first()).isEqualTo(low + 1);
+        copy.removeUpTo(Address.MAX);
+        assertThat(copy.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void mergedAddressesAreSortedAndUnique() {
+        StreamAddressQueue first = queueOf(1L, 4L, 6L, 9L);
+        StreamAddressQueue second = queueOf(2L, 4L, 5L, 9L, 12L);
+        first.pollFirst();
+
+        List<Long> merged = new ArrayList<>();
+        StreamAddressQueue.forEachMerged(first, Address.MAX, second, 9L, merged::add);
+        assertThat(merged).containsExactly(2L, 4L, 5L, 6L, 9L);
+
+        merged.clear();
+        StreamAddressQueue.forEachMerged(new StreamAddressQueue(), Address.MAX, second, 4L, merged::add);
+        assertThat(merged).containsExactly(2L, 4L);
+    }
+
+    @Test
+    public void polledAddressesAreCompacted() {
+        StreamAddressQueue queue = new StreamAddressQueue();
+        for (long address = 0; address < PARAMETERS.NUM_ITERATIONS_LOW; address++) {
+            queue.add(address);
+        }
+        final int capacity = queue.capacity();
+
+        // Polling and adding the same number of addresses reuses the polled slots
+        for (long address = PARAMETERS.NUM_ITERATIONS_LOW;
+             address < PARAMETERS.NUM_ITERATIONS_LOW * 2; address++) {
+            queue.pollFirst();
+            queue.add(address);
+        }
+        assertThat(queue.size()).isEqualTo(PARAMETERS.NUM_ITERATIONS_LOW);
+        assertThat(queue.capacity()).isLessThanOrEqualTo(capacity * 2);
+        assertThat(queue.first()).isEqualTo((long) PARAMETERS.NUM_ITERATIONS_LOW);
+    }
+
+    @Test
+    public void copyAddressesToQueueStopsAtMaxGlobal() {
+        final long maxGlobal = 50L;
+        Roaring64NavigableMap addressMap = new Roaring64NavigableMap();
+        for (long address = 0; address < PARAMETERS.NUM_ITERATIONS_LOW; address++) {
+            addressMap.addLong(address);
+        }
+        StreamAddressSpace addressSpace = new StreamAddressSpace(Address.NON_ADDRESS, addressMap);
+
+        StreamAddressQueue queue = new StreamAddressQueue();
+        addressSpace.copyAddressesToQueue(queue, maxGlobal);
+        assertThat(queue.size()).isEqualTo((int) maxGlobal + 1);
+        assertThat(queue.last()).isEqualTo(maxGlobal);
+        assertThat(queue.capacity()).isEqualTo(queue.size());
+    }
+
+    /**
+     * Measures the memory allocated to sync the address map of a 10M entry stream
+     * into a read queue, which should hold little more than the primitive addresses.
+     */
+    @Test
+    public void syncLargeStreamAllocation() {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+
+        Roaring64NavigableMap addressMap = new Roaring64NavigableMap();
+        // Every other address belongs to the stream
+        for (long address = 0; address < STREAM_SIZE; address++) {
+            addressMap.addLong(address * 2);
+        }
+        StreamAddressSpace addressSpace = new StreamAddressSpace(Address.NON_ADDRESS, addressMap);
+
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        StreamAddressQueue queue = new StreamAddressQueue();
+        addressSpace.copyAddressesToQueue(queue, Address.MAX);
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertThat(queue.size()).isEqualTo(STREAM_SIZE);
+        assertThat(allocated / STREAM_SIZE).isLessThanOrEqualTo(MAX_BYTES_PER_ADDRESS);
+    }
+}
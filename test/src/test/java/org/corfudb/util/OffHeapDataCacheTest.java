@@ -0,0 +1,136 @@
+package org.corfudb.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import org.corfudb.AbstractCorfuTest;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.junit.Test;
+
+public class OffHeapDataCacheTest extends AbstractCorfuTest {
+
+    private static final int PAYLOAD_SIZE = 1000;
+    private static final int NUM_ENTRIES = 10;
+
+    private static final String METRICS_PREFIX = "offheap-cache.";
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    private OffHeapDataCache newCache(long maxSize) {
+        return new OffHeapDataCache(maxSize, METRICS_PREFIX, UnpooledByteBufAllocator.DEFAULT, metrics);
+    }
+
+    private LogData newLogData(long address) {
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        payload[0] = (byte) address;
+        LogData logData = new LogData(DataType.DATA, Unpooled.wrappedBuffer(payload));
+        logData.setGlobalAddress(address);
+        logData.setBackpointerMap(Collections.singletonMap(new UUID(0, address), address - 1));
+        return logData;
+    }
+
+    @Test
+    public void testPutAndGet() {
+        OffHeapDataCache cache = newCache(PAYLOAD_SIZE * NUM_ENTRIES * 2);
+        LogData logData = newLogData(1);
+
+        assertThat(cache.get(1)).isNull();
+        cache.put(1, logData);
+
+        ILogData cached = cache.get(1);
+        assertThat(cached.getGlobalAddress()).isEqualTo(logData.getGlobalAddress());
+        assertThat(cached.getBackpointerMap()).isEqualTo(logData.getBackpointerMap());
+        assertThat(((LogData) cached).getData()).isEqualTo(logData.getData());
+        assertThat(cache.getSize()).isGreaterThan(PAYLOAD_SIZE);
+
+        assertThat(metrics.meter(METRICS_PREFIX + OffHeapDataCache.HITS_METRIC).getCount())
+                .isEqualTo(1);
+        assertThat(metrics.meter(METRICS_PREFIX + OffHeapDataCache.MISSES_METRIC).getCount())
+                .isEqualTo(1);
+        assertThat(metrics.counter(METRICS_PREFIX + OffHeapDataCache.BYTES_METRIC).getCount())
+                .isEqualTo(cache.getSize());
+
+        // Replacing an entry doesn't change the size of the cache
+        long size = cache.getSize();
+        cache.put(1, newLogData(1));
+        assertThat(cache.getNumEntries()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(size);
+
+        cache.invalidate(1);
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.getSize()).isZero();
+        assertThat(metrics.counter(METRICS_PREFIX + OffHeapDataCache.BYTES_METRIC).getCount()).isZero();
+    }
+
+    /**
+     * Test that entries are evicted once the cache is full, and that the evicted entries
+     * are accounted for.
+     */
+    @Test
+    public void testEviction() {
+        OffHeapDataCache cache = newCache(PAYLOAD_SIZE * NUM_ENTRIES * 2);
+        for (long address = 0; address < NUM_ENTRIES; address++) {
+            cache.put(address, newLogData(address));
+        }
+        final long entrySize = cache.getSize() / NUM_ENTRIES;
+        cache.close();
+
+        cache = newCache(entrySize * NUM_ENTRIES);
+        for (long address = 0; address < NUM_ENTRIES; address++) {
+            cache.put(address, newLogData(address));
+        }
+        assertThat(cache.getNumEntries()).isEqualTo(NUM_ENTRIES);
+
+        final long numPuts = NUM_ENTRIES * 2;
+        for (long address = NUM_ENTRIES; address < numPuts; address++) {
+            cache.put(address, newLogData(address));
+        }
+
+        assertThat(cache.getNumEntries()).isLessThanOrEqualTo(NUM_ENTRIES);
+        assertThat(cache.getSize()).isLessThanOrEqualTo(cache.getMaxSize());
+        assertThat(cache.getSize()).isEqualTo(cache.getNumEntries() * entrySize);
+        assertThat(metrics.meter(METRICS_PREFIX + OffHeapDataCache.EVICTIONS_METRIC).getCount())
+                .isEqualTo(numPuts - cache.getNumEntries());
+        assertThat(metrics.counter(METRICS_PREFIX + OffHeapDataCache.BYTES_METRIC).getCount())
+                .isEqualTo(cache.getSize());
+
+        cache.invalidateAll();
+        assertThat(cache.getNumEntries()).isZero();
+        assertThat(cache.getSize()).isZero();
+    }
+
+    /**
+     * Test that invalidating a range of addresses only removes the entries below it.
+     */
+    @Test
+    public void testInvalidateBelow() {
+        OffHeapDataCache cache = newCache(PAYLOAD_SIZE * NUM_ENTRIES * 2);
+        for (long address = 0; address < NUM_ENTRIES; address++) {
+            cache.put(address, newLogData(address));
+        }
+
+        final long trimMark = NUM_ENTRIES / 2;
+        cache.invalidateBelow(trimMark);
+        assertThat(cache.getNumEntries()).isEqualTo(NUM_ENTRIES - trimMark);
+        assertThat(cache.contains(trimMark - 1)).isFalse();
+        assertThat(cache.contains(trimMark)).isTrue();
+        assertThat(metrics.counter(METRICS_PREFIX + OffHeapDataCache.BYTES_METRIC).getCount())
+                .isEqualTo(cache.getSize());
+    }
+
+    @Test
+    public void testEntryLargerThanCache() {
+        OffHeapDataCache cache = newCache(PAYLOAD_SIZE / 2);
+        cache.put(0, newLogData(0));
+        assertThat(cache.contains(0)).isFalse();
+        assertThat(cache.getSize()).isZero();
+    }
+}